@@ -0,0 +1,282 @@
+package masera.deviajebookingsandpayments.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import masera.deviajebookingsandpayments.dtos.BookFlightAndPayRequest;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.entities.FlightBookingEntity;
+import masera.deviajebookingsandpayments.entities.HotelBookingEntity;
+import masera.deviajebookingsandpayments.entities.PaymentEntity;
+import masera.deviajebookingsandpayments.utils.VoucherPdfOutput;
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * Datos sintéticos para los benchmarks: reservas con sus vuelos, hoteles y pagos, y
+ * repositorios en memoria que devuelven esas listas desde findAll y findById.
+ * El JSON de itinerarios y pasajeros se genera con la plantilla de la prueba de carga,
+ * igual que lo guarda FlightBookingServiceImpl.
+ */
+public final class BenchmarkFixtures {
+
+  private static final String[] AIRPORTS = {"EZE", "COR", "MAD", "MIA", "GRU", "SCL", "JFK"};
+
+  private static final String[] CARRIERS = {"AR", "LA", "IB", "AA", "UX"};
+
+  private static final String[] DESTINATIONS = {"Madrid", "Miami", "Río de Janeiro",
+      "Bariloche", "Santiago", "Cancún", "Roma"};
+
+  private static final String[] METHODS = {"CREDIT_CARD", "DEBIT_CARD", "MERCADO_PAGO"};
+
+  private BenchmarkFixtures() {
+  }
+
+  /**
+   * Reservas sintéticas con sus relaciones.
+   *
+   * @param bookings reservas
+   * @param flights vuelos de las reservas de vuelo y paquete
+   * @param hotels hoteles de las reservas de hotel y paquete
+   * @param payments pagos de todas las reservas
+   */
+  public record Dataset(List<BookingEntity> bookings,
+                        List<FlightBookingEntity> flights,
+                        List<HotelBookingEntity> hotels,
+                        List<PaymentEntity> payments) {}
+
+  /**
+   * Genera reservas repartidas en el último año. Con la misma semilla el resultado es
+   * siempre el mismo, para que las corridas sean comparables.
+   *
+   * @param count cantidad de reservas
+   * @param seed semilla del generador
+   * @return las reservas y sus relaciones
+   */
+  public static Dataset dataset(int count, long seed) {
+    Random random = new Random(seed);
+    String itineraries = itinerariesJson();
+    String travelers = travelersJson();
+    LocalDateTime now = LocalDateTime.of(2025, 6, 30, 12, 0);
+
+    List<BookingEntity> bookings = new ArrayList<>(count);
+    List<FlightBookingEntity> flights = new ArrayList<>();
+    List<HotelBookingEntity> hotels = new ArrayList<>();
+    List<PaymentEntity> payments = new ArrayList<>(count);
+
+    for (int i = 0; i < count; i++) {
+      BookingEntity.BookingType type = BookingEntity.BookingType.values()[random.nextInt(3)];
+      BigDecimal total = BigDecimal.valueOf(50_000 + random.nextInt(2_000_000), 2);
+      LocalDateTime created = now.minusMinutes(random.nextInt(365 * 24 * 60));
+
+      BookingEntity booking = BookingEntity.builder()
+              .id((long) i + 1)
+              .bookingReference(String.format("DV-%08d", i + 1))
+              .clientId(1 + random.nextInt(500))
+              .agentId(1 + random.nextInt(20))
+              .status(random.nextInt(10) == 0
+                      ? BookingEntity.BookingStatus.CANCELLED
+                      : BookingEntity.BookingStatus.CONFIRMED)
+              .type(type)
+              .totalAmount(total)
+              .commission(total.multiply(new BigDecimal("0.10")))
+              .discount(BigDecimal.ZERO)
+              .taxes(total.multiply(new BigDecimal("0.21")))
+              .currency("ARS")
+              .holderName("Juan Pérez")
+              .countryCallingCode("54")
+              .phone("3511234567")
+              .email("juan.perez@example.com")
+              .isSent(true)
+              .createdDatetime(created)
+              .stage(BookingEntity.BookingStage.FINALIZED)
+              .flightBookingEntities(new ArrayList<>())
+              .hotelBookingEntities(new ArrayList<>())
+              .paymentEntities(new ArrayList<>())
+              .build();
+
+      if (type != BookingEntity.BookingType.HOTEL) {
+        FlightBookingEntity flight = flight(random, booking, itineraries, travelers);
+        booking.getFlightBookingEntities().add(flight);
+        flights.add(flight);
+      }
+      if (type != BookingEntity.BookingType.FLIGHT) {
+        HotelBookingEntity hotel = hotel(random, booking);
+        booking.getHotelBookingEntities().add(hotel);
+        hotels.add(hotel);
+      }
+
+      PaymentEntity payment = PaymentEntity.builder()
+              .id((long) i + 1)
+              .bookingEntity(booking)
+              .type("PAYMENT")
+              .amount(total)
+              .currency("ARS")
+              .method(METHODS[random.nextInt(METHODS.length)])
+              .paymentProvider("MERCADO_PAGO")
+              .externalPaymentId(String.valueOf(10_000_000_000L + i))
+              .status(PaymentEntity.PaymentStatus.APPROVED)
+              .date(created)
+              .build();
+      booking.getPaymentEntities().add(payment);
+      payments.add(payment);
+      bookings.add(booking);
+    }
+    return new Dataset(bookings, flights, hotels, payments);
+  }
+
+  /**
+   * Repositorio en memoria que responde findAll y findById con las filas dadas.
+   * Cualquier otro método lanza UnsupportedOperationException.
+   *
+   * @param type interfaz del repositorio
+   * @param rows filas del repositorio
+   * @param idOf obtiene el ID de una fila
+   * @param <R> tipo del repositorio
+   * @param <E> tipo de la entidad
+   * @return el repositorio
+   */
+  public static <R, E> R repository(Class<R> type, List<E> rows,
+                                    Function<E, Long> idOf) {
+    Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+            (instance, method, args) -> switch (method.getName()) {
+              case "findAll" -> {
+                if (args != null && args.length > 0) {
+                  throw new UnsupportedOperationException(method.toString());
+                }
+                yield rows;
+              }
+              case "findById" -> rows.stream()
+                      .filter(row -> idOf.apply(row).equals(args[0]))
+                      .findFirst();
+              case "toString" -> type.getSimpleName() + " en memoria";
+              case "hashCode" -> System.identityHashCode(instance);
+              case "equals" -> instance == args[0];
+              default -> throw new UnsupportedOperationException(method.toString());
+            });
+    return type.cast(proxy);
+  }
+
+  /**
+   * Configuración de salida de vouchers con los valores por defecto de la aplicación.
+   *
+   * @return la configuración de salida
+   */
+  public static VoucherPdfOutput voucherPdfOutput() {
+    return new VoucherPdfOutput(new SimpleMeterRegistry(), 9, true, true, 150);
+  }
+
+  /**
+   * Solicitud de reserva de vuelo de la prueba de carga, con fechas fijas.
+   *
+   * @return la solicitud
+   */
+  public static BookFlightAndPayRequest flightRequest() {
+    String json = read("loadtest/flight-book-and-pay.json")
+            .replace("{{clientId}}", "1")
+            .replace("{{departureDate}}", "2025-09-15")
+            .replace("{{arrivalDate}}", "2025-09-16")
+            .replace("{{uuid}}", "00000000-0000-0000-0000-000000000000");
+    try {
+      return new ObjectMapper().readValue(json, BookFlightAndPayRequest.class);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Plantilla de vuelo inválida", e);
+    }
+  }
+
+  /**
+   * JSON de itinerarios tal como se guarda en flights_bookings.itineraries.
+   *
+   * @return el JSON de itinerarios
+   */
+  public static String itinerariesJson() {
+    return write(flightRequest().getBookingRequest().getFlightOffer().getItineraries());
+  }
+
+  /**
+   * JSON de pasajeros tal como se guarda en flights_bookings.travelers.
+   *
+   * @return el JSON de pasajeros
+   */
+  public static String travelersJson() {
+    return write(flightRequest().getBookingRequest().getTravelers());
+  }
+
+  private static FlightBookingEntity flight(Random random, BookingEntity booking,
+                                            String itineraries, String travelers) {
+    LocalDate departure = booking.getCreatedDatetime().toLocalDate()
+            .plusDays(15 + random.nextInt(90));
+    return FlightBookingEntity.builder()
+            .id(booking.getId())
+            .bookingEntity(booking)
+            .externalId("eJzTd9f3NQ" + booking.getId())
+            .origin(AIRPORTS[random.nextInt(AIRPORTS.length)])
+            .destination(AIRPORTS[random.nextInt(AIRPORTS.length)])
+            .departureDate(departure.atTime(23, 35).toString())
+            .returnDate(random.nextBoolean()
+                    ? departure.plusDays(10).atTime(12, 50).toString() : null)
+            .carrier(CARRIERS[random.nextInt(CARRIERS.length)])
+            .adults(1 + random.nextInt(3))
+            .children(random.nextInt(2))
+            .infants(0)
+            .itineraries(itineraries)
+            .travelers(travelers)
+            .totalPrice(booking.getTotalAmount())
+            .taxes(booking.getTaxes())
+            .currency("USD")
+            .createdDatetime(booking.getCreatedDatetime())
+            .build();
+  }
+
+  private static HotelBookingEntity hotel(Random random, BookingEntity booking) {
+    LocalDate checkIn = booking.getCreatedDatetime().toLocalDate()
+            .plusDays(15 + random.nextInt(90));
+    int nights = 1 + random.nextInt(10);
+    return HotelBookingEntity.builder()
+            .id(booking.getId())
+            .bookingEntity(booking)
+            .externalId("1-" + (3_800_000 + booking.getId()))
+            .hotelName("Hotel Benchmark " + random.nextInt(200))
+            .destinationName(DESTINATIONS[random.nextInt(DESTINATIONS.length)])
+            .countryName("España")
+            .roomName("DOUBLE STANDARD")
+            .boardName("ROOM ONLY")
+            .checkInDate(checkIn)
+            .checkOutDate(checkIn.plusDays(nights))
+            .numberOfNights(nights)
+            .numberOfRooms(1)
+            .adults(2)
+            .children(0)
+            .totalPrice(booking.getTotalAmount())
+            .taxes(booking.getTaxes())
+            .currency("EUR")
+            .createdDatetime(booking.getCreatedDatetime())
+            .build();
+  }
+
+  private static String write(Object value) {
+    try {
+      return new ObjectMapper().writeValueAsString(value);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("No se pudo serializar " + value, e);
+    }
+  }
+
+  private static String read(String path) {
+    try {
+      return new ClassPathResource(path).getContentAsString(StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException("No se pudo leer " + path, e);
+    }
+  }
+}
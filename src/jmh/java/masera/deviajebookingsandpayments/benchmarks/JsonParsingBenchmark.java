@@ -0,0 +1,57 @@
+package masera.deviajebookingsandpayments.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import masera.deviajebookingsandpayments.configs.MappersConfig;
+import masera.deviajebookingsandpayments.dtos.bookings.flights.ItineraryDto;
+import masera.deviajebookingsandpayments.dtos.bookings.travelers.TravelerDto;
+import masera.deviajebookingsandpayments.utils.JsonCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lectura del JSON de itinerarios y pasajeros guardado en flights_bookings con
+ * JsonCodec, como en los detalles de reserva y el voucher de vuelo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonParsingBenchmark {
+
+  private JsonCodec jsonCodec;
+
+  private String itineraries;
+
+  private String travelers;
+
+  /**
+   * Prepara el codec con el ObjectMapper de la aplicación y el JSON guardado.
+   */
+  @Setup
+  public void setUp() {
+    jsonCodec = new JsonCodec(new MappersConfig().objectMapper());
+    itineraries = BenchmarkFixtures.itinerariesJson();
+    travelers = BenchmarkFixtures.travelersJson();
+  }
+
+  @Benchmark
+  public List<ItineraryDto> parseItineraries() throws Exception {
+    return jsonCodec.readItineraries(itineraries);
+  }
+
+  @Benchmark
+  public List<TravelerDto> parseTravelers() throws Exception {
+    return jsonCodec.readTravelers(travelers);
+  }
+}
@@ -0,0 +1,75 @@
+package masera.deviajebookingsandpayments.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import masera.deviajebookingsandpayments.configs.MappersConfig;
+import masera.deviajebookingsandpayments.dtos.responses.BookingResponseDto;
+import masera.deviajebookingsandpayments.dtos.responses.FlightBookingDetailsDto;
+import masera.deviajebookingsandpayments.dtos.responses.HotelBookingDetailsDto;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.entities.FlightBookingEntity;
+import masera.deviajebookingsandpayments.entities.HotelBookingEntity;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mapeos de ModelMapper de MappersConfig que usan los servicios de vuelos y hoteles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelMapperBenchmark {
+
+  private ModelMapper modelMapper;
+
+  private BookingEntity booking;
+
+  private FlightBookingEntity flight;
+
+  private HotelBookingEntity hotel;
+
+  /**
+   * Prepara el ModelMapper de la aplicación y una reserva de paquete.
+   */
+  @Setup
+  public void setUp() {
+    modelMapper = new MappersConfig().modelMapper();
+    booking = BenchmarkFixtures.dataset(50, 42).bookings().stream()
+            .filter(b -> b.getType() == BookingEntity.BookingType.PACKAGE)
+            .findFirst()
+            .orElseThrow();
+    flight = booking.getFlightBookingEntities().getFirst();
+    hotel = booking.getHotelBookingEntities().getFirst();
+
+    // La primera llamada arma el TypeMap; se mide el mapeo ya configurado
+    mapBooking();
+    mapFlight();
+    mapHotel();
+  }
+
+  @Benchmark
+  public BookingResponseDto mapBooking() {
+    return modelMapper.map(booking, BookingResponseDto.class);
+  }
+
+  @Benchmark
+  public FlightBookingDetailsDto mapFlight() {
+    return modelMapper.map(flight, FlightBookingDetailsDto.class);
+  }
+
+  @Benchmark
+  public HotelBookingDetailsDto mapHotel() {
+    return modelMapper.map(hotel, HotelBookingDetailsDto.class);
+  }
+}
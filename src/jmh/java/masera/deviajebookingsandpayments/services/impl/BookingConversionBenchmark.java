@@ -0,0 +1,86 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import masera.deviajebookingsandpayments.benchmarks.BenchmarkFixtures;
+import masera.deviajebookingsandpayments.clients.UserClient;
+import masera.deviajebookingsandpayments.configs.MappersConfig;
+import masera.deviajebookingsandpayments.dtos.additional.UserBasicInfoDto;
+import masera.deviajebookingsandpayments.dtos.responses.BookingResponseDto;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.repositories.BookingRepository;
+import masera.deviajebookingsandpayments.utils.JsonCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Mono;
+
+/**
+ * Conversión de reservas a BookingResponseDto a través de getBookingById y getAllBookings,
+ * como en el detalle y los listados de reservas. El repositorio y el servicio de usuarios
+ * responden en memoria, así que se mide el armado del DTO y el costo fijo de resolver
+ * cliente y agente con block().
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingConversionBenchmark {
+
+  private BookingServiceImpl bookingService;
+
+  private Long firstBookingId;
+
+  /**
+   * Arma el servicio con un repositorio de reservas y un cliente de usuarios en memoria.
+   */
+  @Setup
+  public void setUp() {
+    List<BookingEntity> bookings = BenchmarkFixtures.dataset(100, 42).bookings();
+    firstBookingId = bookings.getFirst().getId();
+    bookingService = new BookingServiceImpl(
+            BenchmarkFixtures.repository(BookingRepository.class, bookings, BookingEntity::getId),
+            null, new InMemoryUserClient(),
+            null, null, null, new JsonCodec(new MappersConfig().objectMapper()), null);
+  }
+
+  @Benchmark
+  public BookingResponseDto convertOne() {
+    return bookingService.getBookingById(firstBookingId);
+  }
+
+  @Benchmark
+  public List<BookingResponseDto> convertPage() {
+    return bookingService.getAllBookings(null, null, null, null);
+  }
+
+  /**
+   * Cliente de usuarios que responde sin red.
+   */
+  private static final class InMemoryUserClient extends UserClient {
+
+    private InMemoryUserClient() {
+      super(null, null, null);
+    }
+
+    @Override
+    public Mono<UserBasicInfoDto> getUserBasicInfo(Integer userId) {
+      return Mono.just(UserBasicInfoDto.builder()
+              .id(userId)
+              .username("usuario" + userId)
+              .firstName("Usuario")
+              .lastName(String.valueOf(userId))
+              .email("usuario" + userId + "@example.com")
+              .build());
+    }
+  }
+}
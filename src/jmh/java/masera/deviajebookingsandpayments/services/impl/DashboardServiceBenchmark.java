@@ -0,0 +1,101 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import masera.deviajebookingsandpayments.benchmarks.BenchmarkFixtures;
+import masera.deviajebookingsandpayments.dtos.dashboards.DashboardDtos;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.entities.FlightBookingEntity;
+import masera.deviajebookingsandpayments.entities.HotelBookingEntity;
+import masera.deviajebookingsandpayments.entities.PaymentEntity;
+import masera.deviajebookingsandpayments.repositories.BookingRepository;
+import masera.deviajebookingsandpayments.repositories.FlightBookingRepository;
+import masera.deviajebookingsandpayments.repositories.HotelBookingRepository;
+import masera.deviajebookingsandpayments.repositories.PaymentRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Agregaciones del dashboard sobre reservas en memoria, sin base de datos, para medir
+ * solo el costo de filtrar, agrupar y sumar en DashboardServiceImpl.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DashboardServiceBenchmark {
+
+  @Param({"1000", "10000"})
+  private int bookings;
+
+  private DashboardServiceImpl dashboardService;
+
+  private LocalDateTime start;
+
+  private LocalDateTime end;
+
+  /**
+   * Genera las reservas y arma el servicio con repositorios en memoria.
+   */
+  @Setup
+  public void setUp() {
+    BenchmarkFixtures.Dataset dataset = BenchmarkFixtures.dataset(bookings, 42);
+    dashboardService = new DashboardServiceImpl(
+            BenchmarkFixtures.repository(BookingRepository.class,
+                    dataset.bookings(), BookingEntity::getId),
+            BenchmarkFixtures.repository(PaymentRepository.class,
+                    dataset.payments(), PaymentEntity::getId),
+            BenchmarkFixtures.repository(FlightBookingRepository.class,
+                    dataset.flights(), FlightBookingEntity::getId),
+            BenchmarkFixtures.repository(HotelBookingRepository.class,
+                    dataset.hotels(), HotelBookingEntity::getId));
+    end = LocalDateTime.of(2025, 6, 30, 23, 59, 59);
+    start = end.minusMonths(6);
+  }
+
+  @Benchmark
+  public DashboardDtos.DashboardSummaryDto summary() {
+    return dashboardService.getDashboardSummary(start, end, null, null);
+  }
+
+  @Benchmark
+  public DashboardDtos.BookingsByTypeDto bookingsByType() {
+    return dashboardService.getBookingsByType(start, end, null, null, null, null);
+  }
+
+  @Benchmark
+  public DashboardDtos.RevenueOverTimeDto revenueOverTime() {
+    return dashboardService.getRevenueOverTime(start, end, "DAILY", null, null);
+  }
+
+  @Benchmark
+  public DashboardDtos.TopDestinationsDto topHotelDestinations() {
+    return dashboardService.getTopDestinations(start, end, 10, null, "HOTEL");
+  }
+
+  @Benchmark
+  public DashboardDtos.TopDestinationsDto topFlightDestinations() {
+    return dashboardService.getTopDestinations(start, end, 10, null, "FLIGHT");
+  }
+
+  @Benchmark
+  public DashboardDtos.TopCarriersDto topCarriers() {
+    return dashboardService.getTopCarriers(start, end, 10, null);
+  }
+
+  @Benchmark
+  public DashboardDtos.PaymentsByStatusDto paymentsByStatus() {
+    return dashboardService.getPaymentsByStatus(start, end, null);
+  }
+}
@@ -0,0 +1,128 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import java.util.concurrent.TimeUnit;
+import masera.deviajebookingsandpayments.benchmarks.BenchmarkFixtures;
+import masera.deviajebookingsandpayments.configs.MappersConfig;
+import masera.deviajebookingsandpayments.dtos.vouchers.VoucherContentDto;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.repositories.BookingRepository;
+import masera.deviajebookingsandpayments.utils.HtmlPdfConverter;
+import masera.deviajebookingsandpayments.utils.JsonCodec;
+import masera.deviajebookingsandpayments.utils.VoucherPdfOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Generación de vouchers: armado del contenido de cada tipo de reserva con
+ * buildVoucherContent (la reserva sale de un repositorio en memoria), armado del HTML,
+ * y PDF con cada renderer (html2pdf y layout directo), medidos por separado, además de
+ * vouchers completos por segundo por núcleo con cada renderer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class VoucherRenderBenchmark {
+
+  private VoucherServiceImpl voucherService;
+
+  private HtmlVoucherPdfRenderer htmlRenderer;
+
+  private LayoutVoucherPdfRenderer layoutRenderer;
+
+  private BookingEntity flightBooking;
+
+  private BookingEntity hotelBooking;
+
+  private BookingEntity packageBooking;
+
+  private VoucherContentDto packageContent;
+
+  /**
+   * Arma el servicio, los renderers y una reserva de cada tipo.
+   */
+  @Setup
+  public void setUp() throws Exception {
+    BenchmarkFixtures.Dataset dataset = BenchmarkFixtures.dataset(50, 42);
+    VoucherPdfOutput voucherPdfOutput = BenchmarkFixtures.voucherPdfOutput();
+    htmlRenderer = new HtmlVoucherPdfRenderer(new HtmlPdfConverter(voucherPdfOutput, 0));
+    layoutRenderer = new LayoutVoucherPdfRenderer(voucherPdfOutput);
+    voucherService = new VoucherServiceImpl(
+            BenchmarkFixtures.repository(BookingRepository.class,
+                    dataset.bookings(), BookingEntity::getId),
+            new JsonCodec(new MappersConfig().objectMapper()), htmlRenderer, voucherPdfOutput);
+    flightBooking = first(dataset, BookingEntity.BookingType.FLIGHT);
+    hotelBooking = first(dataset, BookingEntity.BookingType.HOTEL);
+    packageBooking = first(dataset, BookingEntity.BookingType.PACKAGE);
+    packageContent = packageContent();
+  }
+
+  @Benchmark
+  public VoucherContentDto flightContent() throws Exception {
+    return voucherService.buildVoucherContent(flightBooking);
+  }
+
+  @Benchmark
+  public VoucherContentDto hotelContent() throws Exception {
+    return voucherService.buildVoucherContent(hotelBooking);
+  }
+
+  @Benchmark
+  public VoucherContentDto packageContent() throws Exception {
+    return voucherService.buildVoucherContent(packageBooking);
+  }
+
+  @Benchmark
+  public String packageHtml() {
+    return htmlRenderer.renderHtml(packageContent);
+  }
+
+  @Benchmark
+  public byte[] packageHtmlPdf() throws Exception {
+    return htmlRenderer.render(packageContent);
+  }
+
+  @Benchmark
+  public byte[] packageLayoutPdf() throws Exception {
+    return layoutRenderer.render(packageContent);
+  }
+
+  /**
+   * Vouchers completos (contenido y PDF con html2pdf) por segundo en un solo hilo, es
+   * decir, por núcleo.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public byte[] packageVouchersPerSecond() throws Exception {
+    return htmlRenderer.render(packageContent());
+  }
+
+  /**
+   * Vouchers completos con el renderer de layout por segundo en un solo hilo.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public byte[] packageLayoutVouchersPerSecond() throws Exception {
+    return layoutRenderer.render(packageContent());
+  }
+
+  private static BookingEntity first(BenchmarkFixtures.Dataset dataset,
+                                     BookingEntity.BookingType type) {
+    return dataset.bookings().stream()
+            .filter(booking -> booking.getType() == type)
+            .findFirst()
+            .orElseThrow();
+  }
+}
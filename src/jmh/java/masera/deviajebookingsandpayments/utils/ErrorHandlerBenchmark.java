@@ -0,0 +1,91 @@
+package masera.deviajebookingsandpayments.utils;
+
+import com.mercadopago.exceptions.MPApiException;
+import com.mercadopago.net.MPResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import masera.deviajebookingsandpayments.configs.MappersConfig;
+import masera.deviajebookingsandpayments.exceptions.AmadeusApiException;
+import masera.deviajebookingsandpayments.exceptions.HotelBedsApiException;
+import masera.deviajebookingsandpayments.exceptions.MercadoPagoException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+/**
+ * Traducción de respuestas de error de Amadeus, HotelBeds y MercadoPago a las
+ * excepciones de la aplicación.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorHandlerBenchmark {
+
+  private static final String AMADEUS_ERROR = """
+          {"errors":[{"status":400,"code":4926,"title":"INVALID DATA RECEIVED",
+          "detail":"Flight segment not bookable","source":{"pointer":"/data/flightOffers[0]"}}]}
+          """;
+
+  private static final String HOTELBEDS_ERROR = """
+          {"auditData":{"processTime":"12","timestamp":"2025-06-30 12:00:00.000"},
+          "error":{"code":"INVALID_DATA","message":"Rate key is not valid"}}
+          """;
+
+  private static final String MERCADOPAGO_ERROR = """
+          {"message":"Invalid card token","error":"bad_request","status":400,
+          "cause":[{"code":"2006","description":"Card Token not found"}]}
+          """;
+
+  private ErrorHandler errorHandler;
+
+  private WebClientResponseException amadeusException;
+
+  private WebClientResponseException hotelBedsException;
+
+  private MPApiException mercadoPagoException;
+
+  /**
+   * Prepara el manejador con el ObjectMapper de la aplicación y las respuestas de error.
+   */
+  @Setup
+  public void setUp() {
+    errorHandler = new ErrorHandler(new MappersConfig().objectMapper());
+    amadeusException = badRequest(AMADEUS_ERROR);
+    hotelBedsException = badRequest(HOTELBEDS_ERROR);
+    mercadoPagoException = new MPApiException("Error de MercadoPago",
+            new MPResponse(400, Map.of(), MERCADOPAGO_ERROR));
+  }
+
+  @Benchmark
+  public AmadeusApiException amadeus() {
+    return errorHandler.handleAmadeusError(amadeusException);
+  }
+
+  @Benchmark
+  public HotelBedsApiException hotelBeds() {
+    return errorHandler.handleHotelBedsError(hotelBedsException);
+  }
+
+  @Benchmark
+  public MercadoPagoException mercadoPago() {
+    return errorHandler.handleMercadoPagoError(mercadoPagoException);
+  }
+
+  private static WebClientResponseException badRequest(String body) {
+    return WebClientResponseException.create(400, "Bad Request", HttpHeaders.EMPTY,
+            body.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+  }
+}
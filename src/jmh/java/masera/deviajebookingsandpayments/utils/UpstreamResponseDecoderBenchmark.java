@@ -0,0 +1,113 @@
+package masera.deviajebookingsandpayments.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+import masera.deviajebookingsandpayments.configs.MappersConfig;
+import masera.deviajebookingsandpayments.dtos.upstream.AmadeusFlightOrderResponse;
+import masera.deviajebookingsandpayments.dtos.upstream.AmadeusFlightPriceResponse;
+import masera.deviajebookingsandpayments.dtos.upstream.HotelBedsBookingDetailsResponse;
+import masera.deviajebookingsandpayments.dtos.upstream.HotelBedsCheckRateResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decodificación de las respuestas de Amadeus y HotelBeds de src/test/resources/fixtures
+ * con UpstreamResponseDecoder, comparada con leer el árbol JSON completo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UpstreamResponseDecoderBenchmark {
+
+  private ObjectMapper objectMapper;
+
+  private UpstreamResponseDecoder decoder;
+
+  private byte[] flightOrder;
+
+  private byte[] flightPrice;
+
+  private byte[] checkRate;
+
+  private byte[] bookingDetails;
+
+  /**
+   * Prepara el decoder con el ObjectMapper de la aplicación y las respuestas grabadas.
+   */
+  @Setup
+  public void setUp() {
+    objectMapper = new MappersConfig().objectMapper();
+    decoder = new UpstreamResponseDecoder(objectMapper);
+    flightOrder = fixture("amadeus/flight-order.json");
+    flightPrice = fixture("amadeus/flight-offers-pricing.json");
+    checkRate = fixture("hotelbeds/checkrates.json");
+    bookingDetails = fixture("hotelbeds/booking-details.json");
+  }
+
+  @Benchmark
+  public AmadeusFlightOrderResponse decodeFlightOrder() {
+    return decoder.decodeFlightOrder(flightOrder);
+  }
+
+  @Benchmark
+  public JsonNode treeFlightOrder() throws IOException {
+    return objectMapper.readTree(flightOrder);
+  }
+
+  @Benchmark
+  public AmadeusFlightPriceResponse decodeFlightPrice() {
+    return decoder.decodeFlightPrice(flightPrice);
+  }
+
+  @Benchmark
+  public JsonNode treeFlightPrice() throws IOException {
+    return objectMapper.readTree(flightPrice);
+  }
+
+  @Benchmark
+  public HotelBedsCheckRateResponse decodeCheckRate() {
+    return decoder.decodeCheckRate(checkRate);
+  }
+
+  @Benchmark
+  public JsonNode treeCheckRate() throws IOException {
+    return objectMapper.readTree(checkRate);
+  }
+
+  @Benchmark
+  public HotelBedsBookingDetailsResponse decodeBookingDetails() {
+    return decoder.decodeBookingDetails(bookingDetails);
+  }
+
+  @Benchmark
+  public JsonNode treeBookingDetails() throws IOException {
+    return objectMapper.readTree(bookingDetails);
+  }
+
+  private static byte[] fixture(String name) {
+    try (InputStream in = UpstreamResponseDecoderBenchmark.class
+            .getResourceAsStream("/fixtures/" + name)) {
+      if (in == null) {
+        throw new IllegalStateException("No se encontró el fixture " + name);
+      }
+      return in.readAllBytes();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
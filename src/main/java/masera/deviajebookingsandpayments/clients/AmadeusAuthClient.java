@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import masera.deviajebookingsandpayments.configs.AmadeusConfig;
 import masera.deviajebookingsandpayments.dtos.AmadeusTokenResponse;
+import masera.deviajebookingsandpayments.utils.UpstreamGuards;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
@@ -21,10 +22,12 @@ import reactor.core.publisher.Mono;
 @Slf4j // añade un logger para registrar eventos o errores
 public class AmadeusAuthClient {
 
-  private final WebClient webClient;
+  private final WebClient amadeusAuthWebClient;
 
   private final AmadeusConfig amadeusConfig;
 
+  private final UpstreamGuards upstreamGuards;
+
   @Value("${amadeus.api.key}")
   private String apiKey;
 
@@ -51,12 +54,13 @@ public class AmadeusAuthClient {
     formData.add("client_id", apiKey);
     formData.add("client_secret", apiSecret);
 
-    return webClient.post()
+    return amadeusAuthWebClient.post()
             .uri(amadeusConfig.getBaseUrl() + tokenUrl)
             .contentType(MediaType.APPLICATION_FORM_URLENCODED) //establecemos el tipo de contenido
             .body(BodyInserters.fromFormData(formData))
             .retrieve() //realizamos la solicitud
             .bodyToMono(AmadeusTokenResponse.class) // procesa la respuesta
+            .transform(upstreamGuards.get(UpstreamGuards.AMADEUS_AUTH)::protect)
             .doOnSuccess(token -> log.info("Token obtenido correctamente"))
             .doOnError(error -> log.error("Error al obtener el token de autenticación: "
                     + "{}", error.getMessage()));
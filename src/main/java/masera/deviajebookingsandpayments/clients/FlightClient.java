@@ -1,10 +1,20 @@
 package masera.deviajebookingsandpayments.clients;
 
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import masera.deviajebookingsandpayments.configs.AmadeusConfig;
+import masera.deviajebookingsandpayments.dtos.upstream.AmadeusFlightOrderResponse;
+import masera.deviajebookingsandpayments.dtos.upstream.AmadeusFlightPriceResponse;
+import masera.deviajebookingsandpayments.exceptions.AmadeusApiException;
+import masera.deviajebookingsandpayments.exceptions.UnconfirmedFlightOrderException;
+import masera.deviajebookingsandpayments.exceptions.UpstreamResponseTooLargeException;
 import masera.deviajebookingsandpayments.services.interfaces.AmadeusTokenService;
 import masera.deviajebookingsandpayments.utils.ErrorHandler;
+import masera.deviajebookingsandpayments.utils.RequestHedger;
+import masera.deviajebookingsandpayments.utils.UpstreamGuards;
+import masera.deviajebookingsandpayments.utils.UpstreamResponseDecoder;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
@@ -20,7 +30,7 @@ import reactor.core.publisher.Mono;
 @Slf4j
 public class FlightClient {
 
-  private final WebClient webClient;
+  private final WebClient amadeusWebClient;
 
   private final ErrorHandler errorHandler;
 
@@ -28,6 +38,12 @@ public class FlightClient {
 
   private final AmadeusTokenService amadeusTokenService;
 
+  private final RequestHedger requestHedger;
+
+  private final UpstreamGuards upstreamGuards;
+
+  private final UpstreamResponseDecoder responseDecoder;
+
   private static final String FLIGHT_OFFERS_PRICING_URL = "/v1/shopping/flight-offers/pricing";
 
   private static final String FLIGHT_ORDERS_URL = "/v1/booking/flight-orders";
@@ -38,7 +54,7 @@ public class FlightClient {
    * @param flightOffer objeto que contiene la oferta de vuelo a verificar
    * @return oferta de vuelo con precio actualizado
    */
-  public Mono<Object> verifyFlightOfferPrice(Object flightOffer) {
+  public Mono<AmadeusFlightPriceResponse> verifyFlightOfferPrice(Object flightOffer) {
     log.info("Verificando el precio de la oferta de vuelo: {}", flightOffer);
 
     Object requestBody = java.util.Map.of(
@@ -48,17 +64,19 @@ public class FlightClient {
             )
     );
 
-    String token = amadeusTokenService.getToken();
     String uri = amadeusConfig.getBaseUrl() + FLIGHT_OFFERS_PRICING_URL
             + "?include=detailed-fare-rules";
 
-    return webClient.post()
-            .uri(uri)
-            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
-            .contentType(MediaType.APPLICATION_JSON)
-            .bodyValue(requestBody)
-            .retrieve()
-            .bodyToMono(Object.class)
+    return requestHedger.hedge("amadeus.flight-offers-pricing", () -> withToken(token ->
+                    amadeusWebClient.post()
+                            .uri(uri)
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .bodyValue(requestBody)
+                            .retrieve()
+                            .bodyToMono(byte[].class))
+                    .transform(upstreamGuards.get(UpstreamGuards.AMADEUS)::protect))
+            .map(responseDecoder::decodeFlightPrice)
             .doOnSuccess(response -> log.info("Precio verificado para la oferta"))
             .doOnError(error -> {
               if (error instanceof WebClientResponseException webError) {
@@ -79,21 +97,24 @@ public class FlightClient {
    * @param bookingData datos de la reserva a crear.
    * @return respuesta de creación de orden
    */
-  public Mono<Object> createFlightOrder(Object bookingData) {
+  public Mono<AmadeusFlightOrderResponse> createFlightOrder(Object bookingData) {
     log.info("Creando reserva de vuelo en Amadeus");
 
     log.info("datos de reserva: {}", bookingData);
 
     String uri = amadeusConfig.getBaseUrl() + FLIGHT_ORDERS_URL;
-    String token = amadeusTokenService.getToken();
-
-    return webClient.post()
-            .uri(uri)
-            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
-            .contentType(MediaType.APPLICATION_JSON)
-            .bodyValue(bookingData)
-            .retrieve()
-            .bodyToMono(Object.class)
+
+    return withToken(token -> amadeusWebClient.post()
+                    .uri(uri)
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(bookingData)
+                    .retrieve()
+                    .bodyToMono(byte[].class))
+            .map(this::decodeCreatedOrder)
+            .onErrorMap(UpstreamResponseTooLargeException.class,
+                    e -> unconfirmedOrder(e.getMessage(), null))
+            .transform(upstreamGuards.get(UpstreamGuards.AMADEUS)::protect)
             .doOnSuccess(response -> log.info("Reserva de vuelo creada exitosamente"))
             .doOnError(error -> {
               if (error instanceof WebClientResponseException webError) {
@@ -108,6 +129,25 @@ public class FlightClient {
             });
   }
 
+  /**
+   * Decodifica la respuesta de una orden ya aceptada por Amadeus. Si no se puede leer,
+   * la orden puede estar emitida, así que se conserva la respuesta original.
+   */
+  private AmadeusFlightOrderResponse decodeCreatedOrder(byte[] body) {
+    try {
+      return responseDecoder.decodeFlightOrder(body);
+    } catch (AmadeusApiException e) {
+      throw unconfirmedOrder(e.getMessage(), new String(body, StandardCharsets.UTF_8));
+    }
+  }
+
+  private UnconfirmedFlightOrderException unconfirmedOrder(String cause, String rawResponse) {
+    log.error("Amadeus aceptó la orden de vuelo pero la respuesta no se pudo leer ({}). "
+            + "La orden puede estar emitida. Respuesta: {}", cause, rawResponse);
+    return new UnconfirmedFlightOrderException(
+            "La orden de vuelo no pudo confirmarse: " + cause, rawResponse);
+  }
+
   /**
    * Cancela una reserva de vuelo existente.
    *
@@ -118,17 +158,32 @@ public class FlightClient {
     log.info("Cancelando reserva de vuelo: {}", flightOrderId);
 
     String uri = amadeusConfig.getBaseUrl() + FLIGHT_ORDERS_URL + "/" + flightOrderId;
-    String token = amadeusTokenService.getToken();
 
-    return webClient.delete()
-            .uri(uri)
-            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
-            .retrieve()
-            .bodyToMono(Object.class)
+    return withToken(token -> amadeusWebClient.delete()
+                    .uri(uri)
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                    .retrieve()
+                    .bodyToMono(Object.class))
+            .transform(upstreamGuards.get(UpstreamGuards.AMADEUS)::protect)
             .doOnSuccess(response -> log.info("Reserva cancelada exitosamente"))
             .doOnError(error -> log.error("Error al cancelar reserva: {}", error.getMessage()))
             .onErrorResume(WebClientResponseException.class, e -> {
               throw errorHandler.handleAmadeusError(e);
             });
   }
+
+  /**
+   * Ejecuta una llamada con el token vigente, sin bloquear el hilo. Si Amadeus
+   * responde 401, renueva el token una sola vez y reintenta la llamada.
+   *
+   * @param call llamada que recibe el token
+   * @param <T> tipo de la respuesta
+   * @return la respuesta de Amadeus
+   */
+  private <T> Mono<T> withToken(Function<String, Mono<T>> call) {
+    return amadeusTokenService.getTokenReactive()
+            .flatMap(token -> call.apply(token)
+                    .onErrorResume(WebClientResponseException.Unauthorized.class, e ->
+                            amadeusTokenService.refreshToken(token).flatMap(call)));
+  }
 }
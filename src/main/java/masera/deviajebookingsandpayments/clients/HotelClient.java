@@ -5,7 +5,12 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import masera.deviajebookingsandpayments.configs.HotelbedsConfig;
 import masera.deviajebookingsandpayments.dtos.bookings.hotels.HotelBookingResponse;
+import masera.deviajebookingsandpayments.dtos.upstream.HotelBedsBookingDetailsResponse;
+import masera.deviajebookingsandpayments.dtos.upstream.HotelBedsCheckRateResponse;
 import masera.deviajebookingsandpayments.utils.ErrorHandler;
+import masera.deviajebookingsandpayments.utils.RequestHedger;
+import masera.deviajebookingsandpayments.utils.UpstreamGuards;
+import masera.deviajebookingsandpayments.utils.UpstreamResponseDecoder;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -22,12 +27,18 @@ import reactor.core.publisher.Mono;
 @Slf4j
 public class HotelClient {
 
-  private final WebClient webClient;
+  private final WebClient hotelbedsWebClient;
 
   private final HotelbedsConfig hotelbedsConfig;
 
   private final ErrorHandler errorHandler;
 
+  private final RequestHedger requestHedger;
+
+  private final UpstreamGuards upstreamGuards;
+
+  private final UpstreamResponseDecoder responseDecoder;
+
   private static final String CHECK_RATES_ENDPOINT = "/hotel-api/1.0/checkrates";
 
   private static final String BOOKING_ENDPOINT = "/hotel-api/1.0/bookings";
@@ -39,7 +50,7 @@ public class HotelClient {
    * @param rateKey clave de la tarifa a verificar
    * @return información actualizada de la tarifa
    */
-  public Mono<Object> checkRates(String rateKey) {
+  public Mono<HotelBedsCheckRateResponse> checkRates(String rateKey) {
     log.info("Verificando tarifa con clave: {}", rateKey);
 
     Map<String, Object> request = new java.util.HashMap<>();
@@ -51,14 +62,16 @@ public class HotelClient {
     request.put("rooms", rooms);
     request.put("language", "CAS");
 
-    return webClient
-            .post()
-            .uri(hotelbedsConfig.getBaseUrl() + CHECK_RATES_ENDPOINT)
-            .contentType(MediaType.APPLICATION_JSON)
-            .headers(this::addHotelbedsHeaders)
-            .bodyValue(request)
-            .retrieve()
-            .bodyToMono(Object.class)
+    return requestHedger.hedge("hotelbeds.checkrates", () -> hotelbedsWebClient
+                    .post()
+                    .uri(hotelbedsConfig.getBaseUrl() + CHECK_RATES_ENDPOINT)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .headers(this::addHotelbedsHeaders)
+                    .bodyValue(request)
+                    .retrieve()
+                    .bodyToMono(byte[].class)
+                    .transform(upstreamGuards.get(UpstreamGuards.HOTELBEDS)::protect))
+            .map(responseDecoder::decodeCheckRate)
             .doOnSuccess(response -> log.info("Verificación de tarifa completada exitosamente"))
             .doOnError(error -> {
               if (error instanceof WebClientResponseException webError) {
@@ -82,7 +95,7 @@ public class HotelClient {
   public Mono<HotelBookingResponse> createBooking(Object bookingRequest) {
     log.info("Creando reserva de hotel");
 
-    return webClient
+    return hotelbedsWebClient
             .post()
             .uri(hotelbedsConfig.getBaseUrl() + BOOKING_ENDPOINT)
             .contentType(MediaType.APPLICATION_JSON)
@@ -90,6 +103,7 @@ public class HotelClient {
             .bodyValue(bookingRequest)
             .retrieve()
             .bodyToMono(HotelBookingResponse.class)
+            .transform(upstreamGuards.get(UpstreamGuards.HOTELBEDS)::protect)
             .doOnSuccess(response -> log.info("Reserva creada exitosamente"))
             .doOnError(error -> {
               if (error instanceof WebClientResponseException webError) {
@@ -111,15 +125,17 @@ public class HotelClient {
    * @param bookingId ID de la reserva en HotelBeds
    * @return detalles de la reserva
    */
-  public Mono<Object> getBookingDetails(String bookingId) {
+  public Mono<HotelBedsBookingDetailsResponse> getBookingDetails(String bookingId) {
     log.info("Obteniendo detalles de reserva: {}", bookingId);
 
-    return webClient
-            .get()
-            .uri(hotelbedsConfig.getBaseUrl() + BOOKING_ENDPOINT + "/" + bookingId)
-            .headers(this::addHotelbedsHeaders)
-            .retrieve()
-            .bodyToMono(Object.class)
+    return requestHedger.hedge("hotelbeds.booking-details", () -> hotelbedsWebClient
+                    .get()
+                    .uri(hotelbedsConfig.getBaseUrl() + BOOKING_ENDPOINT + "/" + bookingId)
+                    .headers(this::addHotelbedsHeaders)
+                    .retrieve()
+                    .bodyToMono(byte[].class)
+                    .transform(upstreamGuards.get(UpstreamGuards.HOTELBEDS)::protect))
+            .map(responseDecoder::decodeBookingDetails)
             .doOnSuccess(response -> log.info("Detalles de reserva obtenidos exitosamente"))
             .doOnError(error -> log.error("Error al obtener detalles de reserva: {}",
                             error.getMessage()))
@@ -137,12 +153,13 @@ public class HotelClient {
   public Mono<Object> cancelBooking(String bookingId) {
     log.info("Cancelando reserva: {}", bookingId);
 
-    return webClient
+    return hotelbedsWebClient
             .delete()
             .uri(hotelbedsConfig.getBaseUrl() + BOOKING_ENDPOINT + "/" + bookingId)
             .headers(this::addHotelbedsHeaders)
             .retrieve()
             .bodyToMono(Object.class)
+            .transform(upstreamGuards.get(UpstreamGuards.HOTELBEDS)::protect)
             .doOnSuccess(response -> log.info("Reserva cancelada exitosamente"))
             .doOnError(error -> log.error("Error al cancelar reserva: {}", error.getMessage()))
             .onErrorResume(WebClientResponseException.class, this::apply);
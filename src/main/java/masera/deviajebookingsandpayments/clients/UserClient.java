@@ -3,6 +3,8 @@ package masera.deviajebookingsandpayments.clients;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import masera.deviajebookingsandpayments.dtos.additional.UserBasicInfoDto;
+import masera.deviajebookingsandpayments.utils.RequestHedger;
+import masera.deviajebookingsandpayments.utils.UpstreamGuards;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -16,7 +18,11 @@ import reactor.core.publisher.Mono;
 @Slf4j
 public class UserClient {
 
-  private final WebClient webClient;
+  private final WebClient usersWebClient;
+
+  private final RequestHedger requestHedger;
+
+  private final UpstreamGuards upstreamGuards;
 
   @Value("${services.users.url:http://localhost:8080}")
   private String usersServiceUrl;
@@ -34,11 +40,12 @@ public class UserClient {
 
     log.info("Obteniendo información del usuario con ID: {}", userId);
 
-    return webClient
-            .get()
-            .uri(usersServiceUrl + "/api/users/" + userId)
-            .retrieve()
-            .bodyToMono(UserBasicInfoDto.class)
+    return requestHedger.hedge("users.basic-info", () -> usersWebClient
+                    .get()
+                    .uri(usersServiceUrl + "/api/users/" + userId)
+                    .retrieve()
+                    .bodyToMono(UserBasicInfoDto.class)
+                    .transform(upstreamGuards.get(UpstreamGuards.USERS)::protect))
             .doOnSuccess(user -> {
               if (user != null) {
                 log.info("Usuario obtenido exitosamente: {}", user.getUserName());
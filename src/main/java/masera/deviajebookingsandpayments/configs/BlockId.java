@@ -0,0 +1,33 @@
+package masera.deviajebookingsandpayments.configs;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import org.hibernate.annotations.IdGeneratorType;
+
+/**
+ * Genera el ID de la entidad por bloques desde la tabla id_generators.
+ * Los IDs se conocen antes del INSERT, lo que permite el batching JDBC.
+ */
+@IdGeneratorType(BlockIdGenerator.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface BlockId {
+
+  /**
+   * Nombre del generador (columna sequence_name de id_generators).
+   *
+   * @return el nombre del generador
+   */
+  String value();
+
+  /**
+   * Cantidad de IDs que se reservan por viaje a la base.
+   *
+   * @return el tamaño del bloque
+   */
+  int allocationSize() default 50;
+}
@@ -0,0 +1,60 @@
+package masera.deviajebookingsandpayments.configs;
+
+import java.lang.reflect.Member;
+import java.util.concurrent.locks.ReentrantLock;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.GeneratorCreationContext;
+import org.hibernate.id.IdentifierGenerator;
+
+/**
+ * Generador de IDs de {@link BlockId}. Entrega los valores del bloque actual desde
+ * memoria y reserva el siguiente con {@link IdBlockSource}, que usa sus propias
+ * conexiones y no las del pool donde espera la transacción que inserta.
+ */
+public class BlockIdGenerator implements IdentifierGenerator {
+
+  private final String name;
+
+  private final int blockSize;
+
+  private final IdBlockSource blockSource;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private long next;
+
+  private long limit;
+
+  /**
+   * Constructor invocado por Hibernate para cada entidad anotada con {@link BlockId}.
+   *
+   * @param config anotación de la entidad
+   * @param member campo del ID
+   * @param context contexto de creación de Hibernate
+   */
+  public BlockIdGenerator(BlockId config, Member member, GeneratorCreationContext context) {
+    this.name = config.value();
+    this.blockSize = config.allocationSize();
+    Object source = context.getServiceRegistry().requireService(ConfigurationService.class)
+            .getSettings().get(IdBlockSource.SETTING);
+    if (!(source instanceof IdBlockSource idBlockSource)) {
+      throw new IllegalStateException("Falta la propiedad de Hibernate " + IdBlockSource.SETTING);
+    }
+    this.blockSource = idBlockSource;
+  }
+
+  @Override
+  public Object generate(SharedSessionContractImplementor session, Object object) {
+    lock.lock();
+    try {
+      if (next >= limit) {
+        next = blockSource.reserve(name, blockSize);
+        limit = next + blockSize;
+      }
+      return next++;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
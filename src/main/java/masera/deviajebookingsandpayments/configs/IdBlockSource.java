@@ -0,0 +1,98 @@
+package masera.deviajebookingsandpayments.configs;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reserva bloques de IDs en la tabla id_generators con un pool de conexiones propio.
+ * Los bloques se piden mientras la transacción que inserta la entidad retiene su
+ * conexión: si salieran del pool principal, con todas sus conexiones en transacciones
+ * esperando el mismo generador ninguna avanzaría hasta el timeout de Hikari.
+ */
+@Slf4j
+public class IdBlockSource implements AutoCloseable {
+
+  /**
+   * Propiedad de Hibernate con la que {@link BlockIdGenerator} recibe esta instancia.
+   */
+  public static final String SETTING = "deviaje.id-generator.block-source";
+
+  private static final int MAX_RESERVE_ATTEMPTS = 3;
+
+  private final HikariDataSource dataSource;
+
+  /**
+   * Constructor.
+   *
+   * @param dataSource pool exclusivo para id_generators
+   */
+  public IdBlockSource(HikariDataSource dataSource) {
+    this.dataSource = dataSource;
+  }
+
+  /**
+   * Reserva el siguiente bloque del generador. Si dos instancias crean el generador
+   * a la vez, una falla por clave duplicada y reintenta sobre la fila ya creada.
+   *
+   * @param name nombre del generador
+   * @param size cantidad de IDs del bloque
+   * @return el primer ID del bloque
+   */
+  public long reserve(String name, int size) {
+    SQLException lastError = null;
+    for (int attempt = 1; attempt <= MAX_RESERVE_ATTEMPTS; attempt++) {
+      try (Connection connection = dataSource.getConnection()) {
+        connection.setAutoCommit(false);
+        try {
+          long first = reserveInTransaction(connection, name, size);
+          connection.commit();
+          return first;
+        } catch (SQLException e) {
+          connection.rollback();
+          throw e;
+        }
+      } catch (SQLException e) {
+        log.warn("Conflicto al reservar bloque de IDs de {} (intento {}): {}",
+                name, attempt, e.getMessage());
+        lastError = e;
+      }
+    }
+    throw new IllegalStateException("No se pudo reservar un bloque de IDs de " + name, lastError);
+  }
+
+  private long reserveInTransaction(Connection connection, String name, int size)
+          throws SQLException {
+    try (PreparedStatement select = connection.prepareStatement(
+            "SELECT next_val FROM id_generators WHERE sequence_name = ? FOR UPDATE")) {
+      select.setString(1, name);
+      try (ResultSet row = select.executeQuery()) {
+        if (row.next()) {
+          long first = row.getLong(1);
+          try (PreparedStatement update = connection.prepareStatement(
+                  "UPDATE id_generators SET next_val = ? WHERE sequence_name = ?")) {
+            update.setLong(1, first + size);
+            update.setString(2, name);
+            update.executeUpdate();
+          }
+          return first;
+        }
+      }
+    }
+    try (PreparedStatement insert = connection.prepareStatement(
+            "INSERT INTO id_generators (sequence_name, next_val) VALUES (?, ?)")) {
+      insert.setString(1, name);
+      insert.setLong(2, 1L + size);
+      insert.executeUpdate();
+    }
+    return 1L;
+  }
+
+  @Override
+  public void close() {
+    dataSource.close();
+  }
+}
@@ -0,0 +1,47 @@
+package masera.deviajebookingsandpayments.configs;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de los generadores de IDs por bloques ({@link BlockId}).
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+  @Value("${deviaje.id-generator.pool-size:2}")
+  private int poolSize;
+
+  /**
+   * Fuente de bloques de IDs con su propio pool, separado del principal.
+   * No se expone como DataSource para no reemplazar al de la aplicación.
+   *
+   * @param properties propiedades spring.datasource
+   * @return la fuente de bloques
+   */
+  @Bean
+  public IdBlockSource idBlockSource(DataSourceProperties properties) {
+    HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+            .type(HikariDataSource.class)
+            .build();
+    dataSource.setPoolName("deviaje-id-generator");
+    dataSource.setMaximumPoolSize(poolSize);
+    dataSource.setMinimumIdle(1);
+    return new IdBlockSource(dataSource);
+  }
+
+  /**
+   * Entrega la fuente de bloques a Hibernate, que crea los generadores.
+   *
+   * @param idBlockSource fuente de bloques de IDs
+   * @return el customizer de propiedades de Hibernate
+   */
+  @Bean
+  public HibernatePropertiesCustomizer idBlockSourceCustomizer(IdBlockSource idBlockSource) {
+    return properties -> properties.put(IdBlockSource.SETTING, idBlockSource);
+  }
+}
@@ -0,0 +1,89 @@
+package masera.deviajebookingsandpayments.configs;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.Table;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.entities.FlightBookingEntity;
+import masera.deviajebookingsandpayments.entities.HotelBookingEntity;
+import masera.deviajebookingsandpayments.entities.PaymentEntity;
+import masera.deviajebookingsandpayments.entities.RefundEntity;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Crea la tabla id_generators de {@link BlockId} y la alinea con los IDs existentes.
+ * Las tablas se crearon con AUTO_INCREMENT; al pasar a generadores de tabla por
+ * bloques (que permiten batching JDBC) el siguiente valor debe quedar por encima del
+ * mayor ID ya guardado. El nombre y el tamaño de bloque se leen de la anotación
+ * {@link BlockId} de cada entidad, los mismos que usa {@link BlockIdGenerator}.
+ * Corre después de que Hibernate actualice el esquema y antes de que el servidor
+ * acepte solicitudes.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class IdGeneratorInitializer {
+
+  private static final List<Class<?>> ENTITIES = List.of(BookingEntity.class,
+          FlightBookingEntity.class, HotelBookingEntity.class, PaymentEntity.class,
+          RefundEntity.class);
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Ajusta el siguiente valor de cada generador.
+   */
+  @PostConstruct
+  public void alignGenerators() {
+    jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS id_generators ("
+            + "sequence_name VARCHAR(255) NOT NULL PRIMARY KEY, next_val BIGINT)");
+    for (Class<?> entity : ENTITIES) {
+      String table = entity.getAnnotation(Table.class).name();
+      BlockId blockId = blockIdOf(entity);
+      String generator = blockId.value();
+      Long maxId = jdbcTemplate.queryForObject(
+              "SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+      // Margen de un bloque completo: cualquier bloque asignado empieza después de maxId
+      long floor = (maxId != null ? maxId : 0L) + blockId.allocationSize() + 1;
+
+      List<Long> current = jdbcTemplate.queryForList(
+              "SELECT next_val FROM id_generators WHERE sequence_name = ?", Long.class,
+              generator);
+
+      if (current.isEmpty()) {
+        try {
+          jdbcTemplate.update(
+                  "INSERT INTO id_generators (sequence_name, next_val) VALUES (?, ?)",
+                  generator, floor);
+        } catch (DuplicateKeyException e) {
+          log.debug("Generador de IDs de {} creado por otra instancia", generator);
+        }
+      } else if (current.getFirst() <= maxId) {
+        jdbcTemplate.update(
+                "UPDATE id_generators SET next_val = ? WHERE sequence_name = ? AND next_val < ?",
+                floor, generator, floor);
+        log.info("Generador de IDs de {} ajustado a {}", generator, floor);
+      }
+    }
+  }
+
+  /**
+   * Busca la anotación {@link BlockId} del ID de la entidad.
+   */
+  static BlockId blockIdOf(Class<?> entity) {
+    return Arrays.stream(entity.getDeclaredFields())
+            .map(field -> field.getAnnotation(BlockId.class))
+            .filter(Objects::nonNull)
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException(
+                    entity.getSimpleName() + " no tiene un ID con @BlockId"));
+  }
+}
@@ -0,0 +1,59 @@
+package masera.deviajebookingsandpayments.configs;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import masera.deviajebookingsandpayments.dtos.upstream.AmadeusFlightPriceResponse;
+import masera.deviajebookingsandpayments.dtos.upstream.HotelBedsCheckRateResponse;
+import masera.deviajebookingsandpayments.utils.SingleFlightCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de las cachés de vida corta para las consultas de precio y tarifa.
+ * Cada click sobre la misma oferta o rateKey reutiliza la respuesta reciente del
+ * proveedor en lugar de generar una nueva llamada facturable.
+ */
+@Configuration
+public class LookupCacheConfig {
+
+  @Value("${deviaje.cache.flight-price.ttl-seconds:60}")
+  private long flightPriceTtlSeconds;
+
+  @Value("${deviaje.cache.hotel-rate.ttl-seconds:30}")
+  private long hotelRateTtlSeconds;
+
+  @Value("${deviaje.cache.wait-timeout-ms:65000}")
+  private long waitTimeoutMs;
+
+  @Value("${deviaje.cache.max-entries:10000}")
+  private int maxEntries;
+
+  /**
+   * Caché de verificación de precio de ofertas de vuelo (Amadeus).
+   *
+   * @param meterRegistry registro de métricas
+   * @return la caché de precios de vuelos
+   */
+  @Bean
+  public SingleFlightCache<AmadeusFlightPriceResponse> flightPriceCache(
+          MeterRegistry meterRegistry) {
+    return new SingleFlightCache<>("flight-price",
+            Duration.ofSeconds(flightPriceTtlSeconds), Duration.ofMillis(waitTimeoutMs),
+            maxEntries, meterRegistry);
+  }
+
+  /**
+   * Caché de verificación de tarifas de hotel (HotelBeds checkrates).
+   *
+   * @param meterRegistry registro de métricas
+   * @return la caché de tarifas de hoteles
+   */
+  @Bean
+  public SingleFlightCache<HotelBedsCheckRateResponse> hotelRateCache(
+          MeterRegistry meterRegistry) {
+    return new SingleFlightCache<>("hotel-rate",
+            Duration.ofSeconds(hotelRateTtlSeconds), Duration.ofMillis(waitTimeoutMs),
+            maxEntries, meterRegistry);
+  }
+}
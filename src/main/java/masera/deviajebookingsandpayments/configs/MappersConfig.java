@@ -3,6 +3,7 @@ package masera.deviajebookingsandpayments.configs;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 import org.modelmapper.Conditions;
 import org.modelmapper.ModelMapper;
 import org.springframework.context.annotation.Bean;
@@ -40,6 +41,8 @@ public class MappersConfig {
 
   /**
    * El ObjectMapper que sirve para mapear objetos a JSON y viceversa.
+   * Blackbird genera en tiempo de ejecución los accesos a getters, setters y
+   * constructores en lugar de usar reflexión.
    *
    * @return el ObjectMapper creado.
    */
@@ -47,6 +50,7 @@ public class MappersConfig {
   public ObjectMapper objectMapper() {
     ObjectMapper objectMapper = new ObjectMapper();
     objectMapper.registerModule(new JavaTimeModule());
+    objectMapper.registerModule(new BlackbirdModule());
     objectMapper.setDefaultPropertyInclusion(JsonInclude.Include.NON_NULL);
     return objectMapper;
   }
@@ -0,0 +1,50 @@
+package masera.deviajebookingsandpayments.configs;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Configuración de los schedulers usados por los endpoints reactivos.
+ * El acceso a la base de datos (JPA) es bloqueante, por lo que se ejecuta
+ * en un scheduler acotado con el mismo tamaño que el pool de conexiones.
+ * Las llamadas bloqueantes a proveedores (MercadoPago) usan un scheduler
+ * propio para no ocupar los hilos reservados a la base de datos.
+ */
+@Configuration
+public class ReactiveConfig {
+
+  @Value("${deviaje.reactive.db.threads:10}")
+  private int dbThreads;
+
+  @Value("${deviaje.reactive.db.queue-size:1000}")
+  private int dbQueueSize;
+
+  @Value("${deviaje.reactive.upstream.threads:50}")
+  private int upstreamThreads;
+
+  @Value("${deviaje.reactive.upstream.queue-size:1000}")
+  private int upstreamQueueSize;
+
+  /**
+   * Scheduler acotado para las lecturas bloqueantes de la base de datos.
+   *
+   * @return el scheduler de lecturas.
+   */
+  @Bean(destroyMethod = "dispose")
+  public Scheduler dbScheduler() {
+    return Schedulers.newBoundedElastic(dbThreads, dbQueueSize, "db-reads");
+  }
+
+  /**
+   * Scheduler acotado para las llamadas bloqueantes a proveedores externos.
+   *
+   * @return el scheduler de llamadas a proveedores.
+   */
+  @Bean(destroyMethod = "dispose")
+  public Scheduler upstreamScheduler() {
+    return Schedulers.newBoundedElastic(upstreamThreads, upstreamQueueSize, "upstream-calls");
+  }
+}
@@ -3,42 +3,132 @@ package masera.deviajebookingsandpayments.configs;
 import io.netty.channel.ChannelOption;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.handler.timeout.WriteTimeoutHandler;
+import jakarta.annotation.PreDestroy;
+import java.net.URI;
 import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import masera.deviajebookingsandpayments.utils.AdaptiveConcurrencyLimiter;
+import masera.deviajebookingsandpayments.utils.ResponseSizeLimiter;
+import masera.deviajebookingsandpayments.utils.UpstreamGuards;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 
 /**
  * WebClient clase de configuración.
  * Esta clase se encarga de la configuración del WebClient para
  * realizar peticiones HTTP.
+ * Cada proveedor tiene su propio WebClient con un pool de conexiones con nombre,
+ * de modo que una ráfaga lenta de un proveedor no ocupe las conexiones de los demás.
+ * El pool se configura con deviaje.http.{proveedor}.* y los valores por defecto de
+ * deviaje.http.default.*, y publica sus métricas como reactor.netty.connection.provider.*
+ * (conexiones activas, ociosas, adquisiciones pendientes y tiempo de adquisición).
  */
 @Configuration
+@RequiredArgsConstructor
+@Slf4j
 public class WebClientConfig {
 
   private static final int CONNECT_TIMEOUT = 80000;
-  private static final int READ_TIMEOUT = 60000;
+  /**
+   * Tiempo máximo de espera de una respuesta, en milisegundos. Quien espere una llamada
+   * con su propio límite no debe cortarla antes, o el proveedor puede completarla sin
+   * que nadie reciba la respuesta.
+   */
+  public static final int READ_TIMEOUT = 60000;
   private static final int WRITE_TIMEOUT = 30000;
-  //private static final int MAX_IN_MEMORY_SIZE = 16 * 1024 * 1024; // 16MB
-  private static final int MAX_IN_MEMORY_SIZE = 200 * 1024 * 1024;
+  // Red de seguridad: el tope de cada proveedor lo aplica ResponseSizeLimiter
+  private static final int MAX_IN_MEMORY_SIZE = 16 * 1024 * 1024; // 16MB
+
+  private final Environment environment;
+
+  private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+  private final ResponseSizeLimiter responseSizeLimiter;
+
+  private final List<ConnectionProvider> connectionProviders = new CopyOnWriteArrayList<>();
+
+  /**
+   * WebClient para las APIs de vuelos de Amadeus.
+   *
+   * @param amadeusConfig configuración de Amadeus
+   * @return una instancia de WebClient configurada.
+   */
+  @Bean
+  public WebClient amadeusWebClient(AmadeusConfig amadeusConfig) {
+    return buildWebClient(UpstreamGuards.AMADEUS, amadeusConfig.getBaseUrl());
+  }
+
+  /**
+   * WebClient para la obtención de tokens de Amadeus. Usa un pool aparte para que
+   * la renovación del token no espere detrás de las consultas de vuelos.
+   *
+   * @param amadeusConfig configuración de Amadeus
+   * @return una instancia de WebClient configurada.
+   */
+  @Bean
+  public WebClient amadeusAuthWebClient(AmadeusConfig amadeusConfig) {
+    return buildWebClient(UpstreamGuards.AMADEUS_AUTH, amadeusConfig.getBaseUrl());
+  }
+
+  /**
+   * WebClient para la API de hoteles de HotelBeds.
+   *
+   * @param hotelbedsConfig configuración de HotelBeds
+   * @return una instancia de WebClient configurada.
+   */
+  @Bean
+  public WebClient hotelbedsWebClient(HotelbedsConfig hotelbedsConfig) {
+    return buildWebClient(UpstreamGuards.HOTELBEDS, hotelbedsConfig.getBaseUrl());
+  }
+
+  /**
+   * WebClient para el servicio de usuarios.
+   *
+   * @param usersUrl URL del servicio de usuarios
+   * @return una instancia de WebClient configurada.
+   */
+  @Bean
+  public WebClient usersWebClient(
+          @Value("${services.users.url:http://localhost:8080}") String usersUrl) {
+    return buildWebClient(UpstreamGuards.USERS, usersUrl);
+  }
+
+  /**
+   * Cierra los pools de conexiones al apagar la aplicación.
+   */
+  @PreDestroy
+  public void disposeConnectionProviders() {
+    connectionProviders.forEach(ConnectionProvider::dispose);
+  }
 
   /**
    * Metodo para crear una instancia de WebClient.
    * Este metodo configura el WebClient con un timeout y
    * establece la URL base y los encabezados por defecto.
+   * Cada proveedor tiene un límite de concurrencia adaptativo y un tamaño máximo
+   * de respuesta.
    *
+   * @param upstream nombre del proveedor, usado como nombre del pool
+   * @param baseUrl URL base del proveedor
    * @return una instancia de WebClient configurada.
    */
-  @Bean
-  public WebClient webClient() {
-    HttpClient httpClient = getHttpClient();
+  private WebClient buildWebClient(String upstream, String baseUrl) {
+    HttpClient httpClient = getHttpClient(upstream, baseUrl);
     ExchangeStrategies exchangeStrategies = getExchangeStrategies();
 
     return WebClient.builder()
@@ -46,21 +136,63 @@ public class WebClientConfig {
             .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
             .clientConnector(new ReactorClientHttpConnector(httpClient))
             .exchangeStrategies(exchangeStrategies)
+            .filter(concurrencyLimiter.forUpstream(upstream))
+            .filter(responseSizeLimiter.forUpstream(upstream))
             .build();
   }
 
   /**
    * Configura el cliente HTTP con timeouts y otros parámetros.
+   * HTTP/2 se negocia por ALPN solo con proveedores HTTPS que lo tengan habilitado;
+   * si el servidor no lo soporta, se usa HTTP/1.1.
    *
+   * @param upstream nombre del proveedor
+   * @param baseUrl URL base del proveedor
    * @return HttpClient configurado
    */
-  private HttpClient getHttpClient() {
-    return HttpClient.create()
+  private HttpClient getHttpClient(String upstream, String baseUrl) {
+    HttpClient httpClient = HttpClient.create(getConnectionProvider(upstream))
             .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, CONNECT_TIMEOUT)
             .responseTimeout(Duration.ofMillis(READ_TIMEOUT))
             .doOnConnected(conn -> conn
                     .addHandlerLast(new ReadTimeoutHandler(READ_TIMEOUT, TimeUnit.MILLISECONDS))
                     .addHandlerLast(new WriteTimeoutHandler(WRITE_TIMEOUT, TimeUnit.MILLISECONDS)));
+
+    boolean secure = "https".equalsIgnoreCase(URI.create(baseUrl).getScheme());
+    if (secure && property(upstream, "http2", Boolean.class, true)) {
+      log.info("Pool de conexiones {} con HTTP/2 habilitado", upstream);
+      return httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+    }
+    return httpClient;
+  }
+
+  /**
+   * Crea el pool de conexiones con nombre de un proveedor.
+   *
+   * @param upstream nombre del proveedor
+   * @return pool de conexiones configurado
+   */
+  private ConnectionProvider getConnectionProvider(String upstream) {
+    ConnectionProvider provider = ConnectionProvider.builder("deviaje-" + upstream)
+            .maxConnections(property(upstream, "max-connections", Integer.class, 50))
+            .pendingAcquireMaxCount(
+                    property(upstream, "pending-acquire-max", Integer.class, 100))
+            .pendingAcquireTimeout(Duration.ofMillis(
+                    property(upstream, "pending-acquire-timeout-ms", Long.class, 5000L)))
+            .maxIdleTime(Duration.ofMillis(
+                    property(upstream, "max-idle-ms", Long.class, 30000L)))
+            .maxLifeTime(Duration.ofMillis(
+                    property(upstream, "max-life-ms", Long.class, 300000L)))
+            .evictInBackground(Duration.ofSeconds(30))
+            .metrics(true)
+            .build();
+    connectionProviders.add(provider);
+    return provider;
+  }
+
+  private <T> T property(String upstream, String key, Class<T> type, T defaultValue) {
+    T fallback = environment.getProperty("deviaje.http.default." + key, type, defaultValue);
+    return environment.getProperty("deviaje.http." + upstream + "." + key, type, fallback);
   }
 
   /**
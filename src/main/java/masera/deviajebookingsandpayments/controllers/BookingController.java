@@ -1,13 +1,19 @@
 package masera.deviajebookingsandpayments.controllers;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import masera.deviajebookingsandpayments.dtos.cancellations.CancelBookingRequestDto;
 import masera.deviajebookingsandpayments.dtos.cancellations.CancelBookingResponseDto;
+import masera.deviajebookingsandpayments.dtos.imports.BookingImportResultDto;
 import masera.deviajebookingsandpayments.dtos.responses.BookingDetailsResponseDto;
+import masera.deviajebookingsandpayments.dtos.responses.BookingRequestStatusDto;
 import masera.deviajebookingsandpayments.dtos.responses.BookingResponseDto;
+import masera.deviajebookingsandpayments.services.interfaces.BookingImportService;
+import masera.deviajebookingsandpayments.services.interfaces.BookingRequestService;
 import masera.deviajebookingsandpayments.services.interfaces.BookingService;
 import masera.deviajebookingsandpayments.services.interfaces.CancellationService;
 import org.springframework.http.HttpHeaders;
@@ -17,9 +23,11 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Controlador para operaciones generales sobre reservas.
@@ -34,6 +42,10 @@ public class BookingController {
 
   private final CancellationService cancellationService;
 
+  private final BookingImportService bookingImportService;
+
+  private final BookingRequestService bookingRequestService;
+
   /**
    * Obtiene todas las reservas de un cliente con filtros opcionales.
    */
@@ -81,6 +93,37 @@ public class BookingController {
     return ResponseEntity.ok(bookings);
   }
 
+  /**
+   * Importa reservas del sistema anterior (solo administradores).
+   * El cuerpo se lee de forma incremental (NDJSON o arreglo JSON) y se guarda por lotes.
+   *
+   * @param adminToken token de administración configurado en deviaje.import.admin-token
+   * @param body reservas a importar
+   * @return resultado de la importación
+   * @throws IOException si el cuerpo no puede leerse
+   */
+  @PostMapping("/admin/import")
+  public ResponseEntity<BookingImportResultDto> importBookings(
+          @RequestHeader(value = "X-Admin-Token", required = false) String adminToken,
+          InputStream body) throws IOException {
+    log.info("POST /bookings/admin/import");
+    bookingImportService.checkAuthorization(adminToken);
+    BookingImportResultDto result = bookingImportService.importBookings(body);
+    return ResponseEntity.ok(result);
+  }
+
+  /**
+   * Obtiene el estado de una solicitud de reserva asíncrona.
+   *
+   * @param requestId ID de seguimiento devuelto al encolar la solicitud
+   * @return estado de la solicitud y, si terminó, la referencia o el error
+   */
+  @GetMapping("/requests/{requestId}")
+  public ResponseEntity<BookingRequestStatusDto> getBookingRequestStatus(
+          @PathVariable String requestId) {
+    return ResponseEntity.ok(bookingRequestService.getStatus(requestId));
+  }
+
   /**
    * Obtiene una reserva específica (resumen).
    */
@@ -105,13 +148,14 @@ public class BookingController {
   }
 
   /**
-   * Descarga el voucher de una reserva en formato PDF.
+   * Descarga el voucher de una reserva en formato PDF. Si todavía no está generado,
+   * se envía a medida que se genera.
    */
   @GetMapping("/{bookingId}/voucher/download")
-  public ResponseEntity<byte[]> downloadVoucher(@PathVariable Long bookingId) {
+  public ResponseEntity<StreamingResponseBody> downloadVoucher(@PathVariable Long bookingId) {
     log.info("GET /bookings/{}/voucher/download", bookingId);
 
-    byte[] voucherPdf = bookingService.downloadVoucher(bookingId);
+    StreamingResponseBody voucherPdf = bookingService.downloadVoucher(bookingId);
     String bookingReference = bookingService.getBookingReference(bookingId);
 
     HttpHeaders headers = new HttpHeaders();
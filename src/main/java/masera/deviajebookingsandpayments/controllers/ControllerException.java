@@ -12,6 +12,8 @@ import masera.deviajebookingsandpayments.dtos.ErrorApi;
 import masera.deviajebookingsandpayments.exceptions.AmadeusApiException;
 import masera.deviajebookingsandpayments.exceptions.HotelBedsApiException;
 import masera.deviajebookingsandpayments.exceptions.MercadoPagoException;
+import masera.deviajebookingsandpayments.exceptions.UpstreamResponseTooLargeException;
+import masera.deviajebookingsandpayments.exceptions.UpstreamUnavailableException;
 import org.springframework.dao.DataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -81,6 +83,33 @@ public class ControllerException {
     return ResponseEntity.status(status).body(error);
   }
 
+  /**
+   * Maneja las llamadas rechazadas por el circuit breaker o el bulkhead de un proveedor.
+   *
+   * @param e excepción de proveedor no disponible
+   * @return ResponseEntity con el error
+   */
+  @ExceptionHandler(UpstreamUnavailableException.class)
+  public ResponseEntity<ErrorApi> handleUpstreamUnavailable(UpstreamUnavailableException e) {
+    log.warn("Llamada a {} rechazada: {}", e.getUpstream(), e.getMessage());
+    ErrorApi error = buildError(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE, "EXTERNAL_API");
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+  }
+
+  /**
+   * Maneja las respuestas de proveedores que superan el tamaño máximo permitido.
+   *
+   * @param e excepción de respuesta demasiado grande
+   * @return ResponseEntity con el error
+   */
+  @ExceptionHandler(UpstreamResponseTooLargeException.class)
+  public ResponseEntity<ErrorApi> handleUpstreamResponseTooLarge(
+          UpstreamResponseTooLargeException e) {
+    log.error("Respuesta de {} descartada: {}", e.getUpstream(), e.getMessage());
+    ErrorApi error = buildError(e.getMessage(), HttpStatus.BAD_GATEWAY, "EXTERNAL_API");
+    return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(error);
+  }
+
   /**
    * Maneja errores HTTP genéricos del WebClient (cuando no se capturaron específicamente).
    *
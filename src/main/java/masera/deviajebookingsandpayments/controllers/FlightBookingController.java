@@ -1,17 +1,25 @@
 package masera.deviajebookingsandpayments.controllers;
 
 import jakarta.validation.Valid;
+import java.net.URI;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import masera.deviajebookingsandpayments.dtos.BookFlightAndPayRequest;
 import masera.deviajebookingsandpayments.dtos.responses.BookingReferenceResponse;
+import masera.deviajebookingsandpayments.dtos.responses.BookingRequestStatusDto;
 import masera.deviajebookingsandpayments.dtos.responses.FlightBookingDetailsDto;
+import masera.deviajebookingsandpayments.dtos.upstream.AmadeusFlightPriceResponse;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.services.interfaces.BookingRequestService;
 import masera.deviajebookingsandpayments.services.interfaces.FlightBookingService;
+import masera.deviajebookingsandpayments.services.interfaces.IdempotencyService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -26,22 +34,52 @@ public class FlightBookingController {
 
   private final FlightBookingService flightBookingService;
 
+  private final IdempotencyService idempotencyService;
+
+  private final BookingRequestService bookingRequestService;
+
   /**
    * Endpoint unificado: Reservar vuelo y procesar pago.
    *
    * @param request datos de la reserva de vuelo
+   * @param idempotencyKey clave opcional para reintentos seguros del cliente
    * @return respuesta unificada con reserva y pago
    */
   @PostMapping("/book-and-pay")
   public ResponseEntity<BookingReferenceResponse> bookFlightAndPay(
-          @Valid @RequestBody BookFlightAndPayRequest request) {
+          @Valid @RequestBody BookFlightAndPayRequest request,
+          @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
 
-    BookingReferenceResponse response = flightBookingService.bookAndPay(request.getBookingRequest(),
-              request.getPaymentRequest(), request.getPrices());
+    BookingReferenceResponse response = idempotencyService.execute(
+            idempotencyKey, "flights/book-and-pay", request, BookingReferenceResponse.class,
+            () -> flightBookingService.bookAndPay(request.getBookingRequest(),
+                    request.getPaymentRequest(), request.getPrices()));
 
     return ResponseEntity.ok(response);
   }
 
+  /**
+   * Variante asíncrona de reservar vuelo y procesar pago. Valida y encola la solicitud
+   * y responde 202 con el ID de seguimiento; el resultado se consulta en
+   * /api/bookings/requests/{id}.
+   *
+   * @param request datos de la reserva de vuelo
+   * @param idempotencyKey clave opcional para reintentos seguros del cliente
+   * @return estado inicial de la solicitud
+   */
+  @PostMapping("/book-and-pay/async")
+  public ResponseEntity<BookingRequestStatusDto> bookFlightAndPayAsync(
+          @Valid @RequestBody BookFlightAndPayRequest request,
+          @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+
+    BookingRequestStatusDto response = idempotencyService.execute(
+            idempotencyKey, "flights/book-and-pay/async", request, BookingRequestStatusDto.class,
+            () -> bookingRequestService.submit(BookingEntity.BookingType.FLIGHT, request));
+    return ResponseEntity.accepted()
+            .location(URI.create("/api/bookings/requests/" + response.getRequestId()))
+            .body(response);
+  }
+
   /**
    * Obtiene los datos básicos de una reserva de vuelo.
    *
@@ -62,9 +100,12 @@ public class FlightBookingController {
    * @return información actualizada de la oferta
    */
   @PostMapping("/verify-price")
-  public ResponseEntity<Object> verifyPrice(@RequestBody Object flightOfferData) {
+  public ResponseEntity<byte[]> verifyPrice(@RequestBody Object flightOfferData) {
     log.info("Verificando precio de oferta de vuelo");
-    Object verifiedOffer = flightBookingService.verifyFlightOfferPrice(flightOfferData);
-    return ResponseEntity.ok(verifiedOffer);
+    AmadeusFlightPriceResponse verifiedOffer =
+            flightBookingService.verifyFlightOfferPrice(flightOfferData);
+    return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(verifiedOffer.getBody());
   }
 }
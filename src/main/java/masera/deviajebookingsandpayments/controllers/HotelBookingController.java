@@ -1,17 +1,26 @@
 package masera.deviajebookingsandpayments.controllers;
 
 import jakarta.validation.Valid;
+import java.net.URI;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import masera.deviajebookingsandpayments.dtos.bookings.hotels.BookHotelAndPayRequest;
 import masera.deviajebookingsandpayments.dtos.responses.BookingReferenceResponse;
+import masera.deviajebookingsandpayments.dtos.responses.BookingRequestStatusDto;
 import masera.deviajebookingsandpayments.dtos.responses.HotelBookingDetailsDto;
+import masera.deviajebookingsandpayments.dtos.upstream.HotelBedsBookingDetailsResponse;
+import masera.deviajebookingsandpayments.dtos.upstream.HotelBedsCheckRateResponse;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.services.interfaces.BookingRequestService;
 import masera.deviajebookingsandpayments.services.interfaces.HotelBookingService;
+import masera.deviajebookingsandpayments.services.interfaces.IdempotencyService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -27,26 +36,56 @@ public class HotelBookingController {
 
   private final HotelBookingService hotelBookingService;
 
+  private final IdempotencyService idempotencyService;
+
+  private final BookingRequestService bookingRequestService;
+
   /**
    * Endpoint unificado: Reservar hotel y procesar pago.
    *
    * @param request datos de la reserva de hotel
+   * @param idempotencyKey clave opcional para reintentos seguros del cliente
    * @return respuesta unificada con reserva y pago
    */
   @PostMapping("/book-and-pay")
   public ResponseEntity<BookingReferenceResponse> bookHotelAndPay(
-          @Valid @RequestBody BookHotelAndPayRequest request) {
+          @Valid @RequestBody BookHotelAndPayRequest request,
+          @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
 
     log.info("Iniciando reserva y pago de hotel para cliente: {}",
             request.getBookingRequest().getClientId());
 
-    BookingReferenceResponse response = hotelBookingService.bookAndPay(
-            request.getBookingRequest(),
-            request.getPaymentRequest(),
-            request.getPrices());
+    BookingReferenceResponse response = idempotencyService.execute(
+            idempotencyKey, "hotels/book-and-pay", request, BookingReferenceResponse.class,
+            () -> hotelBookingService.bookAndPay(
+                    request.getBookingRequest(),
+                    request.getPaymentRequest(),
+                    request.getPrices()));
     return ResponseEntity.ok(response);
   }
 
+  /**
+   * Variante asíncrona de reservar hotel y procesar pago. Valida y encola la solicitud
+   * y responde 202 con el ID de seguimiento; el resultado se consulta en
+   * /api/bookings/requests/{id}.
+   *
+   * @param request datos de la reserva de hotel
+   * @param idempotencyKey clave opcional para reintentos seguros del cliente
+   * @return estado inicial de la solicitud
+   */
+  @PostMapping("/book-and-pay/async")
+  public ResponseEntity<BookingRequestStatusDto> bookHotelAndPayAsync(
+          @Valid @RequestBody BookHotelAndPayRequest request,
+          @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+
+    BookingRequestStatusDto response = idempotencyService.execute(
+            idempotencyKey, "hotels/book-and-pay/async", request, BookingRequestStatusDto.class,
+            () -> bookingRequestService.submit(BookingEntity.BookingType.HOTEL, request));
+    return ResponseEntity.accepted()
+            .location(URI.create("/api/bookings/requests/" + response.getRequestId()))
+            .body(response);
+  }
+
   /**
    * Obtiene los datos básicos de una reserva de hotel.
    *
@@ -68,10 +107,12 @@ public class HotelBookingController {
    * @return detalles completos desde HotelBeds
    */
   @GetMapping("/bookings/{id}/details")
-  public ResponseEntity<Object> getHotelBookingDetails(@PathVariable Long id) {
+  public ResponseEntity<byte[]> getHotelBookingDetails(@PathVariable Long id) {
     log.info("Obteniendo detalles completos de reserva de hotel: {}", id);
-    Object fullDetails = hotelBookingService.getFullBookingDetails(id);
-    return ResponseEntity.ok(fullDetails);
+    HotelBedsBookingDetailsResponse fullDetails = hotelBookingService.getFullBookingDetails(id);
+    return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(fullDetails.getBody());
   }
 
   /**
@@ -82,9 +123,11 @@ public class HotelBookingController {
    *
    */
   @GetMapping("/checkrates")
-  public ResponseEntity<Object> checkRates(@RequestParam String rateKey) {
+  public ResponseEntity<byte[]> checkRates(@RequestParam String rateKey) {
     log.info("Verificando tarifa de hotel: {}", rateKey);
-    Object rateInfo = hotelBookingService.checkRates(rateKey);
-    return ResponseEntity.ok(rateInfo);
+    HotelBedsCheckRateResponse rateInfo = hotelBookingService.checkRates(rateKey);
+    return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(rateInfo.getBody());
   }
 }
@@ -1,18 +1,24 @@
 package masera.deviajebookingsandpayments.controllers;
 
 import jakarta.validation.Valid;
+import java.net.URI;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import masera.deviajebookingsandpayments.dtos.bookings.BookPackageAndPayRequest;
 import masera.deviajebookingsandpayments.dtos.responses.BookingReferenceResponse;
+import masera.deviajebookingsandpayments.dtos.responses.BookingRequestStatusDto;
 import masera.deviajebookingsandpayments.dtos.responses.BookingResponseDto;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.services.interfaces.BookingRequestService;
+import masera.deviajebookingsandpayments.services.interfaces.IdempotencyService;
 import masera.deviajebookingsandpayments.services.interfaces.PackageBookingService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -27,24 +33,53 @@ public class PackageBookingController {
 
   private final PackageBookingService packageBookingService;
 
+  private final IdempotencyService idempotencyService;
+
+  private final BookingRequestService bookingRequestService;
+
   /**
    * Endpoint unificado: Reservar paquete y procesar pago.
    *
    * @param request datos de la reserva de paquete
+   * @param idempotencyKey clave opcional para reintentos seguros del cliente
    * @return respuesta unificada con reserva y pago
    */
   @PostMapping("/book-and-pay")
   public ResponseEntity<BookingReferenceResponse> bookPackageAndPay(
-          @Valid @RequestBody BookPackageAndPayRequest request) {
+          @Valid @RequestBody BookPackageAndPayRequest request,
+          @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
 
-    BookingReferenceResponse response = packageBookingService.bookAndPay(
-              request.getPackageBookingRequest(),
-              request.getPaymentRequest(),
-              request.getPrices()
-    );
+    BookingReferenceResponse response = idempotencyService.execute(
+            idempotencyKey, "packages/book-and-pay", request, BookingReferenceResponse.class,
+            () -> packageBookingService.bookAndPay(
+                    request.getPackageBookingRequest(),
+                    request.getPaymentRequest(),
+                    request.getPrices()));
     return ResponseEntity.ok(response);
   }
 
+  /**
+   * Variante asíncrona de reservar paquete y procesar pago. Valida y encola la solicitud
+   * y responde 202 con el ID de seguimiento; el resultado se consulta en
+   * /api/bookings/requests/{id}.
+   *
+   * @param request datos de la reserva de paquete
+   * @param idempotencyKey clave opcional para reintentos seguros del cliente
+   * @return estado inicial de la solicitud
+   */
+  @PostMapping("/book-and-pay/async")
+  public ResponseEntity<BookingRequestStatusDto> bookPackageAndPayAsync(
+          @Valid @RequestBody BookPackageAndPayRequest request,
+          @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+
+    BookingRequestStatusDto response = idempotencyService.execute(
+            idempotencyKey, "packages/book-and-pay/async", request, BookingRequestStatusDto.class,
+            () -> bookingRequestService.submit(BookingEntity.BookingType.PACKAGE, request));
+    return ResponseEntity.accepted()
+            .location(URI.create("/api/bookings/requests/" + response.getRequestId()))
+            .body(response);
+  }
+
   /**
    * Obtiene las reservas de paquetes de un cliente.
    *
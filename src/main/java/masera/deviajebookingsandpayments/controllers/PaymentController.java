@@ -6,12 +6,14 @@ import lombok.extern.slf4j.Slf4j;
 import masera.deviajebookingsandpayments.configs.PagoConfig;
 import masera.deviajebookingsandpayments.dtos.payments.PaymentRequestDto;
 import masera.deviajebookingsandpayments.dtos.responses.PaymentResponseDto;
+import masera.deviajebookingsandpayments.services.interfaces.IdempotencyService;
 import masera.deviajebookingsandpayments.services.interfaces.PaymentService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -28,21 +30,27 @@ public class PaymentController {
 
   private final PagoConfig pagoConfig;
 
+  private final IdempotencyService idempotencyService;
+
   /**
    * Procesa un pago con MercadoPago.
    *
    * @param paymentRequest datos del pago
+   * @param idempotencyKey clave opcional para reintentos seguros del cliente
    * @return resultado del procesamiento
    */
   @PostMapping
   public ResponseEntity<PaymentResponseDto> processPayment(
-          @Valid @RequestBody PaymentRequestDto paymentRequest) {
+          @Valid @RequestBody PaymentRequestDto paymentRequest,
+          @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
 
     log.info("Recibida solicitud de pago por {} {}",
             paymentRequest.getAmount(),
             paymentRequest.getCurrency());
 
-    PaymentResponseDto response = paymentService.processPayment(paymentRequest);
+    PaymentResponseDto response = idempotencyService.execute(
+            idempotencyKey, "payments", paymentRequest, PaymentResponseDto.class,
+            () -> paymentService.processPayment(paymentRequest));
     return ResponseEntity.ok(response);
   }
 
@@ -1,18 +1,17 @@
 package masera.deviajebookingsandpayments.controllers;
 
-import java.math.BigDecimal;
 import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import masera.deviajebookingsandpayments.dtos.payments.MercadoPagoNotificationDto;
 import masera.deviajebookingsandpayments.entities.BookingEntity;
 import masera.deviajebookingsandpayments.entities.PaymentEntity;
 import masera.deviajebookingsandpayments.entities.RefundEntity;
-import masera.deviajebookingsandpayments.repositories.BookingRepository;
 import masera.deviajebookingsandpayments.repositories.PaymentRepository;
 import masera.deviajebookingsandpayments.repositories.RefundRepository;
-import masera.deviajebookingsandpayments.services.interfaces.EmailService;
+import masera.deviajebookingsandpayments.services.interfaces.OutboxService;
 import masera.deviajebookingsandpayments.services.interfaces.PaymentService;
-import masera.deviajebookingsandpayments.services.interfaces.VoucherService;
+import masera.deviajebookingsandpayments.utils.JsonCodec;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -31,50 +30,43 @@ public class PaymentWebhookController {
 
   private final PaymentRepository paymentRepository;
 
-  private final BookingRepository bookingRepository;
-
   private final RefundRepository refundRepository;
 
   private final PaymentService paymentService;
 
-  private final VoucherService voucherService;
+  private final OutboxService outboxService;
 
-  private final EmailService emailService;
+  private final JsonCodec jsonCodec;
 
   /**
    * Recibe notificaciones de MercadoPago sobre cambios en pagos y reembolsos.
    * Este es el ÚNICO endpoint que debe configurarse en el panel de MercadoPago.
    *
-   * @param request datos de la notificación
+   * @param body cuerpo de la notificación, leído con JsonCodec
    * @return respuesta al servicio de notificaciones
    */
   @PostMapping
-  public ResponseEntity<Map<String, String>> handleMercadoPagoWebhook(
-          @RequestBody Map<String, Object> request) {
-
-    log.info("Recibida notificación de MercadoPago: {}", request);
+  public ResponseEntity<Map<String, String>> handleMercadoPagoWebhook(@RequestBody byte[] body) {
 
     try {
-      String type = (String) request.get("type");
-      String action = (String) request.get("action");
+      MercadoPagoNotificationDto notification = jsonCodec.readNotification(body);
+      String type = notification.getType();
+      String action = notification.getAction();
 
-      log.info("Webhook - type: {}, action: {}", type, action);
+      log.info("Recibida notificación de MercadoPago - type: {}, action: {}", type, action);
 
       // Obtener datos del pago
-      if (!request.containsKey("data")) {
+      if (notification.getData() == null) {
         log.warn("Notificación sin campo 'data'");
         return ResponseEntity.ok(Map.of("status", "OK", "message", "No data field"));
       }
 
-      @SuppressWarnings("unchecked")
-      Map<String, Object> data = (Map<String, Object>) request.get("data");
-
-      if (!data.containsKey("id")) {
+      if (notification.getData().getId() == null) {
         log.warn("Notificación sin ID");
         return ResponseEntity.ok(Map.of("status", "OK", "message", "No ID"));
       }
 
-      String paymentId = data.get("id").toString();
+      String paymentId = notification.getData().getId();
 
       // Diferenciar según el tipo de evento
       if ("payment".equals(type) && ("payment.created".equals(action) || action == null)) {
@@ -135,29 +127,9 @@ public class PaymentWebhookController {
         return;
       }
 
-      // 5. Verificar si ya tiene voucher
-      if (booking.getVoucher() != null) {
-        log.info("El booking {} ya tiene voucher generado", booking.getBookingReference());
-
-        // Si tiene voucher, pero no se envió, intentar enviar
-        if (Boolean.FALSE.equals(booking.getIsSent())) {
-          log.info("Voucher existe pero no fue enviado. Intentando envío...");
-          sendVoucherEmail(booking);
-        }
-        return;
-      }
-
-      // 6. Generar el voucher
-      log.info("Generando voucher para booking: {}", booking.getBookingReference());
-      byte[] voucherPdf = voucherService.generateVoucher(booking);
-
-      // 7. Guardar el voucher en la BD
-      booking.setVoucher(voucherPdf);
-      bookingRepository.save(booking);
-      log.info("Voucher guardado en BD para booking: {}", booking.getBookingReference());
-
-      // 8. Enviar el voucher por email
-      sendVoucherEmail(booking);
+      // 5. Registrar la generación y el envío del voucher
+      log.info("Registrando voucher pendiente para booking: {}", booking.getBookingReference());
+      outboxService.enqueueVoucher(booking.getId());
 
     } catch (Exception e) {
       log.error("Error al actualizar estado del pago {}: {}",
@@ -165,38 +137,6 @@ public class PaymentWebhookController {
     }
   }
 
-  /**
-   * Envía el voucher por email al cliente.
-   *
-   * @param booking entidad de reserva con el voucher
-   */
-  private void sendVoucherEmail(BookingEntity booking) {
-    try {
-      log.info("Enviando voucher por email para booking: {}", booking.getBookingReference());
-
-      emailService.sendBookingVoucher(
-              booking.getEmail(),
-              booking.getBookingReference(),
-              booking.getHolderName(),
-              booking.getVoucher()
-      );
-
-      // Marcar como enviado
-      booking.setIsSent(true);
-      bookingRepository.save(booking);
-
-      log.info("Voucher enviado exitosamente a: {}", booking.getEmail());
-
-    } catch (Exception e) {
-      log.error("Error al enviar voucher por email para booking {}: {}",
-              booking.getBookingReference(), e.getMessage(), e);
-
-      // No marcar como enviado para que el proceso automático lo reintente
-      booking.setIsSent(false);
-      bookingRepository.save(booking);
-    }
-  }
-
   /**
    * Procesa la confirmación de un reembolso desde MercadoPago.
    *
@@ -242,7 +182,7 @@ public class PaymentWebhookController {
       }
 
       // 5. Enviar email de confirmación de cancelación
-      sendCancellationEmail(booking, payment);
+      sendCancellationEmail(booking);
     } catch (Exception e) {
       log.error("Error al procesar confirmación de refund {}: {}",
               mercadoPagoPaymentId, e.getMessage(), e);
@@ -250,34 +190,17 @@ public class PaymentWebhookController {
   }
 
   /**
-   * Envía el email de confirmación de cancelación con el monto real del reembolso.
+   * Registra el email de confirmación de cancelación con el monto real del reembolso.
    *
    * @param booking entidad de reserva cancelada
-   * @param payment entidad de pago reembolsado
    */
-  private void sendCancellationEmail(BookingEntity booking, PaymentEntity payment) {
-    try {
-      log.info("Enviando email de cancelación para booking: {}", booking.getBookingReference());
-
-      // Buscar el refund asociado para obtener el monto real reembolsado
-      RefundEntity refund = refundRepository.findByBookingEntityId(booking.getId())
-              .orElseThrow();
+  private void sendCancellationEmail(BookingEntity booking) {
+    log.info("Registrando email de cancelación para booking: {}", booking.getBookingReference());
 
-      emailService.sendCancellationEmail(
-              booking.getEmail(),
-              booking.getBookingReference(),
-              booking.getHolderName(),
-              booking.getType().name(),
-              refund.getAmount(),
-              booking.getCurrency(),
-              booking.getCancelledAt()
-      );
+    // Buscar el refund asociado para obtener el monto real reembolsado
+    RefundEntity refund = refundRepository.findByBookingEntityId(booking.getId())
+            .orElseThrow();
 
-      log.info("Email de cancelación enviado exitosamente a: {}", booking.getEmail());
-
-    } catch (Exception e) {
-      log.error("Error al enviar email de cancelación para booking {}: {}",
-              booking.getBookingReference(), e.getMessage(), e);
-    }
+    outboxService.enqueueCancellationEmail(booking.getId(), refund.getAmount());
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,78 @@
+package masera.deviajebookingsandpayments.controllers;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import masera.deviajebookingsandpayments.dtos.responses.BookingDetailsResponseDto;
+import masera.deviajebookingsandpayments.dtos.responses.BookingResponseDto;
+import masera.deviajebookingsandpayments.dtos.responses.PaymentResponseDto;
+import masera.deviajebookingsandpayments.services.interfaces.ReactiveBookingService;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Controlador de lecturas no bloqueantes de reservas y pagos.
+ * Los listados se emiten como NDJSON a medida que cada reserva está lista.
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/reactive")
+@Slf4j
+public class ReactiveBookingController {
+
+  private final ReactiveBookingService reactiveBookingService;
+
+  /**
+   * Emite las reservas de un cliente con filtros opcionales.
+   */
+  @GetMapping(value = "/bookings/client/{clientId}",
+          produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<BookingResponseDto> getClientBookings(
+          @PathVariable Integer clientId,
+          @RequestParam(required = false) String email,
+          @RequestParam(required = false) String holderName) {
+
+    return reactiveBookingService.getClientBookings(clientId, email, holderName);
+  }
+
+  /**
+   * Emite el historial de reservas de un agente con filtros opcionales.
+   */
+  @GetMapping(value = "/bookings/agent/{agentId}",
+          produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<BookingResponseDto> getAgentBookings(
+          @PathVariable Integer agentId,
+          @RequestParam(required = false) Integer clientId,
+          @RequestParam(required = false) String email,
+          @RequestParam(required = false) String holderName) {
+
+    return reactiveBookingService.getAgentBookings(agentId, clientId, email, holderName);
+  }
+
+  /**
+   * Obtiene los detalles completos de una reserva (incluyendo datos del JSON).
+   */
+  @GetMapping("/bookings/{bookingReference}/details")
+  public Mono<BookingDetailsResponseDto> getBookingDetails(
+          @PathVariable String bookingReference) {
+
+    return reactiveBookingService.getBookingDetailsByReference(bookingReference);
+  }
+
+  /**
+   * Verifica el estado de un pago por su ID interno.
+   *
+   * @param paymentId id del pago
+   * @return estado actualizado del pago
+   */
+  @GetMapping("/payments/{paymentId}")
+  public Mono<PaymentResponseDto> checkPaymentStatus(@PathVariable Long paymentId) {
+    log.info("Verificando estado de pago (reactivo): {}", paymentId);
+    return reactiveBookingService.checkPaymentStatus(paymentId);
+  }
+}
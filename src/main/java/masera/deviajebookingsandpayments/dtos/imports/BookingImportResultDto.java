@@ -0,0 +1,27 @@
+package masera.deviajebookingsandpayments.dtos.imports;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con el resultado de una importación masiva de reservas.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingImportResultDto {
+
+  private long imported;
+
+  private long skipped;
+
+  private long failed;
+
+  private int batches;
+
+  private List<String> errors;
+}
@@ -0,0 +1,163 @@
+package masera.deviajebookingsandpayments.dtos.imports;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con una reserva exportada del sistema anterior para su migración.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LegacyBookingImportDto {
+
+  private String bookingReference;
+
+  private Integer clientId;
+
+  private Integer agentId;
+
+  private String status; // "CONFIRMED", "CANCELLED", "COMPLETED"
+
+  private String type; // "FLIGHT", "HOTEL", "PACKAGE"
+
+  private BigDecimal totalAmount;
+
+  private BigDecimal commission;
+
+  private BigDecimal discount;
+
+  private BigDecimal taxes;
+
+  private String currency;
+
+  private String holderName;
+
+  private String countryCallingCode;
+
+  private String phone;
+
+  private String email;
+
+  private LocalDateTime createdDatetime;
+
+  private FlightImport flight;
+
+  private HotelImport hotel;
+
+  private PaymentImport payment;
+
+  /**
+   * Datos del vuelo de la reserva importada.
+   */
+  @Data
+  @Builder
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class FlightImport {
+
+    private String externalId;
+
+    private String origin;
+
+    private String destination;
+
+    private String departureDate;
+
+    private String returnDate;
+
+    private String carrier;
+
+    private Integer adults;
+
+    private Integer children;
+
+    private Integer infants;
+
+    private String itineraries; // JSON
+
+    private String travelers; // JSON
+
+    private BigDecimal totalPrice;
+
+    private BigDecimal taxes;
+
+    private String currency;
+  }
+
+  /**
+   * Datos del hotel de la reserva importada.
+   */
+  @Data
+  @Builder
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class HotelImport {
+
+    private String externalId;
+
+    private String hotelName;
+
+    private String destinationName;
+
+    private String countryName;
+
+    private String roomName;
+
+    private String boardName;
+
+    private LocalDate checkInDate;
+
+    private LocalDate checkOutDate;
+
+    private Integer numberOfNights;
+
+    private Integer numberOfRooms;
+
+    private Integer adults;
+
+    private Integer children;
+
+    private BigDecimal totalPrice;
+
+    private BigDecimal taxes;
+
+    private String currency;
+
+    private String hotelBooking; // JSON
+
+    private String cancellationPolicies; // JSON
+  }
+
+  /**
+   * Datos del pago de la reserva importada.
+   */
+  @Data
+  @Builder
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class PaymentImport {
+
+    private String type;
+
+    private BigDecimal amount;
+
+    private String currency;
+
+    private String method;
+
+    private String paymentProvider;
+
+    private String externalPaymentId;
+
+    private String status; // "APPROVED", "REJECTED", "PENDING", "CANCELLED", "REFUNDED"
+
+    private LocalDateTime date;
+  }
+}
@@ -0,0 +1,34 @@
+package masera.deviajebookingsandpayments.dtos.payments;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO de una notificación (webhook) de MercadoPago.
+ * Solo tiene los campos que se usan para decidir qué hacer con la notificación.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MercadoPagoNotificationDto {
+
+  private String type;
+
+  private String action;
+
+  private NotificationData data;
+
+  /**
+   * Recurso al que se refiere la notificación.
+   */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class NotificationData {
+
+    private String id;
+  }
+}
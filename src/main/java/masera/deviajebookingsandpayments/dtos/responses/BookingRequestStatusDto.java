@@ -0,0 +1,36 @@
+package masera.deviajebookingsandpayments.dtos.responses;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con el estado de una solicitud de reserva asíncrona.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingRequestStatusDto {
+
+  private String requestId;
+
+  private String type;
+
+  private String status;
+
+  /**
+   * Referencia de la reserva, una vez completada.
+   */
+  private String bookingReference;
+
+  private Integer errorStatus;
+
+  private String errorMessage;
+
+  private LocalDateTime createdAt;
+
+  private LocalDateTime finishedAt;
+}
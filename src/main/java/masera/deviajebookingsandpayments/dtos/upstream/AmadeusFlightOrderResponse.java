@@ -0,0 +1,31 @@
+package masera.deviajebookingsandpayments.dtos.upstream;
+
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Campos usados de la respuesta de creación de una orden de vuelo en Amadeus.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AmadeusFlightOrderResponse {
+
+  /**
+   * ID de la orden (data.id).
+   */
+  private String id;
+
+  /**
+   * Localizador de la reserva (data.associatedRecords[0].reference).
+   */
+  private String reference;
+
+  private BigDecimal grandTotal;
+
+  private String currency;
+}
@@ -0,0 +1,29 @@
+package masera.deviajebookingsandpayments.dtos.upstream;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Respuesta de la verificación de precio de una oferta en Amadeus.
+ * Conserva el JSON original para devolverlo al frontend sin volver a serializarlo.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AmadeusFlightPriceResponse {
+
+  /**
+   * Total de la primera oferta (data.flightOffers[0].price.grandTotal).
+   */
+  private BigDecimal grandTotal;
+
+  private String currency;
+
+  @JsonIgnore
+  private byte[] body;
+}
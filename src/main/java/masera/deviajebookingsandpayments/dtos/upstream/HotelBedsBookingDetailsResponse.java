@@ -0,0 +1,33 @@
+package masera.deviajebookingsandpayments.dtos.upstream;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Respuesta del detalle de una reserva en HotelBeds.
+ * Conserva el JSON original para devolverlo al frontend sin volver a serializarlo.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotelBedsBookingDetailsResponse {
+
+  /**
+   * Referencia de la reserva (booking.reference).
+   */
+  private String reference;
+
+  private String status;
+
+  private BigDecimal totalNet;
+
+  private String currency;
+
+  @JsonIgnore
+  private byte[] body;
+}
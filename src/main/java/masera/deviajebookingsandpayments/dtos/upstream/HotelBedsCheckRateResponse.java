@@ -0,0 +1,29 @@
+package masera.deviajebookingsandpayments.dtos.upstream;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Respuesta de la verificación de tarifa (checkrates) de HotelBeds.
+ * Conserva el JSON original para devolverlo al frontend sin volver a serializarlo.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotelBedsCheckRateResponse {
+
+  /**
+   * Total neto del hotel (hotel.totalNet).
+   */
+  private BigDecimal totalNet;
+
+  private String currency;
+
+  @JsonIgnore
+  private byte[] body;
+}
@@ -0,0 +1,110 @@
+package masera.deviajebookingsandpayments.dtos.vouchers;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+
+/**
+ * Contenido de un voucher, ya formateado y separado de las entidades.
+ * Se arma con la sesión abierta y después lo dibuja cualquiera de los renderers de
+ * PDF sin volver a la base de datos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VoucherContentDto {
+
+  private BookingEntity.BookingType type;
+
+  private String bookingReference;
+
+  private String holderName;
+
+  private String createdDate;
+
+  private String currency;
+
+  private String totalAmount;
+
+  private String taxes;
+
+  /**
+   * Descuento aplicado, o null si la reserva no tiene descuento.
+   */
+  private String discount;
+
+  private String year;
+
+  private FlightSection flight;
+
+  private HotelSection hotel;
+
+  /**
+   * Datos del vuelo del voucher.
+   */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @Builder
+  public static class FlightSection {
+    private String origin;
+    private String destination;
+    private String departureDate;
+    private String returnDate; // null si es solo ida
+    private String passengers;
+    private String carrier;
+    private List<Itinerary> itineraries;
+    private String itinerariesMessage; // Reemplaza los itinerarios si no se pudieron leer
+  }
+
+  /**
+   * Itinerario (ida o regreso) con sus segmentos.
+   */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @Builder
+  public static class Itinerary {
+    private String title;
+    private String totalDuration;
+    private List<Segment> segments;
+  }
+
+  /**
+   * Tramo de un itinerario.
+   */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @Builder
+  public static class Segment {
+    private String departureCode;
+    private String departureTime;
+    private String arrivalCode;
+    private String arrivalTime;
+    private String duration;
+  }
+
+  /**
+   * Datos del alojamiento del voucher.
+   */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @Builder
+  public static class HotelSection {
+    private String hotelName;
+    private String destinationName;
+    private String countryName;
+    private String nights;
+    private String checkInDate;
+    private String checkOutDate;
+    private String rooms;
+    private String guests;
+    private String boardName;
+  }
+}
@@ -6,9 +6,8 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Lob;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.PrePersist;
@@ -20,12 +19,14 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import masera.deviajebookingsandpayments.configs.BlockId;
 
 /**
  * Entidad principal de reservas unificada.
  */
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings",
+        indexes = @Index(name = "idx_bookings_status_sent", columnList = "status, is_sent"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -33,7 +34,7 @@ import lombok.NoArgsConstructor;
 public class BookingEntity {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY) // Esto hace el auto increment
+  @BlockId("bookings")
   private Long id;
 
   @Column(unique = true)
@@ -44,7 +45,7 @@ public class BookingEntity {
   private Integer agentId;
 
   @Enumerated(EnumType.STRING)
-  @Column(nullable = false, length = 20)
+  @Column(name = "status", nullable = false, length = 20)
   private BookingStatus status;
 
   @Enumerated(EnumType.STRING)
@@ -96,6 +97,16 @@ public class BookingEntity {
   @Column(length = 500)
   private String cancellationReason;
 
+  /**
+   * Etapa del proceso de reserva y pago. Las reservas anteriores a las etapas
+   * no tienen valor y se consideran finalizadas.
+   */
+  @Enumerated(EnumType.STRING)
+  @Column(length = 30)
+  private BookingStage stage;
+
+  private LocalDateTime stageUpdatedAt;
+
   @OneToMany(mappedBy = "bookingEntity", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
   private List<FlightBookingEntity> flightBookingEntities;
 
@@ -110,13 +121,19 @@ public class BookingEntity {
    */
   @PrePersist
   protected void onCreate() {
-    this.createdDatetime = LocalDateTime.now();
+    if (this.createdDatetime == null) {
+      this.createdDatetime = LocalDateTime.now();
+    }
+    if (this.stage != null && this.stageUpdatedAt == null) {
+      this.stageUpdatedAt = LocalDateTime.now();
+    }
   }
 
   /**
    * Enum para los estados de reserva.
    */
   public enum BookingStatus {
+    PENDING,    // Reservada en el proveedor, con el pago sin terminar
     CONFIRMED,
     CANCELLED,
     COMPLETED
@@ -130,4 +147,14 @@ public class BookingEntity {
     HOTEL,
     PACKAGE
   }
+
+  /**
+   * Enum para las etapas del proceso de reserva y pago.
+   */
+  public enum BookingStage {
+    RESERVED,             // Reservada en el proveedor y guardada, sin pago iniciado
+    PAYMENT_IN_PROGRESS,  // Pago enviado a MercadoPago
+    FINALIZED,            // Pago aprobado y asociado a la reserva
+    FAILED                // Pago rechazado o abandonado, reserva cancelada en el proveedor
+  }
 }
@@ -0,0 +1,33 @@
+package masera.deviajebookingsandpayments.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Contador diario para las referencias de reserva.
+ * Cada instancia reserva bloques de valores para no consultar la base en cada reserva.
+ */
+@Entity
+@Table(name = "booking_reference_sequences")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookingReferenceSequenceEntity {
+
+  @Id
+  private LocalDate sequenceDate;
+
+  /**
+   * Primer valor todavía no reservado por ninguna instancia.
+   */
+  @Column(nullable = false)
+  private Long nextValue;
+}
@@ -0,0 +1,98 @@
+package masera.deviajebookingsandpayments.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entidad que representa una solicitud de reserva y pago recibida en forma asíncrona.
+ * La tabla funciona como cola persistente: los workers toman las solicitudes en
+ * estado QUEUED y registran el resultado para que el cliente lo consulte.
+ */
+@Entity
+@Table(name = "booking_requests",
+        indexes = @Index(name = "idx_booking_requests_status_created",
+                columnList = "status, created_at"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingRequestEntity {
+
+  /**
+   * ID de seguimiento entregado al cliente (UUID).
+   */
+  @Id
+  @Column(length = 36)
+  private String id;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 20)
+  private BookingEntity.BookingType type;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 20)
+  private RequestStatus status;
+
+  /**
+   * Solicitud original serializada en JSON. Incluye el token de pago y los datos del
+   * pagador, por lo que se elimina en la misma transacción en que un worker la toma.
+   */
+  @Lob
+  @Column(columnDefinition = "LONGTEXT")
+  private String payload;
+
+  private String bookingReference;
+
+  /**
+   * Código HTTP equivalente al error, si la solicitud falló.
+   */
+  private Integer errorStatus;
+
+  @Column(length = 500)
+  private String errorMessage;
+
+  @Column(name = "created_at", nullable = false)
+  private LocalDateTime createdAt;
+
+  private LocalDateTime startedAt;
+
+  /**
+   * Mientras la solicitud está en proceso, fecha a partir de la cual se considera
+   * interrumpida (por ejemplo, si la instancia que la tomó se detuvo).
+   */
+  private LocalDateTime leaseExpiresAt;
+
+  private LocalDateTime finishedAt;
+
+  @PrePersist
+  protected void onCreate() {
+    if (createdAt == null) {
+      createdAt = LocalDateTime.now();
+    }
+    if (status == null) {
+      status = RequestStatus.QUEUED;
+    }
+  }
+
+  /**
+   * Enum para los estados de una solicitud asíncrona.
+   */
+  public enum RequestStatus {
+    QUEUED,
+    PROCESSING,
+    COMPLETED,
+    FAILED
+  }
+}
@@ -0,0 +1,117 @@
+package masera.deviajebookingsandpayments.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import masera.deviajebookingsandpayments.configs.BlockId;
+
+/**
+ * Entidad que registra la cancelación de una reserva en un proveedor
+ * realizada para compensar una reserva que no pudo completarse, o una reserva
+ * que debe revisarse y cancelarse a mano.
+ */
+@Entity
+@Table(name = "compensations")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompensationEntity {
+
+  @Id
+  @BlockId("compensations")
+  private Long id;
+
+  /**
+   * Proveedor en el que se canceló la reserva.
+   */
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 20)
+  private Provider provider;
+
+  /**
+   * ID de la reserva en el proveedor.
+   */
+  @Column(nullable = false, length = 100)
+  private String externalId;
+
+  /**
+   * Tipo de reserva que originó la compensación.
+   */
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 20)
+  private BookingEntity.BookingType bookingType;
+
+  /**
+   * Resultado de la cancelación.
+   */
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 20)
+  private CompensationStatus status;
+
+  /**
+   * Motivo por el que se compensó la reserva.
+   */
+  @Column(length = 500)
+  private String reason;
+
+  /**
+   * Error devuelto por el proveedor si la cancelación falló.
+   */
+  @Column(length = 500)
+  private String errorMessage;
+
+  /**
+   * Respuesta original del proveedor, para las compensaciones manuales.
+   */
+  @Lob
+  @Column(columnDefinition = "LONGTEXT")
+  private String providerResponse;
+
+  /**
+   * Solicitud enviada al proveedor, para ubicar las reservas que quedaron sin respuesta.
+   */
+  @Lob
+  @Column(columnDefinition = "LONGTEXT")
+  private String providerRequest;
+
+  @Column(nullable = false)
+  private LocalDateTime createdAt;
+
+  /**
+   * Proveedores de reservas.
+   */
+  public enum Provider {
+    AMADEUS,
+    HOTELBEDS
+  }
+
+  /**
+   * Estados posibles de una compensación.
+   */
+  public enum CompensationStatus {
+    COMPLETED,
+    FAILED,
+    MANUAL_REVIEW
+  }
+
+  /**
+   * Set de la fecha de creación.
+   */
+  @PrePersist
+  protected void onCreate() {
+    if (createdAt == null) {
+      createdAt = LocalDateTime.now();
+    }
+  }
+}
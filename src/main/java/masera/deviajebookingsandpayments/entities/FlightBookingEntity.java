@@ -3,8 +3,6 @@ package masera.deviajebookingsandpayments.entities;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
@@ -16,6 +14,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import masera.deviajebookingsandpayments.configs.BlockId;
 
 /**
  * Entidad para reservas de vuelos (datos mínimos).
@@ -29,7 +28,7 @@ import lombok.NoArgsConstructor;
 public class FlightBookingEntity {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @BlockId("flights_bookings")
   private Long id;
 
   @ManyToOne(fetch = FetchType.LAZY)
@@ -76,6 +75,8 @@ public class FlightBookingEntity {
    */
   @PrePersist
   protected void onCreate() {
-    this.createdDatetime = LocalDateTime.now();
+    if (this.createdDatetime == null) {
+      this.createdDatetime = LocalDateTime.now();
+    }
   }
 }
\ No newline at end of file
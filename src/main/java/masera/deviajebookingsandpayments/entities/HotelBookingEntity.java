@@ -3,8 +3,6 @@ package masera.deviajebookingsandpayments.entities;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.Lob;
@@ -18,6 +16,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import masera.deviajebookingsandpayments.configs.BlockId;
 
 
 /**
@@ -32,7 +31,7 @@ import lombok.NoArgsConstructor;
 public class HotelBookingEntity {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @BlockId("hotels_bookings")
   private Long id;
 
   @ManyToOne(fetch = FetchType.LAZY)
@@ -89,6 +88,8 @@ public class HotelBookingEntity {
    */
   @PrePersist
   protected void onCreate() {
-    this.createdDatetime = LocalDateTime.now();
+    if (this.createdDatetime == null) {
+      this.createdDatetime = LocalDateTime.now();
+    }
   }
 }
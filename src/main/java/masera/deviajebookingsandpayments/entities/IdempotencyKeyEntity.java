@@ -0,0 +1,78 @@
+package masera.deviajebookingsandpayments.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entidad que registra una solicitud recibida con Idempotency-Key y su respuesta,
+ * para devolver el mismo resultado a los reintentos del cliente.
+ */
+@Entity
+@Table(name = "idempotency_keys")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyKeyEntity {
+
+  /**
+   * Endpoint y clave enviada por el cliente (flights/book-and-pay:clave).
+   */
+  @Id
+  @Column(length = 150)
+  private String id;
+
+  /**
+   * Hash SHA-256 del cuerpo de la solicitud original.
+   */
+  @Column(nullable = false, length = 64)
+  private String requestHash;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 20)
+  private IdempotencyStatus status;
+
+  /**
+   * Respuesta serializada en JSON, una vez completada la solicitud.
+   */
+  @Lob
+  @Column(columnDefinition = "LONGTEXT")
+  private String responseBody;
+
+  /**
+   * Estado HTTP del error, si la solicitud falló después de contactar al proveedor.
+   */
+  private Integer errorStatus;
+
+  @Column(length = 1000)
+  private String errorMessage;
+
+  @Column(nullable = false)
+  private LocalDateTime createdAt;
+
+  /**
+   * Fecha a partir de la cual el registro puede eliminarse. Mientras la solicitud
+   * está en proceso, indica cuándo se considera abandonada.
+   */
+  @Column(nullable = false)
+  private LocalDateTime expiresAt;
+
+  /**
+   * Enum para los estados de una solicitud idempotente.
+   */
+  public enum IdempotencyStatus {
+    IN_PROGRESS,
+    COMPLETED,
+    FAILED
+  }
+}
@@ -0,0 +1,108 @@
+package masera.deviajebookingsandpayments.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import masera.deviajebookingsandpayments.configs.BlockId;
+
+/**
+ * Entidad del outbox: efecto secundario (voucher, email) registrado en la misma
+ * transacción que el cambio de la reserva o del pago que lo origina.
+ */
+@Entity
+@Table(name = "outbox_events",
+        indexes = {
+          @Index(name = "idx_outbox_status_available", columnList = "status, available_at"),
+          @Index(name = "idx_outbox_booking_type", columnList = "booking_id, event_type")
+        })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEventEntity {
+
+  @Id
+  @BlockId("outbox_events")
+  private Long id;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "event_type", nullable = false, length = 30)
+  private EventType eventType;
+
+  @Column(name = "booking_id", nullable = false)
+  private Long bookingId;
+
+  /**
+   * Monto reembolsado, para los emails de cancelación.
+   */
+  @Column(precision = 10, scale = 2)
+  private BigDecimal amount;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 20)
+  private EventStatus status;
+
+  @Column(nullable = false)
+  @Builder.Default
+  private Integer attempts = 0;
+
+  /**
+   * Momento a partir del cual el evento puede tomarse: el próximo reintento
+   * o, si está en proceso, el vencimiento de la toma.
+   */
+  @Column(name = "available_at", nullable = false)
+  private LocalDateTime availableAt;
+
+  @Column(nullable = false)
+  private LocalDateTime createdAt;
+
+  private LocalDateTime processedAt;
+
+  @Column(length = 500)
+  private String lastError;
+
+  /**
+   * Tipos de efectos secundarios.
+   */
+  public enum EventType {
+    BOOKING_VOUCHER,
+    CANCELLATION_EMAIL
+  }
+
+  /**
+   * Estados de un evento del outbox.
+   */
+  public enum EventStatus {
+    PENDING,
+    PROCESSING,
+    DONE,
+    FAILED
+  }
+
+  /**
+   * Set en estado pendiente y disponible de inmediato.
+   */
+  @PrePersist
+  protected void onCreate() {
+    if (createdAt == null) {
+      createdAt = LocalDateTime.now();
+    }
+    if (availableAt == null) {
+      availableAt = createdAt;
+    }
+    if (status == null) {
+      status = EventStatus.PENDING;
+    }
+  }
+}
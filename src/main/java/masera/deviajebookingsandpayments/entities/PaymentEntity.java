@@ -5,8 +5,6 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
@@ -18,6 +16,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import masera.deviajebookingsandpayments.configs.BlockId;
 
 /**
  * Entidad para pagos (sin detalles de tarjeta).
@@ -31,7 +30,7 @@ import lombok.NoArgsConstructor;
 public class PaymentEntity {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @BlockId("payments")
   private Long id;
 
   @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,28 @@
+package masera.deviajebookingsandpayments.exceptions;
+
+import lombok.Getter;
+
+/**
+ * Excepción que se lanza cuando Amadeus aceptó la creación de una orden de vuelo
+ * pero su respuesta no se pudo leer. La orden puede haber quedado emitida sin que
+ * se conozca su ID, por lo que requiere una cancelación manual.
+ */
+@Getter
+public class UnconfirmedFlightOrderException extends AmadeusApiException {
+
+  /**
+   * Respuesta original de Amadeus, o null si no llegó a leerse.
+   */
+  private final String rawResponse;
+
+  /**
+   * Constructor de la excepción.
+   *
+   * @param message mensaje de error
+   * @param rawResponse respuesta original de Amadeus, o null si no llegó a leerse
+   */
+  public UnconfirmedFlightOrderException(String message, String rawResponse) {
+    super(message, 502, 0);
+    this.rawResponse = rawResponse;
+  }
+}
@@ -0,0 +1,28 @@
+package masera.deviajebookingsandpayments.exceptions;
+
+import lombok.Getter;
+
+/**
+ * Excepción que se lanza cuando la respuesta de un proveedor supera el tamaño
+ * máximo configurado para ese proveedor.
+ */
+@Getter
+public class UpstreamResponseTooLargeException extends RuntimeException {
+
+  private final String upstream;
+
+  private final long maxBytes;
+
+  /**
+   * Constructor de la excepción.
+   *
+   * @param upstream nombre del proveedor
+   * @param maxBytes tamaño máximo permitido en bytes
+   */
+  public UpstreamResponseTooLargeException(String upstream, long maxBytes) {
+    super("La respuesta de " + upstream + " supera el tamaño máximo de "
+            + maxBytes + " bytes");
+    this.upstream = upstream;
+    this.maxBytes = maxBytes;
+  }
+}
@@ -0,0 +1,24 @@
+package masera.deviajebookingsandpayments.exceptions;
+
+import lombok.Getter;
+
+/**
+ * Excepción que se lanza cuando una llamada a un proveedor se rechaza sin enviarse,
+ * porque su circuit breaker está abierto o su bulkhead está lleno.
+ */
+@Getter
+public class UpstreamUnavailableException extends RuntimeException {
+
+  private final String upstream;
+
+  /**
+   * Constructor de la excepción.
+   *
+   * @param upstream nombre del proveedor
+   * @param message  Mensaje de error
+   */
+  public UpstreamUnavailableException(String upstream, String message) {
+    super(message);
+    this.upstream = upstream;
+  }
+}
@@ -0,0 +1,26 @@
+package masera.deviajebookingsandpayments.repositories;
+
+import jakarta.persistence.LockModeType;
+import java.time.LocalDate;
+import java.util.Optional;
+import masera.deviajebookingsandpayments.entities.BookingReferenceSequenceEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio para los contadores diarios de referencias de reserva.
+ */
+@Repository
+public interface BookingReferenceSequenceRepository
+        extends JpaRepository<BookingReferenceSequenceEntity, LocalDate> {
+
+  /**
+   * Obtiene el contador del día bloqueando la fila hasta el fin de la transacción.
+   *
+   * @param sequenceDate día del contador
+   * @return el contador si existe
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  Optional<BookingReferenceSequenceEntity> findBySequenceDate(LocalDate sequenceDate);
+}
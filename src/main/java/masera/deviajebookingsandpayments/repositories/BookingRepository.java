@@ -1,10 +1,16 @@
 package masera.deviajebookingsandpayments.repositories;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.entities.OutboxEventEntity;
+import masera.deviajebookingsandpayments.entities.PaymentEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -81,4 +87,131 @@ public interface BookingRepository extends JpaRepository<BookingEntity, Long> {
    * @return Lista de reservas del cliente con el estado especificado
    */
   List<BookingEntity> findByClientIdAndStatus(Integer clientId, BookingEntity.BookingStatus status);
+
+  /**
+   * Obtiene el mayor ID de reserva registrado.
+   *
+   * @return el mayor ID o 0 si no hay reservas
+   */
+  @Query("SELECT COALESCE(MAX(b.id), 0) FROM BookingEntity b")
+  Long findMaxId();
+
+  /**
+   * Obtiene los IDs de las reservas con pago aprobado cuyo voucher no se envió y que
+   * no tienen un evento de voucher pendiente en el outbox. Las reservas importadas
+   * llegan marcadas como enviadas y no se incluyen aunque no tengan el PDF guardado.
+   *
+   * @param status estado de las reservas (CONFIRMED)
+   * @param approved estado de pago aprobado
+   * @param eventType tipo de evento del voucher
+   * @param openStatuses estados de los eventos que todavía van a procesarse
+   * @return IDs de las reservas pendientes
+   */
+  @Query("SELECT b.id FROM BookingEntity b WHERE b.status = :status AND b.isSent = false "
+          + "AND EXISTS (SELECT p.id FROM PaymentEntity p "
+          + "WHERE p.bookingEntity = b AND p.status = :approved) "
+          + "AND NOT EXISTS (SELECT e.id FROM OutboxEventEntity e WHERE e.bookingId = b.id "
+          + "AND e.eventType = :eventType AND e.status IN :openStatuses)")
+  List<Long> findPendingVoucherIds(
+          @Param("status") BookingEntity.BookingStatus status,
+          @Param("approved") PaymentEntity.PaymentStatus approved,
+          @Param("eventType") OutboxEventEntity.EventType eventType,
+          @Param("openStatuses") Collection<OutboxEventEntity.EventStatus> openStatuses);
+
+  /**
+   * Obtiene cuáles de las referencias indicadas ya están registradas.
+   *
+   * @param references referencias a buscar
+   * @return las referencias existentes
+   */
+  @Query("SELECT b.bookingReference FROM BookingEntity b "
+          + "WHERE b.bookingReference IN :references")
+  List<String> findExistingReferences(@Param("references") Collection<String> references);
+
+  /**
+   * Encuentra reservas en alguna de las etapas sin avanzar desde la fecha indicada.
+   *
+   * @param stages etapas buscadas
+   * @param before fecha límite del último cambio de etapa
+   * @return Lista de reservas detenidas
+   */
+  List<BookingEntity> findByStageInAndStageUpdatedAtBefore(
+          Collection<BookingEntity.BookingStage> stages, LocalDateTime before);
+
+  /**
+   * Avanza la etapa de una reserva solo si sigue en la etapa esperada.
+   *
+   * @param id ID de la reserva
+   * @param from etapa esperada
+   * @param to nueva etapa
+   * @param now fecha del cambio
+   * @return cantidad de reservas actualizadas (0 o 1)
+   */
+  @Modifying
+  @Query("UPDATE BookingEntity b SET b.stage = :to, b.stageUpdatedAt = :now "
+          + "WHERE b.id = :id AND b.stage = :from")
+  int updateStage(@Param("id") Long id,
+                  @Param("from") BookingEntity.BookingStage from,
+                  @Param("to") BookingEntity.BookingStage to,
+                  @Param("now") LocalDateTime now);
+
+  /**
+   * Avanza la etapa y cambia el estado de una reserva solo si sigue en la etapa esperada.
+   *
+   * @param id ID de la reserva
+   * @param from etapa esperada
+   * @param to nueva etapa
+   * @param status nuevo estado
+   * @param now fecha del cambio
+   * @return cantidad de reservas actualizadas (0 o 1)
+   */
+  @Modifying
+  @Query("UPDATE BookingEntity b SET b.stage = :to, b.status = :status, "
+          + "b.stageUpdatedAt = :now WHERE b.id = :id AND b.stage = :from")
+  int updateStageAndStatus(@Param("id") Long id,
+                           @Param("from") BookingEntity.BookingStage from,
+                           @Param("to") BookingEntity.BookingStage to,
+                           @Param("status") BookingEntity.BookingStatus status,
+                           @Param("now") LocalDateTime now);
+
+  /**
+   * Obtiene solo el voucher de una reserva, sin cargar la entidad.
+   *
+   * @param id ID de la reserva
+   * @return el PDF del voucher o null si no tiene
+   */
+  @Query("SELECT b.voucher FROM BookingEntity b WHERE b.id = :id")
+  byte[] findVoucherById(@Param("id") Long id);
+
+  /**
+   * Guarda el voucher de una reserva solo si todavía no tiene uno.
+   *
+   * @param id ID de la reserva
+   * @param voucher PDF del voucher
+   * @return cantidad de reservas actualizadas (0 o 1)
+   */
+  @Modifying
+  @Query("UPDATE BookingEntity b SET b.voucher = :voucher WHERE b.id = :id AND b.voucher IS NULL")
+  int storeVoucherIfAbsent(@Param("id") Long id, @Param("voucher") byte[] voucher);
+
+  /**
+   * Reemplaza el voucher de una reserva.
+   *
+   * @param id ID de la reserva
+   * @param voucher PDF del voucher
+   * @return cantidad de reservas actualizadas (0 o 1)
+   */
+  @Modifying
+  @Query("UPDATE BookingEntity b SET b.voucher = :voucher WHERE b.id = :id")
+  int replaceVoucher(@Param("id") Long id, @Param("voucher") byte[] voucher);
+
+  /**
+   * Marca el voucher de una reserva como enviado.
+   *
+   * @param id ID de la reserva
+   * @return cantidad de reservas actualizadas (0 o 1)
+   */
+  @Modifying
+  @Query("UPDATE BookingEntity b SET b.isSent = true WHERE b.id = :id")
+  int markVoucherSent(@Param("id") Long id);
 }
@@ -0,0 +1,62 @@
+package masera.deviajebookingsandpayments.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import masera.deviajebookingsandpayments.entities.BookingRequestEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio para BookingRequestEntity.
+ */
+@Repository
+public interface BookingRequestRepository extends JpaRepository<BookingRequestEntity, String> {
+
+  /**
+   * Cuenta las solicitudes en un estado, para acotar el tamaño de la cola.
+   *
+   * @param status estado de la solicitud
+   * @return cantidad de solicitudes
+   */
+  long countByStatus(BookingRequestEntity.RequestStatus status);
+
+  /**
+   * Bloquea las solicitudes en cola más antiguas. Las filas ya bloqueadas por otro
+   * worker o instancia se saltean en lugar de esperar.
+   * Debe ejecutarse dentro de una transacción.
+   *
+   * @param limit cantidad máxima de solicitudes
+   * @return solicitudes bloqueadas
+   */
+  @Query(value = "SELECT * FROM booking_requests WHERE status = 'QUEUED' "
+          + "ORDER BY created_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+  List<BookingRequestEntity> lockQueued(@Param("limit") int limit);
+
+  /**
+   * Marca como fallidas las solicitudes en proceso cuya toma venció.
+   *
+   * @param now fecha actual
+   * @param message mensaje de error
+   * @return cantidad de solicitudes actualizadas
+   */
+  @Modifying
+  @Query(value = "UPDATE booking_requests SET status = 'FAILED', error_status = 500, "
+          + "error_message = :message, finished_at = :now "
+          + "WHERE status = 'PROCESSING' AND lease_expires_at < :now", nativeQuery = true)
+  int failExpired(@Param("now") LocalDateTime now, @Param("message") String message);
+
+  /**
+   * Elimina las solicitudes finalizadas antes de la fecha indicada.
+   *
+   * @param before fecha límite
+   * @return cantidad de solicitudes eliminadas
+   */
+  @Modifying
+  @Query(value = "DELETE FROM booking_requests "
+          + "WHERE status IN ('COMPLETED', 'FAILED') AND finished_at < :before",
+          nativeQuery = true)
+  int deleteFinishedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,19 @@
+package masera.deviajebookingsandpayments.repositories;
+
+import java.util.List;
+import masera.deviajebookingsandpayments.entities.CompensationEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio para CompensationEntity.
+ */
+@Repository
+public interface CompensationRepository extends JpaRepository<CompensationEntity, Long> {
+
+  /**
+   * Busca las compensaciones por estado, por ejemplo las que fallaron
+   * y deben revisarse manualmente.
+   */
+  List<CompensationEntity> findByStatus(CompensationEntity.CompensationStatus status);
+}
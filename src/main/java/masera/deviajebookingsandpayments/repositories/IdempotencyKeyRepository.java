@@ -0,0 +1,53 @@
+package masera.deviajebookingsandpayments.repositories;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import masera.deviajebookingsandpayments.entities.IdempotencyKeyEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio para IdempotencyKeyEntity.
+ */
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKeyEntity, String> {
+
+  /**
+   * Elimina una clave solo si ya venció.
+   *
+   * @param id ID de la clave
+   * @param now fecha actual
+   * @return cantidad de claves eliminadas (0 o 1)
+   */
+  @Modifying
+  @Query("DELETE FROM IdempotencyKeyEntity k WHERE k.id = :id AND k.expiresAt < :now")
+  int deleteExpiredById(@Param("id") String id, @Param("now") LocalDateTime now);
+
+  /**
+   * Extiende el vencimiento de las claves en proceso tomadas por esta instancia.
+   *
+   * @param ids IDs de las claves
+   * @param status estado de las claves a extender (IN_PROGRESS)
+   * @param expiresAt nuevo vencimiento
+   * @return cantidad de claves actualizadas
+   */
+  @Modifying
+  @Query("UPDATE IdempotencyKeyEntity k SET k.expiresAt = :expiresAt "
+          + "WHERE k.id IN :ids AND k.status = :status")
+  int extendLease(@Param("ids") Collection<String> ids,
+                  @Param("status") IdempotencyKeyEntity.IdempotencyStatus status,
+                  @Param("expiresAt") LocalDateTime expiresAt);
+
+  /**
+   * Elimina todas las claves vencidas.
+   *
+   * @param now fecha actual
+   * @return cantidad de claves eliminadas
+   */
+  @Modifying
+  @Query("DELETE FROM IdempotencyKeyEntity k WHERE k.expiresAt < :now")
+  int deleteExpired(@Param("now") LocalDateTime now);
+}
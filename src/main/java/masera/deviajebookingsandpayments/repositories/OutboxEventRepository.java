@@ -0,0 +1,31 @@
+package masera.deviajebookingsandpayments.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import masera.deviajebookingsandpayments.entities.OutboxEventEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio para OutboxEventEntity.
+ */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEventEntity, Long> {
+
+  /**
+   * Bloquea un lote de eventos disponibles. Las filas ya bloqueadas por otro
+   * worker o instancia se saltean en lugar de esperar.
+   * Debe ejecutarse dentro de una transacción.
+   *
+   * @param now fecha actual
+   * @param limit tamaño máximo del lote
+   * @return eventos bloqueados
+   */
+  @Query(value = "SELECT * FROM outbox_events "
+          + "WHERE status IN ('PENDING', 'PROCESSING') AND available_at <= :now "
+          + "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+  List<OutboxEventEntity> lockAvailable(@Param("now") LocalDateTime now,
+                                        @Param("limit") int limit);
+}
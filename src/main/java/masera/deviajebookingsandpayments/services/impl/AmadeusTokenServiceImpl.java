@@ -1,26 +1,43 @@
 package masera.deviajebookingsandpayments.services.impl;
 
-import java.time.LocalDateTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import masera.deviajebookingsandpayments.clients.AmadeusAuthClient;
 import masera.deviajebookingsandpayments.dtos.AmadeusTokenResponse;
 import masera.deviajebookingsandpayments.services.interfaces.AmadeusTokenService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
 /**
  * Implementación del servicio de autenticación de Amadeus.
+ * El token se lee sin bloqueos desde una referencia atómica y una tarea programada
+ * lo renueva antes de que venza, de modo que las llamadas no esperan al token en
+ * régimen normal. Las renovaciones concurrentes comparten una única solicitud.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AmadeusTokenServiceImpl implements AmadeusTokenService {
 
+  // Se le restan 60 segundos a la expiración para evitar que expire mientras se usa
+  private static final Duration EXPIRATION_MARGIN = Duration.ofSeconds(60);
+
   private final AmadeusAuthClient amadeusAuthClient;
 
-  private String currentToken;
+  private final AtomicReference<AccessToken> currentToken = new AtomicReference<>();
+
+  private final AtomicReference<CompletableFuture<AccessToken>> pendingRefresh =
+          new AtomicReference<>();
 
-  private LocalDateTime tokenExpiration;
+  @Value("${deviaje.amadeus-token.refresh-ahead-seconds:300}")
+  private long refreshAheadSeconds;
 
   /**
    * Obtiene el token de autenticación de Amadeus.
@@ -28,39 +45,113 @@ public class AmadeusTokenServiceImpl implements AmadeusTokenService {
    *
    * @return el token de autenticación.
    */
-  // synchronized se usa aquí para evitar que múltiples hilos
-  // intenten obtener un nuevo token al mismo tiempo
   @Override
-  public synchronized String getToken() {
-
-    if (isTokenValid()) {
-      return currentToken;
+  public String getToken() {
+    AccessToken token = currentToken.get();
+    if (token != null && token.isValid(Instant.now())) {
+      return token.value();
     }
-
-    log.info("Solicitando nuevo token de Amadeus");
-
     try {
+      return refreshOnce().join().value();
+    } catch (CompletionException e) {
+      throw new RuntimeException("Error al obtener el token de Amadeus", e.getCause());
+    }
+  }
 
-      AmadeusTokenResponse response = amadeusAuthClient.getAmadeusToken().block();
+  @Override
+  public Mono<String> getTokenReactive() {
+    return Mono.defer(() -> {
+      AccessToken token = currentToken.get();
+      if (token != null && token.isValid(Instant.now())) {
+        return Mono.just(token.value());
+      }
+      return awaitRefresh();
+    });
+  }
 
-      if (response != null && response.getAccessToken() != null) {
-        currentToken = response.getAccessToken();
-        // Se le resta 60 segundos a la expiración para evitar que expire mientras se usa
-        tokenExpiration = LocalDateTime.now().plusSeconds(response.getExpiresIn() - 60);
-        return currentToken;
-      } else {
-        throw new RuntimeException("No se pudo obtener el token de Amadeus");
+  @Override
+  public Mono<String> refreshToken(String rejectedToken) {
+    return Mono.defer(() -> {
+      AccessToken token = currentToken.get();
+      if (token != null && !token.value().equals(rejectedToken)
+              && token.isValid(Instant.now())) {
+        return Mono.just(token.value());
       }
+      log.warn("Amadeus rechazó el token vigente. Renovando");
+      currentToken.compareAndSet(token, null);
+      return awaitRefresh();
+    });
+  }
+
+  /**
+   * Renueva el token cuando le quedan menos de refreshAheadSeconds de vigencia.
+   * Si falla, el token actual sigue en uso y se reintenta en la próxima ejecución.
+   */
+  @Scheduled(fixedDelayString = "${deviaje.amadeus-token.check-interval-ms:30000}")
+  public void refreshBeforeExpiry() {
+    AccessToken token = currentToken.get();
+    Instant threshold = Instant.now().plusSeconds(refreshAheadSeconds);
+    if (token == null || !token.isValid(threshold)) {
+      refreshOnce().exceptionally(error -> {
+        log.warn("No se pudo renovar el token de Amadeus por adelantado: {}",
+                error.getMessage());
+        return null;
+      });
+    }
+  }
 
-    } catch (Exception e) {
+  private Mono<String> awaitRefresh() {
+    return Mono.fromFuture(refreshOnce(), true)
+            .map(AccessToken::value)
+            .onErrorMap(error -> new RuntimeException(
+                    "Error al obtener el token de Amadeus", error));
+  }
 
-      log.error("Error al obtener el token de Amadeus: {}", e.getMessage());
-      throw new RuntimeException("Error al obtener el token de Amadeus", e);
+  /**
+   * Solicita un nuevo token, o se suma a la solicitud que ya está en curso.
+   */
+  private CompletableFuture<AccessToken> refreshOnce() {
+    CompletableFuture<AccessToken> own = new CompletableFuture<>();
+    CompletableFuture<AccessToken> running = pendingRefresh.compareAndExchange(null, own);
+    if (running != null) {
+      return running;
     }
+
+    log.info("Solicitando nuevo token de Amadeus");
+    amadeusAuthClient.getAmadeusToken()
+            .map(this::toAccessToken)
+            .switchIfEmpty(Mono.error(
+                    new IllegalStateException("No se pudo obtener el token de Amadeus")))
+            .subscribe(token -> {
+              // El token nuevo se publica antes de liberar la renovación en curso
+              currentToken.set(token);
+              pendingRefresh.set(null);
+              own.complete(token);
+            }, error -> {
+              log.error("Error al obtener el token de Amadeus: {}", error.getMessage());
+              pendingRefresh.set(null);
+              own.completeExceptionally(error);
+            });
+    return own;
   }
 
-  private boolean isTokenValid() {
-    return currentToken != null && tokenExpiration != null
-            && LocalDateTime.now().isBefore(tokenExpiration);
+  private AccessToken toAccessToken(AmadeusTokenResponse response) {
+    if (response.getAccessToken() == null || response.getExpiresIn() == null) {
+      throw new IllegalStateException("No se pudo obtener el token de Amadeus");
+    }
+    Instant expiresAt = Instant.now()
+            .plusSeconds(response.getExpiresIn())
+            .minus(EXPIRATION_MARGIN);
+    return new AccessToken(response.getAccessToken(), expiresAt);
+  }
+
+  /**
+   * Token de acceso y el instante a partir del cual deja de usarse.
+   */
+  private record AccessToken(String value, Instant expiresAt) {
+
+    private boolean isValid(Instant at) {
+      return at.isBefore(expiresAt);
+    }
   }
 }
@@ -0,0 +1,356 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import masera.deviajebookingsandpayments.dtos.imports.BookingImportResultDto;
+import masera.deviajebookingsandpayments.dtos.imports.LegacyBookingImportDto;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.entities.FlightBookingEntity;
+import masera.deviajebookingsandpayments.entities.HotelBookingEntity;
+import masera.deviajebookingsandpayments.entities.PaymentEntity;
+import masera.deviajebookingsandpayments.repositories.BookingRepository;
+import masera.deviajebookingsandpayments.services.interfaces.BookingImportService;
+import masera.deviajebookingsandpayments.services.interfaces.BookingService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Implementación de la importación masiva de reservas.
+ * Las reservas se leen de a una desde el cuerpo de la solicitud y se guardan en
+ * lotes, cada uno en su propia transacción, usando el batching JDBC de Hibernate.
+ * Las filas mal formadas y las referencias ya existentes se informan y se omiten;
+ * si un lote falla igual, se reintenta fila por fila para aislar las que fallan.
+ */
+@Service
+@Slf4j
+public class BookingImportServiceImpl implements BookingImportService {
+
+  private static final int MAX_REPORTED_ERRORS = 100;
+
+  private final BookingRepository bookingRepository;
+
+  private final BookingService bookingService;
+
+  private final ObjectMapper objectMapper;
+
+  private final EntityManager entityManager;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final int batchSize;
+
+  private final byte[] adminToken;
+
+  /**
+   * Constructor del servicio de importación.
+   *
+   * @param bookingRepository repositorio de reservas
+   * @param bookingService servicio de reservas, para generar referencias
+   * @param objectMapper mapper para leer las reservas
+   * @param entityManager contexto de persistencia que se libera por lote
+   * @param transactionTemplate transacciones de cada lote
+   * @param batchSize reservas guardadas por transacción
+   * @param adminToken token requerido para importar; vacío deshabilita la importación
+   */
+  public BookingImportServiceImpl(
+          BookingRepository bookingRepository,
+          BookingService bookingService,
+          ObjectMapper objectMapper,
+          EntityManager entityManager,
+          TransactionTemplate transactionTemplate,
+          @Value("${deviaje.import.batch-size:500}") int batchSize,
+          @Value("${deviaje.import.admin-token:}") String adminToken) {
+    this.bookingRepository = bookingRepository;
+    this.bookingService = bookingService;
+    this.objectMapper = objectMapper;
+    this.entityManager = entityManager;
+    this.transactionTemplate = transactionTemplate;
+    this.batchSize = batchSize;
+    this.adminToken = adminToken.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public void checkAuthorization(String token) {
+    if (adminToken.length == 0) {
+      throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+              "La importación de reservas no está habilitada");
+    }
+    if (token == null
+            || !MessageDigest.isEqual(adminToken, token.getBytes(StandardCharsets.UTF_8))) {
+      throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+              "Token de administración inválido");
+    }
+  }
+
+  @Override
+  public BookingImportResultDto importBookings(InputStream input) throws IOException {
+    log.info("Iniciando importación masiva de reservas. Lote: {}", batchSize);
+
+    ObjectReader reader = objectMapper.readerFor(LegacyBookingImportDto.class);
+    BookingImportResultDto result = BookingImportResultDto.builder()
+            .errors(new ArrayList<>())
+            .build();
+    List<LegacyBookingImportDto> batch = new ArrayList<>(batchSize);
+    long rowNumber = 0;
+
+    try (MappingIterator<LegacyBookingImportDto> rows = reader.readValues(input)) {
+      while (rows.hasNextValue()) {
+        rowNumber++;
+        LegacyBookingImportDto row;
+        try {
+          row = rows.nextValue();
+        } catch (JsonMappingException e) {
+          // La fila es JSON válido pero no corresponde a una reserva: el iterador
+          // descarta el resto del objeto y la lectura sigue con la próxima
+          recordError(result, 1, "Fila " + rowNumber + ": " + e.getOriginalMessage());
+          continue;
+        }
+
+        if (row.getBookingReference() == null && row.getType() != null) {
+          try {
+            row.setBookingReference(bookingService.generateBookingReference(
+                    BookingEntity.BookingType.valueOf(row.getType())));
+          } catch (RuntimeException e) {
+            recordError(result, 1, "Fila " + rowNumber + ": " + e.getMessage());
+            continue;
+          }
+        }
+        batch.add(row);
+
+        if (batch.size() >= batchSize) {
+          saveBatch(batch, result);
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      // Un error de sintaxis deja el flujo en un estado no recuperable
+      recordError(result, 0, "Error de lectura en la fila " + rowNumber
+              + ", importación detenida: " + e.getMessage());
+    }
+
+    if (!batch.isEmpty()) {
+      saveBatch(batch, result);
+    }
+
+    log.info("Importación finalizada. Importadas: {}, Omitidas: {}, Fallidas: {}, Lotes: {}",
+            result.getImported(), result.getSkipped(), result.getFailed(), result.getBatches());
+    return result;
+  }
+
+  /**
+   * Guarda un lote en su propia transacción y libera el contexto de persistencia.
+   * Las referencias que ya existen se omiten; si el lote falla, se reintenta
+   * cada fila por separado.
+   */
+  private void saveBatch(List<LegacyBookingImportDto> batch, BookingImportResultDto result) {
+    result.setBatches(result.getBatches() + 1);
+    List<LegacyBookingImportDto> pending = withoutExisting(batch, result);
+    batch.clear();
+
+    List<BookingEntity> entities = new ArrayList<>(pending.size());
+    List<LegacyBookingImportDto> converted = new ArrayList<>(pending.size());
+    for (LegacyBookingImportDto row : pending) {
+      try {
+        entities.add(toEntity(row));
+        converted.add(row);
+      } catch (RuntimeException e) {
+        recordError(result, 1, "Reserva " + row.getBookingReference() + ": " + e.getMessage());
+      }
+    }
+    if (entities.isEmpty()) {
+      return;
+    }
+
+    try {
+      save(entities);
+      result.setImported(result.getImported() + entities.size());
+    } catch (RuntimeException e) {
+      log.warn("Error al guardar lote {} de la importación, reintentando fila por fila: {}",
+              result.getBatches(), e.getMessage());
+      converted.forEach(row -> saveRow(row, result));
+    }
+  }
+
+  /**
+   * Guarda una sola reserva. Las entidades se arman de nuevo porque las del lote
+   * fallido quedaron con identificadores asignados por la transacción revertida.
+   */
+  private void saveRow(LegacyBookingImportDto row, BookingImportResultDto result) {
+    try {
+      save(List.of(toEntity(row)));
+      result.setImported(result.getImported() + 1);
+    } catch (RuntimeException e) {
+      log.error("Error al importar la reserva {}: {}", row.getBookingReference(), e.getMessage());
+      recordError(result, 1, "Reserva " + row.getBookingReference() + ": " + e.getMessage());
+    }
+  }
+
+  private void save(List<BookingEntity> entities) {
+    transactionTemplate.executeWithoutResult(status -> {
+      try {
+        bookingRepository.saveAll(entities);
+        entityManager.flush();
+      } finally {
+        entityManager.clear();
+      }
+    });
+  }
+
+  /**
+   * Descarta las filas cuya referencia ya está guardada o repetida en el mismo lote.
+   */
+  private List<LegacyBookingImportDto> withoutExisting(List<LegacyBookingImportDto> batch,
+                                                       BookingImportResultDto result) {
+    List<String> references = batch.stream()
+            .map(LegacyBookingImportDto::getBookingReference)
+            .filter(Objects::nonNull)
+            .toList();
+    Set<String> seen = references.isEmpty()
+            ? new HashSet<>()
+            : new HashSet<>(bookingRepository.findExistingReferences(references));
+
+    List<LegacyBookingImportDto> pending = new ArrayList<>(batch.size());
+    for (LegacyBookingImportDto row : batch) {
+      String reference = row.getBookingReference();
+      if (reference != null && !seen.add(reference)) {
+        result.setSkipped(result.getSkipped() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+          result.getErrors().add("Reserva " + reference + ": ya existe, omitida");
+        }
+        continue;
+      }
+      pending.add(row);
+    }
+    return pending;
+  }
+
+  private void recordError(BookingImportResultDto result, int failedRows, String message) {
+    result.setFailed(result.getFailed() + failedRows);
+    if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+      result.getErrors().add(message);
+    }
+  }
+
+  /**
+   * Convierte una reserva exportada en la entidad con sus detalles asociados.
+   */
+  private BookingEntity toEntity(LegacyBookingImportDto row) {
+    BookingEntity.BookingType type = BookingEntity.BookingType.valueOf(row.getType());
+
+    BookingEntity booking = BookingEntity.builder()
+            .bookingReference(row.getBookingReference())
+            .clientId(row.getClientId())
+            .agentId(row.getAgentId())
+            .status(row.getStatus() != null
+                    ? BookingEntity.BookingStatus.valueOf(row.getStatus())
+                    : BookingEntity.BookingStatus.COMPLETED)
+            .type(type)
+            .totalAmount(row.getTotalAmount())
+            .commission(orZero(row.getCommission()))
+            .discount(orZero(row.getDiscount()))
+            .taxes(orZero(row.getTaxes()))
+            .currency(row.getCurrency() != null ? row.getCurrency() : "ARS")
+            .holderName(row.getHolderName())
+            .countryCallingCode(row.getCountryCallingCode())
+            .phone(row.getPhone())
+            .email(row.getEmail())
+            .createdDatetime(row.getCreatedDatetime())
+            .isSent(true)
+            .build();
+
+    if (row.getFlight() != null) {
+      booking.setFlightBookingEntities(List.of(toFlightEntity(row.getFlight(), booking)));
+    }
+    if (row.getHotel() != null) {
+      booking.setHotelBookingEntities(List.of(toHotelEntity(row.getHotel(), booking)));
+    }
+    if (row.getPayment() != null) {
+      booking.setPaymentEntities(List.of(toPaymentEntity(row.getPayment(), booking)));
+    }
+    return booking;
+  }
+
+  private FlightBookingEntity toFlightEntity(LegacyBookingImportDto.FlightImport flight,
+                                             BookingEntity booking) {
+    return FlightBookingEntity.builder()
+            .bookingEntity(booking)
+            .externalId(flight.getExternalId())
+            .origin(flight.getOrigin())
+            .destination(flight.getDestination())
+            .departureDate(flight.getDepartureDate())
+            .returnDate(flight.getReturnDate())
+            .carrier(flight.getCarrier())
+            .adults(flight.getAdults())
+            .children(flight.getChildren())
+            .infants(flight.getInfants())
+            .itineraries(flight.getItineraries())
+            .travelers(flight.getTravelers())
+            .totalPrice(flight.getTotalPrice())
+            .taxes(flight.getTaxes())
+            .currency(flight.getCurrency())
+            .createdDatetime(booking.getCreatedDatetime())
+            .build();
+  }
+
+  private HotelBookingEntity toHotelEntity(LegacyBookingImportDto.HotelImport hotel,
+                                           BookingEntity booking) {
+    return HotelBookingEntity.builder()
+            .bookingEntity(booking)
+            .externalId(hotel.getExternalId())
+            .hotelName(hotel.getHotelName())
+            .destinationName(hotel.getDestinationName())
+            .countryName(hotel.getCountryName())
+            .roomName(hotel.getRoomName())
+            .boardName(hotel.getBoardName())
+            .checkInDate(hotel.getCheckInDate())
+            .checkOutDate(hotel.getCheckOutDate())
+            .numberOfNights(hotel.getNumberOfNights())
+            .numberOfRooms(hotel.getNumberOfRooms())
+            .adults(hotel.getAdults() != null ? hotel.getAdults() : 0)
+            .children(hotel.getChildren() != null ? hotel.getChildren() : 0)
+            .totalPrice(hotel.getTotalPrice())
+            .taxes(hotel.getTaxes())
+            .currency(hotel.getCurrency())
+            .hotelBooking(hotel.getHotelBooking())
+            .cancellationPolicies(hotel.getCancellationPolicies())
+            .createdDatetime(booking.getCreatedDatetime())
+            .build();
+  }
+
+  private PaymentEntity toPaymentEntity(LegacyBookingImportDto.PaymentImport payment,
+                                        BookingEntity booking) {
+    return PaymentEntity.builder()
+            .bookingEntity(booking)
+            .type(payment.getType())
+            .amount(payment.getAmount())
+            .currency(payment.getCurrency() != null ? payment.getCurrency() : "ARS")
+            .method(payment.getMethod())
+            .paymentProvider(payment.getPaymentProvider())
+            .externalPaymentId(payment.getExternalPaymentId())
+            .status(payment.getStatus() != null
+                    ? PaymentEntity.PaymentStatus.valueOf(payment.getStatus())
+                    : PaymentEntity.PaymentStatus.APPROVED)
+            .date(payment.getDate())
+            .build();
+  }
+
+  private BigDecimal orZero(BigDecimal value) {
+    return value != null ? value : BigDecimal.ZERO;
+  }
+}
@@ -0,0 +1,216 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import masera.deviajebookingsandpayments.dtos.payments.PaymentRequestDto;
+import masera.deviajebookingsandpayments.dtos.responses.BookingReferenceResponse;
+import masera.deviajebookingsandpayments.dtos.responses.PaymentResponseDto;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.entities.FlightBookingEntity;
+import masera.deviajebookingsandpayments.entities.HotelBookingEntity;
+import masera.deviajebookingsandpayments.entities.PaymentEntity;
+import masera.deviajebookingsandpayments.exceptions.MercadoPagoException;
+import masera.deviajebookingsandpayments.exceptions.UpstreamUnavailableException;
+import masera.deviajebookingsandpayments.repositories.BookingRepository;
+import masera.deviajebookingsandpayments.repositories.FlightBookingRepository;
+import masera.deviajebookingsandpayments.repositories.HotelBookingRepository;
+import masera.deviajebookingsandpayments.repositories.PaymentRepository;
+import masera.deviajebookingsandpayments.services.interfaces.BookingPipelineService;
+import masera.deviajebookingsandpayments.services.interfaces.BookingService;
+import masera.deviajebookingsandpayments.services.interfaces.CompensationService;
+import masera.deviajebookingsandpayments.services.interfaces.OutboxService;
+import masera.deviajebookingsandpayments.services.interfaces.PaymentService;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Implementación de las etapas de pago y finalización de reservas.
+ * Ninguna transacción queda abierta durante las llamadas a MercadoPago o a los
+ * proveedores: cada cambio de etapa es una transacción corta.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BookingPipelineServiceImpl implements BookingPipelineService {
+
+  private static final int MAX_REASON_LENGTH = 500;
+
+  private final BookingRepository bookingRepository;
+
+  private final PaymentRepository paymentRepository;
+
+  private final FlightBookingRepository flightBookingRepository;
+
+  private final HotelBookingRepository hotelBookingRepository;
+
+  private final PaymentService paymentService;
+
+  private final BookingService bookingService;
+
+  private final CompensationService compensationService;
+
+  private final OutboxService outboxService;
+
+  private final TransactionTemplate transactionTemplate;
+
+  @Override
+  public BookingReferenceResponse payAndFinalize(BookingEntity booking,
+                                                 PaymentRequestDto paymentRequest) {
+    Long bookingId = booking.getId();
+
+    if (!moveStage(bookingId, BookingEntity.BookingStage.RESERVED,
+            BookingEntity.BookingStage.PAYMENT_IN_PROGRESS)) {
+      throw new ResponseStatusException(HttpStatus.CONFLICT,
+              "La reserva " + booking.getBookingReference() + " ya no está pendiente de pago");
+    }
+
+    PaymentResponseDto paymentResult;
+    try {
+      paymentRequest.setBookingId(bookingId);
+      paymentResult = paymentService.processPayment(paymentRequest);
+
+    } catch (MercadoPagoException e) {
+      if (e.getStatusCode() >= 500) {
+        // No se sabe si hubo cobro: la recuperación lo consulta en MercadoPago
+        log.error("Resultado del pago desconocido para la reserva {}. Queda pendiente de "
+                + "recuperación", booking.getBookingReference());
+        throw e;
+      }
+      log.error("Pago rechazado para la reserva {}. Cancelando en los proveedores",
+              booking.getBookingReference());
+      failAndCompensate(bookingId, BookingEntity.BookingStage.PAYMENT_IN_PROGRESS,
+              "Pago rechazado: " + e.getMessage());
+      throw e;
+
+    } catch (UpstreamUnavailableException e) {
+      // La llamada no llegó a enviarse: no hubo cobro
+      log.error("MercadoPago no disponible para la reserva {}. Cancelando en los proveedores",
+              booking.getBookingReference());
+      failAndCompensate(bookingId, BookingEntity.BookingStage.PAYMENT_IN_PROGRESS,
+              "Pago no enviado: " + e.getMessage());
+      throw e;
+    }
+
+    finalizeBooking(bookingId, paymentResult.getId());
+    return new BookingReferenceResponse(booking.getBookingReference());
+  }
+
+  @Override
+  public void recoverBooking(Long bookingId) {
+    BookingEntity booking = bookingRepository.findById(bookingId).orElse(null);
+    if (booking == null || booking.getStage() == null) {
+      return;
+    }
+
+    switch (booking.getStage()) {
+      case RESERVED -> {
+        log.warn("Reserva {} abandonada antes del pago", booking.getBookingReference());
+        failAndCompensate(bookingId, BookingEntity.BookingStage.RESERVED,
+                "Reserva abandonada antes del pago");
+      }
+      case PAYMENT_IN_PROGRESS -> {
+        Optional<Long> paymentId = findChargedPayment(bookingId);
+        if (paymentId.isPresent()) {
+          log.info("Finalizando reserva {} con pago {}",
+                  booking.getBookingReference(), paymentId.get());
+          finalizeBooking(bookingId, paymentId.get());
+        } else {
+          log.warn("Reserva {} sin pago aprobado", booking.getBookingReference());
+          failAndCompensate(bookingId, BookingEntity.BookingStage.PAYMENT_IN_PROGRESS,
+                  "El pago no se completó");
+        }
+      }
+      default -> log.debug("La reserva {} no requiere recuperación", bookingId);
+    }
+  }
+
+  /**
+   * Busca un pago aprobado o en proceso: primero en la base y luego en MercadoPago.
+   */
+  private Optional<Long> findChargedPayment(Long bookingId) {
+    Optional<Long> localPayment = paymentRepository.findByBookingEntityId(bookingId).stream()
+            .filter(p -> PaymentEntity.PaymentStatus.APPROVED.equals(p.getStatus())
+                    || PaymentEntity.PaymentStatus.PENDING.equals(p.getStatus()))
+            .map(PaymentEntity::getId)
+            .findFirst();
+    if (localPayment.isPresent()) {
+      return localPayment;
+    }
+    return paymentService.recoverBookingPayment(bookingId).map(PaymentResponseDto::getId);
+  }
+
+  /**
+   * Asocia el pago y marca la reserva como finalizada y confirmada en una transacción
+   * corta. Hasta acá la reserva queda pendiente y no aparece como confirmada.
+   */
+  private void finalizeBooking(Long bookingId, Long paymentId) {
+    transactionTemplate.executeWithoutResult(status -> {
+      bookingService.updatePaymentWithBookingId(paymentId, bookingId);
+      bookingRepository.updateStageAndStatus(bookingId,
+              BookingEntity.BookingStage.PAYMENT_IN_PROGRESS,
+              BookingEntity.BookingStage.FINALIZED,
+              BookingEntity.BookingStatus.CONFIRMED, LocalDateTime.now());
+      outboxService.enqueueVoucher(bookingId);
+    });
+    log.info("Reserva {} finalizada", bookingId);
+  }
+
+  /**
+   * Marca la reserva como fallida y la cancela en los proveedores. Solo compensa
+   * quien logra el cambio de etapa, para no cancelar dos veces la misma reserva.
+   */
+  private void failAndCompensate(Long bookingId, BookingEntity.BookingStage from, String reason) {
+    String truncatedReason = reason.length() > MAX_REASON_LENGTH
+            ? reason.substring(0, MAX_REASON_LENGTH)
+            : reason;
+
+    ProviderReservations reservations = transactionTemplate.execute(status -> {
+      LocalDateTime now = LocalDateTime.now();
+      if (bookingRepository.updateStage(bookingId, from,
+              BookingEntity.BookingStage.FAILED, now) == 0) {
+        return null;
+      }
+      BookingEntity booking = bookingRepository.findById(bookingId).orElseThrow();
+      booking.setStatus(BookingEntity.BookingStatus.CANCELLED);
+      booking.setCancelledAt(now);
+      booking.setCancellationReason(truncatedReason);
+
+      return new ProviderReservations(booking.getType(),
+              flightBookingRepository.findByBookingEntityId(bookingId).stream()
+                      .map(FlightBookingEntity::getExternalId)
+                      .toList(),
+              hotelBookingRepository.findByBookingEntityId(bookingId).stream()
+                      .map(HotelBookingEntity::getExternalId)
+                      .toList());
+    });
+
+    if (reservations == null) {
+      log.info("La reserva {} ya fue resuelta por otro proceso", bookingId);
+      return;
+    }
+
+    reservations.flightIds().forEach(id ->
+            compensationService.compensateFlight(id, reservations.type(), truncatedReason));
+    reservations.hotelIds().forEach(id ->
+            compensationService.compensateHotel(id, reservations.type(), truncatedReason));
+  }
+
+  private boolean moveStage(Long bookingId, BookingEntity.BookingStage from,
+                            BookingEntity.BookingStage to) {
+    Integer updated = transactionTemplate.execute(status ->
+            bookingRepository.updateStage(bookingId, from, to, LocalDateTime.now()));
+    return updated != null && updated == 1;
+  }
+
+  /**
+   * IDs de las reservas en los proveedores a cancelar.
+   */
+  private record ProviderReservations(BookingEntity.BookingType type,
+                                      List<String> flightIds,
+                                      List<String> hotelIds) {}
+}
@@ -0,0 +1,58 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.repositories.BookingRepository;
+import masera.deviajebookingsandpayments.services.interfaces.BookingPipelineService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Servicio que recupera reservas detenidas entre etapas, por ejemplo si la
+ * instancia se reinició entre el guardado y el pago o durante el pago.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BookingRecoveryScheduledService {
+
+  private static final List<BookingEntity.BookingStage> PENDING_STAGES = List.of(
+          BookingEntity.BookingStage.RESERVED,
+          BookingEntity.BookingStage.PAYMENT_IN_PROGRESS);
+
+  private final BookingRepository bookingRepository;
+
+  private final BookingPipelineService bookingPipelineService;
+
+  @Value("${deviaje.booking.recovery.stale-after-ms:900000}")
+  private long staleAfterMs;
+
+  /**
+   * Resuelve las reservas que no cambiaron de etapa en el tiempo configurado.
+   */
+  @Scheduled(fixedDelayString = "${deviaje.booking.recovery.fixed-delay:300000}")
+  public void recoverStuckBookings() {
+    LocalDateTime limit = LocalDateTime.now().minus(Duration.ofMillis(staleAfterMs));
+    List<BookingEntity> stuckBookings =
+            bookingRepository.findByStageInAndStageUpdatedAtBefore(PENDING_STAGES, limit);
+
+    if (stuckBookings.isEmpty()) {
+      return;
+    }
+
+    log.info("Encontradas {} reservas detenidas entre etapas", stuckBookings.size());
+    for (BookingEntity booking : stuckBookings) {
+      try {
+        bookingPipelineService.recoverBooking(booking.getId());
+      } catch (Exception e) {
+        log.error("Error al recuperar la reserva {}: {}",
+                booking.getBookingReference(), e.getMessage(), e);
+      }
+    }
+  }
+}
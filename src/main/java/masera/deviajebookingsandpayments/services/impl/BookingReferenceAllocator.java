@@ -0,0 +1,171 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.entities.BookingReferenceSequenceEntity;
+import masera.deviajebookingsandpayments.repositories.BookingReferenceSequenceRepository;
+import masera.deviajebookingsandpayments.repositories.BookingRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Asigna referencias de reserva (FL-20251125-00025) antes de insertar la reserva.
+ * Cada instancia reserva en la base un bloque de valores del contador diario y
+ * los entrega desde memoria sin bloqueo; solo se sincroniza al renovar el bloque.
+ * Se llama antes de abrir la transacción de la reserva: renovar el bloque usa su
+ * propia conexión, y pedirla con otra ya tomada agota el pool bajo carga.
+ */
+@Service
+@Slf4j
+public class BookingReferenceAllocator {
+
+  private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+  private static final int MAX_RESERVE_ATTEMPTS = 3;
+
+  private final BookingReferenceSequenceRepository sequenceRepository;
+
+  private final BookingRepository bookingRepository;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final int blockSize;
+
+  private final AtomicReference<ReferenceBlock> currentBlock = new AtomicReference<>();
+
+  private final ReentrantLock refillLock = new ReentrantLock();
+
+  /**
+   * Constructor del asignador.
+   *
+   * @param sequenceRepository repositorio de contadores diarios
+   * @param bookingRepository repositorio de reservas
+   * @param transactionManager gestor de transacciones
+   * @param blockSize cantidad de valores reservados por viaje a la base
+   */
+  public BookingReferenceAllocator(BookingReferenceSequenceRepository sequenceRepository,
+                                   BookingRepository bookingRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${deviaje.booking-reference.block-size:50}")
+                                   int blockSize) {
+    this.sequenceRepository = sequenceRepository;
+    this.bookingRepository = bookingRepository;
+    this.blockSize = blockSize;
+    // El bloque se reserva en su propia transacción para no retener el lock
+    // de la fila durante la transacción de la reserva
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setPropagationBehavior(
+            TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  /**
+   * Genera la siguiente referencia para el tipo de reserva.
+   *
+   * @param type tipo de reserva
+   * @return la referencia amigable para el usuario
+   * @throws IllegalStateException si se llama dentro de una transacción
+   */
+  public String nextReference(BookingEntity.BookingType type) {
+    if (TransactionSynchronizationManager.isActualTransactionActive()) {
+      throw new IllegalStateException(
+              "La referencia de reserva debe asignarse fuera de la transacción");
+    }
+    String prefix = switch (type) {
+      case FLIGHT -> "FL";
+      case HOTEL -> "HT";
+      case PACKAGE -> "PK";
+    };
+    LocalDate today = LocalDate.now();
+
+    // Formato final: FL-20251125-00025
+    return String.format("%s-%s-%05d", prefix, today.format(DATE_FORMAT), nextValue(today));
+  }
+
+  private long nextValue(LocalDate day) {
+    while (true) {
+      ReferenceBlock block = currentBlock.get();
+      if (block != null && block.day().equals(day)) {
+        long value = block.next().getAndIncrement();
+        if (value < block.limit()) {
+          return value;
+        }
+      }
+      refill(day, block);
+    }
+  }
+
+  /**
+   * Reserva un nuevo bloque si ningún otro hilo lo hizo mientras se esperaba el lock.
+   */
+  private void refill(LocalDate day, ReferenceBlock exhausted) {
+    refillLock.lock();
+    try {
+      if (currentBlock.get() != exhausted) {
+        return;
+      }
+      long start = reserveBlock(day);
+      currentBlock.set(new ReferenceBlock(day, new AtomicLong(start), start + blockSize));
+      log.debug("Reservado bloque de referencias {} - {} para {}",
+              start, start + blockSize - 1, day);
+    } finally {
+      refillLock.unlock();
+    }
+  }
+
+  /**
+   * Reserva el bloque en la base. Si dos instancias crean el contador del día a la vez,
+   * una falla por clave duplicada y reintenta sobre la fila ya creada.
+   */
+  private long reserveBlock(LocalDate day) {
+    DataAccessException lastError = null;
+    for (int attempt = 1; attempt <= MAX_RESERVE_ATTEMPTS; attempt++) {
+      try {
+        Long start = transactionTemplate.execute(status -> {
+          BookingReferenceSequenceEntity sequence = sequenceRepository.findBySequenceDate(day)
+                  .orElseGet(() -> newSequence(day));
+          long first = sequence.getNextValue();
+          sequence.setNextValue(first + blockSize);
+          sequenceRepository.save(sequence);
+          return first;
+        });
+        if (start != null) {
+          return start;
+        }
+      } catch (DataAccessException e) {
+        log.warn("Conflicto al reservar bloque de referencias para {} (intento {}): {}",
+                day, attempt, e.getMessage());
+        lastError = e;
+      }
+    }
+    throw new IllegalStateException("No se pudo reservar un bloque de referencias", lastError);
+  }
+
+  /**
+   * Crea el contador del día. El primer contador continúa desde el mayor ID de reserva
+   * para no repetir referencias generadas con el esquema anterior basado en el ID.
+   */
+  private BookingReferenceSequenceEntity newSequence(LocalDate day) {
+    long firstValue = sequenceRepository.count() == 0
+            ? bookingRepository.findMaxId() + 1
+            : 1L;
+    return BookingReferenceSequenceEntity.builder()
+            .sequenceDate(day)
+            .nextValue(firstValue)
+            .build();
+  }
+
+  /**
+   * Bloque de valores reservado para esta instancia.
+   */
+  private record ReferenceBlock(LocalDate day, AtomicLong next, long limit) {}
+}
@@ -0,0 +1,89 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import masera.deviajebookingsandpayments.dtos.responses.BookingRequestStatusDto;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.entities.BookingRequestEntity;
+import masera.deviajebookingsandpayments.repositories.BookingRequestRepository;
+import masera.deviajebookingsandpayments.services.interfaces.BookingRequestService;
+import masera.deviajebookingsandpayments.utils.JsonCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Implementación del servicio de reservas asíncronas.
+ * La cola es la tabla booking_requests; su tamaño se acota para rechazar
+ * solicitudes cuando los workers no alcanzan a procesarlas.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BookingRequestServiceImpl implements BookingRequestService {
+
+  private final BookingRequestRepository bookingRequestRepository;
+
+  private final BookingRequestWorker bookingRequestWorker;
+
+  private final JsonCodec jsonCodec;
+
+  @Value("${deviaje.booking-requests.max-queued:1000}")
+  private long maxQueued;
+
+  @Override
+  public BookingRequestStatusDto submit(BookingEntity.BookingType type, Object request) {
+    if (bookingRequestRepository.countByStatus(BookingRequestEntity.RequestStatus.QUEUED)
+            >= maxQueued) {
+      log.warn("Cola de reservas llena ({} solicitudes). Rechazando solicitud de {}",
+              maxQueued, type);
+      throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+              "Hay demasiadas reservas en proceso. Intente nuevamente en unos minutos");
+    }
+
+    BookingRequestEntity entity = BookingRequestEntity.builder()
+            .id(UUID.randomUUID().toString())
+            .type(type)
+            .status(BookingRequestEntity.RequestStatus.QUEUED)
+            .payload(write(request))
+            .build();
+    BookingRequestEntity saved = bookingRequestRepository.save(entity);
+    log.info("Solicitud de reserva {} encolada: {}", type, saved.getId());
+
+    bookingRequestWorker.wakeUp();
+    return toDto(saved);
+  }
+
+  @Override
+  public BookingRequestStatusDto getStatus(String requestId) {
+    return bookingRequestRepository.findById(requestId)
+            .map(this::toDto)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "Solicitud de reserva no encontrada: " + requestId));
+  }
+
+  private String write(Object request) {
+    try {
+      return jsonCodec.write(request);
+    } catch (JsonProcessingException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+              "No se pudo registrar la solicitud de reserva", e);
+    }
+  }
+
+  private BookingRequestStatusDto toDto(BookingRequestEntity entity) {
+    return BookingRequestStatusDto.builder()
+            .requestId(entity.getId())
+            .type(entity.getType().name())
+            .status(entity.getStatus().name())
+            .bookingReference(entity.getBookingReference())
+            .errorStatus(entity.getErrorStatus())
+            .errorMessage(entity.getErrorMessage())
+            .createdAt(entity.getCreatedAt())
+            .finishedAt(entity.getFinishedAt())
+            .build();
+  }
+}
@@ -0,0 +1,342 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import masera.deviajebookingsandpayments.dtos.BookFlightAndPayRequest;
+import masera.deviajebookingsandpayments.dtos.bookings.BookPackageAndPayRequest;
+import masera.deviajebookingsandpayments.dtos.bookings.hotels.BookHotelAndPayRequest;
+import masera.deviajebookingsandpayments.dtos.responses.BookingReferenceResponse;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.entities.BookingRequestEntity;
+import masera.deviajebookingsandpayments.exceptions.AmadeusApiException;
+import masera.deviajebookingsandpayments.exceptions.HotelBedsApiException;
+import masera.deviajebookingsandpayments.exceptions.MercadoPagoException;
+import masera.deviajebookingsandpayments.exceptions.UpstreamResponseTooLargeException;
+import masera.deviajebookingsandpayments.exceptions.UpstreamUnavailableException;
+import masera.deviajebookingsandpayments.repositories.BookingRequestRepository;
+import masera.deviajebookingsandpayments.services.interfaces.FlightBookingService;
+import masera.deviajebookingsandpayments.services.interfaces.HotelBookingService;
+import masera.deviajebookingsandpayments.services.interfaces.PackageBookingService;
+import masera.deviajebookingsandpayments.utils.JsonCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Procesa las solicitudes de reserva asíncronas con un pool acotado de workers.
+ * Cada worker toma una solicitud con SELECT ... FOR UPDATE SKIP LOCKED, por lo que
+ * varias instancias pueden compartir la cola.
+ * Una solicitud se ejecuta una sola vez: reservar y cobrar no es seguro de repetir, así
+ * que las solicitudes interrumpidas se marcan como fallidas y la recuperación de
+ * reservas del pipeline resuelve el estado de la reserva y del pago.
+ * El cuerpo de la solicitud, con los datos de pago, se borra al tomarla. Si el resultado
+ * no puede guardarse se conserva en memoria y se reintenta antes de marcar solicitudes
+ * vencidas, para no informar como fallida una reserva que se completó.
+ */
+@Service
+@Slf4j
+public class BookingRequestWorker {
+
+  private static final int MAX_ERROR_LENGTH = 500;
+
+  private final BookingRequestRepository bookingRequestRepository;
+
+  private final FlightBookingService flightBookingService;
+
+  private final HotelBookingService hotelBookingService;
+
+  private final PackageBookingService packageBookingService;
+
+  private final JsonCodec jsonCodec;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final int workerCount;
+
+  private final Duration lease;
+
+  private final Duration retention;
+
+  private final ExecutorService workers;
+
+  private final AtomicInteger activeWorkers = new AtomicInteger();
+
+  private final AtomicBoolean wakeRequested = new AtomicBoolean();
+
+  private final Queue<BookingRequestEntity> unsavedResults = new ConcurrentLinkedQueue<>();
+
+  private volatile boolean shuttingDown;
+
+  /**
+   * Constructor del worker.
+   *
+   * @param bookingRequestRepository repositorio de solicitudes
+   * @param flightBookingService servicio de reservas de vuelos
+   * @param hotelBookingService servicio de reservas de hoteles
+   * @param packageBookingService servicio de reservas de paquetes
+   * @param jsonCodec lectura de las solicitudes guardadas
+   * @param transactionTemplate plantilla de transacciones
+   * @param workerCount cantidad máxima de solicitudes procesadas a la vez
+   * @param leaseMs tiempo tras el cual una solicitud en proceso se considera interrumpida
+   * @param retentionHours horas que se conservan las solicitudes finalizadas
+   */
+  public BookingRequestWorker(BookingRequestRepository bookingRequestRepository,
+                              FlightBookingService flightBookingService,
+                              HotelBookingService hotelBookingService,
+                              PackageBookingService packageBookingService,
+                              JsonCodec jsonCodec,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${deviaje.booking-requests.workers:8}") int workerCount,
+                              @Value("${deviaje.booking-requests.lease-ms:600000}") long leaseMs,
+                              @Value("${deviaje.booking-requests.retention-hours:72}")
+                              long retentionHours) {
+    this.bookingRequestRepository = bookingRequestRepository;
+    this.flightBookingService = flightBookingService;
+    this.hotelBookingService = hotelBookingService;
+    this.packageBookingService = packageBookingService;
+    this.jsonCodec = jsonCodec;
+    this.transactionTemplate = transactionTemplate;
+    this.workerCount = workerCount;
+    this.lease = Duration.ofMillis(leaseMs);
+    this.retention = Duration.ofHours(retentionHours);
+
+    AtomicInteger threadNumber = new AtomicInteger();
+    this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+      Thread thread = new Thread(runnable,
+              "booking-request-worker-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Respaldo para solicitudes encoladas por otras instancias.
+   */
+  @Scheduled(fixedDelayString = "${deviaje.booking-requests.poll-interval-ms:2000}")
+  public void poll() {
+    wakeUp();
+  }
+
+  /**
+   * Marca como fallidas las solicitudes interrumpidas y elimina las finalizadas antiguas.
+   * Antes reintenta guardar los resultados pendientes de esta instancia; mientras queden
+   * resultados sin guardar no se marcan vencidas, porque alguna puede ser de ellos.
+   */
+  @Scheduled(fixedDelayString = "${deviaje.booking-requests.cleanup.fixed-delay:300000}")
+  public void cleanup() {
+    retryUnsavedResults();
+    if (!unsavedResults.isEmpty()) {
+      log.warn("{} resultados de solicitudes sin guardar. Se posterga la marca de vencidas",
+              unsavedResults.size());
+      return;
+    }
+
+    LocalDateTime now = LocalDateTime.now();
+    Integer expired = transactionTemplate.execute(status -> bookingRequestRepository
+            .failExpired(now, "El procesamiento de la solicitud se interrumpió. "
+                    + "Consulte el estado de sus reservas antes de reintentar"));
+    if (expired != null && expired > 0) {
+      log.warn("{} solicitudes de reserva interrumpidas marcadas como fallidas", expired);
+    }
+
+    Integer deleted = transactionTemplate.execute(status ->
+            bookingRequestRepository.deleteFinishedBefore(now.minus(retention)));
+    if (deleted != null && deleted > 0) {
+      log.info("Eliminadas {} solicitudes de reserva finalizadas", deleted);
+    }
+  }
+
+  /**
+   * Inicia un worker si hay lugar en el pool.
+   */
+  public void wakeUp() {
+    wakeRequested.set(true);
+    int active = activeWorkers.get();
+    while (active < workerCount && !shuttingDown) {
+      if (activeWorkers.compareAndSet(active, active + 1)) {
+        workers.execute(this::drain);
+        return;
+      }
+      active = activeWorkers.get();
+    }
+  }
+
+  /**
+   * Procesa solicitudes hasta vaciar la cola.
+   */
+  private void drain() {
+    try {
+      while (!shuttingDown) {
+        wakeRequested.set(false);
+        ClaimedRequest claimed = claimNext();
+        if (claimed == null) {
+          if (!wakeRequested.get()) {
+            break;
+          }
+          continue;
+        }
+        // Puede haber más solicitudes: sumar otro worker mientras se procesa esta
+        wakeUp();
+        process(claimed.request(), claimed.payload());
+      }
+    } catch (Exception e) {
+      log.error("Error al procesar la cola de reservas: {}", e.getMessage(), e);
+    } finally {
+      activeWorkers.decrementAndGet();
+    }
+
+    // Un aviso pudo llegar mientras este worker terminaba
+    if (wakeRequested.get()) {
+      wakeUp();
+    }
+  }
+
+  /**
+   * Toma la solicitud más antigua en una transacción corta, la marca en proceso y
+   * borra su cuerpo, que se devuelve aparte para ejecutarla.
+   */
+  private ClaimedRequest claimNext() {
+    return transactionTemplate.execute(status -> {
+      List<BookingRequestEntity> queued = bookingRequestRepository.lockQueued(1);
+      if (queued.isEmpty()) {
+        return null;
+      }
+      LocalDateTime now = LocalDateTime.now();
+      BookingRequestEntity request = queued.getFirst();
+      String payload = request.getPayload();
+      request.setPayload(null);
+      request.setStatus(BookingRequestEntity.RequestStatus.PROCESSING);
+      request.setStartedAt(now);
+      request.setLeaseExpiresAt(now.plus(lease));
+      return new ClaimedRequest(request, payload);
+    });
+  }
+
+  private void process(BookingRequestEntity request, String payload) {
+    log.info("Procesando solicitud de reserva {} ({})", request.getId(), request.getType());
+    try {
+      BookingReferenceResponse response = execute(request.getType(), payload);
+      request.setStatus(BookingRequestEntity.RequestStatus.COMPLETED);
+      request.setBookingReference(response.bookingReference());
+      log.info("Solicitud {} completada. Reserva: {}",
+              request.getId(), response.bookingReference());
+    } catch (Exception e) {
+      log.error("Solicitud de reserva {} fallida: {}", request.getId(), e.getMessage());
+      request.setStatus(BookingRequestEntity.RequestStatus.FAILED);
+      request.setErrorStatus(statusOf(e));
+      String message = e instanceof ResponseStatusException rse && rse.getReason() != null
+              ? rse.getReason()
+              : String.valueOf(e.getMessage());
+      request.setErrorMessage(message.length() > MAX_ERROR_LENGTH
+              ? message.substring(0, MAX_ERROR_LENGTH)
+              : message);
+    }
+
+    request.setFinishedAt(LocalDateTime.now());
+    request.setLeaseExpiresAt(null);
+    saveResult(request);
+  }
+
+  /**
+   * Guarda el resultado de una solicitud. Si falla, lo conserva para reintentarlo:
+   * la reserva ya se hizo y el cliente debe poder consultarla. El guardado reemplaza
+   * la fila completa, así que corrige también una marca de vencida de otra instancia.
+   */
+  private void saveResult(BookingRequestEntity request) {
+    try {
+      transactionTemplate.executeWithoutResult(status -> bookingRequestRepository.save(request));
+    } catch (RuntimeException e) {
+      log.error("No se pudo guardar el resultado de la solicitud {} ({}, reserva {}). "
+                      + "Se reintentará: {}", request.getId(), request.getStatus(),
+              request.getBookingReference(), e.getMessage());
+      unsavedResults.add(request);
+    }
+  }
+
+  private void retryUnsavedResults() {
+    for (int pending = unsavedResults.size(); pending > 0; pending--) {
+      BookingRequestEntity request = unsavedResults.poll();
+      if (request == null) {
+        return;
+      }
+      saveResult(request);
+    }
+  }
+
+  private BookingReferenceResponse execute(BookingEntity.BookingType type, String payload)
+          throws Exception {
+    if (payload == null) {
+      throw new IllegalStateException("La solicitud no tiene datos para procesar");
+    }
+    return switch (type) {
+      case FLIGHT -> {
+        BookFlightAndPayRequest flight =
+                jsonCodec.read(payload, BookFlightAndPayRequest.class);
+        yield flightBookingService.bookAndPay(flight.getBookingRequest(),
+                flight.getPaymentRequest(), flight.getPrices());
+      }
+      case HOTEL -> {
+        BookHotelAndPayRequest hotel =
+                jsonCodec.read(payload, BookHotelAndPayRequest.class);
+        yield hotelBookingService.bookAndPay(hotel.getBookingRequest(),
+                hotel.getPaymentRequest(), hotel.getPrices());
+      }
+      case PACKAGE -> {
+        BookPackageAndPayRequest pack =
+                jsonCodec.read(payload, BookPackageAndPayRequest.class);
+        yield packageBookingService.bookAndPay(pack.getPackageBookingRequest(),
+                pack.getPaymentRequest(), pack.getPrices());
+      }
+    };
+  }
+
+  /**
+   * Traduce la excepción al código HTTP que habría devuelto el endpoint sincrónico.
+   */
+  private int statusOf(Exception e) {
+    return switch (e) {
+      case ResponseStatusException rse -> rse.getStatusCode().value();
+      case AmadeusApiException amadeus -> amadeus.getStatusCode();
+      case HotelBedsApiException hotelBeds -> hotelBeds.getStatusCode();
+      case MercadoPagoException mercadoPago -> mercadoPago.getStatusCode();
+      case UpstreamUnavailableException unavailable -> 503;
+      case UpstreamResponseTooLargeException tooLarge -> 502;
+      default -> 500;
+    };
+  }
+
+  /**
+   * Detiene los workers al apagar la aplicación. Las solicitudes en curso que no
+   * terminen a tiempo quedan como interrumpidas.
+   */
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    shuttingDown = true;
+    workers.shutdown();
+    if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+      workers.shutdownNow();
+    }
+
+    retryUnsavedResults();
+    unsavedResults.forEach(request -> log.error(
+            "Resultado de la solicitud {} perdido al apagar: {} (reserva {})",
+            request.getId(), request.getStatus(), request.getBookingReference()));
+  }
+
+  /**
+   * Solicitud tomada por un worker, con el cuerpo que se borró de la tabla.
+   */
+  private record ClaimedRequest(BookingRequestEntity request, String payload) {}
+}
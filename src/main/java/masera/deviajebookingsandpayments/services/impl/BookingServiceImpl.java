@@ -1,11 +1,7 @@
 package masera.deviajebookingsandpayments.services.impl;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityNotFoundException;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
@@ -25,11 +21,13 @@ import masera.deviajebookingsandpayments.repositories.BookingRepository;
 import masera.deviajebookingsandpayments.repositories.PaymentRepository;
 import masera.deviajebookingsandpayments.services.interfaces.BookingService;
 import masera.deviajebookingsandpayments.services.interfaces.EmailService;
-import masera.deviajebookingsandpayments.services.interfaces.VoucherService;
+import masera.deviajebookingsandpayments.services.interfaces.VoucherRenderService;
+import masera.deviajebookingsandpayments.utils.JsonCodec;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Implementación del servicio de reservas.
@@ -45,13 +43,15 @@ public class BookingServiceImpl implements BookingService {
 
   private final UserClient userClient;
 
-  private final VoucherService voucherService;
+  private final VoucherRenderService voucherRenderService;
 
   private final VoucherScheduledService voucherScheduledService;
 
   private final EmailService emailService;
 
-  private final ObjectMapper objectMapper;
+  private final JsonCodec jsonCodec;
+
+  private final BookingReferenceAllocator bookingReferenceAllocator;
 
   @Override
   public List<BookingResponseDto> getClientBookings(Integer clientId,
@@ -198,18 +198,13 @@ public class BookingServiceImpl implements BookingService {
 
     try {
       if (flightBooking.getItineraries() != null) {
-        List<ItineraryDto> itinerariesDto = objectMapper.readValue(
-                flightBooking.getItineraries(),
-                new TypeReference<>() {}
-        );
+        List<ItineraryDto> itinerariesDto =
+                jsonCodec.readItineraries(flightBooking.getItineraries());
         flightDetails.setItineraries(itinerariesDto);
       }
 
       if (flightBooking.getTravelers() != null) {
-        List<TravelerDto> travelersDto = objectMapper.readValue(
-                flightBooking.getTravelers(),
-                new TypeReference<>() {}
-        );
+        List<TravelerDto> travelersDto = jsonCodec.readTravelers(flightBooking.getTravelers());
         flightDetails.setTravelers(travelersDto);
       }
     } catch (JsonProcessingException e) {
@@ -293,18 +288,14 @@ public class BookingServiceImpl implements BookingService {
 
     if (hotelBooking.getHotelBooking() != null) {
       try {
-        HotelBookingApi hotelBookingApi = objectMapper.readValue(
-                hotelBooking.getHotelBooking(),
-                HotelBookingApi.class
-        );
+        HotelBookingApi hotelBookingApi =
+                jsonCodec.readHotelBooking(hotelBooking.getHotelBooking());
 
         hotelDetails.setHotelBooking(hotelBookingApi);
 
         if (hotelBooking.getCancellationPolicies() != null) {
-          List<HotelBookingApi.CancellationPolicy> cancellationPolicies = objectMapper.readValue(
-                  hotelBooking.getCancellationPolicies(),
-                  new TypeReference<>() {}
-          );
+          List<HotelBookingApi.CancellationPolicy> cancellationPolicies =
+                  jsonCodec.readCancellationPolicies(hotelBooking.getCancellationPolicies());
           hotelDetails.setCancellationPolicies(cancellationPolicies);
         }
       } catch (JsonProcessingException e) {
@@ -316,20 +307,15 @@ public class BookingServiceImpl implements BookingService {
   }
 
   @Override
-  public byte[] downloadVoucher(Long bookingId) {
+  public StreamingResponseBody downloadVoucher(Long bookingId) {
     log.info("Descargando voucher de reserva: {}", bookingId);
 
     try {
       BookingEntity booking = findBookingById(bookingId);
+      return voucherRenderService.streamVoucher(booking);
 
-      if (booking.getVoucher() != null && booking.getVoucher().length > 0) {
-        log.info("Devolviendo voucher existente");
-        return booking.getVoucher();
-      }
-
-      log.info("Generando nuevo voucher");
-      return voucherService.generateVoucher(booking);
-
+    } catch (ResponseStatusException e) {
+      throw e;
     } catch (Exception e) {
       log.error("Error al descargar voucher de reserva: {}", bookingId, e);
       throw new ResponseStatusException(
@@ -378,18 +364,8 @@ public class BookingServiceImpl implements BookingService {
   }
 
   @Override
-  public String generateBookingReference(Long bookingId,
-                                         BookingEntity.BookingType type) {
-
-    String prefix = switch (type) {
-      case FLIGHT -> "FL";
-      case HOTEL -> "HT";
-      case PACKAGE -> "PK";
-    };
-    String datePart = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-
-    // Formato final: FL-20251125-00025
-    return String.format("%s-%s-%05d", prefix, datePart, bookingId);
+  public String generateBookingReference(BookingEntity.BookingType type) {
+    return bookingReferenceAllocator.nextReference(type);
   }
 
   @Override
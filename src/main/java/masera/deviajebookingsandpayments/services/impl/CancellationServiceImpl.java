@@ -12,7 +12,7 @@ import masera.deviajebookingsandpayments.entities.HotelBookingEntity;
 import masera.deviajebookingsandpayments.repositories.BookingRepository;
 import masera.deviajebookingsandpayments.repositories.HotelBookingRepository;
 import masera.deviajebookingsandpayments.services.interfaces.CancellationService;
-import masera.deviajebookingsandpayments.services.interfaces.EmailService;
+import masera.deviajebookingsandpayments.services.interfaces.OutboxService;
 import masera.deviajebookingsandpayments.services.interfaces.PaymentService;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -33,7 +33,7 @@ public class CancellationServiceImpl implements CancellationService {
 
   private final PaymentService paymentService;
 
-  private final EmailService emailService;
+  private final OutboxService outboxService;
 
   private final HotelClient hotelClient;
 
@@ -63,6 +63,13 @@ public class CancellationServiceImpl implements CancellationService {
       );
     }
 
+    if (BookingEntity.BookingStatus.PENDING.equals(booking.getStatus())) {
+      throw new ResponseStatusException(
+              HttpStatus.CONFLICT,
+              "La reserva todavía tiene el pago en curso"
+      );
+    }
+
     if (!BookingEntity.BookingStatus.CONFIRMED.equals(booking.getStatus())) {
       throw new ResponseStatusException(
               HttpStatus.BAD_REQUEST,
@@ -98,19 +105,7 @@ public class CancellationServiceImpl implements CancellationService {
       log.info("Procesando reembolso de vuelo: {} {}", refundAmount, booking.getCurrency());
       paymentService.processRefundForBooking(booking.getId(), refundAmount);
     } else {
-      try {
-        emailService.sendCancellationEmail(
-                booking.getEmail(),
-                booking.getBookingReference(),
-                booking.getHolderName(),
-                "FLIGHT",
-                BigDecimal.ZERO,
-                booking.getCurrency(),
-                booking.getCancelledAt()
-        );
-      } catch (Exception e) {
-        log.error(e.getMessage());
-      }
+      outboxService.enqueueCancellationEmail(booking.getId(), BigDecimal.ZERO);
     }
 
     return CancelBookingResponseDto.builder()
@@ -160,19 +155,7 @@ public class CancellationServiceImpl implements CancellationService {
       log.info("Procesando reembolso de hotel: {} {}", refundAmount, booking.getCurrency());
       paymentService.processRefundForBooking(booking.getId(), refundAmount);
     } else {
-      try {
-        emailService.sendCancellationEmail(
-                booking.getEmail(),
-                booking.getBookingReference(),
-                booking.getHolderName(),
-                "HOTEL",
-                BigDecimal.ZERO,
-                booking.getCurrency(),
-                booking.getCancelledAt()
-        );
-      } catch (Exception e) {
-        log.error(e.getMessage());
-      }
+      outboxService.enqueueCancellationEmail(booking.getId(), BigDecimal.ZERO);
     }
 
     return CancelBookingResponseDto.builder()
@@ -221,19 +204,7 @@ public class CancellationServiceImpl implements CancellationService {
       log.info("Procesando reembolso de paquete: {} {}", totalRefund, booking.getCurrency());
       paymentService.processRefundForBooking(booking.getId(), totalRefund);
     } else {
-      try {
-        emailService.sendCancellationEmail(
-                booking.getEmail(),
-                booking.getBookingReference(),
-                booking.getHolderName(),
-                "PACKAGE",
-                BigDecimal.ZERO,
-                booking.getCurrency(),
-                booking.getCancelledAt()
-        );
-      } catch (Exception e) {
-        log.error(e.getMessage());
-      }
+      outboxService.enqueueCancellationEmail(booking.getId(), BigDecimal.ZERO);
     }
 
     return CancelBookingResponseDto.builder()
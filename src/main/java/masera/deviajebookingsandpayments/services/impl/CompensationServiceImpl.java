@@ -0,0 +1,164 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import lombok.extern.slf4j.Slf4j;
+import masera.deviajebookingsandpayments.clients.FlightClient;
+import masera.deviajebookingsandpayments.clients.HotelClient;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.entities.CompensationEntity;
+import masera.deviajebookingsandpayments.repositories.CompensationRepository;
+import masera.deviajebookingsandpayments.services.interfaces.CompensationService;
+import masera.deviajebookingsandpayments.utils.JsonCodec;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Implementación del servicio de compensaciones.
+ * La cancelación se llama fuera de cualquier transacción nueva y el registro se
+ * guarda en su propia transacción para que sobreviva al rollback de la reserva.
+ */
+@Service
+@Slf4j
+public class CompensationServiceImpl implements CompensationService {
+
+  private static final int MAX_MESSAGE_LENGTH = 500;
+
+  private static final String UNKNOWN_ID = "DESCONOCIDO";
+
+  private final FlightClient flightClient;
+
+  private final HotelClient hotelClient;
+
+  private final CompensationRepository compensationRepository;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final JsonCodec jsonCodec;
+
+  /**
+   * Constructor del servicio.
+   *
+   * @param flightClient cliente de Amadeus
+   * @param hotelClient cliente de HotelBeds
+   * @param compensationRepository repositorio de compensaciones
+   * @param transactionManager gestor de transacciones
+   * @param jsonCodec codec para guardar las solicitudes sin respuesta
+   */
+  public CompensationServiceImpl(FlightClient flightClient,
+                                 HotelClient hotelClient,
+                                 CompensationRepository compensationRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 JsonCodec jsonCodec) {
+    this.flightClient = flightClient;
+    this.hotelClient = hotelClient;
+    this.compensationRepository = compensationRepository;
+    this.jsonCodec = jsonCodec;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setPropagationBehavior(
+            TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  @Override
+  public boolean compensateFlight(String flightOrderId, BookingEntity.BookingType bookingType,
+                                  String reason) {
+    log.warn("Compensando orden de vuelo en Amadeus: {}. Motivo: {}", flightOrderId, reason);
+    try {
+      flightClient.cancelFlightOrder(flightOrderId).block();
+      record(CompensationEntity.Provider.AMADEUS, flightOrderId, bookingType, reason, null);
+      return true;
+    } catch (RuntimeException e) {
+      log.error("La orden de vuelo no pudo ser cancelada en Amadeus: {}", flightOrderId);
+      record(CompensationEntity.Provider.AMADEUS, flightOrderId, bookingType, reason, e);
+      return false;
+    }
+  }
+
+  @Override
+  public boolean compensateHotel(String hotelBedsReference, BookingEntity.BookingType bookingType,
+                                 String reason) {
+    log.warn("Compensando reserva en HotelBeds: {}. Motivo: {}", hotelBedsReference, reason);
+    try {
+      hotelClient.cancelBooking(hotelBedsReference).block();
+      record(CompensationEntity.Provider.HOTELBEDS, hotelBedsReference, bookingType, reason, null);
+      return true;
+    } catch (RuntimeException e) {
+      log.error("La reserva no pudo ser cancelada en HotelBeds: {}", hotelBedsReference);
+      record(CompensationEntity.Provider.HOTELBEDS, hotelBedsReference, bookingType, reason, e);
+      return false;
+    }
+  }
+
+  @Override
+  public void recordUnconfirmedFlight(String rawResponse, BookingEntity.BookingType bookingType,
+                                      String reason) {
+    log.error("Orden de vuelo sin confirmar registrada para cancelación manual. Motivo: {}",
+            reason);
+    save(CompensationEntity.builder()
+            .provider(CompensationEntity.Provider.AMADEUS)
+            .externalId(UNKNOWN_ID)
+            .bookingType(bookingType)
+            .status(CompensationEntity.CompensationStatus.MANUAL_REVIEW)
+            .reason(truncate(reason))
+            .providerResponse(rawResponse)
+            .build());
+  }
+
+  @Override
+  public void recordTimedOutReservation(CompensationEntity.Provider provider, Object request,
+                                        BookingEntity.BookingType bookingType, String reason) {
+    log.error("Reserva en {} sin respuesta registrada para revisión manual. Motivo: {}",
+            provider, reason);
+    save(CompensationEntity.builder()
+            .provider(provider)
+            .externalId(UNKNOWN_ID)
+            .bookingType(bookingType)
+            .status(CompensationEntity.CompensationStatus.MANUAL_REVIEW)
+            .reason(truncate(reason))
+            .providerRequest(toJson(request))
+            .build());
+  }
+
+  /**
+   * Registra la compensación. Un error al registrar no debe ocultar el error original.
+   */
+  private void record(CompensationEntity.Provider provider, String externalId,
+                      BookingEntity.BookingType bookingType, String reason, Exception error) {
+    save(CompensationEntity.builder()
+            .provider(provider)
+            .externalId(externalId)
+            .bookingType(bookingType)
+            .status(error == null
+                    ? CompensationEntity.CompensationStatus.COMPLETED
+                    : CompensationEntity.CompensationStatus.FAILED)
+            .reason(truncate(reason))
+            .errorMessage(error != null ? truncate(error.getMessage()) : null)
+            .build());
+  }
+
+  private void save(CompensationEntity compensation) {
+    try {
+      transactionTemplate.executeWithoutResult(status -> compensationRepository.save(compensation));
+    } catch (RuntimeException e) {
+      log.error("No se pudo registrar la compensación de {} en {}: {}",
+              compensation.getExternalId(), compensation.getProvider(), e.getMessage());
+    }
+  }
+
+  private String toJson(Object request) {
+    try {
+      return jsonCodec.write(request);
+    } catch (JsonProcessingException e) {
+      log.warn("No se pudo serializar la solicitud al proveedor: {}", e.getMessage());
+      return String.valueOf(request);
+    }
+  }
+
+  private String truncate(String value) {
+    if (value == null || value.length() <= MAX_MESSAGE_LENGTH) {
+      return value;
+    }
+    return value.substring(0, MAX_MESSAGE_LENGTH);
+  }
+}
@@ -1,7 +1,6 @@
 package masera.deviajebookingsandpayments.services.impl;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import java.util.Map;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import masera.deviajebookingsandpayments.clients.FlightClient;
@@ -12,18 +11,26 @@ import masera.deviajebookingsandpayments.dtos.payments.PricesDto;
 import masera.deviajebookingsandpayments.dtos.responses.BookingReferenceResponse;
 import masera.deviajebookingsandpayments.dtos.responses.BookingResponseDto;
 import masera.deviajebookingsandpayments.dtos.responses.FlightBookingDetailsDto;
-import masera.deviajebookingsandpayments.dtos.responses.PaymentResponseDto;
+import masera.deviajebookingsandpayments.dtos.upstream.AmadeusFlightOrderResponse;
+import masera.deviajebookingsandpayments.dtos.upstream.AmadeusFlightPriceResponse;
 import masera.deviajebookingsandpayments.entities.BookingEntity;
 import masera.deviajebookingsandpayments.entities.FlightBookingEntity;
+import masera.deviajebookingsandpayments.exceptions.UnconfirmedFlightOrderException;
 import masera.deviajebookingsandpayments.repositories.BookingRepository;
 import masera.deviajebookingsandpayments.repositories.FlightBookingRepository;
+import masera.deviajebookingsandpayments.services.interfaces.BookingPipelineService;
 import masera.deviajebookingsandpayments.services.interfaces.BookingService;
+import masera.deviajebookingsandpayments.services.interfaces.CompensationService;
 import masera.deviajebookingsandpayments.services.interfaces.FlightBookingService;
-import masera.deviajebookingsandpayments.services.interfaces.PaymentService;
+import masera.deviajebookingsandpayments.services.interfaces.IdempotencyService;
+import masera.deviajebookingsandpayments.utils.JsonCodec;
+import masera.deviajebookingsandpayments.utils.SingleFlightCache;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.modelmapper.ModelMapper;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 /**
@@ -36,18 +43,27 @@ public class FlightBookingServiceImpl implements FlightBookingService {
 
   private final FlightClient flightClient;
 
-  private final PaymentService paymentService;
-
   private final BookingService bookingService;
 
+  private final BookingPipelineService bookingPipelineService;
+
+  private final CompensationService compensationService;
+
   private final BookingRepository bookingRepository;
 
   private final FlightBookingRepository flightBookingRepository;
 
   private final ModelMapper modelMapper;
 
+  private final TransactionTemplate transactionTemplate;
+
+  private final JsonCodec jsonCodec;
+
+  private final SingleFlightCache<AmadeusFlightPriceResponse> flightPriceCache;
+
+  private final IdempotencyService idempotencyService;
+
   @Override
-  @Transactional
   public BookingReferenceResponse bookAndPay(CreateFlightBookingRequestDto bookingRequest,
                                              PaymentRequestDto paymentRequest, PricesDto prices) {
 
@@ -55,23 +71,35 @@ public class FlightBookingServiceImpl implements FlightBookingService {
             bookingRequest.getClientId());
 
     Object amadeusBookingData = prepareAmadeusBookingData(bookingRequest);
-    Object amadeusResponse = flightClient.createFlightOrder(amadeusBookingData).block();
+    idempotencyService.markSideEffect();
+    AmadeusFlightOrderResponse amadeusResponse;
+    try {
+      amadeusResponse = flightClient.createFlightOrder(amadeusBookingData).block();
+    } catch (UnconfirmedFlightOrderException e) {
+      compensationService.recordUnconfirmedFlight(e.getRawResponse(),
+              BookingEntity.BookingType.FLIGHT, e.getMessage());
+      throw e;
+    }
 
     String externalId = extractExternalId(amadeusResponse);
 
     log.info("Guardando reserva en base de datos");
     FlightOfferDto flightOffer = bookingRequest.getFlightOffer();
-    BookingEntity savedBookingEntity = saveBookingInDatabase(bookingRequest,
-            flightOffer, prices, externalId);
+    BookingEntity savedBookingEntity;
+    try {
+      String bookingReference =
+              bookingService.generateBookingReference(BookingEntity.BookingType.FLIGHT);
+      savedBookingEntity = transactionTemplate.execute(status -> saveBookingInDatabase(
+              bookingRequest, flightOffer, prices, externalId, bookingReference));
+    } catch (RuntimeException e) {
+      log.error("Error al guardar la reserva de vuelo. Cancelando en Amadeus: {}", externalId);
+      compensationService.compensateFlight(externalId, BookingEntity.BookingType.FLIGHT,
+              "Error al registrar la reserva: " + e.getMessage());
+      throw e;
+    }
 
     log.info("Procesando pago para reserva de vuelo");
-    paymentRequest.setBookingId(savedBookingEntity.getId());
-    PaymentResponseDto paymentResult = paymentService.processPayment(paymentRequest);
-
-    this.bookingService.updatePaymentWithBookingId(
-            paymentResult.getId(), savedBookingEntity.getId());
-
-    return new BookingReferenceResponse(savedBookingEntity.getBookingReference());
+    return bookingPipelineService.payAndFinalize(savedBookingEntity, paymentRequest);
   }
 
   @Override
@@ -85,9 +113,28 @@ public class FlightBookingServiceImpl implements FlightBookingService {
   }
 
   @Override
-  public Object verifyFlightOfferPrice(Object flightOfferData) {
+  public AmadeusFlightPriceResponse verifyFlightOfferPrice(Object flightOfferData) {
     log.info("Verificando disponibilidad y precio de oferta de vuelo");
-    return flightClient.verifyFlightOfferPrice(flightOfferData).block();
+    String key = offerKey(flightOfferData);
+    if (key == null) {
+      return flightClient.verifyFlightOfferPrice(flightOfferData).block();
+    }
+    return flightPriceCache.get(key,
+            () -> flightClient.verifyFlightOfferPrice(flightOfferData).block());
+  }
+
+  /**
+   * Clave de caché de una oferta: hash del JSON con las claves ordenadas, para que
+   * la misma oferta enviada con otro orden de campos comparta la verificación.
+   */
+  private String offerKey(Object flightOfferData) {
+    try {
+      return DigestUtils.sha256Hex(jsonCodec.writeSorted(flightOfferData));
+    } catch (JsonProcessingException e) {
+      log.warn("No se pudo calcular la clave de la oferta. Se consulta sin caché: {}",
+              e.getMessage());
+      return null;
+    }
   }
 
   // =============== MÉTODOS PÚBLICOS PARA REUTILIZACIÓN ===============
@@ -123,7 +170,7 @@ public class FlightBookingServiceImpl implements FlightBookingService {
    * Llama a Amadeus para crear la reserva de vuelo con manejo de errores específico.
    */
   @Override
-  public Object callAmadeusCreateOrder(Object amadeusBookingData) {
+  public AmadeusFlightOrderResponse callAmadeusCreateOrder(Object amadeusBookingData) {
     return flightClient.createFlightOrder(amadeusBookingData).block();
   }
 
@@ -135,15 +182,9 @@ public class FlightBookingServiceImpl implements FlightBookingService {
    * @return ID externo o temporal
    */
   @Override
-  public String extractExternalId(Object amadeusResponse) {
-    if (amadeusResponse instanceof Map) {
-      Map<String, Object> response = (Map<String, Object>) amadeusResponse;
-      if (response.containsKey("data")) {
-        Object data = response.get("data");
-        if (data instanceof Map) {
-          return (String) ((Map<String, Object>) data).get("id");
-        }
-      }
+  public String extractExternalId(AmadeusFlightOrderResponse amadeusResponse) {
+    if (amadeusResponse != null && amadeusResponse.getId() != null) {
+      return amadeusResponse.getId();
     }
     return "EXT" + System.currentTimeMillis(); // Fallback temporal
   }
@@ -154,12 +195,11 @@ public class FlightBookingServiceImpl implements FlightBookingService {
                                         BookingEntity bookingEntity,
                                         String externalId,
                                         PricesDto prices) {
-    ObjectMapper mapper = new ObjectMapper();
     String itinerariesJson = null;
     String travelersJson = null;
     try {
-      itinerariesJson = mapper.writeValueAsString(flightOffer.getItineraries());
-      travelersJson = mapper.writeValueAsString(request.getTravelers());
+      itinerariesJson = jsonCodec.write(flightOffer.getItineraries());
+      travelersJson = jsonCodec.write(request.getTravelers());
     } catch (Exception e) {
       log.warn("Error al convertir itinerarios a JSON: {}", e.getMessage());
     }
@@ -192,6 +232,7 @@ public class FlightBookingServiceImpl implements FlightBookingService {
    * @param flightOffer datos de la oferta de vuelo
    * @param payment datos del pago
    * @param externalId ID externo de la reserva en Amadeus
+   * @param bookingReference referencia asignada antes de abrir la transacción
    * @return la reserva guardada
    */
   @Override
@@ -199,16 +240,19 @@ public class FlightBookingServiceImpl implements FlightBookingService {
   public BookingEntity saveBookingInDatabase(CreateFlightBookingRequestDto request,
                                              FlightOfferDto flightOffer,
                                              PricesDto payment,
-                                             String externalId) {
+                                             String externalId,
+                                             String bookingReference) {
 
     String holderName = request.getTravelers().getFirst().getName().getLastName() + " "
             + request.getTravelers().getFirst().getName().getFirstName();
 
-    // 1. Crear booking principal
+    // 1. Crear booking principal con su referencia ya asignada
     BookingEntity bookingEntity = BookingEntity.builder()
+            .bookingReference(bookingReference)
             .clientId(request.getClientId())
             .agentId(request.getAgentId())
-            .status(BookingEntity.BookingStatus.CONFIRMED)
+            .status(BookingEntity.BookingStatus.PENDING)
+            .stage(BookingEntity.BookingStage.RESERVED)
             .type(BookingEntity.BookingType.FLIGHT)
             .totalAmount(payment.getTotalAmount())
             .commission(payment.getCommission())
@@ -225,11 +269,6 @@ public class FlightBookingServiceImpl implements FlightBookingService {
 
     BookingEntity savedBookingEntity = bookingRepository.save(bookingEntity);
 
-    String bookingReference = this.bookingService
-            .generateBookingReference(savedBookingEntity.getId(), savedBookingEntity.getType());
-    savedBookingEntity.setBookingReference(bookingReference);
-    savedBookingEntity = bookingRepository.save(savedBookingEntity);
-
     createFlightBookingEntity(request, flightOffer, savedBookingEntity, externalId, payment);
     return savedBookingEntity;
   }
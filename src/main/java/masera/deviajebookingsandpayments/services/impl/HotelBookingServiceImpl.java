@@ -1,7 +1,6 @@
 package masera.deviajebookingsandpayments.services.impl;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
@@ -20,20 +19,25 @@ import masera.deviajebookingsandpayments.dtos.payments.PaymentRequestDto;
 import masera.deviajebookingsandpayments.dtos.payments.PricesDto;
 import masera.deviajebookingsandpayments.dtos.responses.BookingReferenceResponse;
 import masera.deviajebookingsandpayments.dtos.responses.HotelBookingDetailsDto;
-import masera.deviajebookingsandpayments.dtos.responses.PaymentResponseDto;
+import masera.deviajebookingsandpayments.dtos.upstream.HotelBedsBookingDetailsResponse;
+import masera.deviajebookingsandpayments.dtos.upstream.HotelBedsCheckRateResponse;
 import masera.deviajebookingsandpayments.entities.BookingEntity;
 import masera.deviajebookingsandpayments.entities.HotelBookingEntity;
 import masera.deviajebookingsandpayments.exceptions.HotelBedsApiException;
-import masera.deviajebookingsandpayments.exceptions.MercadoPagoException;
 import masera.deviajebookingsandpayments.repositories.BookingRepository;
 import masera.deviajebookingsandpayments.repositories.HotelBookingRepository;
+import masera.deviajebookingsandpayments.services.interfaces.BookingPipelineService;
 import masera.deviajebookingsandpayments.services.interfaces.BookingService;
+import masera.deviajebookingsandpayments.services.interfaces.CompensationService;
 import masera.deviajebookingsandpayments.services.interfaces.HotelBookingService;
-import masera.deviajebookingsandpayments.services.interfaces.PaymentService;
+import masera.deviajebookingsandpayments.services.interfaces.IdempotencyService;
+import masera.deviajebookingsandpayments.utils.JsonCodec;
+import masera.deviajebookingsandpayments.utils.SingleFlightCache;
 import org.modelmapper.ModelMapper;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 /**
@@ -46,17 +50,25 @@ public class HotelBookingServiceImpl implements HotelBookingService {
 
   private final HotelClient hotelClient;
 
-  private final PaymentService paymentService;
-
   private final BookingService bookingService;
 
+  private final CompensationService compensationService;
+
+  private final BookingPipelineService bookingPipelineService;
+
   private final BookingRepository bookingRepository;
 
   private final HotelBookingRepository hotelBookingRepository;
 
   private final ModelMapper modelMapper;
 
-  private final ObjectMapper objectMapper;
+  private final JsonCodec jsonCodec;
+
+  private final SingleFlightCache<HotelBedsCheckRateResponse> hotelRateCache;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final IdempotencyService idempotencyService;
 
   /**
    * Procesa una reserva de hotel y su pago de forma unificada.
@@ -67,7 +79,6 @@ public class HotelBookingServiceImpl implements HotelBookingService {
    * @return respuesta unificada con resultado de la operación
    */
   @Override
-  @Transactional
   public BookingReferenceResponse bookAndPay(CreateHotelBookingRequestDto bookingRequest,
                                              PaymentRequestDto paymentRequest,
                                              PricesDto prices) {
@@ -75,6 +86,7 @@ public class HotelBookingServiceImpl implements HotelBookingService {
     log.info("Iniciando proceso de reserva y pago para hotel. Cliente: {}",
             bookingRequest.getClientId());
     Map<String, Object> hotelBedsRequest = prepareHotelBedsBookingRequest(bookingRequest);
+    idempotencyService.markSideEffect();
     HotelBookingResponse hotelBedsResponse = hotelClient.createBooking(hotelBedsRequest).block();
 
     if (hotelBedsResponse == null || hotelBedsResponse.getBooking() == null) {
@@ -82,44 +94,33 @@ public class HotelBookingServiceImpl implements HotelBookingService {
     }
     String hotelBedsReference = hotelBedsResponse.getBooking().getReference();
 
+    BookingEntity savedBookingEntity;
     try {
-      BookingEntity savedBookingEntity = saveBookingInDatabase(
-              bookingRequest, prices, hotelBedsReference, hotelBedsResponse.getBooking()
-      );
-
-      log.info("Procesando pago para reserva de hotel");
-      paymentRequest.setBookingId(savedBookingEntity.getId());
-      PaymentResponseDto paymentResult = paymentService.processPayment(paymentRequest);
-
-      bookingService.updatePaymentWithBookingId(paymentResult.getId(), savedBookingEntity.getId());
-      return new BookingReferenceResponse(savedBookingEntity.getBookingReference());
-
-    } catch (MercadoPagoException e) {
-      log.error("Error en pago. Guardando intento fallido y cancelando en HotelBeds: {}",
-              hotelBedsReference);
-
-      cancelInHotelBeds(hotelBedsReference);
-      throw e;
-    } catch (Exception e) {
+      String bookingReference =
+              bookingService.generateBookingReference(BookingEntity.BookingType.HOTEL);
+      savedBookingEntity = transactionTemplate.execute(status -> saveBookingInDatabase(
+              bookingRequest, prices, hotelBedsReference, hotelBedsResponse.getBooking(),
+              bookingReference
+      ));
+    } catch (RuntimeException e) {
       log.error("Error en proceso de reserva y pago para hotel. Cancelando en HotelBeds: {}",
               hotelBedsReference);
 
-      cancelInHotelBeds(hotelBedsReference);
+      cancelInHotelBeds(hotelBedsReference, "Error al registrar la reserva: " + e.getMessage());
       throw e;
     }
+
+    // Si el pago es rechazado, la cancelación en HotelBeds la hace el pipeline
+    log.info("Procesando pago para reserva de hotel");
+    return bookingPipelineService.payAndFinalize(savedBookingEntity, paymentRequest);
   }
 
   /**
-   * Cancela la reserva en HotelBeds.
+   * Cancela la reserva en HotelBeds y registra la compensación.
    */
-  private void cancelInHotelBeds(String hotelBedsReference) {
-    try {
-      hotelClient.cancelBooking(hotelBedsReference).block();
-      log.info("Reserva cancelada en HotelBeds: {}", hotelBedsReference);
-
-    } catch (Exception e) {
-      log.info("La reserva no pudo ser cancelada en HotelBeds: {}", hotelBedsReference);
-    }
+  private void cancelInHotelBeds(String hotelBedsReference, String reason) {
+    compensationService.compensateHotel(hotelBedsReference,
+            BookingEntity.BookingType.HOTEL, reason);
   }
 
   @Override
@@ -133,16 +134,16 @@ public class HotelBookingServiceImpl implements HotelBookingService {
   }
 
   @Override
-  public Object getFullBookingDetails(Long bookingId) {
+  public HotelBedsBookingDetailsResponse getFullBookingDetails(Long bookingId) {
     log.info("Obteniendo detalles completos de reserva: {}", bookingId);
     HotelBookingDetailsDto hotelBooking = getBasicBookingInfo(bookingId);
     return hotelClient.getBookingDetails(hotelBooking.getExternalId()).block();
   }
 
   @Override
-  public Object checkRates(String rateKey) {
+  public HotelBedsCheckRateResponse checkRates(String rateKey) {
     log.info("Verificando disponibilidad de tarifa: {}", rateKey);
-    return hotelClient.checkRates(rateKey).block();
+    return hotelRateCache.get(rateKey, () -> hotelClient.checkRates(rateKey).block());
   }
 
   /**
@@ -241,7 +242,7 @@ public class HotelBookingServiceImpl implements HotelBookingService {
             .currency(prices.getCurrency())
             .build();
     try {
-      hotelBookingEntity.setHotelBooking(objectMapper.writeValueAsString(hotelDetails));
+      hotelBookingEntity.setHotelBooking(jsonCodec.write(hotelDetails));
     } catch (JsonProcessingException e) {
       log.error("Error al serializar el hotelBookingEntity", e);
     }
@@ -255,6 +256,7 @@ public class HotelBookingServiceImpl implements HotelBookingService {
    * @param payment representa los detalles del precio
    * @param externalId representa el id de hotelbeds
    * @param hotelDetails representa la reserva de hotelbeds
+   * @param bookingReference referencia asignada antes de abrir la transacción
    * @return la reserva ya creada
    */
   @Transactional
@@ -262,12 +264,15 @@ public class HotelBookingServiceImpl implements HotelBookingService {
   public BookingEntity saveBookingInDatabase(CreateHotelBookingRequestDto request,
                                              PricesDto payment,
                                              String externalId,
-                                             HotelBookingApi hotelDetails) {
+                                             HotelBookingApi hotelDetails,
+                                             String bookingReference) {
 
     BookingEntity bookingEntity = BookingEntity.builder()
+            .bookingReference(bookingReference)
             .clientId(request.getClientId())
             .agentId(request.getAgentId())
-            .status(BookingEntity.BookingStatus.CONFIRMED)
+            .status(BookingEntity.BookingStatus.PENDING)
+            .stage(BookingEntity.BookingStage.RESERVED)
             .type(BookingEntity.BookingType.HOTEL)
             .holderName(request.getHolder().getSurname() + " "
                     + request.getHolder().getName())
@@ -282,11 +287,6 @@ public class HotelBookingServiceImpl implements HotelBookingService {
             .build();
 
     BookingEntity savedBookingEntity = bookingRepository.save(bookingEntity);
-
-    String bookingReference = this.bookingService
-            .generateBookingReference(savedBookingEntity.getId(), savedBookingEntity.getType());
-    savedBookingEntity.setBookingReference(bookingReference);
-    savedBookingEntity = bookingRepository.save(savedBookingEntity);
     createHotelBookingEntity(request, savedBookingEntity, externalId, payment, hotelDetails);
     return savedBookingEntity;
   }
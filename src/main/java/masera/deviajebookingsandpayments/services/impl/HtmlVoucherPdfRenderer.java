@@ -0,0 +1,159 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import masera.deviajebookingsandpayments.dtos.vouchers.VoucherContentDto;
+import masera.deviajebookingsandpayments.services.interfaces.VoucherPdfRenderer;
+import masera.deviajebookingsandpayments.utils.HtmlPdfConverter;
+import masera.deviajebookingsandpayments.utils.VoucherTemplate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Renderer de vouchers con las plantillas HTML de vouchers/ convertidas a PDF con
+ * html2pdf. Es el renderer por defecto.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "deviaje.voucher.renderer", havingValue = "html",
+        matchIfMissing = true)
+public class HtmlVoucherPdfRenderer implements VoucherPdfRenderer {
+
+  private static final String CELL_STYLE = "padding: 8px; border: 1px solid #ddd;";
+
+  private static final String HEADER_CELL_STYLE = "padding: 8px; text-align: left; "
+          + "border: 1px solid #ddd;";
+
+  /**
+   * Partes comunes de los vouchers, que se incluyen al compilar las plantillas.
+   */
+  private static final Map<String, String> SHARED_PARTS = Map.of(
+          "styles", VoucherTemplate.read("vouchers/styles.css"),
+          "footer", VoucherTemplate.read("vouchers/footer.html"));
+
+  private static final VoucherTemplate FLIGHT_TEMPLATE =
+          VoucherTemplate.load("vouchers/flight.html", SHARED_PARTS);
+
+  private static final VoucherTemplate HOTEL_TEMPLATE =
+          VoucherTemplate.load("vouchers/hotel.html", SHARED_PARTS);
+
+  private static final VoucherTemplate PACKAGE_TEMPLATE =
+          VoucherTemplate.load("vouchers/package.html", SHARED_PARTS);
+
+  private final HtmlPdfConverter htmlPdfConverter;
+
+  @Override
+  public void render(VoucherContentDto content, OutputStream outputStream) throws Exception {
+    htmlPdfConverter.convert(renderHtml(content), outputStream);
+  }
+
+  /**
+   * Arma el HTML del voucher con la plantilla de su tipo de reserva.
+   *
+   * @param content contenido del voucher
+   * @return HTML del voucher
+   */
+  String renderHtml(VoucherContentDto content) {
+    Map<String, String> values = new HashMap<>(64);
+    values.put("year", content.getYear());
+    values.put("bookingReference", content.getBookingReference());
+    values.put("holderName", content.getHolderName());
+    values.put("createdDate", content.getCreatedDate());
+    values.put("currency", content.getCurrency());
+    values.put("totalAmount", content.getTotalAmount());
+    values.put("taxes", content.getTaxes());
+    if (content.getFlight() != null) {
+      putFlightValues(values, content.getFlight());
+    }
+    if (content.getHotel() != null) {
+      putHotelValues(values, content.getHotel());
+    }
+
+    return switch (content.getType()) {
+      case FLIGHT -> FLIGHT_TEMPLATE.render(values);
+      case HOTEL -> HOTEL_TEMPLATE.render(values);
+      case PACKAGE -> {
+        values.put("discount", content.getDiscount() != null
+                ? "<div class='price-row discount'>"
+                + "<span>Descuento aplicado:</span>"
+                + "<span>- " + content.getCurrency() + " " + content.getDiscount() + "</span>"
+                + "</div>"
+                : "");
+        yield PACKAGE_TEMPLATE.render(values);
+      }
+    };
+  }
+
+  private void putFlightValues(Map<String, String> values,
+                               VoucherContentDto.FlightSection flight) {
+    values.put("origin", flight.getOrigin());
+    values.put("destination", flight.getDestination());
+    values.put("departureDate", flight.getDepartureDate());
+    values.put("returnDate", flight.getReturnDate() != null
+            ? "<p><strong>Fecha de regreso:</strong> " + flight.getReturnDate() + "</p>"
+            : "");
+    values.put("itineraries", itinerariesHtml(flight));
+    values.put("passengers", flight.getPassengers());
+    values.put("carrier", flight.getCarrier());
+  }
+
+  private void putHotelValues(Map<String, String> values,
+                              VoucherContentDto.HotelSection hotel) {
+    values.put("hotelName", hotel.getHotelName());
+    values.put("destinationName", hotel.getDestinationName());
+    values.put("countryName", hotel.getCountryName());
+    values.put("nights", hotel.getNights());
+    values.put("checkInDate", hotel.getCheckInDate());
+    values.put("checkOutDate", hotel.getCheckOutDate());
+    values.put("rooms", hotel.getRooms());
+    values.put("guests", hotel.getGuests());
+    values.put("boardName", hotel.getBoardName());
+  }
+
+  /**
+   * Arma la sección de itinerarios con una tabla de tramos por itinerario.
+   */
+  private String itinerariesHtml(VoucherContentDto.FlightSection flight) {
+    if (flight.getItineraries() == null) {
+      return "<div class='info-section'><p>" + flight.getItinerariesMessage() + "</p></div>";
+    }
+
+    StringBuilder html = new StringBuilder(1024);
+    html.append("<div class='info-section'><h3>Itinerarios</h3>");
+
+    for (VoucherContentDto.Itinerary itinerary : flight.getItineraries()) {
+      html.append("<h4>").append(itinerary.getTitle()).append("</h4>");
+      html.append("<p><strong>Duración total:</strong> ")
+              .append(itinerary.getTotalDuration()).append("</p>");
+
+      if (itinerary.getSegments().isEmpty()) {
+        continue;
+      }
+      html.append("<table style='width: 100%; border-collapse: collapse; margin-top: 10px;'>");
+      html.append("<tr style='background-color: #f3f4f6;'>");
+      html.append("<th style='").append(HEADER_CELL_STYLE).append("'>Salida</th>");
+      html.append("<th style='").append(HEADER_CELL_STYLE).append("'>Llegada</th>");
+      html.append("<th style='").append(HEADER_CELL_STYLE).append("'>Duración</th>");
+      html.append("</tr>");
+
+      for (VoucherContentDto.Segment segment : itinerary.getSegments()) {
+        html.append("<tr>");
+        html.append("<td style='").append(CELL_STYLE).append("'>")
+                .append(segment.getDepartureCode()).append("<br>")
+                .append(segment.getDepartureTime()).append("</td>");
+        html.append("<td style='").append(CELL_STYLE).append("'>")
+                .append(segment.getArrivalCode()).append("<br>")
+                .append(segment.getArrivalTime()).append("</td>");
+        html.append("<td style='").append(CELL_STYLE).append("'>")
+                .append(segment.getDuration()).append("</td>");
+        html.append("</tr>");
+      }
+      html.append("</table>");
+    }
+
+    html.append("</div>");
+    return html.toString();
+  }
+}
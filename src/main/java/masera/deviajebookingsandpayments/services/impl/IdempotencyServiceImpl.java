@@ -0,0 +1,362 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import masera.deviajebookingsandpayments.entities.IdempotencyKeyEntity;
+import masera.deviajebookingsandpayments.exceptions.AmadeusApiException;
+import masera.deviajebookingsandpayments.exceptions.HotelBedsApiException;
+import masera.deviajebookingsandpayments.exceptions.MercadoPagoException;
+import masera.deviajebookingsandpayments.exceptions.UpstreamResponseTooLargeException;
+import masera.deviajebookingsandpayments.exceptions.UpstreamUnavailableException;
+import masera.deviajebookingsandpayments.repositories.IdempotencyKeyRepository;
+import masera.deviajebookingsandpayments.services.interfaces.IdempotencyService;
+import masera.deviajebookingsandpayments.utils.JsonCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Implementación del servicio de solicitudes idempotentes.
+ * Los duplicados en la misma instancia esperan el resultado en memoria; entre
+ * instancias, la tabla idempotency_keys funciona como lock y como caché de respuestas.
+ * Mientras la solicitud corre, la instancia que tomó la clave renueva su vencimiento.
+ * Si la operación falla antes de contactar al proveedor la clave se libera; si falla
+ * después, el error queda guardado como respuesta final para no repetir la reserva.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+  private static final int MAX_KEY_LENGTH = 100;
+
+  private static final int MAX_ERROR_LENGTH = 1000;
+
+  private final IdempotencyKeyRepository idempotencyKeyRepository;
+
+  private final EntityManager entityManager;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final JsonCodec jsonCodec;
+
+  private final Map<String, InFlightRequest> inFlight = new ConcurrentHashMap<>();
+
+  private final Set<String> claimed = ConcurrentHashMap.newKeySet();
+
+  private final ThreadLocal<AtomicBoolean> sideEffects = new ThreadLocal<>();
+
+  @Value("${deviaje.idempotency.ttl-hours:24}")
+  private long ttlHours;
+
+  @Value("${deviaje.idempotency.in-progress-timeout-ms:180000}")
+  private long inProgressTimeoutMs;
+
+  @Value("${deviaje.idempotency.wait-timeout-ms:90000}")
+  private long waitTimeoutMs;
+
+  @Value("${deviaje.idempotency.poll-interval-ms:250}")
+  private long pollIntervalMs;
+
+  @Override
+  public <T> T execute(String idempotencyKey, String scope, Object request,
+                       Class<T> responseType, Supplier<T> operation) {
+    if (idempotencyKey == null || idempotencyKey.isBlank()) {
+      return operation.get();
+    }
+    if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+              "La cabecera Idempotency-Key no puede superar " + MAX_KEY_LENGTH + " caracteres");
+    }
+
+    String id = scope + ":" + idempotencyKey;
+    String requestHash = hash(request);
+
+    InFlightRequest own = new InFlightRequest(requestHash, new CompletableFuture<>());
+    InFlightRequest running = inFlight.putIfAbsent(id, own);
+    if (running != null) {
+      checkSameRequest(running.requestHash(), requestHash);
+      log.info("Solicitud duplicada en curso para la clave {}. Esperando resultado", id);
+      return responseType.cast(await(running.result()));
+    }
+
+    try {
+      T response = executeOnce(id, requestHash, responseType, operation);
+      own.result().complete(response);
+      return response;
+    } catch (RuntimeException e) {
+      own.result().completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(id, own);
+    }
+  }
+
+  @Override
+  public void markSideEffect() {
+    AtomicBoolean started = sideEffects.get();
+    if (started != null) {
+      started.set(true);
+    }
+  }
+
+  /**
+   * Renueva el vencimiento de las claves que esta instancia está ejecutando, para
+   * que una reserva lenta no se considere abandonada y se ejecute dos veces.
+   */
+  @Scheduled(fixedDelayString = "${deviaje.idempotency.lease-refresh-ms:30000}")
+  public void refreshLeases() {
+    if (claimed.isEmpty()) {
+      return;
+    }
+    LocalDateTime expiresAt = LocalDateTime.now().plus(Duration.ofMillis(inProgressTimeoutMs));
+    List<String> ids = List.copyOf(claimed);
+    transactionTemplate.executeWithoutResult(status -> idempotencyKeyRepository.extendLease(
+            ids, IdempotencyKeyEntity.IdempotencyStatus.IN_PROGRESS, expiresAt));
+  }
+
+  @Override
+  @Scheduled(fixedDelayString = "${deviaje.idempotency.cleanup.fixed-delay:3600000}")
+  public void purgeExpiredKeys() {
+    Integer deleted = transactionTemplate.execute(status ->
+            idempotencyKeyRepository.deleteExpired(LocalDateTime.now()));
+    if (deleted != null && deleted > 0) {
+      log.info("Eliminadas {} claves de idempotencia vencidas", deleted);
+    }
+  }
+
+  /**
+   * Toma la clave en la base y ejecuta la operación, o devuelve la respuesta
+   * guardada por otra instancia.
+   */
+  private <T> T executeOnce(String id, String requestHash, Class<T> responseType,
+                            Supplier<T> operation) {
+    long deadline = System.currentTimeMillis() + waitTimeoutMs;
+
+    while (true) {
+      if (tryClaim(id, requestHash)) {
+        claimed.add(id);
+        try {
+          return runAndStore(id, responseType, operation);
+        } finally {
+          claimed.remove(id);
+        }
+      }
+
+      IdempotencyKeyEntity existing = idempotencyKeyRepository.findById(id).orElse(null);
+      if (existing == null) {
+        // La solicitud original falló y liberó la clave
+        continue;
+      }
+      checkSameRequest(existing.getRequestHash(), requestHash);
+
+      if (IdempotencyKeyEntity.IdempotencyStatus.COMPLETED.equals(existing.getStatus())) {
+        log.info("Devolviendo respuesta guardada para la clave {}", id);
+        return read(existing.getResponseBody(), responseType);
+      }
+
+      if (IdempotencyKeyEntity.IdempotencyStatus.FAILED.equals(existing.getStatus())) {
+        log.info("Devolviendo error guardado para la clave {}", id);
+        throw new ResponseStatusException(HttpStatusCode.valueOf(existing.getErrorStatus()),
+                existing.getErrorMessage());
+      }
+
+      if (existing.getExpiresAt().isBefore(LocalDateTime.now())) {
+        log.warn("Solicitud abandonada para la clave {}. Se vuelve a ejecutar", id);
+        transactionTemplate.executeWithoutResult(status ->
+                idempotencyKeyRepository.deleteExpiredById(id, LocalDateTime.now()));
+        continue;
+      }
+
+      if (System.currentTimeMillis() > deadline) {
+        throw new ResponseStatusException(HttpStatus.CONFLICT,
+                "La solicitud con esta Idempotency-Key sigue en proceso");
+      }
+      sleep();
+    }
+  }
+
+  private <T> T runAndStore(String id, Class<T> responseType, Supplier<T> operation) {
+    T response;
+    AtomicBoolean sideEffect = new AtomicBoolean();
+    sideEffects.set(sideEffect);
+    try {
+      response = operation.get();
+    } catch (RuntimeException e) {
+      if (sideEffect.get()) {
+        // El proveedor pudo haber registrado la reserva o el pago: un reintento
+        // con la misma clave recibe este error en lugar de repetir la operación
+        storeFailure(id, e);
+      } else {
+        // Nada salió del servicio: la clave se libera para que el cliente reintente
+        transactionTemplate.executeWithoutResult(status ->
+                idempotencyKeyRepository.deleteById(id));
+      }
+      throw e;
+    } finally {
+      sideEffects.remove();
+    }
+
+    String responseBody = write(response);
+    transactionTemplate.executeWithoutResult(status ->
+            idempotencyKeyRepository.findById(id).ifPresent(key -> {
+              key.setStatus(IdempotencyKeyEntity.IdempotencyStatus.COMPLETED);
+              key.setResponseBody(responseBody);
+              key.setExpiresAt(LocalDateTime.now().plusHours(ttlHours));
+            }));
+    return response;
+  }
+
+  private void storeFailure(String id, RuntimeException error) {
+    int errorStatus = statusOf(error);
+    String message = error instanceof ResponseStatusException statusException
+            ? statusException.getReason()
+            : error.getMessage();
+    String errorMessage = message != null && message.length() > MAX_ERROR_LENGTH
+            ? message.substring(0, MAX_ERROR_LENGTH)
+            : message;
+    log.warn("La solicitud con clave {} falló después de contactar al proveedor ({}): {}",
+            id, errorStatus, errorMessage);
+    try {
+      transactionTemplate.executeWithoutResult(status ->
+              idempotencyKeyRepository.findById(id).ifPresent(key -> {
+                key.setStatus(IdempotencyKeyEntity.IdempotencyStatus.FAILED);
+                key.setErrorStatus(errorStatus);
+                key.setErrorMessage(errorMessage);
+                key.setExpiresAt(LocalDateTime.now().plusHours(ttlHours));
+              }));
+    } catch (RuntimeException e) {
+      // La clave queda en proceso hasta vencer; el error original es el que importa
+      log.error("No se pudo guardar el error de la clave {}: {}", id, e.getMessage());
+    }
+  }
+
+  /**
+   * Estado HTTP con el que ControllerException responde cada error.
+   */
+  private int statusOf(RuntimeException error) {
+    return switch (error) {
+      case ResponseStatusException e -> e.getStatusCode().value();
+      case AmadeusApiException e -> e.getStatusCode();
+      case HotelBedsApiException e -> e.getStatusCode();
+      case MercadoPagoException e -> e.getStatusCode();
+      case UpstreamUnavailableException e -> HttpStatus.SERVICE_UNAVAILABLE.value();
+      case UpstreamResponseTooLargeException e -> HttpStatus.BAD_GATEWAY.value();
+      default -> HttpStatus.INTERNAL_SERVER_ERROR.value();
+    };
+  }
+
+  /**
+   * Inserta la clave en estado IN_PROGRESS. Falla si otra solicitud ya la tomó.
+   */
+  private boolean tryClaim(String id, String requestHash) {
+    LocalDateTime now = LocalDateTime.now();
+    IdempotencyKeyEntity key = IdempotencyKeyEntity.builder()
+            .id(id)
+            .requestHash(requestHash)
+            .status(IdempotencyKeyEntity.IdempotencyStatus.IN_PROGRESS)
+            .createdAt(now)
+            .expiresAt(now.plus(Duration.ofMillis(inProgressTimeoutMs)))
+            .build();
+    try {
+      transactionTemplate.executeWithoutResult(status -> {
+        entityManager.persist(key);
+        entityManager.flush();
+      });
+      return true;
+    } catch (PersistenceException | DataIntegrityViolationException e) {
+      return false;
+    }
+  }
+
+  private Object await(CompletableFuture<Object> result) {
+    try {
+      return result.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+              "Error al procesar la solicitud", e.getCause());
+    } catch (TimeoutException e) {
+      throw new ResponseStatusException(HttpStatus.CONFLICT,
+              "La solicitud con esta Idempotency-Key sigue en proceso");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ResponseStatusException(HttpStatus.CONFLICT,
+              "La solicitud con esta Idempotency-Key sigue en proceso");
+    }
+  }
+
+  private void sleep() {
+    try {
+      Thread.sleep(pollIntervalMs);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ResponseStatusException(HttpStatus.CONFLICT,
+              "La solicitud con esta Idempotency-Key sigue en proceso");
+    }
+  }
+
+  private void checkSameRequest(String storedHash, String requestHash) {
+    if (!storedHash.equals(requestHash)) {
+      throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+              "La Idempotency-Key ya fue usada con una solicitud distinta");
+    }
+  }
+
+  private String hash(Object request) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      byte[] body = jsonCodec.write(request).getBytes(StandardCharsets.UTF_8);
+      return HexFormat.of().formatHex(digest.digest(body));
+    } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+      throw new IllegalStateException("No se pudo calcular el hash de la solicitud", e);
+    }
+  }
+
+  private String write(Object response) {
+    try {
+      return jsonCodec.write(response);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("No se pudo guardar la respuesta idempotente", e);
+    }
+  }
+
+  private <T> T read(String responseBody, Class<T> responseType) {
+    try {
+      return jsonCodec.read(responseBody, responseType);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("No se pudo leer la respuesta idempotente", e);
+    }
+  }
+
+  /**
+   * Solicitud en curso en esta instancia.
+   */
+  private record InFlightRequest(String requestHash, CompletableFuture<Object> result) {}
+}
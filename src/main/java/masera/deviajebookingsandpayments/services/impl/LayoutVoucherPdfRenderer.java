@@ -0,0 +1,427 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.colors.Color;
+import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.kernel.colors.DeviceRgb;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.borders.Border;
+import com.itextpdf.layout.borders.SolidBorder;
+import com.itextpdf.layout.element.Cell;
+import com.itextpdf.layout.element.Div;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.element.Text;
+import com.itextpdf.layout.properties.BorderRadius;
+import com.itextpdf.layout.properties.LineHeight;
+import com.itextpdf.layout.properties.Property;
+import com.itextpdf.layout.properties.RenderingMode;
+import com.itextpdf.layout.properties.TextAlignment;
+import com.itextpdf.layout.properties.UnitValue;
+import java.io.IOException;
+import java.io.OutputStream;
+import lombok.RequiredArgsConstructor;
+import masera.deviajebookingsandpayments.dtos.vouchers.VoucherContentDto;
+import masera.deviajebookingsandpayments.services.interfaces.VoucherPdfRenderer;
+import masera.deviajebookingsandpayments.utils.VoucherPdfOutput;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Renderer de vouchers que dibuja el PDF directamente con la API de layout de iText,
+ * sin parsear HTML ni CSS. Reproduce el diseño de las plantillas HTML (colores,
+ * secciones y tablas) con las fuentes estándar de PDF, que no se embeben, por lo que
+ * no hay descubrimiento de fuentes y los documentos son más livianos.
+ * Se activa con deviaje.voucher.renderer=layout.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "deviaje.voucher.renderer", havingValue = "layout")
+public class LayoutVoucherPdfRenderer implements VoucherPdfRenderer {
+
+  private static final Color PRIMARY = new DeviceRgb(0x8B, 0x5C, 0xF6);
+
+  private static final Color TEXT = new DeviceRgb(0x33, 0x33, 0x33);
+
+  private static final Color MUTED = new DeviceRgb(0x66, 0x66, 0x66);
+
+  private static final Color CONFIRMATION = new DeviceRgb(0x4B, 0x55, 0x63);
+
+  private static final Color LINE = new DeviceRgb(0xDD, 0xDD, 0xDD);
+
+  private static final Color SOFT = new DeviceRgb(0xF3, 0xF4, 0xF6);
+
+  private static final Color DISCOUNT = new DeviceRgb(0x10, 0xB9, 0x81);
+
+  private static final Color IMPORTANT = new DeviceRgb(0xFE, 0xF3, 0xC7);
+
+  private static final Color IMPORTANT_LINE = new DeviceRgb(0xF5, 0x9E, 0x0B);
+
+  private static final Color DIVIDER = new DeviceRgb(0xE5, 0xE7, 0xEB);
+
+  private static final Color FOOTER = new DeviceRgb(0xF9, 0xFA, 0xFB);
+
+  /**
+   * Márgenes de html2pdf (36 pt) más el padding del body de las plantillas (20 px).
+   */
+  private static final float PAGE_MARGIN = 51;
+
+  private static final float SECTION_MARGIN = 15;
+
+  private static final float SECTION_PADDING = 11.25f;
+
+  /**
+   * Margen de los párrafos, el de los elementos p (1em).
+   */
+  private static final float PARAGRAPH_MARGIN = 12;
+
+  private static final String FLIGHT_NOTICE = "Presentar este voucher junto con un "
+          + "documento de identidad válido en el check-in. Se recomienda llegar al "
+          + "aeropuerto con al menos 2 horas de anticipación para vuelos nacionales y "
+          + "3 horas para vuelos internacionales.";
+
+  private static final String HOTEL_NOTICE = "Presentar este voucher en el check-in del "
+          + "hotel junto con un documento de identidad válido. Verificar las políticas "
+          + "específicas del hotel respecto a horarios de entrada y servicios incluidos.";
+
+  private static final String PACKAGE_NOTICE = "Este es un paquete combinado. Presentar "
+          + "este voucher tanto en el check-in del vuelo como en el check-in del hotel. "
+          + "Verificar todos los horarios y políticas de cada servicio.";
+
+  private final VoucherPdfOutput voucherPdfOutput;
+
+  @Override
+  public void render(VoucherContentDto content, OutputStream outputStream)
+          throws IOException {
+    // Las fuentes quedan asociadas al documento, por eso se crean en cada render
+    Fonts fonts = new Fonts(PdfFontFactory.createFont(StandardFonts.HELVETICA),
+            PdfFontFactory.createFont(StandardFonts.HELVETICA_BOLD));
+
+    try (Document document = new Document(
+            new PdfDocument(voucherPdfOutput.newWriter(outputStream)), PageSize.A4)) {
+      document.setMargins(PAGE_MARGIN, PAGE_MARGIN, PAGE_MARGIN, PAGE_MARGIN);
+      document.setFont(fonts.regular()).setFontSize(12).setFontColor(TEXT);
+      // Márgenes que se juntan e interlineado normal, como en html2pdf, para que las
+      // páginas se corten en los mismos lugares que con el renderer HTML
+      document.setProperty(Property.COLLAPSING_MARGINS, true);
+      document.setProperty(Property.RENDERING_MODE, RenderingMode.HTML_MODE);
+      document.setProperty(Property.LINE_HEIGHT, LineHeight.createNormalValue());
+
+      switch (content.getType()) {
+        case FLIGHT -> flightVoucher(document, fonts, content);
+        case HOTEL -> hotelVoucher(document, fonts, content);
+        case PACKAGE -> packageVoucher(document, fonts, content);
+        default -> throw new IllegalArgumentException(
+                "Tipo de reserva no soportado: " + content.getType());
+      }
+    }
+  }
+
+  private void flightVoucher(Document document, Fonts fonts, VoucherContentDto content) {
+    VoucherContentDto.FlightSection flight = content.getFlight();
+    heading(document, fonts, content, "Voucher de Vuelo",
+            "Confirmado: " + flight.getOrigin() + " – " + flight.getDestination());
+
+    Div booking = bookedBy(fonts, content);
+    booking.add(labeled(fonts, "Fecha de salida:", flight.getDepartureDate()));
+    if (flight.getReturnDate() != null) {
+      booking.add(labeled(fonts, "Fecha de regreso:", flight.getReturnDate()));
+    }
+    document.add(booking);
+    flightDetails(document, fonts, flight);
+
+    document.add(prices(fonts, content, "Total:", false));
+    document.add(notice(fonts, FLIGHT_NOTICE));
+    document.add(footer(fonts, content));
+  }
+
+  private void hotelVoucher(Document document, Fonts fonts, VoucherContentDto content) {
+    VoucherContentDto.HotelSection hotel = content.getHotel();
+    heading(document, fonts, content, "Voucher de Alojamiento",
+            "Confirmado: " + hotel.getNights() + " noches en " + hotel.getDestinationName());
+
+    document.add(bookedBy(fonts, content));
+    hotelDetails(document, fonts, hotel);
+
+    document.add(prices(fonts, content, "Total:", false));
+    document.add(notice(fonts, HOTEL_NOTICE));
+    document.add(footer(fonts, content));
+  }
+
+  private void packageVoucher(Document document, Fonts fonts, VoucherContentDto content) {
+    VoucherContentDto.FlightSection flight = content.getFlight();
+    VoucherContentDto.HotelSection hotel = content.getHotel();
+    heading(document, fonts, content, "Voucher de Paquete",
+            "Confirmado: Paquete Vuelo + Hotel");
+    document.add(bookedBy(fonts, content));
+
+    document.add(divider(fonts, "DETALLES DEL VUELO"));
+    Div route = section();
+    route.add(labeled(fonts, "Origen:", flight.getOrigin()));
+    route.add(labeled(fonts, "Destino:", flight.getDestination()));
+    route.add(labeled(fonts, "Fecha de salida:", flight.getDepartureDate()));
+    if (flight.getReturnDate() != null) {
+      route.add(labeled(fonts, "Fecha de regreso:", flight.getReturnDate()));
+    }
+    document.add(route);
+    flightDetails(document, fonts, flight);
+
+    document.add(divider(fonts, "DETALLES DEL ALOJAMIENTO"));
+    Div hotelName = section();
+    hotelName.add(paragraph(hotel.getHotelName())
+            .setFont(fonts.bold()).setFontSize(18).setFontColor(PRIMARY)
+            .setMarginTop(7.5f).setMarginBottom(7.5f));
+    hotelName.add(paragraph(hotel.getDestinationName() + ", " + hotel.getCountryName()));
+    document.add(hotelName);
+    hotelDetails(document, fonts, hotel);
+
+    document.add(prices(fonts, content, "Total del Paquete:", true));
+    document.add(notice(fonts, PACKAGE_NOTICE));
+    document.add(footer(fonts, content));
+  }
+
+  // =============== SECCIONES ===============
+
+  private void heading(Document document, Fonts fonts, VoucherContentDto content,
+                       String title, String confirmation) {
+    Div header = new Div()
+            .setBackgroundColor(PRIMARY)
+            .setPadding(15)
+            .setBorderTopLeftRadius(new BorderRadius(6))
+            .setBorderTopRightRadius(new BorderRadius(6));
+    header.add(new Paragraph("DeViaje")
+            .setFont(fonts.bold()).setFontSize(24).setFontColor(ColorConstants.WHITE)
+            .setTextAlignment(TextAlignment.CENTER).setMargin(0));
+    document.add(header);
+
+    document.add(new Paragraph(title)
+            .setFont(fonts.bold()).setFontSize(18)
+            .setMarginTop(15).setMarginBottom(7.5f));
+    document.add(new Paragraph("CÓDIGO DEVIAJE " + content.getBookingReference())
+            .setFontSize(9).setFontColor(MUTED)
+            .setTextAlignment(TextAlignment.RIGHT).setMarginTop(0).setMarginBottom(15));
+
+    document.add(new Div()
+            .setBackgroundColor(CONFIRMATION)
+            .setPadding(SECTION_PADDING)
+            .setBorderRadius(new BorderRadius(15))
+            .setMarginTop(SECTION_MARGIN).setMarginBottom(SECTION_MARGIN)
+            .add(new Paragraph(confirmation)
+                    .setFont(fonts.bold()).setFontColor(ColorConstants.WHITE).setMargin(0)));
+  }
+
+  private Div bookedBy(Fonts fonts, VoucherContentDto content) {
+    Div booking = section();
+    booking.add(labeled(fonts, "Reservado por:", content.getHolderName()));
+    booking.add(labeled(fonts, "Fecha de reserva:", content.getCreatedDate()));
+    return booking;
+  }
+
+  private void flightDetails(Document document, Fonts fonts,
+                             VoucherContentDto.FlightSection flight) {
+    document.add(itineraries(fonts, flight));
+    document.add(section().add(columns(fonts,
+            "Pasajeros", flight.getPassengers(),
+            "Aerolínea", flight.getCarrier())));
+  }
+
+  private void hotelDetails(Document document, Fonts fonts,
+                            VoucherContentDto.HotelSection hotel) {
+    Table dates = new Table(UnitValue.createPercentArray(2)).useAllAvailableWidth()
+            .setMarginTop(SECTION_MARGIN).setMarginBottom(SECTION_MARGIN);
+    dates.addCell(dateCell(fonts, "Check in", hotel.getCheckInDate(), "15:00HS"));
+    dates.addCell(dateCell(fonts, "Check out", hotel.getCheckOutDate(), "11:00HS"));
+    document.add(section().add(dates));
+
+    document.add(section().add(columns(fonts,
+            "Habitaciones", hotel.getRooms(),
+            "Pasajeros", hotel.getGuests(),
+            "Régimen de comida", hotel.getBoardName())));
+  }
+
+  private Div itineraries(Fonts fonts, VoucherContentDto.FlightSection flight) {
+    Div section = section();
+    if (flight.getItineraries() == null) {
+      return section.add(paragraph(flight.getItinerariesMessage()));
+    }
+
+    section.add(new Paragraph("Itinerarios")
+            .setFont(fonts.bold()).setFontSize(10.5f).setMarginTop(7.5f).setMarginBottom(7.5f));
+    for (VoucherContentDto.Itinerary itinerary : flight.getItineraries()) {
+      section.add(new Paragraph(itinerary.getTitle()).setFont(fonts.bold())
+              .setMarginTop(16).setMarginBottom(16));
+      section.add(labeled(fonts, "Duración total:", itinerary.getTotalDuration()));
+      if (itinerary.getSegments().isEmpty()) {
+        continue;
+      }
+
+      Table segments = new Table(UnitValue.createPercentArray(3))
+              .useAllAvailableWidth()
+              .setMarginTop(7.5f);
+      for (String title : new String[] {"Salida", "Llegada", "Duración"}) {
+        segments.addHeaderCell(segmentCell(new Paragraph(title).setFont(fonts.bold()))
+                .setBackgroundColor(SOFT));
+      }
+      for (VoucherContentDto.Segment segment : itinerary.getSegments()) {
+        segments.addCell(segmentCell(paragraph(
+                segment.getDepartureCode() + "\n" + segment.getDepartureTime())));
+        segments.addCell(segmentCell(paragraph(
+                segment.getArrivalCode() + "\n" + segment.getArrivalTime())));
+        segments.addCell(segmentCell(paragraph(segment.getDuration())));
+      }
+      section.add(segments);
+    }
+    return section;
+  }
+
+  private Div prices(Fonts fonts, VoucherContentDto content, String totalLabel,
+                     boolean withDiscount) {
+    Div prices = highlighted(SOFT, PRIMARY);
+    prices.add(new Paragraph("Detalles del Precio")
+            .setFont(fonts.bold()).setFontSize(14).setFontColor(PRIMARY)
+            .setMarginTop(0).setMarginBottom(14));
+
+    boolean discount = withDiscount && content.getDiscount() != null;
+    Table rows = new Table(UnitValue.createPercentArray(2)).useAllAvailableWidth();
+    priceRow(rows, new Paragraph(totalLabel),
+            new Paragraph(content.getCurrency() + " " + content.getTotalAmount())
+                    .setFont(fonts.bold()).setFontSize(13.5f).setFontColor(PRIMARY),
+            true);
+    priceRow(rows, new Paragraph("Impuestos incluidos:"),
+            new Paragraph(content.getCurrency() + " " + content.getTaxes()),
+            discount);
+    if (discount) {
+      priceRow(rows, new Paragraph("Descuento aplicado:").setFontColor(DISCOUNT),
+              new Paragraph("- " + content.getCurrency() + " " + content.getDiscount())
+                      .setFontColor(DISCOUNT),
+              false);
+    }
+    return prices.add(rows);
+  }
+
+  private Div notice(Fonts fonts, String text) {
+    Div notice = highlighted(IMPORTANT, IMPORTANT_LINE);
+    notice.add(new Paragraph("Información importante")
+            .setFont(fonts.bold()).setFontSize(14).setMarginTop(14).setMarginBottom(14));
+    return notice.add(paragraph(text));
+  }
+
+  private Div divider(Fonts fonts, String title) {
+    return new Div()
+            .setBackgroundColor(DIVIDER)
+            .setPadding(7.5f)
+            .setBorderRadius(new BorderRadius(4))
+            .setMarginTop(SECTION_MARGIN).setMarginBottom(SECTION_MARGIN)
+            .add(new Paragraph(title).setFont(fonts.bold()).setMargin(0));
+  }
+
+  private Div footer(Fonts fonts, VoucherContentDto content) {
+    Div footer = new Div()
+            .setBackgroundColor(FOOTER)
+            .setPadding(15)
+            .setMarginTop(22.5f)
+            .setBorderRadius(new BorderRadius(4))
+            .setTextAlignment(TextAlignment.CENTER)
+            .setFontSize(9)
+            .setFontColor(MUTED);
+    footer.add(footerLine("¡Que tengas un excelente viaje!").setFont(fonts.bold()));
+    footer.add(footerLine("Te acompañamos antes, durante y después de tu viaje"));
+    footer.add(footerLine("Este es un correo automático, por favor no responder.")
+            .setMarginTop(11));
+    return footer.add(footerLine("© " + content.getYear()
+            + " DeViaje. Todos los derechos reservados."));
+  }
+
+  // =============== ELEMENTOS ===============
+
+  private static Div section() {
+    return new Div()
+            .setMarginTop(SECTION_MARGIN).setMarginBottom(SECTION_MARGIN)
+            .setPadding(SECTION_PADDING)
+            .setBorder(new SolidBorder(LINE, 0.75f))
+            .setBorderRadius(new BorderRadius(4));
+  }
+
+  private static Div highlighted(Color background, Color accent) {
+    return new Div()
+            .setBackgroundColor(background)
+            .setPadding(SECTION_PADDING)
+            .setBorderRadius(new BorderRadius(4))
+            .setBorderLeft(new SolidBorder(accent, 3))
+            .setMarginTop(SECTION_MARGIN).setMarginBottom(SECTION_MARGIN);
+  }
+
+  private static Paragraph paragraph(String text) {
+    return new Paragraph(String.valueOf(text))
+            .setMarginTop(PARAGRAPH_MARGIN).setMarginBottom(PARAGRAPH_MARGIN);
+  }
+
+  private static Paragraph labeled(Fonts fonts, String label, String value) {
+    return new Paragraph()
+            .add(new Text(label).setFont(fonts.bold()))
+            .add(" " + value)
+            .setMarginTop(PARAGRAPH_MARGIN).setMarginBottom(PARAGRAPH_MARGIN);
+  }
+
+  private static Paragraph footerLine(String text) {
+    return new Paragraph(text).setMarginTop(3.75f).setMarginBottom(3.75f);
+  }
+
+  /**
+   * Fila de columnas con un título en negrita y su valor debajo. Recibe pares
+   * título, valor.
+   */
+  private static Table columns(Fonts fonts, String... titlesAndValues) {
+    Table table = new Table(UnitValue.createPercentArray(titlesAndValues.length / 2))
+            .useAllAvailableWidth();
+    for (int i = 0; i < titlesAndValues.length; i += 2) {
+      table.addCell(new Cell()
+              .setBorder(Border.NO_BORDER)
+              .setPadding(0)
+              .add(new Paragraph()
+                      .add(new Text(titlesAndValues[i]).setFont(fonts.bold()))
+                      .add("\n" + titlesAndValues[i + 1])
+                      .setMargin(0)));
+    }
+    return table;
+  }
+
+  private static Cell dateCell(Fonts fonts, String label, String date, String time) {
+    return new Cell()
+            .setBorder(Border.NO_BORDER)
+            .setTextAlignment(TextAlignment.CENTER)
+            .add(new Paragraph(label).setFontSize(9).setFontColor(MUTED).setMargin(3.75f))
+            .add(new Paragraph(date).setFont(fonts.bold()).setMargin(3.75f))
+            .add(new Paragraph(time).setFontSize(10.5f).setMargin(3.75f));
+  }
+
+  private static Cell segmentCell(Paragraph content) {
+    return new Cell()
+            .setBorder(new SolidBorder(LINE, 0.75f))
+            .setPadding(6)
+            .add(content.setMargin(0));
+  }
+
+  private static void priceRow(Table rows, Paragraph label, Paragraph value,
+                               boolean separator) {
+    Border bottom = separator ? new SolidBorder(LINE, 0.75f) : Border.NO_BORDER;
+    rows.addCell(new Cell()
+            .setBorder(Border.NO_BORDER).setBorderBottom(bottom)
+            .setPaddingTop(6).setPaddingBottom(6).setPaddingLeft(0)
+            .add(label.setMargin(0)));
+    rows.addCell(new Cell()
+            .setBorder(Border.NO_BORDER).setBorderBottom(bottom)
+            .setPaddingTop(6).setPaddingBottom(6).setPaddingRight(0)
+            .setTextAlignment(TextAlignment.RIGHT)
+            .add(value.setMargin(0)));
+  }
+
+  /**
+   * Fuentes de un documento.
+   */
+  private record Fonts(PdfFont regular, PdfFont bold) {}
+}
@@ -0,0 +1,281 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.entities.OutboxEventEntity;
+import masera.deviajebookingsandpayments.repositories.BookingRepository;
+import masera.deviajebookingsandpayments.repositories.OutboxEventRepository;
+import masera.deviajebookingsandpayments.services.interfaces.EmailService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Procesa los eventos del outbox con un pool de workers.
+ * Cada worker toma lotes con SELECT ... FOR UPDATE SKIP LOCKED, por lo que varias
+ * instancias pueden drenar la tabla sin procesar dos veces el mismo evento a la vez.
+ * La entrega es al menos una vez: los handlers deben tolerar repeticiones.
+ */
+@Service
+@Slf4j
+public class OutboxDispatcher {
+
+  private static final int MAX_ERROR_LENGTH = 500;
+
+  private static final Duration MAX_BACKOFF = Duration.ofMinutes(30);
+
+  private final OutboxEventRepository outboxEventRepository;
+
+  private final BookingRepository bookingRepository;
+
+  private final VoucherScheduledService voucherScheduledService;
+
+  private final EmailService emailService;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final int batchSize;
+
+  private final int workerCount;
+
+  private final Duration lease;
+
+  private final Duration baseBackoff;
+
+  private final int maxAttempts;
+
+  private final ExecutorService workers;
+
+  private final AtomicInteger activeWorkers = new AtomicInteger();
+
+  private final AtomicBoolean wakeRequested = new AtomicBoolean();
+
+  private volatile boolean shuttingDown;
+
+  /**
+   * Constructor del dispatcher.
+   *
+   * @param outboxEventRepository repositorio del outbox
+   * @param bookingRepository repositorio de reservas
+   * @param voucherScheduledService servicio de vouchers
+   * @param emailService servicio de emails
+   * @param transactionTemplate plantilla de transacciones
+   * @param batchSize eventos tomados por lote
+   * @param workerCount cantidad máxima de workers
+   * @param leaseMs tiempo tras el cual un evento tomado vuelve a estar disponible
+   * @param baseBackoffMs espera antes del primer reintento
+   * @param maxAttempts intentos antes de marcar el evento como fallido
+   */
+  public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                          BookingRepository bookingRepository,
+                          VoucherScheduledService voucherScheduledService,
+                          EmailService emailService,
+                          TransactionTemplate transactionTemplate,
+                          @Value("${deviaje.outbox.batch-size:20}") int batchSize,
+                          @Value("${deviaje.outbox.workers:4}") int workerCount,
+                          @Value("${deviaje.outbox.lease-ms:300000}") long leaseMs,
+                          @Value("${deviaje.outbox.base-backoff-ms:5000}") long baseBackoffMs,
+                          @Value("${deviaje.outbox.max-attempts:10}") int maxAttempts) {
+    this.outboxEventRepository = outboxEventRepository;
+    this.bookingRepository = bookingRepository;
+    this.voucherScheduledService = voucherScheduledService;
+    this.emailService = emailService;
+    this.transactionTemplate = transactionTemplate;
+    this.batchSize = batchSize;
+    this.workerCount = workerCount;
+    this.lease = Duration.ofMillis(leaseMs);
+    this.baseBackoff = Duration.ofMillis(baseBackoffMs);
+    this.maxAttempts = maxAttempts;
+
+    AtomicInteger threadNumber = new AtomicInteger();
+    this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+      Thread thread = new Thread(runnable, "outbox-worker-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Despierta a los workers cuando se confirma la transacción que registró un evento.
+   *
+   * @param event evento registrado
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEventEnqueued(OutboxEventEntity event) {
+    wakeUp();
+  }
+
+  /**
+   * Respaldo para reintentos programados y eventos de otras instancias.
+   * Solo consulta el índice de eventos disponibles.
+   */
+  @Scheduled(fixedDelayString = "${deviaje.outbox.poll-interval-ms:10000}")
+  public void poll() {
+    wakeUp();
+  }
+
+  /**
+   * Inicia un worker si hay lugar en el pool.
+   */
+  public void wakeUp() {
+    wakeRequested.set(true);
+    int active = activeWorkers.get();
+    while (active < workerCount && !shuttingDown) {
+      if (activeWorkers.compareAndSet(active, active + 1)) {
+        workers.execute(this::drain);
+        return;
+      }
+      active = activeWorkers.get();
+    }
+  }
+
+  /**
+   * Procesa lotes hasta vaciar los eventos disponibles.
+   */
+  private void drain() {
+    try {
+      while (!shuttingDown) {
+        wakeRequested.set(false);
+        List<Long> eventIds = claimBatch();
+        if (eventIds.isEmpty()) {
+          if (!wakeRequested.get()) {
+            break;
+          }
+          continue;
+        }
+        if (eventIds.size() == batchSize) {
+          // Hay más trabajo: sumar otro worker
+          wakeUp();
+        }
+        eventIds.forEach(this::process);
+      }
+    } catch (Exception e) {
+      log.error("Error al procesar el outbox: {}", e.getMessage(), e);
+    } finally {
+      activeWorkers.decrementAndGet();
+    }
+
+    // Un aviso pudo llegar mientras este worker terminaba
+    if (wakeRequested.get()) {
+      wakeUp();
+    }
+  }
+
+  /**
+   * Toma un lote en una transacción corta y lo marca en proceso.
+   */
+  private List<Long> claimBatch() {
+    List<Long> eventIds = transactionTemplate.execute(status -> {
+      LocalDateTime now = LocalDateTime.now();
+      List<OutboxEventEntity> events = outboxEventRepository.lockAvailable(now, batchSize);
+      events.forEach(event -> {
+        event.setStatus(OutboxEventEntity.EventStatus.PROCESSING);
+        event.setAvailableAt(now.plus(lease));
+      });
+      return events.stream().map(OutboxEventEntity::getId).toList();
+    });
+    return eventIds != null ? eventIds : List.of();
+  }
+
+  private void process(Long eventId) {
+    OutboxEventEntity event = outboxEventRepository.findById(eventId).orElse(null);
+    if (event == null) {
+      return;
+    }
+
+    try {
+      handle(event);
+      transactionTemplate.executeWithoutResult(status -> {
+        event.setStatus(OutboxEventEntity.EventStatus.DONE);
+        event.setAttempts(event.getAttempts() + 1);
+        event.setProcessedAt(LocalDateTime.now());
+        event.setLastError(null);
+        outboxEventRepository.save(event);
+      });
+    } catch (Exception e) {
+      log.error("Error al procesar evento {} de booking {}: {}",
+              event.getEventType(), event.getBookingId(), e.getMessage());
+      scheduleRetry(event, e);
+    }
+  }
+
+  private void handle(OutboxEventEntity event) throws Exception {
+    switch (event.getEventType()) {
+      case BOOKING_VOUCHER -> voucherScheduledService.processVoucher(event.getBookingId());
+      case CANCELLATION_EMAIL -> sendCancellationEmail(event);
+      default -> log.warn("Tipo de evento desconocido: {}", event.getEventType());
+    }
+  }
+
+  private void sendCancellationEmail(OutboxEventEntity event) {
+    BookingEntity booking = bookingRepository.findById(event.getBookingId()).orElse(null);
+    if (booking == null) {
+      log.warn("Booking {} no encontrado para email de cancelación", event.getBookingId());
+      return;
+    }
+
+    emailService.sendCancellationEmail(
+            booking.getEmail(),
+            booking.getBookingReference(),
+            booking.getHolderName(),
+            booking.getType().name(),
+            event.getAmount(),
+            booking.getCurrency(),
+            booking.getCancelledAt()
+    );
+    log.info("Email de cancelación enviado a: {}", booking.getEmail());
+  }
+
+  /**
+   * Reprograma el evento con espera exponencial o lo marca como fallido.
+   */
+  private void scheduleRetry(OutboxEventEntity event, Exception error) {
+    int attempts = event.getAttempts() + 1;
+    event.setAttempts(attempts);
+    String message = String.valueOf(error.getMessage());
+    event.setLastError(message.length() > MAX_ERROR_LENGTH
+            ? message.substring(0, MAX_ERROR_LENGTH)
+            : message);
+
+    if (attempts >= maxAttempts) {
+      log.error("Evento {} de booking {} descartado tras {} intentos",
+              event.getEventType(), event.getBookingId(), attempts);
+      event.setStatus(OutboxEventEntity.EventStatus.FAILED);
+    } else {
+      Duration backoff = baseBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+      event.setStatus(OutboxEventEntity.EventStatus.PENDING);
+      event.setAvailableAt(LocalDateTime.now().plus(
+              backoff.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff));
+    }
+
+    try {
+      transactionTemplate.executeWithoutResult(status -> outboxEventRepository.save(event));
+    } catch (RuntimeException e) {
+      // Al vencer la toma, el evento vuelve a estar disponible
+      log.error("No se pudo reprogramar el evento {}: {}", event.getId(), e.getMessage());
+    }
+  }
+
+  /**
+   * Detiene los workers al apagar la aplicación.
+   */
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    shuttingDown = true;
+    workers.shutdown();
+    if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+      workers.shutdownNow();
+    }
+  }
+}
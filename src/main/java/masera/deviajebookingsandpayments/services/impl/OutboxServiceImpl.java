@@ -0,0 +1,51 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import java.math.BigDecimal;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import masera.deviajebookingsandpayments.entities.OutboxEventEntity;
+import masera.deviajebookingsandpayments.repositories.OutboxEventRepository;
+import masera.deviajebookingsandpayments.services.interfaces.OutboxService;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implementación del outbox. El evento guardado se publica para que
+ * {@link OutboxDispatcher} despierte a los workers apenas se confirme la transacción.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxServiceImpl implements OutboxService {
+
+  private final OutboxEventRepository outboxEventRepository;
+
+  private final ApplicationEventPublisher eventPublisher;
+
+  @Override
+  @Transactional
+  public void enqueueVoucher(Long bookingId) {
+    enqueue(OutboxEventEntity.builder()
+            .eventType(OutboxEventEntity.EventType.BOOKING_VOUCHER)
+            .bookingId(bookingId)
+            .build());
+  }
+
+  @Override
+  @Transactional
+  public void enqueueCancellationEmail(Long bookingId, BigDecimal refundAmount) {
+    enqueue(OutboxEventEntity.builder()
+            .eventType(OutboxEventEntity.EventType.CANCELLATION_EMAIL)
+            .bookingId(bookingId)
+            .amount(refundAmount)
+            .build());
+  }
+
+  private void enqueue(OutboxEventEntity event) {
+    OutboxEventEntity savedEvent = outboxEventRepository.save(event);
+    log.debug("Evento {} registrado para booking {}",
+            savedEvent.getEventType(), savedEvent.getBookingId());
+    eventPublisher.publishEvent(savedEvent);
+  }
+}
@@ -1,32 +1,51 @@
 package masera.deviajebookingsandpayments.services.impl;
 
+import io.netty.handler.timeout.ReadTimeoutException;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import masera.deviajebookingsandpayments.clients.FlightClient;
+import masera.deviajebookingsandpayments.clients.HotelClient;
+import masera.deviajebookingsandpayments.configs.WebClientConfig;
 import masera.deviajebookingsandpayments.dtos.bookings.CreatePackageBookingRequestDto;
+import masera.deviajebookingsandpayments.dtos.bookings.hotels.HotelBookingApi;
 import masera.deviajebookingsandpayments.dtos.bookings.hotels.HotelBookingResponse;
 import masera.deviajebookingsandpayments.dtos.payments.PaymentRequestDto;
 import masera.deviajebookingsandpayments.dtos.payments.PricesDto;
 import masera.deviajebookingsandpayments.dtos.responses.BookingReferenceResponse;
 import masera.deviajebookingsandpayments.dtos.responses.BookingResponseDto;
-import masera.deviajebookingsandpayments.dtos.responses.PaymentResponseDto;
+import masera.deviajebookingsandpayments.dtos.upstream.AmadeusFlightOrderResponse;
 import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.entities.CompensationEntity;
+import masera.deviajebookingsandpayments.exceptions.HotelBedsApiException;
+import masera.deviajebookingsandpayments.exceptions.UnconfirmedFlightOrderException;
 import masera.deviajebookingsandpayments.repositories.BookingRepository;
+import masera.deviajebookingsandpayments.services.interfaces.BookingPipelineService;
 import masera.deviajebookingsandpayments.services.interfaces.BookingService;
+import masera.deviajebookingsandpayments.services.interfaces.CompensationService;
 import masera.deviajebookingsandpayments.services.interfaces.FlightBookingService;
 import masera.deviajebookingsandpayments.services.interfaces.HotelBookingService;
+import masera.deviajebookingsandpayments.services.interfaces.IdempotencyService;
 import masera.deviajebookingsandpayments.services.interfaces.PackageBookingService;
-import masera.deviajebookingsandpayments.services.interfaces.PaymentService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Signal;
+import reactor.util.function.Tuple2;
 
 /**
  * Implementación del servicio de reservas de paquetes.
+ * Las reservas de vuelo y hotel se emiten en paralelo y, si una falla,
+ * la otra se cancela en el proveedor.
  */
 @Service
 @RequiredArgsConstructor
@@ -35,35 +54,74 @@ public class PackageBookingServiceImpl implements PackageBookingService {
 
   private final BookingRepository bookingRepository;
 
-  private final PaymentService paymentService;
-
   private final BookingService bookingService;
 
+  private final BookingPipelineService bookingPipelineService;
+
   private final FlightBookingService flightBookingService;
 
   private final HotelBookingService hotelBookingService;
 
+  private final CompensationService compensationService;
+
+  private final FlightClient flightClient;
+
+  private final HotelClient hotelClient;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final IdempotencyService idempotencyService;
+
+  @Value("${deviaje.package.reservation-timeout-ms:65000}")
+  private long reservationTimeoutMs;
+
+  /**
+   * Verifica que la espera de las reservas no corte una llamada que el cliente HTTP
+   * todavía espera, porque el proveedor podría confirmarla sin que quede registrada.
+   */
+  @PostConstruct
+  void validateReservationTimeout() {
+    if (reservationTimeoutMs < WebClientConfig.READ_TIMEOUT) {
+      throw new IllegalStateException("deviaje.package.reservation-timeout-ms ("
+              + reservationTimeoutMs + ") debe ser al menos el tiempo de lectura de los "
+              + "proveedores (" + WebClientConfig.READ_TIMEOUT + ")");
+    }
+  }
+
   @Override
-  @Transactional
   public BookingReferenceResponse bookAndPay(CreatePackageBookingRequestDto bookingRequest,
                                              PaymentRequestDto paymentRequest, PricesDto prices) {
 
     log.info("Iniciando proceso de reserva y pago para paquete. Cliente: {}",
             bookingRequest.getClientId());
-    BookingEntity packageBookingEntity = createPackageBooking(bookingRequest, prices);
 
-    log.info("Creando reserva de vuelo para paquete");
-    createFlightReservation(bookingRequest, packageBookingEntity, prices);
-    log.info("Creando reserva de hotel para paquete");
-    createHotelReservation(bookingRequest, packageBookingEntity, prices);
+    log.info("Creando reservas de vuelo y hotel para paquete en paralelo");
+    PackageReservations reservations = createProviderReservations(bookingRequest);
+
+    BookingEntity packageBookingEntity;
+    try {
+      String bookingReference =
+              bookingService.generateBookingReference(BookingEntity.BookingType.PACKAGE);
+      packageBookingEntity = transactionTemplate.execute(status ->
+              savePackageBooking(bookingRequest, prices, reservations, bookingReference));
+    } catch (RuntimeException e) {
+      log.error("Error al guardar la reserva de paquete. Cancelando vuelo {} y hotel {}",
+              reservations.flightExternalId(), reservations.hotelBooking().getReference());
+
+      String reason = "Error al registrar el paquete: " + e.getMessage();
+      compensationService.compensateFlight(reservations.flightExternalId(),
+              BookingEntity.BookingType.PACKAGE, reason);
+      compensationService.compensateHotel(reservations.hotelBooking().getReference(),
+              BookingEntity.BookingType.PACKAGE, reason);
+      throw e;
+    }
 
     log.info("Procesando pago para reserva de paquete");
-    paymentRequest.setBookingId(packageBookingEntity.getId());
-    PaymentResponseDto paymentResult = paymentService.processPayment(paymentRequest);
-    bookingService.updatePaymentWithBookingId(paymentResult.getId(), packageBookingEntity.getId());
+    BookingReferenceResponse response =
+            bookingPipelineService.payAndFinalize(packageBookingEntity, paymentRequest);
 
     log.info("Reserva de paquete completada exitosamente. ID: {}", packageBookingEntity.getId());
-    return new BookingReferenceResponse(packageBookingEntity.getBookingReference());
+    return response;
   }
 
   @Override
@@ -95,11 +153,38 @@ public class PackageBookingServiceImpl implements PackageBookingService {
   // MÉTODOS PRIVADOS
   // ============================================================================
 
+  /**
+   * Guarda la reserva del paquete con sus reservas de vuelo y hotel.
+   */
+  private BookingEntity savePackageBooking(CreatePackageBookingRequestDto request,
+                                           PricesDto prices,
+                                           PackageReservations reservations,
+                                           String bookingReference) {
+    BookingEntity packageBookingEntity =
+            createPackageBooking(request, prices, bookingReference);
+
+    flightBookingService.createFlightBookingEntity(
+            request.getFlightBooking(),
+            request.getFlightBooking().getFlightOffer(),
+            packageBookingEntity,
+            reservations.flightExternalId(),
+            prices);
+
+    hotelBookingService.createHotelBookingEntity(
+            request.getHotelBooking(),
+            packageBookingEntity,
+            reservations.hotelBooking().getReference(),
+            prices,
+            reservations.hotelBooking());
+
+    return packageBookingEntity;
+  }
+
   /**
    * Crea la reserva principal del paquete.
    */
   private BookingEntity createPackageBooking(
-          CreatePackageBookingRequestDto request, PricesDto prices) {
+          CreatePackageBookingRequestDto request, PricesDto prices, String bookingReference) {
 
     // Obtener email y teléfono del primer viajero del vuelo
     String email = request.getFlightBooking().getTravelers().getFirst()
@@ -114,9 +199,11 @@ public class PackageBookingServiceImpl implements PackageBookingService {
             + request.getFlightBooking().getTravelers().getFirst().getName().getFirstName();
 
     BookingEntity bookingEntity = BookingEntity.builder()
+            .bookingReference(bookingReference)
             .clientId(request.getClientId())
             .agentId(request.getAgentId())
-            .status(BookingEntity.BookingStatus.CONFIRMED)
+            .status(BookingEntity.BookingStatus.PENDING)
+            .stage(BookingEntity.BookingStage.RESERVED)
             .type(BookingEntity.BookingType.PACKAGE)
             .totalAmount(prices.getTotalAmount())
             .commission(prices.getCommission())
@@ -129,62 +216,129 @@ public class PackageBookingServiceImpl implements PackageBookingService {
             .countryCallingCode(countryCallingCode)
             .build();
 
-    BookingEntity savedBookingEntity = bookingRepository.save(bookingEntity);
-
-    String bookingReference = bookingService
-            .generateBookingReference(savedBookingEntity.getId(), savedBookingEntity.getType());
-    savedBookingEntity.setBookingReference(bookingReference);
-    return bookingRepository.save(savedBookingEntity);
+    return bookingRepository.save(bookingEntity);
   }
 
   /**
-   * Crea la reserva de vuelo usando las apis correspondientes.
+   * Emite las reservas de Amadeus y HotelBeds al mismo tiempo y espera ambas
+   * con un límite de tiempo. Si una falla, cancela la que sí se creó. Un lado que
+   * no respondió a tiempo puede estar confirmado, así que se registra para revisión
+   * manual con la solicitud enviada.
    */
-  private void createFlightReservation(CreatePackageBookingRequestDto request,
-                                       BookingEntity packageBookingEntity,
-                                       PricesDto prices) {
+  private PackageReservations createProviderReservations(CreatePackageBookingRequestDto request) {
 
-    // 1. Preparar datos para Amadeus
     Object amadeusBookingData = flightBookingService.prepareAmadeusBookingData(
-              request.getFlightBooking());
-
-    // 2. Crear reserva en Amadeus
-    Object amadeusResponse = flightBookingService.callAmadeusCreateOrder(amadeusBookingData);
-
-    // 3. Extraer external ID
-    String externalId = flightBookingService.extractExternalId(amadeusResponse);
+            request.getFlightBooking());
+    Map<String, Object> hotelBedsBookingData = hotelBookingService.prepareHotelBedsBookingRequest(
+            request.getHotelBooking());
+
+    Duration timeout = Duration.ofMillis(reservationTimeoutMs);
+    idempotencyService.markSideEffect();
+
+    // Cada lado se materializa para conocer el resultado del otro aunque uno falle
+    Mono<Signal<AmadeusFlightOrderResponse>> flight = flightClient
+            .createFlightOrder(amadeusBookingData)
+            .timeout(timeout)
+            .materialize();
+    Mono<Signal<HotelBookingResponse>> hotel = hotelClient.createBooking(hotelBedsBookingData)
+            .timeout(timeout)
+            .materialize();
+
+    Tuple2<Signal<AmadeusFlightOrderResponse>, Signal<HotelBookingResponse>> results =
+            Mono.zip(flight, hotel).block();
+
+    Signal<AmadeusFlightOrderResponse> flightResult = results.getT1();
+    Signal<HotelBookingResponse> hotelResult = results.getT2();
+
+    String flightExternalId = flightResult.isOnNext()
+            ? flightBookingService.extractExternalId(flightResult.get())
+            : null;
+    HotelBookingApi hotelBooking = hotelResult.isOnNext()
+            ? hotelResult.get().getBooking()
+            : null;
+
+    if (flightExternalId != null && hotelBooking != null) {
+      log.info("Reservas de paquete creadas. Vuelo: {}, Hotel: {}",
+              flightExternalId, hotelBooking.getReference());
+      return new PackageReservations(flightExternalId, hotelBooking);
+    }
 
-    // 4. Crear entidad FlightBooking asociada al paquete
-    flightBookingService.createFlightBookingEntity(
-              request.getFlightBooking(),
-              request.getFlightBooking().getFlightOffer(),
-            packageBookingEntity,
-              externalId,
-              prices);
+    if (flightResult.isOnError()
+            && flightResult.getThrowable() instanceof UnconfirmedFlightOrderException e) {
+      compensationService.recordUnconfirmedFlight(e.getRawResponse(),
+              BookingEntity.BookingType.PACKAGE, e.getMessage());
+    }
+    if (isTimeout(flightResult)) {
+      compensationService.recordTimedOutReservation(CompensationEntity.Provider.AMADEUS,
+              amadeusBookingData, BookingEntity.BookingType.PACKAGE,
+              "Amadeus no respondió a tiempo la orden de vuelo del paquete: "
+                      + describe(flightResult));
+    }
+    if (isTimeout(hotelResult)) {
+      compensationService.recordTimedOutReservation(CompensationEntity.Provider.HOTELBEDS,
+              hotelBedsBookingData, BookingEntity.BookingType.PACKAGE,
+              "HotelBeds no respondió a tiempo la reserva de hotel del paquete: "
+                      + describe(hotelResult));
+    }
+    if (flightExternalId != null) {
+      compensationService.compensateFlight(flightExternalId, BookingEntity.BookingType.PACKAGE,
+              "Falló la reserva de hotel del paquete: " + describe(hotelResult));
+    }
+    if (hotelBooking != null) {
+      compensationService.compensateHotel(hotelBooking.getReference(),
+              BookingEntity.BookingType.PACKAGE,
+              "Falló la reserva de vuelo del paquete: " + describe(flightResult));
+    }
 
-    log.info("Reserva de vuelo creada con external ID: {}", externalId);
+    throw flightExternalId == null
+            ? toException(flightResult, "Amadeus")
+            : toException(hotelResult, "HotelBeds");
   }
 
   /**
-   * Crea la reserva de hotel usando las apis correspondientes.
+   * Indica si el lado terminó por tiempo de espera, propio o del cliente HTTP.
    */
-  private void createHotelReservation(CreatePackageBookingRequestDto request,
-                                      BookingEntity packageBookingEntity,
-                                      PricesDto prices) {
-
-    Map<String, Object> hotelBedsBookingData = hotelBookingService.prepareHotelBedsBookingRequest(
-              request.getHotelBooking());
-    HotelBookingResponse hotelBedsResponse = hotelBookingService
-            .callHotelBedsCreateBooking(hotelBedsBookingData);
+  private static boolean isTimeout(Signal<?> result) {
+    for (Throwable error = result.getThrowable(); error != null; error = error.getCause()) {
+      if (error instanceof TimeoutException || error instanceof ReadTimeoutException) {
+        return true;
+      }
+    }
+    return false;
+  }
 
-    hotelBookingService.createHotelBookingEntity(
-            request.getHotelBooking(),
-            packageBookingEntity,
-            hotelBedsResponse.getBooking().getReference(),
-            prices,
-            hotelBedsResponse.getBooking());
+  private String describe(Signal<?> result) {
+    if (result.isOnError()) {
+      return result.getThrowable().getMessage();
+    }
+    return "respuesta vacía";
+  }
 
-    log.info("Reserva de hotel creada con external ID: {}",
-            hotelBedsResponse.getBooking().getReference());
+  /**
+   * Obtiene la excepción a propagar para el lado que falló.
+   */
+  private RuntimeException toException(Signal<?> result, String provider) {
+    Throwable error = result.getThrowable();
+    if (isTimeout(result)) {
+      return new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT,
+              "Tiempo de espera agotado al reservar en " + provider);
+    }
+    if (error instanceof RuntimeException runtimeException) {
+      return runtimeException;
+    }
+    if (error != null) {
+      return new ResponseStatusException(HttpStatus.BAD_GATEWAY,
+              "Error al reservar en " + provider + ": " + error.getMessage(), error);
+    }
+    if ("HotelBeds".equals(provider)) {
+      return new HotelBedsApiException("Respuesta inválida de HotelBeds al crear la reserva", 500);
+    }
+    return new ResponseStatusException(HttpStatus.BAD_GATEWAY,
+            "Respuesta inválida de " + provider + " al crear la reserva");
   }
-}
\ No newline at end of file
+
+  /**
+   * Reservas creadas en los proveedores para un paquete.
+   */
+  private record PackageReservations(String flightExternalId, HotelBookingApi hotelBooking) {}
+}
@@ -8,10 +8,13 @@ import com.mercadopago.client.payment.PaymentPayerRequest;
 import com.mercadopago.client.payment.PaymentRefundClient;
 import com.mercadopago.exceptions.MPApiException;
 import com.mercadopago.exceptions.MPException;
+import com.mercadopago.net.MPResultsResourcesPage;
+import com.mercadopago.net.MPSearchRequest;
 import com.mercadopago.resources.payment.Payment;
 import com.mercadopago.resources.payment.PaymentRefund;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,12 +25,15 @@ import masera.deviajebookingsandpayments.entities.BookingEntity;
 import masera.deviajebookingsandpayments.entities.PaymentEntity;
 import masera.deviajebookingsandpayments.entities.RefundEntity;
 import masera.deviajebookingsandpayments.exceptions.MercadoPagoException;
+import masera.deviajebookingsandpayments.exceptions.UpstreamUnavailableException;
 import masera.deviajebookingsandpayments.repositories.BookingRepository;
 import masera.deviajebookingsandpayments.repositories.PaymentRepository;
 import masera.deviajebookingsandpayments.repositories.RefundRepository;
-import masera.deviajebookingsandpayments.services.interfaces.EmailService;
+import masera.deviajebookingsandpayments.services.interfaces.IdempotencyService;
+import masera.deviajebookingsandpayments.services.interfaces.OutboxService;
 import masera.deviajebookingsandpayments.services.interfaces.PaymentService;
 import masera.deviajebookingsandpayments.utils.ErrorHandler;
+import masera.deviajebookingsandpayments.utils.UpstreamGuards;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -51,7 +57,11 @@ public class PaymentServiceImpl implements PaymentService {
 
   private final ErrorHandler errorHandler;
 
-  private final EmailService emailService;
+  private final OutboxService outboxService;
+
+  private final UpstreamGuards upstreamGuards;
+
+  private final IdempotencyService idempotencyService;
 
   /**
    * Inicializa la configuración de Mercado Pago.
@@ -60,6 +70,27 @@ public class PaymentServiceImpl implements PaymentService {
     MercadoPagoConfig.setAccessToken(pagoConfig.getAccessToken());
   }
 
+  /**
+   * Ejecuta una llamada al SDK de Mercado Pago dentro de su circuit breaker y bulkhead.
+   */
+  private <T> T callMercadoPago(MercadoPagoCall<T> call) throws MPException, MPApiException {
+    try {
+      return upstreamGuards.get(UpstreamGuards.MERCADOPAGO).call(call::execute);
+    } catch (MPException | MPApiException | RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Llamada al SDK de Mercado Pago.
+   */
+  @FunctionalInterface
+  private interface MercadoPagoCall<T> {
+    T execute() throws MPException, MPApiException;
+  }
+
   @Override
   public PaymentResponseDto processPayment(PaymentRequestDto paymentRequest) {
     log.info("Procesando pago por {} {}", paymentRequest.getAmount(), paymentRequest.getCurrency());
@@ -75,7 +106,7 @@ public class PaymentServiceImpl implements PaymentService {
       log.error("Error general de Mercado Pago", e);
       throw errorHandler.handleMercadoPagoError(e);
 
-    } catch (MercadoPagoException e) {
+    } catch (MercadoPagoException | UpstreamUnavailableException e) {
       throw e;
 
     } catch (Exception e) {
@@ -133,14 +164,22 @@ public class PaymentServiceImpl implements PaymentService {
 
     PaymentClient paymentClient = new PaymentClient();
     log.info("Enviando request a Mercado Pago: {}", paymentCreateRequest);
+    idempotencyService.markSideEffect();
     Payment createdPayment =
-              paymentClient.create(paymentCreateRequest);
+              callMercadoPago(() -> paymentClient.create(paymentCreateRequest));
 
     log.info("Pago procesado exitosamente: ID={}, Status={}",
             createdPayment.getId(), createdPayment.getStatus());
 
+    // El pago queda asociado a la reserva desde el inicio para poder
+    // recuperarlo si el proceso se interrumpe antes de finalizarla
+    BookingEntity bookingEntity = paymentRequest.getBookingId() != null
+            ? bookingRepository.findById(paymentRequest.getBookingId()).orElse(null)
+            : null;
+
     PaymentEntity paymentEntity =
             PaymentEntity.builder()
+                    .bookingEntity(bookingEntity)
                     .amount(paymentRequest.getAmount())
                     .currency(paymentRequest.getCurrency())
                     .method(paymentRequest.getPaymentMethod())
@@ -215,7 +254,7 @@ public class PaymentServiceImpl implements PaymentService {
       Long mpPaymentId = Long.parseLong(paymentEntity.getExternalPaymentId());
 
       // Procesar reembolso
-      refundClient.refund(mpPaymentId, paymentEntity.getAmount());
+      callMercadoPago(() -> refundClient.refund(mpPaymentId, paymentEntity.getAmount()));
 
       // Actualizar estado en BD
       paymentEntity.setStatus(PaymentEntity.PaymentStatus.REFUNDED);
@@ -242,6 +281,9 @@ public class PaymentServiceImpl implements PaymentService {
               "INVALID_PAYMENT_ID"
       );
 
+    } catch (UpstreamUnavailableException e) {
+      throw e;
+
     } catch (Exception e) {
       log.error("Error inesperado al procesar reembolso", e);
       throw new MercadoPagoException(
@@ -292,7 +334,7 @@ public class PaymentServiceImpl implements PaymentService {
 
     try {
       PaymentRefund refundResponse =
-              refundClient.refund(mpPaymentId, refundAmount);
+              callMercadoPago(() -> refundClient.refund(mpPaymentId, refundAmount));
 
       RefundEntity refundEntity = RefundEntity.builder()
               .bookingEntity(booking)
@@ -304,7 +346,7 @@ public class PaymentServiceImpl implements PaymentService {
               .build();
 
       refundRepository.save(refundEntity);
-    } catch (MPException | MPApiException e) {
+    } catch (MPException | MPApiException | UpstreamUnavailableException e) {
       log.error(e.getMessage());
       sendCancellationEmailFallback(booking, refundAmount);
     }
@@ -313,28 +355,12 @@ public class PaymentServiceImpl implements PaymentService {
   }
 
   /**
-   * Envía email de cancelación como plan de respaldo cuando falla MercadoPago.
+   * Registra el email de cancelación como plan de respaldo cuando falla MercadoPago.
    */
   private void sendCancellationEmailFallback(BookingEntity booking, BigDecimal refundAmount) {
-    try {
-      log.info("Enviando email de cancelación como respaldo para booking: {}",
-              booking.getBookingReference());
-
-      // Necesitas inyectar EmailService en el constructor
-      emailService.sendCancellationEmail(
-              booking.getEmail(),
-              booking.getBookingReference(),
-              booking.getHolderName(),
-              booking.getType().name(),
-              refundAmount,
-              booking.getCurrency(),
-              booking.getCancelledAt()
-      );
-
-      log.info("Email de cancelación enviado exitosamente como respaldo");
-    } catch (Exception e) {
-      log.error("Error al enviar email de cancelación de respaldo: {}", e.getMessage());
-    }
+    log.info("Registrando email de cancelación como respaldo para booking: {}",
+            booking.getBookingReference());
+    outboxService.enqueueCancellationEmail(booking.getId(), refundAmount);
   }
 
   @Override
@@ -380,7 +406,8 @@ public class PaymentServiceImpl implements PaymentService {
       PaymentClient paymentClient = new PaymentClient();
 
       Long mpPaymentId = Long.parseLong(externalPaymentId);
-      com.mercadopago.resources.payment.Payment mpPayment = paymentClient.get(mpPaymentId);
+      com.mercadopago.resources.payment.Payment mpPayment =
+              callMercadoPago(() -> paymentClient.get(mpPaymentId));
 
       Optional<PaymentEntity> paymentOpt =
               paymentRepository.findByExternalPaymentId(externalPaymentId);
@@ -419,6 +446,9 @@ public class PaymentServiceImpl implements PaymentService {
       log.error("Error general al verificar pago con Mercado Pago", e);
       throw errorHandler.handleMercadoPagoError(e);
 
+    } catch (UpstreamUnavailableException e) {
+      throw e;
+
     } catch (Exception e) {
       log.error("Error inesperado al verificar pago", e);
       throw new MercadoPagoException(
@@ -444,7 +474,7 @@ public class PaymentServiceImpl implements PaymentService {
       PaymentClient paymentClient = new PaymentClient();
 
       Long mpPaymentId = Long.parseLong(externalPaymentId);
-      Payment mpPayment = paymentClient.get(mpPaymentId);
+      Payment mpPayment = callMercadoPago(() -> paymentClient.get(mpPaymentId));
 
       if (mpPayment.getRefunds() != null && !mpPayment.getRefunds().isEmpty()) {
         for (PaymentRefund refund : mpPayment.getRefunds()) {
@@ -472,6 +502,60 @@ public class PaymentServiceImpl implements PaymentService {
     }
   }
 
+  @Override
+  public Optional<PaymentResponseDto> recoverBookingPayment(Long bookingId) {
+    log.info("Buscando en MercadoPago el pago de la reserva: {}", bookingId);
+
+    try {
+      initMercadoPagoConfig();
+      PaymentClient paymentClient = new PaymentClient();
+
+      MPSearchRequest searchRequest = MPSearchRequest.builder()
+              .limit(10)
+              .offset(0)
+              .filters(Map.of("external_reference", bookingId.toString()))
+              .build();
+      MPResultsResourcesPage<Payment> results =
+              callMercadoPago(() -> paymentClient.search(searchRequest));
+
+      Optional<Payment> chargedPayment = results.getResults().stream()
+              .filter(p -> "approved".equals(p.getStatus()) || "in_process".equals(p.getStatus()))
+              .findFirst();
+      if (chargedPayment.isEmpty()) {
+        log.info("No hay pagos aprobados en MercadoPago para la reserva: {}", bookingId);
+        return Optional.empty();
+      }
+
+      Payment mpPayment = chargedPayment.get();
+      PaymentEntity paymentEntity = paymentRepository
+              .findByExternalPaymentId(mpPayment.getId().toString())
+              .orElseGet(() -> PaymentEntity.builder()
+                      .amount(mpPayment.getTransactionAmount())
+                      .currency(mpPayment.getCurrencyId())
+                      .method(mpPayment.getPaymentMethodId())
+                      .paymentProvider("MERCADO_PAGO")
+                      .externalPaymentId(mpPayment.getId().toString())
+                      .status(mapMercadoPagoStatus(mpPayment.getStatus()))
+                      .build());
+      paymentEntity.setBookingEntity(bookingRepository.findById(bookingId).orElse(null));
+      PaymentEntity savedPaymentEntity = paymentRepository.save(paymentEntity);
+
+      log.info("Pago {} recuperado para la reserva {}", mpPayment.getId(), bookingId);
+      return Optional.of(PaymentResponseDto.approved(
+              savedPaymentEntity.getId(),
+              savedPaymentEntity.getExternalPaymentId(),
+              savedPaymentEntity.getAmount(),
+              savedPaymentEntity.getCurrency()));
+
+    } catch (MPApiException e) {
+      log.error("Error de MercadoPago al buscar el pago de la reserva {}", bookingId, e);
+      throw errorHandler.handleMercadoPagoError(e);
+    } catch (MPException e) {
+      log.error("Error general de MercadoPago al buscar el pago de la reserva {}", bookingId, e);
+      throw errorHandler.handleMercadoPagoError(e);
+    }
+  }
+
   /**
    * Mapea el estado de Mercado Pago a nuestro enum de estados.
    */
@@ -0,0 +1,168 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import masera.deviajebookingsandpayments.clients.UserClient;
+import masera.deviajebookingsandpayments.dtos.additional.UserBasicInfoDto;
+import masera.deviajebookingsandpayments.dtos.responses.BookingDetailsResponseDto;
+import masera.deviajebookingsandpayments.dtos.responses.BookingResponseDto;
+import masera.deviajebookingsandpayments.dtos.responses.PaymentResponseDto;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.repositories.BookingRepository;
+import masera.deviajebookingsandpayments.services.interfaces.BookingService;
+import masera.deviajebookingsandpayments.services.interfaces.PaymentService;
+import masera.deviajebookingsandpayments.services.interfaces.ReactiveBookingService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Implementación de las lecturas no bloqueantes de reservas.
+ * Las consultas JPA se ejecutan en el scheduler acotado de base de datos, las
+ * llamadas bloqueantes a MercadoPago en el de proveedores y el enriquecimiento
+ * con datos de usuarios se compone sin bloquear.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveBookingServiceImpl implements ReactiveBookingService {
+
+  private final BookingRepository bookingRepository;
+
+  private final BookingService bookingService;
+
+  private final PaymentService paymentService;
+
+  private final UserClient userClient;
+
+  private final Scheduler dbScheduler;
+
+  private final Scheduler upstreamScheduler;
+
+  @Value("${deviaje.reactive.enrichment-concurrency:16}")
+  private int enrichmentConcurrency;
+
+  @Override
+  public Flux<BookingResponseDto> getClientBookings(Integer clientId,
+                                                    String email,
+                                                    String holderName) {
+
+    log.info("Obteniendo reservas del cliente (reactivo): {}", clientId);
+
+    return enrich(fromDatabase(() -> bookingRepository.findByClientId(clientId)),
+            email, holderName);
+  }
+
+  @Override
+  public Flux<BookingResponseDto> getAgentBookings(Integer agentId,
+                                                   Integer clientId,
+                                                   String email,
+                                                   String holderName) {
+
+    log.info("Obteniendo reservas del agente (reactivo): {}", agentId);
+
+    Callable<List<BookingEntity>> query = clientId != null
+            ? () -> bookingRepository.findByAgentIdAndClientId(agentId, clientId)
+            : () -> bookingRepository.findByAgentId(agentId);
+
+    return enrich(fromDatabase(query), email, holderName);
+  }
+
+  @Override
+  public Mono<BookingDetailsResponseDto> getBookingDetailsByReference(String bookingReference) {
+    return Mono.fromCallable(() -> bookingService.getBookingDetailsByReference(bookingReference))
+            .subscribeOn(dbScheduler);
+  }
+
+  @Override
+  public Mono<PaymentResponseDto> checkPaymentStatus(Long paymentId) {
+    // La consulta a MercadoPago puede tardar segundos: no debe ocupar los hilos de JPA
+    return Mono.fromCallable(() -> paymentService.checkPaymentStatus(paymentId))
+            .subscribeOn(upstreamScheduler);
+  }
+
+  /**
+   * Ejecuta una consulta bloqueante en el scheduler de base de datos.
+   */
+  private Flux<BookingEntity> fromDatabase(Callable<List<BookingEntity>> query) {
+    return Mono.fromCallable(query)
+            .subscribeOn(dbScheduler)
+            .flatMapIterable(bookings -> bookings);
+  }
+
+  /**
+   * Aplica los filtros y enriquece cada reserva con los nombres de usuario.
+   * Cada usuario se consulta una sola vez por solicitud.
+   */
+  private Flux<BookingResponseDto> enrich(Flux<BookingEntity> bookings,
+                                          String email,
+                                          String holderName) {
+
+    Map<Integer, Mono<Optional<String>>> userNames = new ConcurrentHashMap<>();
+
+    return bookings
+            .filter(b -> matches(b.getEmail(), email))
+            .filter(b -> matches(b.getHolderName(), holderName))
+            .flatMapSequential(b -> convertToDto(b, userNames), enrichmentConcurrency);
+  }
+
+  private boolean matches(String value, String filter) {
+    if (filter == null || filter.isEmpty()) {
+      return true;
+    }
+    return value != null && value.toLowerCase().contains(filter.toLowerCase());
+  }
+
+  /**
+   * Convierte BookingEntity a BookingResponseDto con información de usuarios.
+   */
+  private Mono<BookingResponseDto> convertToDto(BookingEntity booking,
+                                                Map<Integer, Mono<Optional<String>>> userNames) {
+
+    Mono<Optional<String>> clientName = userName(booking.getClientId(), userNames);
+    Mono<Optional<String>> agentName = userName(booking.getAgentId(), userNames);
+
+    return Mono.zip(clientName, agentName)
+            .map(names -> BookingResponseDto.builder()
+                    .id(booking.getId())
+                    .bookingReference(booking.getBookingReference())
+                    .clientId(booking.getClientId())
+                    .agentId(booking.getAgentId())
+                    .clientUserName(names.getT1().orElse(null))
+                    .agentUserName(names.getT2().orElse(null))
+                    .status(booking.getStatus().name())
+                    .type(booking.getType().name())
+                    .totalAmount(booking.getTotalAmount())
+                    .commission(booking.getCommission())
+                    .discount(booking.getDiscount())
+                    .taxes(booking.getTaxes())
+                    .currency(booking.getCurrency())
+                    .holderName(booking.getHolderName())
+                    .phone(booking.getPhone())
+                    .email(booking.getEmail())
+                    .createdDatetime(booking.getCreatedDatetime())
+                    .build());
+  }
+
+  /**
+   * Obtiene el nombre de usuario compartiendo la consulta entre reservas del mismo usuario.
+   */
+  private Mono<Optional<String>> userName(Integer userId,
+                                          Map<Integer, Mono<Optional<String>>> userNames) {
+    if (userId == null) {
+      return Mono.just(Optional.empty());
+    }
+    return userNames.computeIfAbsent(userId, id -> userClient.getUserBasicInfo(id)
+            .map(UserBasicInfoDto::getUserName)
+            .map(Optional::of)
+            .defaultIfEmpty(Optional.empty())
+            .cache());
+  }
+}
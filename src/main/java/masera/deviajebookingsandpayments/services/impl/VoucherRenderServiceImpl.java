@@ -0,0 +1,382 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import masera.deviajebookingsandpayments.dtos.vouchers.VoucherContentDto;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.repositories.BookingRepository;
+import masera.deviajebookingsandpayments.services.interfaces.VoucherRenderService;
+import masera.deviajebookingsandpayments.services.interfaces.VoucherService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Implementación del servicio de obtención de vouchers.
+ * El contenido se arma en el hilo que pide el voucher, que ya tiene la sesión abierta;
+ * solo la generación del PDF pasa al pool, que tiene un hilo por núcleo y una cola acotada.
+ * Si la cola está llena la solicitud se rechaza con 503 en lugar de acumular trabajo.
+ * El PDF se guarda en su propia transacción y solo si la reserva todavía no tiene
+ * voucher, así que aunque otra instancia lo genere a la vez se persiste una sola vez.
+ * Los hilos del pool nunca escriben al cliente: en una descarga escriben el PDF por
+ * partes en un buffer que la respuesta va leyendo desde su propio hilo, así que el
+ * cliente recibe el PDF mientras se genera y uno lento no retiene un hilo de generación.
+ */
+@Service
+@Slf4j
+public class VoucherRenderServiceImpl implements VoucherRenderService {
+
+  /**
+   * Tamaño de las partes que la generación entrega a la respuesta.
+   */
+  private static final int CHUNK_SIZE = 8192;
+
+  private final VoucherService voucherService;
+
+  private final BookingRepository bookingRepository;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final ThreadPoolExecutor renderers;
+
+  private final Map<Long, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+  private final Timer renderTimer;
+
+  private final Counter rejected;
+
+  private final Counter shared;
+
+  /**
+   * Constructor del servicio.
+   *
+   * @param voucherService servicio que arma el contenido y genera el PDF
+   * @param bookingRepository repositorio de reservas
+   * @param transactionTemplate plantilla de transacciones
+   * @param meterRegistry registro de métricas
+   * @param threads hilos de generación (0 usa la cantidad de núcleos)
+   * @param queueCapacity generaciones que pueden esperar un hilo libre
+   */
+  public VoucherRenderServiceImpl(
+          VoucherService voucherService,
+          BookingRepository bookingRepository,
+          TransactionTemplate transactionTemplate,
+          MeterRegistry meterRegistry,
+          @Value("${deviaje.voucher.render.threads:0}") int threads,
+          @Value("${deviaje.voucher.render.queue-capacity:50}") int queueCapacity) {
+    this.voucherService = voucherService;
+    this.bookingRepository = bookingRepository;
+    this.transactionTemplate = transactionTemplate;
+
+    int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    AtomicInteger threadNumber = new AtomicInteger();
+    this.renderers = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+              Thread thread = new Thread(runnable,
+                      "voucher-renderer-" + threadNumber.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+
+    this.renderTimer = Timer.builder("deviaje.voucher.render")
+            .description("Tiempo de generación del PDF de los vouchers")
+            .register(meterRegistry);
+    this.rejected = Counter.builder("deviaje.voucher.render.rejected")
+            .description("Generaciones de voucher rechazadas por el pool lleno")
+            .register(meterRegistry);
+    this.shared = Counter.builder("deviaje.voucher.render.shared")
+            .description("Pedidos de voucher que esperaron una generación ya en curso")
+            .register(meterRegistry);
+    Gauge.builder("deviaje.voucher.render.queued", renderers, pool -> pool.getQueue().size())
+            .description("Generaciones de voucher esperando un hilo")
+            .register(meterRegistry);
+    Gauge.builder("deviaje.voucher.render.active", renderers, ThreadPoolExecutor::getActiveCount)
+            .description("Generaciones de voucher en curso")
+            .register(meterRegistry);
+  }
+
+  @Override
+  public StreamingResponseBody streamVoucher(BookingEntity booking) throws Exception {
+    byte[] stored = booking.getVoucher();
+    if (stored != null && stored.length > 0) {
+      return outputStream -> outputStream.write(stored);
+    }
+    Long bookingId = booking.getId();
+    CompletableFuture<byte[]> existing = inFlight.get(bookingId);
+    if (existing != null) {
+      shared.increment();
+      return outputStream -> outputStream.write(awaitForStream(existing));
+    }
+
+    VoucherChunks chunks = new VoucherChunks();
+    CompletableFuture<byte[]> render =
+            submit(bookingId, voucherService.buildVoucherContent(booking), false, chunks);
+    if (render.isCompletedExceptionally()) {
+      await(render);
+    }
+    return chunks::drainTo;
+  }
+
+  @Override
+  public byte[] renderVoucher(Long bookingId, VoucherContentDto content, boolean replace)
+          throws Exception {
+    return await(submit(bookingId, content, replace, null));
+  }
+
+  /**
+   * Encola la generación del voucher y su guardado, o devuelve la que ya está en curso
+   * para la reserva. Si el pool está lleno la devuelve fallada con 503.
+   * Si se pasan partes, la generación escribe el PDF en ellas a medida que avanza; si se
+   * comparte una generación en curso, reciben el PDF entero cuando termina.
+   */
+  private CompletableFuture<byte[]> submit(Long bookingId, VoucherContentDto content,
+                                           boolean replace, VoucherChunks chunks) {
+    CompletableFuture<byte[]> created = new CompletableFuture<>();
+    CompletableFuture<byte[]> existing = inFlight.putIfAbsent(bookingId, created);
+    if (existing != null) {
+      shared.increment();
+      log.debug("Esperando la generación en curso del voucher de {}",
+              content.getBookingReference());
+      if (chunks != null) {
+        existing.whenComplete(chunks::finish);
+      }
+      return existing;
+    }
+    if (chunks != null) {
+      created.whenComplete((pdf, error) -> chunks.finish(null, error));
+    }
+
+    created.whenComplete((pdf, error) -> inFlight.remove(bookingId, created));
+    try {
+      renderers.execute(() -> {
+        try {
+          byte[] pdf = renderTimer.recordCallable(() -> render(content, chunks));
+          created.complete(store(bookingId, pdf, replace));
+        } catch (Throwable e) {
+          created.completeExceptionally(e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      log.warn("Pool de vouchers lleno. Generación de {} rechazada",
+              content.getBookingReference());
+      created.completeExceptionally(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+              "Hay demasiados vouchers en generación. Intente nuevamente en unos segundos"));
+    }
+    return created;
+  }
+
+  /**
+   * Genera el PDF. Si hay partes lo escribe en ellas y las cierra apenas termina, antes
+   * de guardarlo, para que la respuesta no espere al guardado.
+   */
+  private byte[] render(VoucherContentDto content, VoucherChunks chunks) throws Exception {
+    if (chunks == null) {
+      return voucherService.renderPdf(content);
+    }
+    OutputStream outputStream = new BufferedOutputStream(chunks, CHUNK_SIZE);
+    voucherService.renderPdf(content, outputStream);
+    outputStream.flush();
+    chunks.finish(null, null);
+    return chunks.toByteArray();
+  }
+
+  /**
+   * Guarda el voucher. Si no se reemplaza y otra generación lo guardó antes, devuelve
+   * el guardado para que todos los pedidos vean el mismo PDF.
+   */
+  private byte[] store(Long bookingId, byte[] pdf, boolean replace) {
+    return transactionTemplate.execute(status -> {
+      if (replace) {
+        bookingRepository.replaceVoucher(bookingId, pdf);
+        return pdf;
+      }
+      if (bookingRepository.storeVoucherIfAbsent(bookingId, pdf) == 1) {
+        log.info("Voucher guardado para la reserva {}", bookingId);
+        return pdf;
+      }
+      byte[] stored = bookingRepository.findVoucherById(bookingId);
+      return stored != null ? stored : pdf;
+    });
+  }
+
+  private static byte[] await(CompletableFuture<byte[]> render) throws Exception {
+    try {
+      return render.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof Exception cause) {
+        throw cause;
+      }
+      throw e;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw e;
+    }
+  }
+
+  /**
+   * Espera una generación desde el cuerpo de una respuesta, que solo puede lanzar
+   * IOException o excepciones no chequeadas, como el 503 del pool lleno.
+   */
+  private static byte[] awaitForStream(CompletableFuture<byte[]> render) throws IOException {
+    try {
+      return await(render);
+    } catch (IOException | RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IOException("Error al generar el voucher: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * PDF en generación, guardado por partes. La generación agrega partes sin esperar a
+   * nadie y la respuesta las escribe al cliente a medida que llegan; si el cliente es
+   * lento o corta la descarga, solo se demora o corta la respuesta. Las partes quedan
+   * para armar el PDF que se guarda.
+   */
+  private static final class VoucherChunks extends OutputStream {
+
+    private final List<byte[]> chunks = new ArrayList<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition changed = lock.newCondition();
+
+    private int size;
+
+    private boolean finished;
+
+    private Throwable error;
+
+    @Override
+    public void write(int b) {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      if (len > 0) {
+        append(Arrays.copyOfRange(b, off, off + len));
+      }
+    }
+
+    private void append(byte[] chunk) {
+      lock.lock();
+      try {
+        chunks.add(chunk);
+        size += chunk.length;
+        changed.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Cierra las partes. Si se recibe un PDF entero, de una generación compartida, se
+     * agrega como única parte; si se recibe un error, la respuesta lo lanza al llegar
+     * al final. Solo cuenta el primer cierre.
+     */
+    void finish(byte[] pdf, Throwable error) {
+      lock.lock();
+      try {
+        if (finished) {
+          return;
+        }
+        if (pdf != null) {
+          chunks.add(pdf);
+          size += pdf.length;
+        }
+        this.error = error;
+        finished = true;
+        changed.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    byte[] toByteArray() {
+      lock.lock();
+      try {
+        byte[] pdf = new byte[size];
+        int position = 0;
+        for (byte[] chunk : chunks) {
+          System.arraycopy(chunk, 0, pdf, position, chunk.length);
+          position += chunk.length;
+        }
+        return pdf;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Escribe las partes al cliente a medida que llegan, desde el hilo de la respuesta.
+     */
+    void drainTo(OutputStream outputStream) throws IOException {
+      byte[] chunk;
+      for (int index = 0; (chunk = awaitChunk(index)) != null; index++) {
+        outputStream.write(chunk);
+      }
+    }
+
+    private byte[] awaitChunk(int index) throws IOException {
+      lock.lock();
+      try {
+        while (index >= chunks.size() && !finished) {
+          changed.await();
+        }
+        if (index < chunks.size()) {
+          return chunks.get(index);
+        }
+        if (error instanceof RuntimeException runtime) {
+          throw runtime;
+        }
+        if (error != null) {
+          throw new IOException("Error al generar el voucher: " + error.getMessage(), error);
+        }
+        return null;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Descarga del voucher interrumpida");
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Termina las generaciones en curso antes de cerrar la aplicación.
+   */
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    renderers.shutdown();
+    if (!renderers.awaitTermination(30, TimeUnit.SECONDS)) {
+      renderers.shutdownNow();
+    }
+  }
+}
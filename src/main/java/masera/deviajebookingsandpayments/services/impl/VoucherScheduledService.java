@@ -3,164 +3,208 @@ package masera.deviajebookingsandpayments.services.impl;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import masera.deviajebookingsandpayments.dtos.vouchers.VoucherContentDto;
 import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.entities.OutboxEventEntity;
 import masera.deviajebookingsandpayments.entities.PaymentEntity;
 import masera.deviajebookingsandpayments.repositories.BookingRepository;
 import masera.deviajebookingsandpayments.services.interfaces.EmailService;
+import masera.deviajebookingsandpayments.services.interfaces.OutboxService;
+import masera.deviajebookingsandpayments.services.interfaces.VoucherRenderService;
 import masera.deviajebookingsandpayments.services.interfaces.VoucherService;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Servicio para procesar automáticamente vouchers pendientes.
- * Se ejecuta periódicamente para garantizar que todos los vouchers se generen y envíen.
+ * Los vouchers se generan y envían a partir de los eventos del outbox. La reserva se
+ * lee en una transacción corta; la generación del PDF y el envío del email ocurren
+ * fuera de ella para no retener una conexión de la base mientras tanto.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class VoucherScheduledService {
 
+  private static final List<OutboxEventEntity.EventStatus> OPEN_EVENTS = List.of(
+          OutboxEventEntity.EventStatus.PENDING, OutboxEventEntity.EventStatus.PROCESSING);
+
   private final BookingRepository bookingRepository;
 
+  private final VoucherRenderService voucherRenderService;
+
   private final VoucherService voucherService;
 
   private final EmailService emailService;
 
+  private final OutboxService outboxService;
+
+  private final TransactionTemplate transactionTemplate;
+
   /**
-   * Procesa vouchers pendientes cada 30 minutos.
-   * Busca bookings con pagos aprobados que no tienen voucher o no se enviaron.
+   * Registra en el outbox los vouchers pendientes al iniciar la aplicación.
+   * Cubre los bookings con pagos aprobados anteriores al outbox cuyo voucher no se
+   * envió; desde entonces cada pago aprobado registra su evento. La consulta usa los
+   * índices de estado y descarta los bookings que ya tienen un evento sin procesar,
+   * así que reiniciar la aplicación no duplica eventos.
    */
-  @Scheduled(fixedDelayString = "${deviaje.voucher.scheduler.fixed-delay:1800000}") // 30 min
+  @EventListener(ApplicationReadyEvent.class)
   @Transactional
-  public void processPendingVouchers() {
-    log.info("Iniciando proceso automático de vouchers pendientes...");
-
+  public void enqueuePendingVouchers() {
     try {
-      // 1. Buscar bookings confirmados sin voucher o no enviados
-      List<BookingEntity> pendingBookings = findPendingBookings();
+      List<Long> pendingBookings = bookingRepository.findPendingVoucherIds(
+              BookingEntity.BookingStatus.CONFIRMED,
+              PaymentEntity.PaymentStatus.APPROVED,
+              OutboxEventEntity.EventType.BOOKING_VOUCHER,
+              OPEN_EVENTS);
 
       if (pendingBookings.isEmpty()) {
         log.info("No hay vouchers pendientes para procesar");
         return;
       }
 
-      log.info("Encontrados {} bookings pendientes de procesar", pendingBookings.size());
-
-      int successCount = 0;
-      int failCount = 0;
-
-      // 2. Procesar cada booking
-      for (BookingEntity booking : pendingBookings) {
-        try {
-          processBookingVoucher(booking);
-          successCount++;
-        } catch (Exception e) {
-          log.error("Error al procesar booking {}: {}",
-                  booking.getBookingReference(), e.getMessage(), e);
-          failCount++;
-        }
-      }
-
-      log.info("Proceso completado. Exitosos: {}, Fallidos: {}", successCount, failCount);
+      log.info("Encontrados {} bookings pendientes de voucher", pendingBookings.size());
+      pendingBookings.forEach(outboxService::enqueueVoucher);
 
     } catch (Exception e) {
-      log.error("Error en el proceso automático de vouchers: {}", e.getMessage(), e);
+      log.error("Error al registrar vouchers pendientes: {}", e.getMessage(), e);
     }
   }
 
   /**
-   * Busca bookings que necesitan procesamiento de voucher.
-   * Incluye bookings con pagos aprobados pero sin voucher o sin enviar.
+   * Genera y envía el voucher de un booking si todavía no se hizo.
+   * Lo usa el outbox, por lo que puede ejecutarse más de una vez por booking.
+   *
+   * @param bookingId ID del booking
+   * @throws Exception si falla la generación o el envío
    */
-  private List<BookingEntity> findPendingBookings() {
-    List<BookingEntity> confirmedBookings =
-            bookingRepository.findByStatus(BookingEntity.BookingStatus.CONFIRMED);
-
-    return confirmedBookings.stream()
-            .filter(this::needsVoucherProcessing)
-            .toList();
+  public void processVoucher(Long bookingId) throws Exception {
+    VoucherJob job = load(bookingId, false);
+    if (job == null) {
+      return;
+    }
+    processBookingVoucher(job);
   }
 
   /**
-   * Verifica si un booking necesita procesamiento de voucher.
+   * Metodo manual para reprocesar un booking específico.
+   * Útil para debugging o forzar reenvío.
    */
-  private boolean needsVoucherProcessing(BookingEntity booking) {
-    boolean hasApprovedPayment = booking.getPaymentEntities() != null
-            && booking.getPaymentEntities().stream()
-            .anyMatch(p -> PaymentEntity.PaymentStatus.APPROVED.equals(p.getStatus()));
+  public void reprocessBooking(Long bookingId) throws Exception {
+    log.info("Reprocesando manualmente booking ID: {}", bookingId);
 
-    if (!hasApprovedPayment) {
-      return false;
+    VoucherJob job = load(bookingId, true);
+    if (job == null) {
+      throw new Exception("Booking no encontrado con ID: " + bookingId);
     }
 
-    boolean needsVoucher = booking.getVoucher() == null;
-    boolean needsSending = Boolean.FALSE.equals(booking.getIsSent());
-    return needsVoucher || needsSending;
+    // Forzar regeneración y reenvío del voucher
+    processBookingVoucher(job);
+
+    log.info("Booking reprocesado exitosamente: {}", job.bookingReference());
   }
 
   /**
-   * Procesa el voucher de un booking específico.
+   * Lee en una transacción corta lo necesario para generar y enviar el voucher.
+   * Devuelve null si el booking no existe o, sin regenerar, si no tiene nada pendiente.
    */
-  private void processBookingVoucher(BookingEntity booking) throws Exception {
-    log.info("Procesando booking: {}", booking.getBookingReference());
-
-    // 1. Generar voucher si no existe
-    if (booking.getVoucher() == null) {
-      log.info("Generando voucher para booking: {}", booking.getBookingReference());
+  private VoucherJob load(Long bookingId, boolean regenerate) {
+    return transactionTemplate.execute(status -> {
+      BookingEntity booking = bookingRepository.findById(bookingId).orElse(null);
+      if (booking == null) {
+        log.warn("Booking {} no encontrado para procesar voucher", bookingId);
+        return null;
+      }
+      if (!regenerate && !needsVoucherProcessing(booking)) {
+        log.debug("El booking {} ya tiene su voucher enviado", booking.getBookingReference());
+        return null;
+      }
 
-      byte[] voucherPdf = voucherService.generateVoucher(booking);
-      booking.setVoucher(voucherPdf);
-      bookingRepository.save(booking);
+      byte[] stored = regenerate ? null : booking.getVoucher();
+      boolean hasStored = stored != null && stored.length > 0;
+      return new VoucherJob(
+              booking.getId(),
+              booking.getBookingReference(),
+              booking.getEmail(),
+              booking.getHolderName(),
+              hasStored ? stored : null,
+              hasStored ? null : buildContent(booking),
+              regenerate);
+    });
+  }
 
-      log.info("Voucher generado y guardado para: {}", booking.getBookingReference());
+  private VoucherContentDto buildContent(BookingEntity booking) {
+    try {
+      return voucherService.buildVoucherContent(booking);
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalStateException("Error al armar el voucher de "
+              + booking.getBookingReference() + ": " + e.getMessage(), e);
     }
+  }
 
-    // 2. Enviar por email si no se ha enviado
-    if (Boolean.FALSE.equals(booking.getIsSent())) {
-      log.info("Enviando voucher por email para: {}", booking.getBookingReference());
-
-      try {
-        emailService.sendBookingVoucher(
-                booking.getEmail(),
-                booking.getBookingReference(),
-                booking.getHolderName(),
-                booking.getVoucher()
-        );
-
-        // Marcar como enviado
-        booking.setIsSent(true);
-        bookingRepository.save(booking);
-
-        log.info("Voucher enviado exitosamente a: {}", booking.getEmail());
+  /**
+   * Verifica si un booking necesita procesamiento de voucher: tiene un pago aprobado
+   * y el voucher no se envió. Un booking enviado sin PDF guardado (importado) no se
+   * procesa; su voucher se genera al descargarlo.
+   */
+  private boolean needsVoucherProcessing(BookingEntity booking) {
+    boolean hasApprovedPayment = booking.getPaymentEntities() != null
+            && booking.getPaymentEntities().stream()
+            .anyMatch(p -> PaymentEntity.PaymentStatus.APPROVED.equals(p.getStatus()));
 
-      } catch (Exception e) {
-        log.error("Error al enviar voucher por email: {}", e.getMessage(), e);
-        // No marcar como enviado para que se reintente en la próxima ejecución
-        throw e;
-      }
-    }
+    return hasApprovedPayment && Boolean.FALSE.equals(booking.getIsSent());
   }
 
   /**
-   * Metodo manual para reprocesar un booking específico.
-   * Útil para debugging o forzar reenvío.
+   * Genera el voucher si hace falta y lo envía, sin transacción abierta.
+   * El voucher lo guarda VoucherRenderService y el envío se marca con una
+   * actualización puntual, para no volver a escribir la entidad con el PDF.
    */
-  @Transactional
-  public void reprocessBooking(Long bookingId) throws Exception {
-    log.info("Reprocesando manualmente booking ID: {}", bookingId);
+  private void processBookingVoucher(VoucherJob job) throws Exception {
+    log.info("Procesando booking: {}", job.bookingReference());
+
+    // 1. Obtener el voucher, generándolo si no existe
+    byte[] voucherPdf = job.storedVoucher() != null
+            ? job.storedVoucher()
+            : voucherRenderService.renderVoucher(job.bookingId(), job.content(), job.regenerate());
 
-    BookingEntity booking = bookingRepository.findById(bookingId)
-            .orElseThrow(() -> new Exception("Booking no encontrado con ID: " + bookingId));
+    // 2. Enviar por email
+    log.info("Enviando voucher por email para: {}", job.bookingReference());
+    try {
+      emailService.sendBookingVoucher(
+              job.email(),
+              job.bookingReference(),
+              job.holderName(),
+              voucherPdf
+      );
 
-    // Forzar regeneración del voucher
-    booking.setVoucher(null);
-    booking.setIsSent(false);
-    bookingRepository.save(booking);
+      // Marcar como enviado
+      transactionTemplate.executeWithoutResult(status ->
+              bookingRepository.markVoucherSent(job.bookingId()));
 
-    // Procesar
-    processBookingVoucher(booking);
+      log.info("Voucher enviado exitosamente a: {}", job.email());
 
-    log.info("Booking reprocesado exitosamente: {}", booking.getBookingReference());
+    } catch (Exception e) {
+      log.error("Error al enviar voucher por email: {}", e.getMessage(), e);
+      // No marcar como enviado para que se reintente en la próxima ejecución
+      throw e;
+    }
   }
-}
\ No newline at end of file
+
+  /**
+   * Datos leídos del booking para generar y enviar su voucher fuera de la transacción.
+   * Tiene el PDF guardado o el contenido para generarlo.
+   */
+  private record VoucherJob(Long bookingId,
+                            String bookingReference,
+                            String email,
+                            String holderName,
+                            byte[] storedVoucher,
+                            VoucherContentDto content,
+                            boolean regenerate) {}
+}
@@ -1,22 +1,30 @@
 package masera.deviajebookingsandpayments.services.impl;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.itextpdf.html2pdf.HtmlConverter;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.Year;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import masera.deviajebookingsandpayments.dtos.bookings.flights.DepartureArrivalDto;
 import masera.deviajebookingsandpayments.dtos.bookings.flights.ItineraryDto;
 import masera.deviajebookingsandpayments.dtos.bookings.flights.SegmentDto;
+import masera.deviajebookingsandpayments.dtos.vouchers.VoucherContentDto;
 import masera.deviajebookingsandpayments.entities.BookingEntity;
 import masera.deviajebookingsandpayments.entities.FlightBookingEntity;
 import masera.deviajebookingsandpayments.entities.HotelBookingEntity;
 import masera.deviajebookingsandpayments.repositories.BookingRepository;
+import masera.deviajebookingsandpayments.services.interfaces.VoucherPdfRenderer;
 import masera.deviajebookingsandpayments.services.interfaces.VoucherService;
+import masera.deviajebookingsandpayments.utils.JsonCodec;
+import masera.deviajebookingsandpayments.utils.VoucherPdfOutput;
 import org.springframework.stereotype.Service;
 
 /**
@@ -29,23 +37,53 @@ public class VoucherServiceImpl implements VoucherService {
 
   private final BookingRepository bookingRepository;
 
-  private final ObjectMapper objectMapper;
+  private final JsonCodec jsonCodec;
 
-  private static final String PRIMARY_COLOR = "#8B5CF6";
+  private final VoucherPdfRenderer voucherPdfRenderer;
+
+  private final VoucherPdfOutput voucherPdfOutput;
+
+  private static final DateTimeFormatter DATE_FORMATTER =
+          DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+  private static final DateTimeFormatter DATE_TIME_FORMATTER =
+          DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm", Locale.of("es", "AR"));
 
   @Override
   public byte[] generateVoucher(BookingEntity booking) throws Exception {
+    return renderPdf(buildVoucherContent(booking));
+  }
+
+  @Override
+  public VoucherContentDto buildVoucherContent(BookingEntity booking) throws Exception {
     log.info("Generando voucher para reserva: {}", booking.getBookingReference());
 
     return switch (booking.getType()) {
-      case FLIGHT -> generateFlightVoucher(booking);
-      case HOTEL -> generateHotelVoucher(booking);
-      case PACKAGE -> generatePackageVoucher(booking);
+      case FLIGHT -> flightVoucherContent(booking);
+      case HOTEL -> hotelVoucherContent(booking);
+      case PACKAGE -> packageVoucherContent(booking);
     };
   }
 
   @Override
   public byte[] generateFlightVoucher(BookingEntity booking) throws Exception {
+    return renderPdf(flightVoucherContent(booking));
+  }
+
+  @Override
+  public byte[] generateHotelVoucher(BookingEntity booking) throws Exception {
+    return renderPdf(hotelVoucherContent(booking));
+  }
+
+  @Override
+  public byte[] generatePackageVoucher(BookingEntity booking) throws Exception {
+    return renderPdf(packageVoucherContent(booking));
+  }
+
+  /**
+   * Carga la reserva con sus relaciones y arma el contenido del voucher de vuelo.
+   */
+  private VoucherContentDto flightVoucherContent(BookingEntity booking) throws Exception {
     log.info("Generando voucher de vuelo para: {}", booking.getBookingReference());
 
     // Cargar la entidad completa con las relaciones
@@ -59,13 +97,13 @@ public class VoucherServiceImpl implements VoucherService {
 
     FlightBookingEntity flightBooking = fullBooking.getFlightBookingEntities().getFirst();
 
-    String htmlContent = buildFlightVoucherHtml(fullBooking, flightBooking);
-
-    return convertHtmlToPdf(htmlContent);
+    return buildFlightVoucherContent(fullBooking, flightBooking);
   }
 
-  @Override
-  public byte[] generateHotelVoucher(BookingEntity booking) throws Exception {
+  /**
+   * Carga la reserva con sus relaciones y arma el contenido del voucher de hotel.
+   */
+  private VoucherContentDto hotelVoucherContent(BookingEntity booking) throws Exception {
     log.info("Generando voucher de hotel para: {}", booking.getBookingReference());
 
     // Cargar la entidad completa con las relaciones
@@ -79,13 +117,13 @@ public class VoucherServiceImpl implements VoucherService {
 
     HotelBookingEntity hotelBooking = fullBooking.getHotelBookingEntities().getFirst();
 
-    String htmlContent = buildHotelVoucherHtml(fullBooking, hotelBooking);
-
-    return convertHtmlToPdf(htmlContent);
+    return buildHotelVoucherContent(fullBooking, hotelBooking);
   }
 
-  @Override
-  public byte[] generatePackageVoucher(BookingEntity booking) throws Exception {
+  /**
+   * Carga la reserva con sus relaciones y arma el contenido del voucher de paquete.
+   */
+  private VoucherContentDto packageVoucherContent(BookingEntity booking) throws Exception {
     log.info("Generando voucher de paquete para: {}", booking.getBookingReference());
 
     // Cargar la entidad completa con las relaciones
@@ -102,423 +140,116 @@ public class VoucherServiceImpl implements VoucherService {
     FlightBookingEntity flightBooking = fullBooking.getFlightBookingEntities().getFirst();
     HotelBookingEntity hotelBooking = fullBooking.getHotelBookingEntities().getFirst();
 
-    String htmlContent = buildPackageVoucherHtml(fullBooking, flightBooking, hotelBooking);
-
-    return convertHtmlToPdf(htmlContent);
+    return buildPackageVoucherContent(fullBooking, flightBooking, hotelBooking);
   }
 
   /**
-   * Construye el HTML para el voucher de vuelo.
+   * Construye el contenido del voucher de vuelo.
    */
-  private String buildFlightVoucherHtml(BookingEntity booking, FlightBookingEntity flight) {
-    DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-    boolean isRoundTrip = flight.getReturnDate() != null;
-
-    String formattedDepartureDate = formatFlightDateTime(flight.getDepartureDate());
-    String formattedReturnDate = isRoundTrip
-            ? formatFlightDateTime(flight.getReturnDate())
-            : null;
-    String itineraryDetailsHtml = buildItineraryDetailsHtml(flight.getItineraries());
-
-    return "<!DOCTYPE html>"
-            + "<html>"
-            + "<head>"
-            + "<meta charset='UTF-8'/>"
-            + "<style>" + getCommonStyles() + "</style>"
-            + "</head>"
-            + "<body>"
-            + "<div class='container'>"
-
-            // Header
-            + "<div class='header'>"
-            + "<h1>DeViaje</h1>"
-            + "</div>"
-
-            + "<div class='voucher-title'>Voucher de Vuelo</div>"
-            + "<div class='code-section'>CÓDIGO DEVIAJE " + booking.getBookingReference() + "</div>"
-
-            // Confirmation bar
-            + "<div class='confirmation-bar'>"
-            + "Confirmado: " + flight.getOrigin() + " → " + flight.getDestination()
-            + "</div>"
-
-            // Booking details
-            + "<div class='info-section'>"
-            + "<p><strong>Reservado por:</strong> " + booking.getHolderName() + "</p>"
-            + "<p><strong>Fecha de reserva:</strong> "
-            + booking.getCreatedDatetime().format(dateFormatter) + "</p>"
-            + "<p><strong>Fecha de salida:</strong> " + formattedDepartureDate + "</p>"
-            + (isRoundTrip
-            ? "<p><strong>Fecha de regreso:</strong> " + formattedReturnDate + "</p>"
-            : "")
-            + "</div>"
-
-            // Itinerarios detallados
-            + itineraryDetailsHtml
-
-            // Passenger details
-            + "<div class='info-section'>"
-            + "<div class='details-row'>"
-            + "<div class='details-column'><strong>Pasajeros</strong><br/>"
-            + flight.getAdults() + " Adultos"
-            + (flight.getChildren() != null && flight.getChildren() > 0
-            ? ", " + flight.getChildren() + " Niños" : "")
-            + (flight.getInfants() != null && flight.getInfants() > 0
-            ? ", " + flight.getInfants() + " Infantes" : "")
-            + "</div>"
-            + "<div class='details-column'><strong>Aerolínea</strong><br/>"
-            + (flight.getCarrier() != null ? flight.getCarrier() : "N/A") + "</div>"
-            + "</div>"
-            + "</div>"
-
-            // Price details
-            + "<div class='price-section'>"
-            + "<h3>Detalles del Precio</h3>"
-            + "<div class='price-row'>"
-            + "<span>Total:</span>"
-            + "<span class='price-value'>" + booking.getCurrency()
-            + " " + booking.getTotalAmount() + "</span>"
-            + "</div>"
-            + "<div class='price-row'>"
-            + "<span>Impuestos incluidos:</span>"
-            + "<span>" + booking.getCurrency() + " " + booking.getTaxes() + "</span>"
-            + "</div>"
-            + "</div>"
-
-            // Important information
-            + "<div class='important-section'>"
-            + "<h3>Información importante</h3>"
-            + "<p>Presentar este voucher junto con un documento "
-            + "de identidad válido en el check-in. "
-            + "Se recomienda llegar al aeropuerto con al menos 2 horas de anticipación para vuelos "
-            + "nacionales y 3 horas para vuelos internacionales.</p>"
-            + "</div>"
-
-            // Footer
-            + getFooter()
-
-            + "</div>"
-            + "</body>"
-            + "</html>";
+  private VoucherContentDto buildFlightVoucherContent(BookingEntity booking,
+                                                      FlightBookingEntity flight) {
+    VoucherContentDto content = bookingContent(booking);
+    content.setFlight(flightSection(flight));
+    return content;
   }
 
   /**
-   * Construye el HTML para el voucher de hotel.
+   * Construye el contenido del voucher de hotel.
    */
-  private String buildHotelVoucherHtml(BookingEntity booking, HotelBookingEntity hotel) {
-    DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-
-    return "<!DOCTYPE html>"
-            + "<html>"
-            + "<head>"
-            + "<meta charset='UTF-8'/>"
-            + "<style>" + getCommonStyles() + "</style>"
-            + "</head>"
-            + "<body>"
-            + "<div class='container'>"
-
-            // Header
-            + "<div class='header'>"
-            + "<h1>DeViaje</h1>"
-            + "</div>"
-
-            + "<div class='voucher-title'>Voucher de Alojamiento</div>"
-            + "<div class='code-section'>CÓDIGO DEVIAJE " + booking.getBookingReference() + "</div>"
-
-            // Confirmation bar
-            + "<div class='confirmation-bar'>"
-            + "Confirmado: " + hotel.getNumberOfNights()
-            + " noches en " + hotel.getDestinationName()
-            + "</div>"
-
-            // Booking details
-            + "<div class='info-section'>"
-            + "<p><strong>Reservado por:</strong> " + booking.getHolderName() + "</p>"
-            + "<p><strong>Fecha de reserva:</strong> "
-            + booking.getCreatedDatetime().format(dateFormatter) + "</p>"
-            + "</div>"
-
-            // Check-in/out dates
-            + "<div class='info-section'>"
-            + "<div class='hotel-dates'>"
-            + "<div class='date-column'>"
-            + "<p class='label'>Check in</p>"
-            + "<p class='value'>" + hotel.getCheckInDate().format(dateFormatter) + "</p>"
-            + "<p class='time'>15:00HS</p>"
-            + "</div>"
-            + "<div class='date-column'>"
-            + "<p class='label'>Check out</p>"
-            + "<p class='value'>" + hotel.getCheckOutDate().format(dateFormatter) + "</p>"
-            + "<p class='time'>11:00HS</p>"
-            + "</div>"
-            + "</div>"
-            + "</div>"
-
-            // Room details
-            + "<div class='info-section'>"
-            + "<div class='details-row'>"
-            + "<div class='details-column'><strong>Habitaciones</strong><br/>"
-            + hotel.getNumberOfRooms() + " " + hotel.getRoomName() + "</div>"
-            + "<div class='details-column'><strong>Pasajeros</strong><br/>"
-            + hotel.getAdults() + " Adultos"
-            + (hotel.getChildren() > 0 ? ", " + hotel.getChildren() + " Niños" : "")
-            + "</div>"
-            + "<div class='details-column'><strong>Régimen de comida</strong><br/>"
-            + hotel.getBoardName() + "</div>"
-            + "</div>"
-            + "</div>"
-
-            // Price details
-            + "<div class='price-section'>"
-            + "<h3>Detalles del Precio</h3>"
-            + "<div class='price-row'>"
-            + "<span>Total:</span>"
-            + "<span class='price-value'>" + booking.getCurrency()
-            + " " + booking.getTotalAmount() + "</span>"
-            + "</div>"
-            + "<div class='price-row'>"
-            + "<span>Impuestos incluidos:</span>"
-            + "<span>" + booking.getCurrency() + " " + booking.getTaxes() + "</span>"
-            + "</div>"
-            + "</div>"
-
-            // Important information
-            + "<div class='important-section'>"
-            + "<h3>Información importante</h3>"
-            + "<p>Presentar este voucher en el check-in del hotel junto con un "
-            + "documento de identidad válido. Verificar las políticas específicas del "
-            + "hotel respecto a horarios de entrada y servicios incluidos.</p>"
-            + "</div>"
-
-            // Footer
-            + getFooter()
-
-            + "</div>"
-            + "</body>"
-            + "</html>";
+  private VoucherContentDto buildHotelVoucherContent(BookingEntity booking,
+                                                     HotelBookingEntity hotel) {
+    VoucherContentDto content = bookingContent(booking);
+    content.setHotel(hotelSection(hotel));
+    return content;
   }
 
   /**
-   * Construye el HTML para el voucher de paquete.
+   * Construye el contenido del voucher de paquete.
    */
-  /**
-   * Construye el HTML para el voucher de paquete.
-   */
-  private String buildPackageVoucherHtml(BookingEntity booking,
-                                         FlightBookingEntity flight,
-                                         HotelBookingEntity hotel) {
-    DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-
-    // Determinar si es vuelo de ida y vuelta
-    boolean isRoundTrip = flight.getReturnDate() != null;
-
-    // Formatear fechas de vuelo
-    String formattedDepartureDate = formatFlightDateTime(flight.getDepartureDate());
-    String formattedReturnDate = isRoundTrip
-            ? formatFlightDateTime(flight.getReturnDate())
-            : null;
-
-    // Parsear itinerarios para mostrar detalles del vuelo
-    String itineraryDetailsHtml = buildItineraryDetailsHtml(flight.getItineraries());
-
-    return "<!DOCTYPE html>"
-            + "<html>"
-            + "<head>"
-            + "<meta charset='UTF-8'/>"
-            + "<style>" + getCommonStyles() + "</style>"
-            + "</head>"
-            + "<body>"
-            + "<div class='container'>"
-
-            // Header
-            + "<div class='header'>"
-            + "<h1>DeViaje</h1>"
-            + "</div>"
-
-            + "<div class='voucher-title'>Voucher de Paquete</div>"
-            + "<div class='code-section'>CÓDIGO DEVIAJE " + booking.getBookingReference() + "</div>"
-
-            // Confirmation bar
-            + "<div class='confirmation-bar'>"
-            + "Confirmado: Paquete Vuelo + Hotel"
-            + "</div>"
-
-            // Booking details
-            + "<div class='info-section'>"
-            + "<p><strong>Reservado por:</strong> " + booking.getHolderName() + "</p>"
-            + "<p><strong>Fecha de reserva:</strong> "
-            + booking.getCreatedDatetime().format(dateFormatter) + "</p>"
-            + "</div>"
-
-            // Flight section
-            + "<div class='section-divider'>DETALLES DEL VUELO</div>"
-            + "<div class='info-section'>"
-            + "<p><strong>Origen:</strong> " + flight.getOrigin() + "</p>"
-            + "<p><strong>Destino:</strong> " + flight.getDestination() + "</p>"
-            + "<p><strong>Fecha de salida:</strong> " + formattedDepartureDate + "</p>"
-            + (isRoundTrip
-            ? "<p><strong>Fecha de regreso:</strong> " + formattedReturnDate + "</p>"
-            : "")
-            + "</div>"
-
-            // Itinerarios detallados del vuelo
-            + itineraryDetailsHtml
-
-            // Passenger details
-            + "<div class='info-section'>"
-            + "<div class='details-row'>"
-            + "<div class='details-column'><strong>Pasajeros</strong><br/>"
-            + flight.getAdults() + " Adultos"
-            + (flight.getChildren() != null && flight.getChildren() > 0
-            ? ", " + flight.getChildren() + " Niños" : "")
-            + (flight.getInfants() != null && flight.getInfants() > 0
-            ? ", " + flight.getInfants() + " Infantes" : "")
-            + "</div>"
-            + "<div class='details-column'><strong>Aerolínea</strong><br/>"
-            + (flight.getCarrier() != null ? flight.getCarrier() : "N/A") + "</div>"
-            + "</div>"
-            + "</div>"
-
-            // Hotel section
-            + "<div class='section-divider'>DETALLES DEL ALOJAMIENTO</div>"
-            + "<div class='info-section'>"
-            + "<h2>" + hotel.getHotelName() + "</h2>"
-            + "<p>" + hotel.getDestinationName() + ", " + hotel.getCountryName() + "</p>"
-            + "</div>"
-
-            // Hotel dates
-            + "<div class='info-section'>"
-            + "<div class='hotel-dates'>"
-            + "<div class='date-column'>"
-            + "<p class='label'>Check in</p>"
-            + "<p class='value'>" + hotel.getCheckInDate().format(dateFormatter) + "</p>"
-            + "<p class='time'>15:00HS</p>"
-            + "</div>"
-            + "<div class='date-column'>"
-            + "<p class='label'>Check out</p>"
-            + "<p class='value'>" + hotel.getCheckOutDate().format(dateFormatter) + "</p>"
-            + "<p class='time'>11:00HS</p>"
-            + "</div>"
-            + "</div>"
-            + "</div>"
-
-            // Hotel room details
-            + "<div class='info-section'>"
-            + "<div class='details-row'>"
-            + "<div class='details-column'><strong>Habitaciones</strong><br/>"
-            + hotel.getNumberOfRooms() + " " + hotel.getRoomName() + "</div>"
-            + "<div class='details-column'><strong>Pasajeros</strong><br/>"
-            + hotel.getAdults() + " Adultos"
-            + (hotel.getChildren() > 0 ? ", " + hotel.getChildren() + " Niños" : "")
-            + "</div>"
-            + "<div class='details-column'><strong>Régimen de comida</strong><br/>"
-            + hotel.getBoardName() + "</div>"
-            + "</div>"
-            + "</div>"
-
-            // Price details
-            + "<div class='price-section'>"
-            + "<h3>Detalles del Precio</h3>"
-            + "<div class='price-row'>"
-            + "<span>Total del Paquete:</span>"
-            + "<span class='price-value'>" + booking.getCurrency() + " "
-            + booking.getTotalAmount() + "</span>"
-            + "</div>"
-            + "<div class='price-row'>"
-            + "<span>Impuestos incluidos:</span>"
-            + "<span>" + booking.getCurrency() + " " + booking.getTaxes() + "</span>"
-            + "</div>"
-            + (booking.getDiscount().compareTo(java.math.BigDecimal.ZERO) > 0
-            ? "<div class='price-row discount'>"
-            + "<span>Descuento aplicado:</span>"
-            + "<span>- " + booking.getCurrency() + " " + booking.getDiscount() + "</span>"
-            + "</div>"
-            : "")
-            + "</div>"
-
-            // Important information
-            + "<div class='important-section'>"
-            + "<h3>Información importante</h3>"
-            + "<p>Este es un paquete combinado. Presentar este voucher tanto en el "
-            + "check-in del vuelo como en el check-in del hotel. Verificar todos los "
-            + "horarios y políticas de cada servicio.</p>"
-            + "</div>"
-
-            // Footer
-            + getFooter()
-
-            + "</div>"
-            + "</body>"
-            + "</html>";
+  private VoucherContentDto buildPackageVoucherContent(BookingEntity booking,
+                                                       FlightBookingEntity flight,
+                                                       HotelBookingEntity hotel) {
+    VoucherContentDto content = bookingContent(booking);
+    content.setFlight(flightSection(flight));
+    content.setHotel(hotelSection(hotel));
+    return content;
   }
 
   /**
-   * Estilos CSS comunes para todos los vouchers.
+   * Datos de la reserva comunes a todos los vouchers.
    */
-  private String getCommonStyles() {
-    return "body { font-family: Arial, sans-serif; margin: 0; padding: 20px; color: #333; }"
-            + ".container { max-width: 800px; margin: 0 auto; }"
-            + ".header { background-color: " + PRIMARY_COLOR + "; padding: 20px; "
-            + "text-align: center; border-radius: 8px 8px 0 0; }"
-            + ".header h1 { color: white; margin: 0; font-size: 32px; }"
-            + ".voucher-title { font-size: 24px; font-weight: bold; margin: 20px 0 10px; }"
-            + ".code-section { text-align: right; font-size: "
-            + "12px; color: #666; margin-bottom: 20px; }"
-            + ".confirmation-bar { background-color: #4B5563; color: white; padding: 15px; "
-            + "border-radius: 20px; font-weight: bold; margin: 20px 0; }"
-            + ".info-section { margin: 20px 0; padding: 15px; border: 1px solid #ddd; "
-            + "border-radius: 5px; }"
-            + ".info-section h2 { color: " + PRIMARY_COLOR + "; margin: 10px 0; }"
-            + ".info-section h3 { color: #333; margin: 10px 0; font-size: 14px; }"
-            + ".flight-info, .hotel-dates { display: flex; justify-content: space-around; "
-            + "margin: 20px 0; }"
-            + ".flight-column, .date-column { text-align: center; flex: 1; }"
-            + ".label { font-size: 12px; color: #666; margin: 5px 0; }"
-            + ".value { font-size: 16px; font-weight: bold; margin: 5px 0; }"
-            + ".time { font-size: 14px; margin: 5px 0; }"
-            + ".location { font-size: 14px; color: " + PRIMARY_COLOR + "; font-weight: bold; }"
-            + ".details-row { display: flex; justify-content: space-between; gap: 20px; }"
-            + ".details-column { flex: 1; }"
-            + ".price-section { background-color: #f3f4f6; padding: 15px; "
-            + "border-radius: 5px; margin: 20px 0; border-left: 4px solid " + PRIMARY_COLOR + "; }"
-            + ".price-section h3 { margin-top: 0; color: " + PRIMARY_COLOR + "; }"
-            + ".price-row { display: flex; justify-content: space-between; "
-            + "padding: 8px 0; border-bottom: 1px solid #ddd; }"
-            + ".price-row:last-child { border-bottom: none; }"
-            + ".price-value { font-weight: bold; font-size: 18px; color: " + PRIMARY_COLOR + "; }"
-            + ".discount { color: #10b981; }"
-            + ".important-section { background-color: #fef3c7; padding: 15px; "
-            + "border-radius: 5px; margin: 20px 0; border-left: 4px solid #f59e0b; }"
-            + ".section-divider { background-color: #e5e7eb; padding: 10px; font-weight: bold; "
-            + "margin: 20px 0; border-radius: 5px; }"
-            + ".footer { margin-top: 30px; padding: 20px; background-color: #f9fafb; "
-            + "border-radius: 5px; text-align: center; }"
-            + ".footer p { margin: 5px 0; font-size: 12px; color: #666; }";
+  private VoucherContentDto bookingContent(BookingEntity booking) {
+    return VoucherContentDto.builder()
+            .type(booking.getType())
+            .bookingReference(booking.getBookingReference())
+            .holderName(booking.getHolderName())
+            .createdDate(booking.getCreatedDatetime().format(DATE_FORMATTER))
+            .currency(String.valueOf(booking.getCurrency()))
+            .totalAmount(String.valueOf(booking.getTotalAmount()))
+            .taxes(String.valueOf(booking.getTaxes()))
+            .discount(booking.getDiscount() != null
+                    && booking.getDiscount().compareTo(BigDecimal.ZERO) > 0
+                    ? booking.getDiscount().toString() : null)
+            .year(String.valueOf(Year.now().getValue()))
+            .build();
   }
 
   /**
-   * Footer común para todos los vouchers.
+   * Datos del vuelo: fechas, itinerarios, pasajeros y aerolínea.
    */
-  private String getFooter() {
-    return "<div class='footer'>"
-            + "<p><strong>¡Que tengas un excelente viaje!</strong></p>"
-            + "<p>Te acompañamos antes, durante y después de tu viaje</p>"
-            + "<p style='margin-top: 15px;'>Este es un correo "
-            + "automático, por favor no responder.</p>"
-            + "<p>© " + java.time.Year.now().getValue() + " DeViaje. "
-            + "Todos los derechos reservados.</p>"
-            + "</div>";
+  private VoucherContentDto.FlightSection flightSection(FlightBookingEntity flight) {
+    VoucherContentDto.FlightSection section = VoucherContentDto.FlightSection.builder()
+            .origin(flight.getOrigin())
+            .destination(flight.getDestination())
+            .departureDate(formatFlightDateTime(flight.getDepartureDate()))
+            .returnDate(flight.getReturnDate() != null
+                    ? formatFlightDateTime(flight.getReturnDate()) : null)
+            .passengers(flight.getAdults() + " Adultos"
+                    + (flight.getChildren() != null && flight.getChildren() > 0
+                    ? ", " + flight.getChildren() + " Niños" : "")
+                    + (flight.getInfants() != null && flight.getInfants() > 0
+                    ? ", " + flight.getInfants() + " Infantes" : ""))
+            .carrier(flight.getCarrier() != null ? flight.getCarrier() : "N/A")
+            .build();
+    putItineraries(section, flight.getItineraries());
+    return section;
   }
 
   /**
-   * Convierte HTML a PDF usando iText.
+   * Datos del alojamiento: destino, fechas, habitaciones y pasajeros.
    */
-  private byte[] convertHtmlToPdf(String htmlContent) throws Exception {
-    try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-      HtmlConverter.convertToPdf(htmlContent, outputStream);
-      return outputStream.toByteArray();
+  private VoucherContentDto.HotelSection hotelSection(HotelBookingEntity hotel) {
+    return VoucherContentDto.HotelSection.builder()
+            .hotelName(hotel.getHotelName())
+            .destinationName(hotel.getDestinationName())
+            .countryName(hotel.getCountryName())
+            .nights(String.valueOf(hotel.getNumberOfNights()))
+            .checkInDate(hotel.getCheckInDate().format(DATE_FORMATTER))
+            .checkOutDate(hotel.getCheckOutDate().format(DATE_FORMATTER))
+            .rooms(hotel.getNumberOfRooms() + " " + hotel.getRoomName())
+            .guests(hotel.getAdults() + " Adultos"
+                    + (hotel.getChildren() > 0 ? ", " + hotel.getChildren() + " Niños" : ""))
+            .boardName(hotel.getBoardName())
+            .build();
+  }
+
+  @Override
+  public byte[] renderPdf(VoucherContentDto content) throws Exception {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream(16 * 1024);
+    renderPdf(content, outputStream);
+    return outputStream.toByteArray();
+  }
+
+  @Override
+  public void renderPdf(VoucherContentDto content, OutputStream outputStream)
+          throws Exception {
+    try {
+      CountingOutputStream counter = new CountingOutputStream(outputStream);
+      voucherPdfRenderer.render(content, counter);
+      voucherPdfOutput.record(content.getType(), content.getBookingReference(),
+              counter.count);
     } catch (Exception e) {
-      log.error("Error al convertir HTML a PDF: {}", e.getMessage(), e);
+      log.error("Error al generar el PDF del voucher: {}", e.getMessage(), e);
       throw new Exception("Error al generar el PDF del voucher: " + e.getMessage());
     }
   }
@@ -528,86 +259,56 @@ public class VoucherServiceImpl implements VoucherService {
    */
   private String formatFlightDateTime(String isoDateTime) {
     try {
-      LocalDateTime dateTime = LocalDateTime.parse(isoDateTime);
-      DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm",
-              new java.util.Locale("es", "AR"));
-      return dateTime.format(formatter);
+      return LocalDateTime.parse(isoDateTime).format(DATE_TIME_FORMATTER);
     } catch (Exception e) {
       return isoDateTime;
     }
   }
 
   /**
-   * Construye el HTML de detalles del itinerario desde el JSON.
+   * Lee los itinerarios guardados en JSON, con sus duraciones y horarios formateados.
    */
-  private String buildItineraryDetailsHtml(String itinerariesJson) {
+  private void putItineraries(VoucherContentDto.FlightSection section,
+                              String itinerariesJson) {
     if (itinerariesJson == null || itinerariesJson.isEmpty()) {
-      return "<div class='info-section'><p>Detalles del itinerario no disponibles</p></div>";
+      section.setItinerariesMessage("Detalles del itinerario no disponibles");
+      return;
     }
 
     try {
-      List<ItineraryDto> itineraries = objectMapper.readValue(
-              itinerariesJson,
-              new TypeReference<>() {}
-      );
-
-      StringBuilder html = new StringBuilder();
-      html.append("<div class='info-section'><h3>Itinerarios</h3>");
+      List<ItineraryDto> itineraries = jsonCodec.readItineraries(itinerariesJson);
+      List<VoucherContentDto.Itinerary> result = new ArrayList<>(itineraries.size());
 
       for (int i = 0; i < itineraries.size(); i++) {
-        ItineraryDto itinerary = itineraries.get(i);
-        List<SegmentDto> segments = itinerary.getSegments();
-
-        // Calcular duración total del itinerario sumando los segmentos
-        String totalDuration = calculateTotalDuration(segments);
-
-        // Título del itinerario (Ida o Vuelta)
-        html.append("<h4>").append(i == 0 ? "Vuelo de Ida" : "Vuelo de Regreso").append("</h4>");
-        html.append("<p><strong>Duración total:</strong> ").append(totalDuration).append("</p>");
-
-        // Detalles de cada segmento
-        if (segments != null && !segments.isEmpty()) {
-          html.append("<table style='width: 100%; border-collapse: collapse; margin-top: 10px;'>");
-          html.append("<tr style='background-color: #f3f4f6;'>");
-          html.append("<th style='padding: 8px; text-align: left; "
-                  + "border: 1px solid #ddd;'>Salida</th>");
-          html.append("<th style='padding: 8px; text-align: left; "
-                  + "border: 1px solid #ddd;'>Llegada</th>");
-          html.append("<th style='padding: 8px; text-align: left; "
-                  + "border: 1px solid #ddd;'>Duración</th>");
-          html.append("</tr>");
+        List<SegmentDto> segments = itineraries.get(i).getSegments();
+        List<VoucherContentDto.Segment> rows = new ArrayList<>();
 
+        if (segments != null) {
           for (SegmentDto segment : segments) {
-
-            html.append("<tr>");
             DepartureArrivalDto departure = segment.getDeparture();
-            String departureTime = formatFlightDateTime(departure.getAt());
-            String departureCode = departure.getIataCode();
-            html.append("<td style='padding: 8px; border: 1px solid #ddd;'>")
-                    .append(departureCode).append("<br>").append(departureTime).append("</td>");
-
             DepartureArrivalDto arrival = segment.getArrival();
-            String arrivalTime = formatFlightDateTime(arrival.getAt());
-            String arrivalCode = arrival.getIataCode();
-            html.append("<td style='padding: 8px; border: 1px solid #ddd;'>")
-                    .append(arrivalCode).append("<br>").append(arrivalTime).append("</td>");
-
-            String segmentDuration = segment.getDuration();
-            html.append("<td style='padding: 8px; border: 1px solid #ddd;'>")
-                    .append(formatDuration(segmentDuration)).append("</td>");
-
-            html.append("</tr>");
+            rows.add(VoucherContentDto.Segment.builder()
+                    .departureCode(departure.getIataCode())
+                    .departureTime(formatFlightDateTime(departure.getAt()))
+                    .arrivalCode(arrival.getIataCode())
+                    .arrivalTime(formatFlightDateTime(arrival.getAt()))
+                    .duration(formatDuration(segment.getDuration()))
+                    .build());
           }
-          html.append("</table>");
         }
+
+        result.add(VoucherContentDto.Itinerary.builder()
+                .title(i == 0 ? "Vuelo de Ida" : "Vuelo de Regreso")
+                .totalDuration(calculateTotalDuration(segments))
+                .segments(rows)
+                .build());
       }
 
-      html.append("</div>");
-      return html.toString();
+      section.setItineraries(result);
 
     } catch (Exception e) {
       log.error("Error al parsear itinerarios: {}", e.getMessage(), e);
-      return "<div class='info-section'><p>Error al cargar detalles del itinerario</p></div>";
+      section.setItinerariesMessage("Error al cargar detalles del itinerario");
     }
   }
 
@@ -670,4 +371,34 @@ public class VoucherServiceImpl implements VoucherService {
       return duration; // Fallback
     }
   }
+
+  /**
+   * Cuenta los bytes escritos y no cierra el stream de destino, que es de quien pidió
+   * el voucher: iText cierra el stream al terminar el documento.
+   */
+  private static final class CountingOutputStream extends FilterOutputStream {
+
+    private long count;
+
+    private CountingOutputStream(OutputStream outputStream) {
+      super(outputStream);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      count += len;
+    }
+
+    @Override
+    public void close() throws IOException {
+      out.flush();
+    }
+  }
 }
\ No newline at end of file
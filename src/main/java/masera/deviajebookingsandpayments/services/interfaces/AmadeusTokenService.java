@@ -1,6 +1,7 @@
 package masera.deviajebookingsandpayments.services.interfaces;
 
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
 /**
  * Interfaz para el servicio de autenticación de Amadeus.
@@ -16,4 +17,21 @@ public interface AmadeusTokenService {
    * @return el token de acceso para la API de Amadeus.
    */
   String getToken();
+
+  /**
+   * Obtiene el token de acceso de Amadeus sin bloquear el hilo.
+   * Si el actual es válido, se emite de inmediato.
+   *
+   * @return el token de acceso para la API de Amadeus.
+   */
+  Mono<String> getTokenReactive();
+
+  /**
+   * Renueva el token después de que Amadeus lo rechazara.
+   * Si otro hilo ya lo renovó, devuelve el nuevo sin volver a solicitarlo.
+   *
+   * @param rejectedToken token rechazado por Amadeus
+   * @return un token de acceso distinto del rechazado
+   */
+  Mono<String> refreshToken(String rejectedToken);
 }
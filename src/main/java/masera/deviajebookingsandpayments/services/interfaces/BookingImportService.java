@@ -0,0 +1,33 @@
+package masera.deviajebookingsandpayments.services.interfaces;
+
+import java.io.IOException;
+import java.io.InputStream;
+import masera.deviajebookingsandpayments.dtos.imports.BookingImportResultDto;
+import org.springframework.stereotype.Service;
+
+/**
+ * Interfaz para la importación masiva de reservas del sistema anterior.
+ */
+@Service
+public interface BookingImportService {
+
+  /**
+   * Verifica el token de administración requerido para importar.
+   *
+   * @param token token recibido en la solicitud
+   * @throws org.springframework.web.server.ResponseStatusException 403 si falta,
+   *         no coincide o la importación no tiene un token configurado
+   */
+  void checkAuthorization(String token);
+
+  /**
+   * Importa reservas leídas de forma incremental, guardándolas por lotes.
+   * Acepta NDJSON (una reserva por línea) o un arreglo JSON. Las filas que no
+   * corresponden a una reserva y las referencias ya existentes se informan y se omiten.
+   *
+   * @param input cuerpo de la solicitud con las reservas
+   * @return el resultado de la importación
+   * @throws IOException si el contenido no puede leerse
+   */
+  BookingImportResultDto importBookings(InputStream input) throws IOException;
+}
@@ -0,0 +1,33 @@
+package masera.deviajebookingsandpayments.services.interfaces;
+
+import masera.deviajebookingsandpayments.dtos.payments.PaymentRequestDto;
+import masera.deviajebookingsandpayments.dtos.responses.BookingReferenceResponse;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import org.springframework.stereotype.Service;
+
+/**
+ * Interfaz del servicio que lleva una reserva ya guardada por las etapas
+ * de pago y finalización, y recupera las reservas detenidas entre etapas.
+ */
+@Service
+public interface BookingPipelineService {
+
+  /**
+   * Procesa el pago de una reserva en etapa RESERVED y la finaliza.
+   * Si el pago es rechazado, la reserva se cancela en los proveedores.
+   *
+   * @param booking reserva guardada
+   * @param paymentRequest datos del pago
+   * @return referencia de la reserva
+   */
+  BookingReferenceResponse payAndFinalize(BookingEntity booking,
+                                          PaymentRequestDto paymentRequest);
+
+  /**
+   * Resuelve una reserva detenida entre etapas: la finaliza si el pago fue
+   * aprobado o la cancela en los proveedores si no hubo pago.
+   *
+   * @param bookingId ID de la reserva
+   */
+  void recoverBooking(Long bookingId);
+}
@@ -0,0 +1,31 @@
+package masera.deviajebookingsandpayments.services.interfaces;
+
+import masera.deviajebookingsandpayments.dtos.responses.BookingRequestStatusDto;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import org.springframework.stereotype.Service;
+
+/**
+ * Interfaz del servicio de reservas asíncronas. Las solicitudes se encolan y
+ * un pool de workers ejecuta la reserva y el pago.
+ */
+@Service
+public interface BookingRequestService {
+
+  /**
+   * Encola una solicitud de reserva y pago.
+   *
+   * @param type tipo de reserva
+   * @param request solicitud ya validada (BookFlightAndPayRequest, BookHotelAndPayRequest
+   *                o BookPackageAndPayRequest)
+   * @return estado inicial de la solicitud con su ID de seguimiento
+   */
+  BookingRequestStatusDto submit(BookingEntity.BookingType type, Object request);
+
+  /**
+   * Obtiene el estado de una solicitud.
+   *
+   * @param requestId ID de seguimiento
+   * @return estado de la solicitud
+   */
+  BookingRequestStatusDto getStatus(String requestId);
+}
@@ -5,6 +5,7 @@ import masera.deviajebookingsandpayments.dtos.responses.BookingDetailsResponseDt
 import masera.deviajebookingsandpayments.dtos.responses.BookingResponseDto;
 import masera.deviajebookingsandpayments.entities.BookingEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Interface para el servicio común de todos los bookings.
@@ -88,9 +89,9 @@ public interface BookingService {
    * Metodo para descargar el voucher de la reserva.
    *
    * @param bookingId id de la reserva
-   * @return el voucher
+   * @return el cuerpo de la respuesta que escribe el voucher
    */
-  byte[] downloadVoucher(Long bookingId);
+  StreamingResponseBody downloadVoucher(Long bookingId);
 
   /**
    * Reenvía el voucher por email.
@@ -101,13 +102,12 @@ public interface BookingService {
   String resendVoucher(Long bookingId);
 
   /**
-   * Metodo que genera una referencia más amigable.
+   * Metodo que genera una referencia más amigable antes de guardar la reserva.
    *
-   * @param bookingId ID de la reserva
    * @param type tipo de reserva
    * @return la referencia amigable para el usuario
    */
-  String generateBookingReference(Long bookingId, BookingEntity.BookingType type);
+  String generateBookingReference(BookingEntity.BookingType type);
 
   /**
    * Devuelve la referencia amigable.
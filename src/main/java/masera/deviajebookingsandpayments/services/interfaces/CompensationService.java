@@ -0,0 +1,58 @@
+package masera.deviajebookingsandpayments.services.interfaces;
+
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.entities.CompensationEntity;
+import org.springframework.stereotype.Service;
+
+/**
+ * Interfaz del servicio que cancela en los proveedores las reservas
+ * que no pudieron completarse y registra cada cancelación.
+ */
+@Service
+public interface CompensationService {
+
+  /**
+   * Cancela una orden de vuelo en Amadeus.
+   *
+   * @param flightOrderId ID de la orden en Amadeus
+   * @param bookingType tipo de reserva que originó la compensación
+   * @param reason motivo de la compensación
+   * @return true si la cancelación fue exitosa
+   */
+  boolean compensateFlight(String flightOrderId, BookingEntity.BookingType bookingType,
+                           String reason);
+
+  /**
+   * Cancela una reserva de hotel en HotelBeds.
+   *
+   * @param hotelBedsReference referencia de la reserva en HotelBeds
+   * @param bookingType tipo de reserva que originó la compensación
+   * @param reason motivo de la compensación
+   * @return true si la cancelación fue exitosa
+   */
+  boolean compensateHotel(String hotelBedsReference, BookingEntity.BookingType bookingType,
+                          String reason);
+
+  /**
+   * Registra para revisión manual una orden de vuelo que Amadeus aceptó pero cuya
+   * respuesta no se pudo leer, por lo que no se conoce su ID para cancelarla.
+   *
+   * @param rawResponse respuesta original de Amadeus, o null si no llegó a leerse
+   * @param bookingType tipo de reserva que originó la orden
+   * @param reason motivo por el que no se pudo confirmar
+   */
+  void recordUnconfirmedFlight(String rawResponse, BookingEntity.BookingType bookingType,
+                               String reason);
+
+  /**
+   * Registra para revisión manual una reserva que no respondió a tiempo. El proveedor
+   * puede haberla confirmado igual, así que se guarda la solicitud enviada para ubicarla.
+   *
+   * @param provider proveedor al que se pidió la reserva
+   * @param request datos enviados al proveedor
+   * @param bookingType tipo de reserva que originó la solicitud
+   * @param reason motivo por el que no se pudo confirmar
+   */
+  void recordTimedOutReservation(CompensationEntity.Provider provider, Object request,
+                                 BookingEntity.BookingType bookingType, String reason);
+}
@@ -7,6 +7,8 @@ import masera.deviajebookingsandpayments.dtos.payments.PricesDto;
 import masera.deviajebookingsandpayments.dtos.responses.BookingReferenceResponse;
 import masera.deviajebookingsandpayments.dtos.responses.BookingResponseDto;
 import masera.deviajebookingsandpayments.dtos.responses.FlightBookingDetailsDto;
+import masera.deviajebookingsandpayments.dtos.upstream.AmadeusFlightOrderResponse;
+import masera.deviajebookingsandpayments.dtos.upstream.AmadeusFlightPriceResponse;
 import masera.deviajebookingsandpayments.entities.BookingEntity;
 import masera.deviajebookingsandpayments.entities.FlightBookingEntity;
 import org.springframework.stereotype.Service;
@@ -42,7 +44,7 @@ public interface FlightBookingService {
    * @param flightOfferData Datos de la oferta a verificar
    * @return información actualizada de la oferta
    */
-  Object verifyFlightOfferPrice(Object flightOfferData);
+  AmadeusFlightPriceResponse verifyFlightOfferPrice(Object flightOfferData);
 
   // =============== MÉTODOS PÚBLICOS PARA REUTILIZACIÓN ===============
 
@@ -60,7 +62,7 @@ public interface FlightBookingService {
    * @param amadeusResponse respuesta de Amadeus
    * @return ID externo o temporal
    */
-  String extractExternalId(Object amadeusResponse);
+  String extractExternalId(AmadeusFlightOrderResponse amadeusResponse);
 
 
   /**
@@ -85,12 +87,14 @@ public interface FlightBookingService {
    * @param flightOffer datos de la oferta de vuelo
    * @param prices datos de precios
    * @param externalId ID externo de la reserva en Amadeus
+   * @param bookingReference referencia asignada antes de abrir la transacción
    * @return la reserva guardada
    */
   BookingEntity saveBookingInDatabase(CreateFlightBookingRequestDto request,
                                       FlightOfferDto flightOffer,
                                       PricesDto prices,
-                                      String externalId);
+                                      String externalId,
+                                      String bookingReference);
 
   /**
    * Metodo que crea la reserva en amadeus.
@@ -98,7 +102,7 @@ public interface FlightBookingService {
    * @param amadeusBookingData petición de la reserva
    * @return la reserva ya creada
    */
-  Object callAmadeusCreateOrder(Object amadeusBookingData);
+  AmadeusFlightOrderResponse callAmadeusCreateOrder(Object amadeusBookingData);
 
   /**
    * Extrae la fecha de salida del primer segmento.
@@ -8,6 +8,8 @@ import masera.deviajebookingsandpayments.dtos.payments.PaymentRequestDto;
 import masera.deviajebookingsandpayments.dtos.payments.PricesDto;
 import masera.deviajebookingsandpayments.dtos.responses.BookingReferenceResponse;
 import masera.deviajebookingsandpayments.dtos.responses.HotelBookingDetailsDto;
+import masera.deviajebookingsandpayments.dtos.upstream.HotelBedsBookingDetailsResponse;
+import masera.deviajebookingsandpayments.dtos.upstream.HotelBedsCheckRateResponse;
 import masera.deviajebookingsandpayments.entities.BookingEntity;
 import masera.deviajebookingsandpayments.entities.HotelBookingEntity;
 import org.springframework.stereotype.Service;
@@ -43,7 +45,7 @@ public interface HotelBookingService {
    * @param bookingId ID de la reserva
    * @return detalles completos desde la API externa
    */
-  Object getFullBookingDetails(Long bookingId);
+  HotelBedsBookingDetailsResponse getFullBookingDetails(Long bookingId);
 
   /**
    * Verifica disponibilidad y precio de una tarifa.
@@ -51,7 +53,7 @@ public interface HotelBookingService {
    * @param rateKey clave de la tarifa
    * @return información actualizada de la tarifa
    */
-  Object checkRates(String rateKey);
+  HotelBedsCheckRateResponse checkRates(String rateKey);
 
   /**
    * Metodo que prepara la request para hotelbeds.
@@ -92,12 +94,14 @@ public interface HotelBookingService {
    * @param payment detalles del pago
    * @param externalId referencia de hotelbeds
    * @param hotelDetails detalles de la reserva
+   * @param bookingReference referencia asignada antes de abrir la transacción
    * @return la entidad guardada
    */
   BookingEntity saveBookingInDatabase(CreateHotelBookingRequestDto request,
                                       PricesDto payment,
                                       String externalId,
-                                      HotelBookingApi hotelDetails);
+                                      HotelBookingApi hotelDetails,
+                                      String bookingReference);
 
   /**
    * Metodo que cuenta la cantidad de adultos.
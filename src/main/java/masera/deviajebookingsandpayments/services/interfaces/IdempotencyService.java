@@ -0,0 +1,40 @@
+package masera.deviajebookingsandpayments.services.interfaces;
+
+import java.util.function.Supplier;
+import org.springframework.stereotype.Service;
+
+/**
+ * Interfaz del servicio de solicitudes idempotentes (cabecera Idempotency-Key).
+ */
+@Service
+public interface IdempotencyService {
+
+  /**
+   * Ejecuta la operación una sola vez por clave. Los duplicados concurrentes
+   * esperan el resultado de la primera y los reintentos posteriores reciben
+   * la respuesta guardada. Sin clave, la operación se ejecuta normalmente.
+   *
+   * @param idempotencyKey clave enviada por el cliente (puede ser null)
+   * @param scope endpoint al que pertenece la clave
+   * @param request cuerpo de la solicitud, para detectar claves reutilizadas
+   * @param responseType tipo de la respuesta
+   * @param operation operación a ejecutar
+   * @param <T> tipo de la respuesta
+   * @return la respuesta de la operación
+   */
+  <T> T execute(String idempotencyKey, String scope, Object request,
+                Class<T> responseType, Supplier<T> operation);
+
+  /**
+   * Indica que la operación en curso en este hilo está por contactar al proveedor
+   * (reserva o pago). Desde ese punto un error ya no libera la clave: se guarda como
+   * respuesta final, porque reintentar podría duplicar la reserva o el cobro.
+   * Sin una operación idempotente en curso no hace nada.
+   */
+  void markSideEffect();
+
+  /**
+   * Elimina las claves vencidas.
+   */
+  void purgeExpiredKeys();
+}
@@ -0,0 +1,27 @@
+package masera.deviajebookingsandpayments.services.interfaces;
+
+import java.math.BigDecimal;
+import org.springframework.stereotype.Service;
+
+/**
+ * Interfaz del outbox de efectos secundarios. Los eventos se guardan en la
+ * transacción actual y se procesan después del commit.
+ */
+@Service
+public interface OutboxService {
+
+  /**
+   * Registra la generación y el envío del voucher de una reserva.
+   *
+   * @param bookingId ID de la reserva
+   */
+  void enqueueVoucher(Long bookingId);
+
+  /**
+   * Registra el envío del email de cancelación de una reserva.
+   *
+   * @param bookingId ID de la reserva
+   * @param refundAmount monto reembolsado
+   */
+  void enqueueCancellationEmail(Long bookingId, BigDecimal refundAmount);
+}
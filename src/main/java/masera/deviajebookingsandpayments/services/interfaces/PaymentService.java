@@ -1,6 +1,7 @@
 package masera.deviajebookingsandpayments.services.interfaces;
 
 import java.math.BigDecimal;
+import java.util.Optional;
 import masera.deviajebookingsandpayments.dtos.payments.PaymentRequestDto;
 import masera.deviajebookingsandpayments.dtos.responses.PaymentResponseDto;
 import org.springframework.stereotype.Service;
@@ -58,4 +59,13 @@ public interface PaymentService {
    * @return true si tiene al menos un refund aprobado, false caso contrario
    */
   boolean hasApprovedRefund(String externalPaymentId);
-}
\ No newline at end of file
+
+  /**
+   * Busca en MercadoPago un pago aprobado de la reserva y lo registra si no existe.
+   * Se usa para recuperar reservas interrumpidas durante el pago.
+   *
+   * @param bookingId ID de la reserva (referencia externa del pago)
+   * @return el pago aprobado, si existe
+   */
+  Optional<PaymentResponseDto> recoverBookingPayment(Long bookingId);
+}
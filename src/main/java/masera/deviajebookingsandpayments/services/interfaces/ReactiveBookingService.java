@@ -0,0 +1,57 @@
+package masera.deviajebookingsandpayments.services.interfaces;
+
+import masera.deviajebookingsandpayments.dtos.responses.BookingDetailsResponseDto;
+import masera.deviajebookingsandpayments.dtos.responses.BookingResponseDto;
+import masera.deviajebookingsandpayments.dtos.responses.PaymentResponseDto;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Interfaz para las lecturas no bloqueantes de reservas y pagos.
+ */
+@Service
+public interface ReactiveBookingService {
+
+  /**
+   * Emite las reservas del cliente a medida que se enriquecen.
+   *
+   * @param clientId id del cliente
+   * @param email email del cliente
+   * @param holderName nombre del cliente
+   * @return flujo de reservas
+   */
+  Flux<BookingResponseDto> getClientBookings(Integer clientId,
+                                             String email,
+                                             String holderName);
+
+  /**
+   * Emite las reservas del agente a medida que se enriquecen.
+   *
+   * @param agentId id del agente
+   * @param clientId id del cliente
+   * @param email email del cliente
+   * @param holderName nombre del cliente
+   * @return flujo de reservas
+   */
+  Flux<BookingResponseDto> getAgentBookings(Integer agentId,
+                                            Integer clientId,
+                                            String email,
+                                            String holderName);
+
+  /**
+   * Obtiene los detalles completos de una reserva por su bookingReference.
+   *
+   * @param bookingReference referencia de la reserva
+   * @return la reserva con detalles completos
+   */
+  Mono<BookingDetailsResponseDto> getBookingDetailsByReference(String bookingReference);
+
+  /**
+   * Verifica el estado de un pago por su ID interno.
+   *
+   * @param paymentId id del pago
+   * @return estado actualizado del pago
+   */
+  Mono<PaymentResponseDto> checkPaymentStatus(Long paymentId);
+}
@@ -0,0 +1,39 @@
+package masera.deviajebookingsandpayments.services.interfaces;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import masera.deviajebookingsandpayments.dtos.vouchers.VoucherContentDto;
+import org.springframework.stereotype.Service;
+
+/**
+ * Dibuja el PDF de un voucher a partir de su contenido.
+ * La implementación se elige por despliegue con deviaje.voucher.renderer:
+ * html (plantillas HTML convertidas con html2pdf, por defecto) o layout (API de
+ * layout de iText, sin HTML ni CSS).
+ */
+@Service
+public interface VoucherPdfRenderer {
+
+  /**
+   * Escribe el PDF de un voucher en el stream a medida que se genera. No accede a la
+   * base de datos. iText cierra el stream al terminar el documento.
+   *
+   * @param content contenido del voucher
+   * @param outputStream destino del PDF
+   * @throws Exception si ocurre un error al generar el PDF
+   */
+  void render(VoucherContentDto content, OutputStream outputStream) throws Exception;
+
+  /**
+   * Genera el PDF de un voucher en memoria.
+   *
+   * @param content contenido del voucher
+   * @return PDF generado en bytes
+   * @throws Exception si ocurre un error al generar el PDF
+   */
+  default byte[] render(VoucherContentDto content) throws Exception {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream(16 * 1024);
+    render(content, outputStream);
+    return outputStream.toByteArray();
+  }
+}
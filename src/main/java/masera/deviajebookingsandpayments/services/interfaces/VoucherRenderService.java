@@ -0,0 +1,41 @@
+package masera.deviajebookingsandpayments.services.interfaces;
+
+import masera.deviajebookingsandpayments.dtos.vouchers.VoucherContentDto;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Servicio que obtiene el voucher de una reserva, generándolo y guardándolo si hace falta.
+ * Los PDF se generan en un pool acotado y hay una sola generación en curso por reserva,
+ * compartida por todos los que la piden (descargas, outbox y reenvíos).
+ */
+@Service
+public interface VoucherRenderService {
+
+  /**
+   * Genera el voucher a partir del contenido ya armado y lo guarda. No necesita una
+   * sesión abierta, así que se llama fuera de cualquier transacción.
+   *
+   * @param bookingId ID de la reserva
+   * @param content contenido del voucher
+   * @param replace si reemplaza el voucher guardado; si no, se guarda solo si falta
+   * @return PDF del voucher
+   * @throws Exception si falla la generación o el pool de generación está lleno
+   */
+  byte[] renderVoucher(Long bookingId, VoucherContentDto content, boolean replace)
+          throws Exception;
+
+  /**
+   * Prepara la descarga de un voucher. Si la reserva ya tiene voucher se escribe el
+   * guardado. Si no, el contenido se arma ahora, con la sesión abierta, y el PDF se
+   * genera en el pool y se guarda; la respuesta escribe cada parte apenas se genera,
+   * desde su propio hilo, sin que la generación espere al cliente. Si el cliente corta
+   * la descarga, la generación y el guardado siguen igual.
+   *
+   * @param booking entidad de reserva
+   * @return cuerpo de la respuesta que escribe el PDF
+   * @throws Exception si faltan los detalles de la reserva o el pool está lleno
+   */
+  StreamingResponseBody streamVoucher(BookingEntity booking) throws Exception;
+}
@@ -1,5 +1,7 @@
 package masera.deviajebookingsandpayments.services.interfaces;
 
+import java.io.OutputStream;
+import masera.deviajebookingsandpayments.dtos.vouchers.VoucherContentDto;
 import masera.deviajebookingsandpayments.entities.BookingEntity;
 import org.springframework.stereotype.Service;
 
@@ -44,4 +46,33 @@ public interface VoucherService {
    * @throws Exception si ocurre un error al generar el PDF
    */
   byte[] generatePackageVoucher(BookingEntity booking) throws Exception;
-}
\ No newline at end of file
+
+  /**
+   * Arma el contenido del voucher según el tipo de reserva, sin generar el PDF.
+   * Lee las relaciones de la reserva, por lo que debe llamarse con la sesión abierta.
+   *
+   * @param booking entidad de reserva
+   * @return contenido del voucher
+   * @throws Exception si faltan los detalles de la reserva
+   */
+  VoucherContentDto buildVoucherContent(BookingEntity booking) throws Exception;
+
+  /**
+   * Genera el PDF de un voucher con el renderer configurado. No accede a la base de datos.
+   *
+   * @param content contenido del voucher
+   * @return PDF generado en bytes
+   * @throws Exception si ocurre un error al generar el PDF
+   */
+  byte[] renderPdf(VoucherContentDto content) throws Exception;
+
+  /**
+   * Escribe el PDF de un voucher en el stream a medida que se genera, sin armarlo
+   * entero en memoria. No accede a la base de datos ni cierra el stream.
+   *
+   * @param content contenido del voucher
+   * @param outputStream destino del PDF
+   * @throws Exception si ocurre un error al generar el PDF
+   */
+  void renderPdf(VoucherContentDto content, OutputStream outputStream) throws Exception;
+}
@@ -0,0 +1,292 @@
+package masera.deviajebookingsandpayments.utils;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import masera.deviajebookingsandpayments.exceptions.UpstreamResponseTooLargeException;
+import masera.deviajebookingsandpayments.exceptions.UpstreamUnavailableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Límite de concurrencia adaptativo por proveedor para los WebClient de proveedores.
+ * Cada WebClient usa el filtro de su proveedor, de modo que dos proveedores en el
+ * mismo host (como amadeus y amadeus-auth) tienen límites independientes.
+ * El límite se ajusta con el gradiente entre la latencia de largo plazo y la de cada
+ * respuesta (estilo Gradient2): si la latencia sube respecto de la habitual, el
+ * proveedor está encolando y el límite baja; si se mantiene, el límite crece de a
+ * poco. Los 5xx, 429 y errores de conexión reducen el límite. Las solicitudes que
+ * superan el límite esperan brevemente un lugar y luego se rechazan.
+ */
+@Component
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+  private static final Duration POLL_INTERVAL = Duration.ofMillis(5);
+
+  private static final double BACKOFF_RATIO = 0.9;
+
+  private static final double LONG_RTT_ALPHA = 2.0 / (600 + 1);
+
+  private static final OverLimit OVER_LIMIT = new OverLimit();
+
+  private final MeterRegistry meterRegistry;
+
+  private final boolean enabled;
+
+  private final int initialLimit;
+
+  private final int minLimit;
+
+  private final int maxLimit;
+
+  private final long maxPolls;
+
+  private final double rttTolerance;
+
+  private final double smoothing;
+
+  private final Map<String, UpstreamLimit> limits = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor del limitador.
+   *
+   * @param meterRegistry registro de métricas
+   * @param enabled si se aplica el límite
+   * @param initialLimit límite inicial de cada proveedor
+   * @param minLimit límite mínimo
+   * @param maxLimit límite máximo
+   * @param maxWaitMs espera máxima por un lugar antes de rechazar
+   * @param rttTolerance aumento de latencia tolerado antes de reducir el límite
+   * @param smoothing peso de cada nuevo cálculo sobre el límite actual
+   */
+  public AdaptiveConcurrencyLimiter(
+          MeterRegistry meterRegistry,
+          @Value("${deviaje.adaptive-limit.enabled:true}") boolean enabled,
+          @Value("${deviaje.adaptive-limit.initial-limit:20}") int initialLimit,
+          @Value("${deviaje.adaptive-limit.min-limit:2}") int minLimit,
+          @Value("${deviaje.adaptive-limit.max-limit:200}") int maxLimit,
+          @Value("${deviaje.adaptive-limit.max-wait-ms:200}") long maxWaitMs,
+          @Value("${deviaje.adaptive-limit.rtt-tolerance:1.5}") double rttTolerance,
+          @Value("${deviaje.adaptive-limit.smoothing:0.2}") double smoothing) {
+    this.meterRegistry = meterRegistry;
+    this.enabled = enabled;
+    this.initialLimit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.maxPolls = Math.max(1, Duration.ofMillis(maxWaitMs).dividedBy(POLL_INTERVAL));
+    this.rttTolerance = rttTolerance;
+    this.smoothing = smoothing;
+  }
+
+  /**
+   * Obtiene el filtro con el límite de un proveedor.
+   *
+   * @param upstream nombre del proveedor
+   * @return filtro para el WebClient del proveedor
+   */
+  public ExchangeFilterFunction forUpstream(String upstream) {
+    return (request, next) -> filter(upstream, request, next);
+  }
+
+  private Mono<ClientResponse> filter(String upstream, ClientRequest request,
+                                      ExchangeFunction next) {
+    if (!enabled) {
+      return next.exchange(request);
+    }
+    UpstreamLimit limit = limits.computeIfAbsent(upstream, this::newLimit);
+
+    return Mono.fromCallable(limit::tryAcquire)
+            .retryWhen(Retry.fixedDelay(maxPolls, POLL_INTERVAL)
+                    .filter(OverLimit.class::isInstance)
+                    .onRetryExhaustedThrow((spec, signal) -> new UpstreamUnavailableException(
+                            upstream, "Límite de concurrencia alcanzado para " + upstream)))
+            .flatMap(permit -> next.exchange(request)
+                    .map(response -> tracked(response, permit))
+                    .doOnError(permit::failed)
+                    .doFinally(signal -> permit.releaseIfNotHandedOff()));
+  }
+
+  /**
+   * Pasa el lugar al cuerpo de la respuesta: la latencia se mide y el lugar se libera
+   * cuando el cuerpo termina de leerse, no al recibir los encabezados. Los 5xx y 429
+   * reducen el límite apenas llegan los encabezados.
+   */
+  private ClientResponse tracked(ClientResponse response, Permit permit) {
+    HttpStatusCode status = response.statusCode();
+    if (status.is5xxServerError() || status.value() == 429) {
+      permit.dropped();
+    }
+    permit.handOff();
+    return response.mutate()
+            .body(body -> body
+                    .doOnComplete(permit::completed)
+                    .doOnError(permit::failed)
+                    .doFinally(signal -> permit.release()))
+            .build();
+  }
+
+  private UpstreamLimit newLimit(String upstream) {
+    UpstreamLimit limit = new UpstreamLimit(upstream);
+    Gauge.builder("deviaje.upstream.concurrency.limit", limit, UpstreamLimit::currentLimit)
+            .description("Límite de concurrencia adaptativo por proveedor")
+            .tag("upstream", upstream)
+            .register(meterRegistry);
+    Gauge.builder("deviaje.upstream.concurrency.inflight", limit.inflight, AtomicInteger::get)
+            .description("Solicitudes en curso por proveedor")
+            .tag("upstream", upstream)
+            .register(meterRegistry);
+    return limit;
+  }
+
+  /**
+   * Estado del límite de un proveedor.
+   */
+  private final class UpstreamLimit {
+
+    private final String upstream;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private volatile double limit = initialLimit;
+
+    private double longRtt;
+
+    private UpstreamLimit(String upstream) {
+      this.upstream = upstream;
+    }
+
+    private double currentLimit() {
+      return Math.floor(limit);
+    }
+
+    private Permit tryAcquire() {
+      while (true) {
+        int current = inflight.get();
+        if (current >= (int) limit) {
+          throw OVER_LIMIT;
+        }
+        if (inflight.compareAndSet(current, current + 1)) {
+          return new Permit(this, current + 1, System.nanoTime());
+        }
+      }
+    }
+
+    private synchronized void onSample(long rttNanos, int inflightAtStart) {
+      double rtt = rttNanos;
+      longRtt = longRtt == 0 ? rtt : longRtt * (1 - LONG_RTT_ALPHA) + rtt * LONG_RTT_ALPHA;
+
+      // Si la latencia bajó mucho, la de largo plazo se acerca rápido a la nueva
+      if (longRtt / rtt > 2) {
+        longRtt *= 0.95;
+      }
+
+      // Con poca carga la latencia no dice nada sobre la capacidad del proveedor
+      if (inflightAtStart * 2 < limit) {
+        return;
+      }
+
+      double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRtt / rtt));
+      double newLimit = limit * gradient + Math.sqrt(limit);
+      update(limit * (1 - smoothing) + newLimit * smoothing);
+    }
+
+    private synchronized void onDrop() {
+      update(limit * BACKOFF_RATIO);
+    }
+
+    private void update(double newLimit) {
+      double previous = limit;
+      limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+      if ((int) previous != (int) limit) {
+        log.debug("Límite de concurrencia de {}: {} -> {}", upstream, (int) previous, (int) limit);
+      }
+    }
+  }
+
+  /**
+   * Lugar tomado por una solicitud. Registra una sola muestra y se libera una sola vez,
+   * al fallar la solicitud o al terminar el cuerpo de la respuesta.
+   */
+  private static final class Permit {
+
+    private final UpstreamLimit limit;
+
+    private final int inflightAtStart;
+
+    private final long startedAt;
+
+    private final AtomicBoolean sampled = new AtomicBoolean();
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private volatile boolean handedOff;
+
+    private Permit(UpstreamLimit limit, int inflightAtStart, long startedAt) {
+      this.limit = limit;
+      this.inflightAtStart = inflightAtStart;
+      this.startedAt = startedAt;
+    }
+
+    private void completed() {
+      if (sampled.compareAndSet(false, true)) {
+        limit.onSample(System.nanoTime() - startedAt, inflightAtStart);
+      }
+    }
+
+    private void dropped() {
+      if (sampled.compareAndSet(false, true)) {
+        limit.onDrop();
+      }
+    }
+
+    /**
+     * Una respuesta que supera el tamaño máximo no indica saturación del proveedor.
+     */
+    private void failed(Throwable error) {
+      if (error instanceof UpstreamResponseTooLargeException) {
+        sampled.set(true);
+      } else {
+        dropped();
+      }
+    }
+
+    private void handOff() {
+      handedOff = true;
+    }
+
+    private void releaseIfNotHandedOff() {
+      if (!handedOff) {
+        release();
+      }
+    }
+
+    private void release() {
+      if (released.compareAndSet(false, true)) {
+        limit.inflight.decrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Señal interna para reintentar la toma de lugar.
+   */
+  private static final class OverLimit extends RuntimeException {
+
+    private OverLimit() {
+      super("Límite de concurrencia alcanzado", null, false, false);
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package masera.deviajebookingsandpayments.utils;
+
+import com.itextpdf.html2pdf.ConverterProperties;
+import com.itextpdf.html2pdf.HtmlConverter;
+import com.itextpdf.html2pdf.resolver.font.DefaultFontProvider;
+import com.itextpdf.layout.font.FontProvider;
+import com.itextpdf.layout.font.FontSet;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Conversión de HTML a PDF con iText.
+ * El descubrimiento de fuentes se hace una sola vez al iniciar: el FontSet resultante
+ * se comparte entre todas las conversiones, y cada conversión usa un FontProvider
+ * propio sobre ese FontSet, porque el FontProvider guarda las fuentes del documento
+ * que está generando y no puede usarse desde dos hilos a la vez. Al terminar el
+ * arranque se convierten unos documentos de prueba para que la primera descarga no
+ * pague la carga de clases, hojas de estilo y fuentes. Solo se crea con el renderer
+ * de vouchers html.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "deviaje.voucher.renderer", havingValue = "html",
+        matchIfMissing = true)
+public class HtmlPdfConverter {
+
+  private static final String WARM_UP_HTML = "<!DOCTYPE html><html><head>"
+          + "<meta charset='UTF-8'/>"
+          + "<style>body { font-family: Arial, sans-serif; } "
+          + ".row { display: flex; justify-content: space-between; }</style>"
+          + "</head><body>"
+          + "<h1>DeViaje</h1><p><strong>Reservado por:</strong> Niños → Régimen ©</p>"
+          + "<div class='row'><span>Total:</span><span>ARS 1000.00</span></div>"
+          + "<table><tr><th>Salida</th></tr><tr><td>EZE<br>01/01/2025 10:00</td></tr></table>"
+          + "</body></html>";
+
+  private final FontSet fontSet;
+
+  private final String defaultFontFamily;
+
+  private final ConverterProperties baseProperties;
+
+  private final int warmUpDocuments;
+
+  private final VoucherPdfOutput voucherPdfOutput;
+
+  /**
+   * Constructor del conversor. Registra las fuentes estándar de PDF y las que trae
+   * html2pdf, las mismas que usa HtmlConverter por defecto, sin recorrer las del sistema.
+   *
+   * @param voucherPdfOutput configuración de salida de los PDF
+   * @param warmUpDocuments documentos de prueba a convertir al iniciar
+   */
+  public HtmlPdfConverter(VoucherPdfOutput voucherPdfOutput,
+                          @Value("${deviaje.voucher.pdf.warm-up-documents:3}")
+                          int warmUpDocuments) {
+    long start = System.nanoTime();
+    FontProvider fonts = new DefaultFontProvider(true, true, false);
+    this.fontSet = fonts.getFontSet();
+    this.defaultFontFamily = fonts.getDefaultFontFamily();
+    this.baseProperties = new ConverterProperties();
+    this.warmUpDocuments = warmUpDocuments;
+    this.voucherPdfOutput = voucherPdfOutput;
+    log.info("Fuentes para vouchers registradas: {} en {} ms", fontSet.size(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+  }
+
+  /**
+   * Convierte un documento HTML a PDF, escribiéndolo en el stream a medida que se
+   * genera. Al terminar el documento iText cierra el stream.
+   *
+   * @param html documento HTML
+   * @param outputStream destino del PDF
+   * @throws IOException si no se puede generar el PDF
+   */
+  public void convert(String html, OutputStream outputStream) throws IOException {
+    ConverterProperties properties = new ConverterProperties(baseProperties)
+            .setFontProvider(new FontProvider(fontSet, defaultFontFamily));
+    HtmlConverter.convertToPdf(html, voucherPdfOutput.newWriter(outputStream), properties);
+  }
+
+  /**
+   * Convierte los documentos de prueba al terminar el arranque.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+    if (warmUpDocuments <= 0) {
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      for (int i = 0; i < warmUpDocuments; i++) {
+        convert(WARM_UP_HTML, OutputStream.nullOutputStream());
+      }
+      log.info("Conversión HTML a PDF precalentada con {} documentos en {} ms",
+              warmUpDocuments, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    } catch (Exception e) {
+      log.warn("No se pudo precalentar la conversión HTML a PDF: {}", e.getMessage());
+    }
+  }
+}
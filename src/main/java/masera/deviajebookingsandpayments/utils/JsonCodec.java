@@ -0,0 +1,157 @@
+package masera.deviajebookingsandpayments.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import masera.deviajebookingsandpayments.dtos.bookings.flights.ItineraryDto;
+import masera.deviajebookingsandpayments.dtos.bookings.hotels.HotelBookingApi;
+import masera.deviajebookingsandpayments.dtos.bookings.travelers.TravelerDto;
+import masera.deviajebookingsandpayments.dtos.payments.MercadoPagoNotificationDto;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lectura y escritura de las columnas JSON de las entidades y del webhook de MercadoPago.
+ * Los ObjectReader y ObjectWriter de cada tipo guardado se arman una sola vez a partir
+ * del ObjectMapper de la aplicación, en lugar de resolver el tipo (o crear un mapper
+ * nuevo) en cada llamada. Para los tipos que se conocen recién al leer, como las
+ * respuestas idempotentes, el reader se arma la primera vez y se reutiliza.
+ */
+@Component
+public class JsonCodec {
+
+  private final ObjectWriter writer;
+
+  private final ObjectWriter sortedWriter;
+
+  private final ObjectReader itinerariesReader;
+
+  private final ObjectReader travelersReader;
+
+  private final ObjectReader hotelBookingReader;
+
+  private final ObjectReader cancellationPoliciesReader;
+
+  private final ObjectReader notificationReader;
+
+  private final ObjectMapper objectMapper;
+
+  private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor del codec.
+   *
+   * @param objectMapper ObjectMapper de la aplicación
+   */
+  public JsonCodec(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+    this.writer = objectMapper.writer();
+    this.sortedWriter = objectMapper.writer(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    this.itinerariesReader = objectMapper.readerFor(new TypeReference<List<ItineraryDto>>() {});
+    this.travelersReader = objectMapper.readerFor(new TypeReference<List<TravelerDto>>() {});
+    this.hotelBookingReader = objectMapper.readerFor(HotelBookingApi.class);
+    this.cancellationPoliciesReader = objectMapper.readerFor(
+            new TypeReference<List<HotelBookingApi.CancellationPolicy>>() {});
+    this.notificationReader = objectMapper.readerFor(MercadoPagoNotificationDto.class)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+  }
+
+  /**
+   * Serializa un valor con el ObjectMapper de la aplicación.
+   *
+   * @param value valor a serializar
+   * @return el JSON
+   * @throws JsonProcessingException si el valor no se puede serializar
+   */
+  public String write(Object value) throws JsonProcessingException {
+    return writer.writeValueAsString(value);
+  }
+
+  /**
+   * Serializa un valor con las claves de los mapas ordenadas, para que el mismo
+   * contenido produzca siempre el mismo JSON (claves de caché, hashes).
+   *
+   * @param value valor a serializar
+   * @return el JSON con claves ordenadas
+   * @throws JsonProcessingException si el valor no se puede serializar
+   */
+  public String writeSorted(Object value) throws JsonProcessingException {
+    return sortedWriter.writeValueAsString(value);
+  }
+
+  /**
+   * Lee un JSON guardado de un tipo que se conoce recién al leer.
+   *
+   * @param json JSON guardado
+   * @param type tipo del valor
+   * @param <T> tipo del valor
+   * @return el valor leído
+   * @throws JsonProcessingException si el JSON no corresponde al tipo
+   */
+  public <T> T read(String json, Class<T> type) throws JsonProcessingException {
+    return readers.computeIfAbsent(type, objectMapper::readerFor).readValue(json);
+  }
+
+  /**
+   * Lee la columna itineraries de flights_bookings.
+   *
+   * @param json JSON guardado
+   * @return los itinerarios
+   * @throws JsonProcessingException si el JSON no es válido
+   */
+  public List<ItineraryDto> readItineraries(String json) throws JsonProcessingException {
+    return itinerariesReader.readValue(json);
+  }
+
+  /**
+   * Lee la columna travelers de flights_bookings.
+   *
+   * @param json JSON guardado
+   * @return los pasajeros
+   * @throws JsonProcessingException si el JSON no es válido
+   */
+  public List<TravelerDto> readTravelers(String json) throws JsonProcessingException {
+    return travelersReader.readValue(json);
+  }
+
+  /**
+   * Lee la columna hotel_booking de hotels_bookings.
+   *
+   * @param json JSON guardado
+   * @return la reserva de HotelBeds
+   * @throws JsonProcessingException si el JSON no es válido
+   */
+  public HotelBookingApi readHotelBooking(String json) throws JsonProcessingException {
+    return hotelBookingReader.readValue(json);
+  }
+
+  /**
+   * Lee la columna cancellation_policies de hotels_bookings.
+   *
+   * @param json JSON guardado
+   * @return las políticas de cancelación
+   * @throws JsonProcessingException si el JSON no es válido
+   */
+  public List<HotelBookingApi.CancellationPolicy> readCancellationPolicies(String json)
+          throws JsonProcessingException {
+    return cancellationPoliciesReader.readValue(json);
+  }
+
+  /**
+   * Lee una notificación de MercadoPago. Los campos que no se usan se ignoran.
+   *
+   * @param body cuerpo de la notificación
+   * @return la notificación
+   * @throws IOException si el cuerpo no es JSON válido
+   */
+  public MercadoPagoNotificationDto readNotification(byte[] body) throws IOException {
+    return notificationReader.readValue(body);
+  }
+}
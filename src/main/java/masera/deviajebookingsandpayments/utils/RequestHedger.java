@@ -0,0 +1,203 @@
+package masera.deviajebookingsandpayments.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Envía un segundo intento de una consulta idempotente cuando el primero tarda más
+ * que el p95 reciente del endpoint, y usa la primera respuesta que llegue.
+ * Los segundos intentos se limitan a un porcentaje del tráfico de cada endpoint para
+ * que la carga sobre el proveedor no se multiplique cuando está lento en general.
+ * Solo debe usarse con llamadas sin efectos secundarios.
+ */
+@Component
+@Slf4j
+public class RequestHedger {
+
+  private static final long TOKEN_SCALE = 1000;
+
+  private static final long REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final MeterRegistry meterRegistry;
+
+  private final boolean enabled;
+
+  private final long tokensPerRequest;
+
+  private final long maxTokens;
+
+  private final long minSamples;
+
+  private final Duration minDelay;
+
+  private final Map<String, EndpointState> endpoints = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor del hedger.
+   *
+   * @param meterRegistry registro de métricas
+   * @param enabled si se envían segundos intentos
+   * @param budgetPercent porcentaje máximo de solicitudes con segundo intento
+   * @param maxBurst segundos intentos acumulables cuando el tráfico es bajo
+   * @param minSamples respuestas necesarias antes de usar el p95 del endpoint
+   * @param minDelayMs espera mínima antes del segundo intento
+   */
+  public RequestHedger(MeterRegistry meterRegistry,
+                       @Value("${deviaje.hedging.enabled:false}") boolean enabled,
+                       @Value("${deviaje.hedging.budget-percent:5}") double budgetPercent,
+                       @Value("${deviaje.hedging.max-burst:10}") int maxBurst,
+                       @Value("${deviaje.hedging.min-samples:20}") long minSamples,
+                       @Value("${deviaje.hedging.min-delay-ms:50}") long minDelayMs) {
+    this.meterRegistry = meterRegistry;
+    this.enabled = enabled;
+    this.tokensPerRequest = Math.round(budgetPercent / 100 * TOKEN_SCALE);
+    this.maxTokens = maxBurst * TOKEN_SCALE;
+    this.minSamples = minSamples;
+    this.minDelay = Duration.ofMillis(minDelayMs);
+  }
+
+  /**
+   * Ejecuta la consulta, con un segundo intento si el primero se demora.
+   * Gana la primera señal: un error del primer intento se propaga sin esperar,
+   * y un error del segundo intento se descarta.
+   *
+   * @param endpoint nombre del endpoint, usado para la latencia y las métricas
+   * @param attempt crea un nuevo intento de la consulta
+   * @param <T> tipo de la respuesta
+   * @return la primera respuesta recibida
+   */
+  public <T> Mono<T> hedge(String endpoint, Supplier<Mono<T>> attempt) {
+    EndpointState state = endpoints.computeIfAbsent(endpoint, this::newState);
+    Mono<T> primary = timed(state, attempt);
+    if (!enabled) {
+      return primary;
+    }
+
+    state.addTokens();
+    Duration threshold = state.threshold();
+    if (threshold == null) {
+      return primary;
+    }
+
+    Mono<T> hedged = Mono.delay(threshold)
+            .flatMap(tick -> {
+              if (!state.tryAcquire()) {
+                return Mono.<T>never();
+              }
+              log.debug("Sin respuesta de {} tras {} ms. Enviando segundo intento",
+                      endpoint, threshold.toMillis());
+              state.sent.increment();
+              return timed(state, attempt)
+                      .doOnNext(value -> state.won.increment())
+                      .onErrorResume(error -> Mono.never());
+            });
+
+    return Mono.firstWithSignal(primary, hedged);
+  }
+
+  private <T> Mono<T> timed(EndpointState state, Supplier<Mono<T>> attempt) {
+    return Mono.defer(() -> {
+      long start = System.nanoTime();
+      return attempt.get().doOnNext(value ->
+              state.latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    });
+  }
+
+  private EndpointState newState(String endpoint) {
+    Timer latency = Timer.builder("deviaje.upstream.latency")
+            .description("Latencia de las consultas idempotentes a proveedores")
+            .tag("endpoint", endpoint)
+            .publishPercentiles(0.95)
+            .distributionStatisticExpiry(Duration.ofMinutes(2))
+            .register(meterRegistry);
+    return new EndpointState(latency,
+            hedgeCounter(endpoint, "sent"),
+            hedgeCounter(endpoint, "won"));
+  }
+
+  private Counter hedgeCounter(String endpoint, String result) {
+    return Counter.builder("deviaje.upstream.hedge")
+            .description("Segundos intentos enviados y cuántos respondieron primero")
+            .tag("endpoint", endpoint)
+            .tag("result", result)
+            .register(meterRegistry);
+  }
+
+  /**
+   * Latencia, presupuesto y métricas de un endpoint. El presupuesto es un balde de
+   * fichas: cada solicitud suma budgetPercent de ficha y cada segundo intento gasta una.
+   */
+  private final class EndpointState {
+
+    private final Timer latency;
+
+    private final Counter sent;
+
+    private final Counter won;
+
+    private final AtomicLong tokens = new AtomicLong();
+
+    private volatile Duration cachedThreshold;
+
+    private volatile long refreshedAt = System.nanoTime() - REFRESH_NANOS;
+
+    private EndpointState(Timer latency, Counter sent, Counter won) {
+      this.latency = latency;
+      this.sent = sent;
+      this.won = won;
+    }
+
+    private void addTokens() {
+      tokens.getAndUpdate(current -> Math.min(maxTokens, current + tokensPerRequest));
+    }
+
+    private boolean tryAcquire() {
+      long current = tokens.get();
+      while (current >= TOKEN_SCALE) {
+        if (tokens.compareAndSet(current, current - TOKEN_SCALE)) {
+          return true;
+        }
+        current = tokens.get();
+      }
+      return false;
+    }
+
+    /**
+     * p95 reciente del endpoint, recalculado como máximo una vez por segundo.
+     * Devuelve null mientras no haya muestras suficientes.
+     */
+    private Duration threshold() {
+      long now = System.nanoTime();
+      if (now - refreshedAt >= REFRESH_NANOS) {
+        refreshedAt = now;
+        cachedThreshold = computeThreshold();
+      }
+      return cachedThreshold;
+    }
+
+    private Duration computeThreshold() {
+      if (latency.count() < minSamples) {
+        return null;
+      }
+      for (ValueAtPercentile percentile : latency.takeSnapshot().percentileValues()) {
+        if (percentile.percentile() == 0.95) {
+          Duration p95 = Duration.ofNanos((long) percentile.value(TimeUnit.NANOSECONDS));
+          return p95.compareTo(minDelay) > 0 ? p95 : minDelay;
+        }
+      }
+      return null;
+    }
+  }
+}
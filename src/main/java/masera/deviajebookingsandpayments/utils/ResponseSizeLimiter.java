@@ -0,0 +1,127 @@
+package masera.deviajebookingsandpayments.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import masera.deviajebookingsandpayments.exceptions.UpstreamResponseTooLargeException;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Tamaño máximo de respuesta por proveedor para los WebClient. Cada WebClient usa el
+ * filtro de su proveedor.
+ * Si el Content-Length declarado supera el máximo, la respuesta se descarta sin
+ * leerla; si no lo declara, el cuerpo se corta apenas lo supera. Así cada solicitud
+ * en curso ocupa como máximo el tope de su proveedor en memoria.
+ * El máximo se lee de deviaje.response-size.{proveedor}.max-bytes, con el valor por
+ * defecto de deviaje.response-size.default.max-bytes, y el tamaño de las respuestas
+ * se registra en deviaje.upstream.response.size.
+ */
+@Component
+@Slf4j
+public class ResponseSizeLimiter {
+
+  private static final long DEFAULT_MAX_BYTES = 4L * 1024 * 1024;
+
+  private final Environment environment;
+
+  private final MeterRegistry meterRegistry;
+
+  private final Map<String, UpstreamLimit> limits = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor del limitador.
+   *
+   * @param environment entorno con la configuración de cada proveedor
+   * @param meterRegistry registro de métricas
+   */
+  public ResponseSizeLimiter(Environment environment, MeterRegistry meterRegistry) {
+    this.environment = environment;
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Obtiene el filtro con el tope de un proveedor.
+   *
+   * @param upstream nombre del proveedor
+   * @return filtro para el WebClient del proveedor
+   */
+  public ExchangeFilterFunction forUpstream(String upstream) {
+    return (request, next) -> filter(upstream, request, next);
+  }
+
+  private Mono<ClientResponse> filter(String upstream, ClientRequest request,
+                                      ExchangeFunction next) {
+    UpstreamLimit limit = limits.computeIfAbsent(upstream, this::newLimit);
+
+    return next.exchange(request).flatMap(response -> {
+      OptionalLong declared = response.headers().contentLength();
+      if (declared.isPresent() && declared.getAsLong() > limit.maxBytes()) {
+        limit.rejected().increment();
+        log.warn("Respuesta de {} descartada: declara {} bytes y el máximo es {}",
+                upstream, declared.getAsLong(), limit.maxBytes());
+        return response.releaseBody()
+                .then(Mono.error(new UpstreamResponseTooLargeException(upstream,
+                        limit.maxBytes())));
+      }
+      return Mono.just(response.mutate()
+              .body(body -> limited(body, upstream, limit))
+              .build());
+    });
+  }
+
+  private Flux<DataBuffer> limited(Flux<DataBuffer> body, String upstream,
+                                   UpstreamLimit limit) {
+    return Flux.defer(() -> {
+      long[] total = new long[1];
+      return body.<DataBuffer>handle((buffer, sink) -> {
+        total[0] += buffer.readableByteCount();
+        if (total[0] > limit.maxBytes()) {
+          DataBufferUtils.release(buffer);
+          limit.rejected().increment();
+          log.warn("Respuesta de {} cortada al superar el máximo de {} bytes",
+                  upstream, limit.maxBytes());
+          sink.error(new UpstreamResponseTooLargeException(upstream, limit.maxBytes()));
+          return;
+        }
+        sink.next(buffer);
+      }).doOnComplete(() -> limit.sizes().record(total[0]));
+    });
+  }
+
+  private UpstreamLimit newLimit(String upstream) {
+    Long fallback = environment.getProperty(
+            "deviaje.response-size.default.max-bytes", Long.class, DEFAULT_MAX_BYTES);
+    long maxBytes = environment.getProperty(
+            "deviaje.response-size." + upstream + ".max-bytes", Long.class, fallback);
+
+    DistributionSummary sizes = DistributionSummary.builder("deviaje.upstream.response.size")
+            .description("Tamaño de las respuestas de proveedores")
+            .baseUnit("bytes")
+            .tag("upstream", upstream)
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+    Counter rejected = Counter.builder("deviaje.upstream.response.rejected")
+            .description("Respuestas de proveedores descartadas por superar el tamaño máximo")
+            .tag("upstream", upstream)
+            .register(meterRegistry);
+    return new UpstreamLimit(maxBytes, sizes, rejected);
+  }
+
+  /**
+   * Tope y métricas de un proveedor.
+   */
+  private record UpstreamLimit(long maxBytes, DistributionSummary sizes, Counter rejected) {}
+}
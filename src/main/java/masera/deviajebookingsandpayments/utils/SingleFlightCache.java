@@ -0,0 +1,192 @@
+package masera.deviajebookingsandpayments.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import masera.deviajebookingsandpayments.exceptions.UpstreamUnavailableException;
+
+/**
+ * Caché en memoria de vida corta para consultas a proveedores.
+ * Las consultas concurrentes con la misma clave comparten una única llamada al
+ * proveedor, y su resultado se reutiliza durante el TTL. Los errores no se guardan.
+ * Quien espera una consulta en curso lo hace con un tiempo máximo: si se cumple, la
+ * entrada se descarta para que la próxima consulta vuelva a llamar al proveedor.
+ * Registra en deviaje.upstream.cache.requests cuántas consultas se resolvieron sin
+ * llamar al proveedor (hit y coalesced) y cuántas llamaron (miss).
+ *
+ * @param <V> tipo de la respuesta
+ */
+@Slf4j
+public class SingleFlightCache<V> {
+
+  private final String name;
+
+  private final long ttlNanos;
+
+  private final long waitTimeoutMillis;
+
+  private final int maxEntries;
+
+  private final Map<String, CacheEntry<V>> entries = new ConcurrentHashMap<>();
+
+  private final Counter hits;
+
+  private final Counter coalesced;
+
+  private final Counter misses;
+
+  /**
+   * Constructor de la caché.
+   *
+   * @param name nombre de la caché, usado como tag de las métricas
+   * @param ttl tiempo de vida de cada respuesta
+   * @param waitTimeout espera máxima por una consulta en curso de otro hilo
+   * @param maxEntries cantidad máxima de respuestas guardadas
+   * @param meterRegistry registro de métricas
+   */
+  public SingleFlightCache(String name, Duration ttl, Duration waitTimeout, int maxEntries,
+                           MeterRegistry meterRegistry) {
+    this.name = name;
+    this.ttlNanos = ttl.toNanos();
+    this.waitTimeoutMillis = waitTimeout.toMillis();
+    this.maxEntries = maxEntries;
+    this.hits = counter(meterRegistry, "hit");
+    this.coalesced = counter(meterRegistry, "coalesced");
+    this.misses = counter(meterRegistry, "miss");
+    meterRegistry.gaugeMapSize("deviaje.upstream.cache.size", Tags.of("cache", name), entries);
+  }
+
+  /**
+   * Devuelve la respuesta guardada para la clave o la obtiene del proveedor.
+   *
+   * @param key clave de la consulta
+   * @param loader llamada al proveedor
+   * @return respuesta del proveedor
+   */
+  public V get(String key, Supplier<V> loader) {
+    while (true) {
+      CacheEntry<V> existing = entries.get(key);
+      if (existing != null && !existing.isExpired(System.nanoTime())) {
+        if (existing.result().isDone()) {
+          hits.increment();
+        } else {
+          coalesced.increment();
+          log.debug("Consulta {} en curso para la caché {}. Esperando resultado", key, name);
+        }
+        return await(key, existing);
+      }
+
+      CacheEntry<V> own = new CacheEntry<>(new CompletableFuture<>());
+      boolean claimed = existing == null
+              ? entries.putIfAbsent(key, own) == null
+              : entries.replace(key, existing, own);
+      if (!claimed) {
+        // Otro hilo inició la consulta entre la lectura y el registro
+        continue;
+      }
+
+      misses.increment();
+      evictIfFull();
+      return load(key, own, loader);
+    }
+  }
+
+  private V load(String key, CacheEntry<V> own, Supplier<V> loader) {
+    try {
+      V value = loader.get();
+      own.complete(System.nanoTime() + ttlNanos);
+      own.result().complete(value);
+      return value;
+    } catch (Throwable e) {
+      // También ante un Error: quienes esperan deben recibirlo y no quedar bloqueados
+      entries.remove(key, own);
+      own.result().completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Elimina las respuestas vencidas cuando se supera el tamaño máximo. Si no alcanza,
+   * se vacía la caché: las entradas solo duran segundos.
+   */
+  private void evictIfFull() {
+    if (entries.size() <= maxEntries) {
+      return;
+    }
+    long now = System.nanoTime();
+    entries.values().removeIf(entry -> entry.isExpired(now));
+    if (entries.size() > maxEntries) {
+      log.warn("Caché {} llena ({} entradas). Se vacía", name, entries.size());
+      entries.values().removeIf(entry -> entry.result().isDone());
+    }
+  }
+
+  private V await(String key, CacheEntry<V> entry) {
+    try {
+      return entry.result().get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      switch (e.getCause()) {
+        case RuntimeException runtimeException -> throw runtimeException;
+        case Error error -> throw error;
+        default -> throw new CompletionException(e.getCause());
+      }
+    } catch (TimeoutException e) {
+      entries.remove(key, entry);
+      log.warn("La consulta {} de la caché {} no terminó en {} ms. Se descarta",
+              key, name, waitTimeoutMillis);
+      throw new UpstreamUnavailableException(name,
+              "La consulta al proveedor no respondió a tiempo");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new UpstreamUnavailableException(name, "Consulta al proveedor interrumpida");
+    }
+  }
+
+  private Counter counter(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("deviaje.upstream.cache.requests")
+            .description("Consultas a proveedores resueltas por la caché de vida corta")
+            .tag("cache", name)
+            .tag("result", result)
+            .register(meterRegistry);
+  }
+
+  /**
+   * Respuesta guardada o en curso. El vencimiento se fija al completarse, por lo que
+   * una consulta en curso nunca vence.
+   */
+  private static final class CacheEntry<V> {
+
+    private final CompletableFuture<V> result;
+
+    private volatile long expiresAt;
+
+    private volatile boolean loaded;
+
+    private CacheEntry(CompletableFuture<V> result) {
+      this.result = result;
+    }
+
+    private CompletableFuture<V> result() {
+      return result;
+    }
+
+    private void complete(long expiresAt) {
+      this.expiresAt = expiresAt;
+      this.loaded = true;
+    }
+
+    private boolean isExpired(long now) {
+      return loaded && now - expiresAt > 0;
+    }
+  }
+}
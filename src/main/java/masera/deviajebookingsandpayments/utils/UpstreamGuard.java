@@ -0,0 +1,392 @@
+package masera.deviajebookingsandpayments.utils;
+
+import com.mercadopago.exceptions.MPApiException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import masera.deviajebookingsandpayments.exceptions.AmadeusApiException;
+import masera.deviajebookingsandpayments.exceptions.HotelBedsApiException;
+import masera.deviajebookingsandpayments.exceptions.MercadoPagoException;
+import masera.deviajebookingsandpayments.exceptions.UpstreamUnavailableException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+
+/**
+ * Circuit breaker y bulkhead de un proveedor.
+ * El bulkhead limita las llamadas simultáneas y cuántas pueden esperar un lugar; el
+ * circuit breaker deja de enviar llamadas cuando la tasa de fallas de las últimas
+ * llamadas supera el umbral, y tras un tiempo deja pasar unas pocas de prueba.
+ * Las respuestas 4xx del proveedor no cuentan como fallas.
+ */
+@Slf4j
+public class UpstreamGuard {
+
+  private static final Duration POLL_INTERVAL = Duration.ofMillis(10);
+
+  private static final PermitUnavailable PERMIT_UNAVAILABLE = new PermitUnavailable();
+
+  private final String name;
+
+  private final Settings settings;
+
+  private final Semaphore permits;
+
+  private final AtomicInteger waiting = new AtomicInteger();
+
+  private final Counter rejectedOpen;
+
+  private final Counter rejectedFull;
+
+  private final boolean[] outcomes;
+
+  private int nextOutcome;
+
+  private int recordedCalls;
+
+  private int recordedFailures;
+
+  private volatile State state = State.CLOSED;
+
+  private long openedAt;
+
+  private int halfOpenInFlight;
+
+  private int halfOpenSuccesses;
+
+  /**
+   * Constructor del guard.
+   *
+   * @param name nombre del proveedor
+   * @param settings configuración del proveedor
+   * @param meterRegistry registro de métricas
+   */
+  public UpstreamGuard(String name, Settings settings, MeterRegistry meterRegistry) {
+    this.name = name;
+    this.settings = settings;
+    this.permits = new Semaphore(settings.maxConcurrent());
+    this.outcomes = new boolean[settings.slidingWindow()];
+
+    Gauge.builder("deviaje.upstream.circuit.state", this, guard -> guard.state.ordinal())
+            .description("Estado del circuit breaker: 0 cerrado, 1 abierto, 2 semiabierto")
+            .tag("upstream", name)
+            .register(meterRegistry);
+    Gauge.builder("deviaje.upstream.bulkhead.active", permits,
+                    semaphore -> settings.maxConcurrent() - semaphore.availablePermits())
+            .description("Llamadas en curso al proveedor")
+            .tag("upstream", name)
+            .register(meterRegistry);
+    Gauge.builder("deviaje.upstream.bulkhead.waiting", waiting, AtomicInteger::get)
+            .description("Llamadas esperando lugar en el bulkhead")
+            .tag("upstream", name)
+            .register(meterRegistry);
+    this.rejectedOpen = rejectedCounter(meterRegistry, "circuit_open");
+    this.rejectedFull = rejectedCounter(meterRegistry, "bulkhead_full");
+  }
+
+  /**
+   * Protege una llamada reactiva. La espera de lugar en el bulkhead no bloquea hilos.
+   *
+   * @param call llamada al proveedor
+   * @param <T> tipo de la respuesta
+   * @return la llamada protegida
+   */
+  public <T> Mono<T> protect(Mono<T> call) {
+    return Mono.defer(() -> {
+      Attempt attempt = admit();
+      long maxPolls = Math.max(1, settings.maxWait().dividedBy(POLL_INTERVAL));
+
+      return Mono.using(() -> acquireNow(attempt),
+                      permit -> call
+                              .doOnSuccess(value -> attempt.succeeded())
+                              .doOnError(attempt::failed),
+                      permit -> permits.release())
+              .retryWhen(Retry.fixedDelay(maxPolls, POLL_INTERVAL)
+                      .filter(PermitUnavailable.class::isInstance)
+                      .onRetryExhaustedThrow((spec, signal) -> bulkheadFull()))
+              .doFinally(signal -> attempt.abandon());
+    });
+  }
+
+  /**
+   * Protege una llamada bloqueante. Espera lugar en el bulkhead como máximo maxWait.
+   *
+   * @param call llamada al proveedor
+   * @param <T> tipo de la respuesta
+   * @param <E> excepción de la llamada
+   * @return la respuesta del proveedor
+   * @throws E si la llamada falla
+   */
+  public <T, E extends Exception> T call(UpstreamCall<T, E> call) throws E {
+    Attempt attempt = admit();
+    try {
+      acquireBlocking();
+      try {
+        T result = call.execute();
+        attempt.succeeded();
+        return result;
+      } catch (Exception e) {
+        attempt.failed(e);
+        throw e;
+      } finally {
+        permits.release();
+      }
+    } finally {
+      attempt.abandon();
+    }
+  }
+
+  /**
+   * Indica si la falla corresponde a un problema del proveedor y no a la solicitud.
+   */
+  private static boolean isFailure(Throwable error) {
+    return switch (error) {
+      case WebClientResponseException e ->
+              e.getStatusCode().is5xxServerError() || e.getStatusCode().value() == 429;
+      case AmadeusApiException e -> e.getStatusCode() >= 500;
+      case HotelBedsApiException e -> e.getStatusCode() >= 500;
+      case MercadoPagoException e -> e.getStatusCode() >= 500;
+      case MPApiException e -> e.getStatusCode() >= 500;
+      case UpstreamUnavailableException e -> false;
+      default -> true;
+    };
+  }
+
+  // =============== BULKHEAD ===============
+
+  /**
+   * Toma un lugar sin esperar. Si no hay, registra la llamada como en espera, o la
+   * rechaza si la cola de espera está llena.
+   */
+  private Object acquireNow(Attempt attempt) {
+    if (permits.tryAcquire()) {
+      attempt.stopWaiting();
+      return permits;
+    }
+    if (!attempt.waiting) {
+      if (waiting.incrementAndGet() > settings.maxWaiting()) {
+        waiting.decrementAndGet();
+        throw bulkheadFull();
+      }
+      attempt.waiting = true;
+    }
+    throw PERMIT_UNAVAILABLE;
+  }
+
+  private void acquireBlocking() {
+    if (permits.tryAcquire()) {
+      return;
+    }
+    if (waiting.incrementAndGet() > settings.maxWaiting()) {
+      waiting.decrementAndGet();
+      throw bulkheadFull();
+    }
+    try {
+      if (!permits.tryAcquire(settings.maxWait().toNanos(), TimeUnit.NANOSECONDS)) {
+        throw bulkheadFull();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw bulkheadFull();
+    } finally {
+      waiting.decrementAndGet();
+    }
+  }
+
+  private UpstreamUnavailableException bulkheadFull() {
+    rejectedFull.increment();
+    log.warn("Bulkhead de {} lleno. Llamada rechazada", name);
+    return new UpstreamUnavailableException(name,
+            "El proveedor " + name + " está saturado. Intente nuevamente en unos segundos");
+  }
+
+  // =============== CIRCUIT BREAKER ===============
+
+  private Attempt admit() {
+    synchronized (this) {
+      if (state == State.OPEN
+              && System.nanoTime() - openedAt >= settings.openDuration().toNanos()) {
+        log.info("Circuit breaker de {} semiabierto. Enviando llamadas de prueba", name);
+        state = State.HALF_OPEN;
+        halfOpenInFlight = 0;
+        halfOpenSuccesses = 0;
+      }
+      if (state == State.CLOSED) {
+        return new Attempt(false);
+      }
+      if (state == State.HALF_OPEN && halfOpenInFlight < settings.halfOpenCalls()) {
+        halfOpenInFlight++;
+        return new Attempt(true);
+      }
+    }
+    rejectedOpen.increment();
+    throw new UpstreamUnavailableException(name,
+            "El proveedor " + name + " no está disponible temporalmente");
+  }
+
+  private synchronized void record(boolean trial, boolean failure) {
+    if (trial) {
+      if (state != State.HALF_OPEN) {
+        return;
+      }
+      halfOpenInFlight--;
+      if (failure) {
+        open();
+      } else if (++halfOpenSuccesses >= settings.halfOpenCalls()) {
+        log.info("Circuit breaker de {} cerrado", name);
+        state = State.CLOSED;
+        nextOutcome = 0;
+        recordedCalls = 0;
+        recordedFailures = 0;
+      }
+      return;
+    }
+
+    if (state != State.CLOSED) {
+      return;
+    }
+    if (recordedCalls == outcomes.length && outcomes[nextOutcome]) {
+      recordedFailures--;
+    }
+    outcomes[nextOutcome] = failure;
+    nextOutcome = (nextOutcome + 1) % outcomes.length;
+    recordedCalls = Math.min(recordedCalls + 1, outcomes.length);
+    if (failure) {
+      recordedFailures++;
+    }
+
+    if (recordedCalls >= settings.minCalls()
+            && recordedFailures * 100 >= settings.failureRateThreshold() * recordedCalls) {
+      open();
+    }
+  }
+
+  private synchronized void releaseTrial() {
+    if (state == State.HALF_OPEN) {
+      halfOpenInFlight--;
+    }
+  }
+
+  private void open() {
+    log.warn("Circuit breaker de {} abierto por {} s", name,
+            settings.openDuration().toSeconds());
+    state = State.OPEN;
+    openedAt = System.nanoTime();
+  }
+
+  private Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+    return Counter.builder("deviaje.upstream.rejected")
+            .description("Llamadas a proveedores rechazadas sin enviarse")
+            .tag("upstream", name)
+            .tag("reason", reason)
+            .register(meterRegistry);
+  }
+
+  /**
+   * Estado de una llamada: registra su resultado una sola vez y libera la espera
+   * o el lugar de prueba si termina sin resultado (rechazo o cancelación).
+   */
+  private final class Attempt {
+
+    private final boolean trial;
+
+    private final AtomicBoolean settled = new AtomicBoolean();
+
+    private volatile boolean waiting;
+
+    private Attempt(boolean trial) {
+      this.trial = trial;
+    }
+
+    private void succeeded() {
+      if (settled.compareAndSet(false, true)) {
+        record(trial, false);
+      }
+    }
+
+    private void failed(Throwable error) {
+      if (settled.compareAndSet(false, true)) {
+        record(trial, isFailure(error));
+      }
+    }
+
+    private void stopWaiting() {
+      if (waiting) {
+        waiting = false;
+        UpstreamGuard.this.waiting.decrementAndGet();
+      }
+    }
+
+    private void abandon() {
+      stopWaiting();
+      if (settled.compareAndSet(false, true) && trial) {
+        releaseTrial();
+      }
+    }
+  }
+
+  /**
+   * Señal interna para reintentar la toma de lugar en el bulkhead.
+   */
+  private static final class PermitUnavailable extends RuntimeException {
+
+    private PermitUnavailable() {
+      super("Sin lugar en el bulkhead", null, false, false);
+    }
+  }
+
+  /**
+   * Estados del circuit breaker.
+   */
+  private enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  /**
+   * Llamada bloqueante a un proveedor.
+   *
+   * @param <T> tipo de la respuesta
+   * @param <E> excepción de la llamada
+   */
+  @FunctionalInterface
+  public interface UpstreamCall<T, E extends Exception> {
+
+    /**
+     * Ejecuta la llamada.
+     *
+     * @return la respuesta
+     * @throws E si la llamada falla
+     */
+    T execute() throws E;
+  }
+
+  /**
+   * Configuración del circuit breaker y el bulkhead de un proveedor.
+   *
+   * @param maxConcurrent llamadas simultáneas
+   * @param maxWaiting llamadas que pueden esperar lugar
+   * @param maxWait espera máxima por un lugar
+   * @param slidingWindow cantidad de llamadas recientes evaluadas
+   * @param minCalls llamadas necesarias antes de evaluar la tasa de fallas
+   * @param failureRateThreshold porcentaje de fallas que abre el circuito
+   * @param openDuration tiempo que el circuito permanece abierto
+   * @param halfOpenCalls llamadas de prueba en estado semiabierto
+   */
+  public record Settings(int maxConcurrent,
+                         int maxWaiting,
+                         Duration maxWait,
+                         int slidingWindow,
+                         int minCalls,
+                         int failureRateThreshold,
+                         Duration openDuration,
+                         int halfOpenCalls) {}
+}
@@ -0,0 +1,66 @@
+package masera.deviajebookingsandpayments.utils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registro de los circuit breakers y bulkheads de cada proveedor.
+ * La configuración se lee de deviaje.upstream.{proveedor}.* con los valores por
+ * defecto de deviaje.upstream.default.*, de modo que un proveedor degradado no
+ * consuma los hilos que usan los demás.
+ */
+@Component
+@RequiredArgsConstructor
+public class UpstreamGuards {
+
+  public static final String AMADEUS = "amadeus";
+
+  public static final String AMADEUS_AUTH = "amadeus-auth";
+
+  public static final String HOTELBEDS = "hotelbeds";
+
+  public static final String USERS = "users";
+
+  public static final String MERCADOPAGO = "mercadopago";
+
+  private final Environment environment;
+
+  private final MeterRegistry meterRegistry;
+
+  private final Map<String, UpstreamGuard> guards = new ConcurrentHashMap<>();
+
+  /**
+   * Obtiene el guard de un proveedor.
+   *
+   * @param upstream nombre del proveedor
+   * @return el guard del proveedor
+   */
+  public UpstreamGuard get(String upstream) {
+    return guards.computeIfAbsent(upstream, name ->
+            new UpstreamGuard(name, settings(name), meterRegistry));
+  }
+
+  private UpstreamGuard.Settings settings(String upstream) {
+    return new UpstreamGuard.Settings(
+            property(upstream, "max-concurrent", 20),
+            property(upstream, "max-waiting", 50),
+            Duration.ofMillis(property(upstream, "max-wait-ms", 500)),
+            property(upstream, "sliding-window", 20),
+            property(upstream, "min-calls", 10),
+            property(upstream, "failure-rate-threshold", 50),
+            Duration.ofMillis(property(upstream, "open-ms", 30000)),
+            property(upstream, "half-open-calls", 3));
+  }
+
+  private int property(String upstream, String key, int defaultValue) {
+    Integer fallback = environment.getProperty(
+            "deviaje.upstream.default." + key, Integer.class, defaultValue);
+    return environment.getProperty(
+            "deviaje.upstream." + upstream + "." + key, Integer.class, fallback);
+  }
+}
@@ -0,0 +1,236 @@
+package masera.deviajebookingsandpayments.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import masera.deviajebookingsandpayments.dtos.upstream.AmadeusFlightOrderResponse;
+import masera.deviajebookingsandpayments.dtos.upstream.AmadeusFlightPriceResponse;
+import masera.deviajebookingsandpayments.dtos.upstream.HotelBedsBookingDetailsResponse;
+import masera.deviajebookingsandpayments.dtos.upstream.HotelBedsCheckRateResponse;
+import masera.deviajebookingsandpayments.exceptions.AmadeusApiException;
+import masera.deviajebookingsandpayments.exceptions.HotelBedsApiException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decodifica las respuestas de Amadeus y HotelBeds leyendo el JSON como stream.
+ * Solo se recorren los objetos que llevan a los campos pedidos; el resto se salta
+ * sin construir mapas, y la lectura termina apenas se encuentran todos los campos.
+ * Los elementos de un arreglo se indican por posición (por ejemplo data.flightOffers.0).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UpstreamResponseDecoder {
+
+  private static final String ORDER_ID = "data.id";
+
+  private static final String ORDER_REFERENCE = "data.associatedRecords.0.reference";
+
+  private static final String OFFER_TOTAL = "data.flightOffers.0.price.grandTotal";
+
+  private static final String OFFER_CURRENCY = "data.flightOffers.0.price.currency";
+
+  private static final String RATE_TOTAL = "hotel.totalNet";
+
+  private static final String RATE_CURRENCY = "hotel.currency";
+
+  private static final String BOOKING_REFERENCE = "booking.reference";
+
+  private static final String BOOKING_STATUS = "booking.status";
+
+  private static final String BOOKING_TOTAL = "booking.totalNet";
+
+  private static final String BOOKING_CURRENCY = "booking.currency";
+
+  private static final Fields ORDER_FIELDS =
+          new Fields(ORDER_ID, ORDER_REFERENCE, OFFER_TOTAL, OFFER_CURRENCY);
+
+  private static final Fields PRICING_FIELDS = new Fields(OFFER_TOTAL, OFFER_CURRENCY);
+
+  private static final Fields RATE_FIELDS = new Fields(RATE_TOTAL, RATE_CURRENCY);
+
+  private static final Fields BOOKING_FIELDS = new Fields(
+          BOOKING_REFERENCE, BOOKING_STATUS, BOOKING_TOTAL, BOOKING_CURRENCY);
+
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Decodifica la respuesta de creación de una orden de vuelo.
+   *
+   * @param body JSON recibido de Amadeus
+   * @return los campos usados de la orden
+   */
+  public AmadeusFlightOrderResponse decodeFlightOrder(byte[] body) {
+    Map<String, String> values = readAmadeus(body, ORDER_FIELDS);
+    return AmadeusFlightOrderResponse.builder()
+            .id(values.get(ORDER_ID))
+            .reference(values.get(ORDER_REFERENCE))
+            .grandTotal(decimal(values.get(OFFER_TOTAL)))
+            .currency(values.get(OFFER_CURRENCY))
+            .build();
+  }
+
+  /**
+   * Decodifica la respuesta de verificación de precio de una oferta de vuelo.
+   *
+   * @param body JSON recibido de Amadeus
+   * @return el precio verificado junto con el JSON original
+   */
+  public AmadeusFlightPriceResponse decodeFlightPrice(byte[] body) {
+    Map<String, String> values = readAmadeus(body, PRICING_FIELDS);
+    return AmadeusFlightPriceResponse.builder()
+            .grandTotal(decimal(values.get(OFFER_TOTAL)))
+            .currency(values.get(OFFER_CURRENCY))
+            .body(body)
+            .build();
+  }
+
+  /**
+   * Decodifica la respuesta de checkrates de HotelBeds.
+   *
+   * @param body JSON recibido de HotelBeds
+   * @return la tarifa verificada junto con el JSON original
+   */
+  public HotelBedsCheckRateResponse decodeCheckRate(byte[] body) {
+    Map<String, String> values = readHotelBeds(body, RATE_FIELDS);
+    return HotelBedsCheckRateResponse.builder()
+            .totalNet(decimal(values.get(RATE_TOTAL)))
+            .currency(values.get(RATE_CURRENCY))
+            .body(body)
+            .build();
+  }
+
+  /**
+   * Decodifica el detalle de una reserva de HotelBeds.
+   *
+   * @param body JSON recibido de HotelBeds
+   * @return los datos de la reserva junto con el JSON original
+   */
+  public HotelBedsBookingDetailsResponse decodeBookingDetails(byte[] body) {
+    Map<String, String> values = readHotelBeds(body, BOOKING_FIELDS);
+    return HotelBedsBookingDetailsResponse.builder()
+            .reference(values.get(BOOKING_REFERENCE))
+            .status(values.get(BOOKING_STATUS))
+            .totalNet(decimal(values.get(BOOKING_TOTAL)))
+            .currency(values.get(BOOKING_CURRENCY))
+            .body(body)
+            .build();
+  }
+
+  private Map<String, String> readAmadeus(byte[] body, Fields fields) {
+    try {
+      return read(body, fields);
+    } catch (IOException e) {
+      log.error("Respuesta de Amadeus con JSON inválido: {}", e.getMessage());
+      throw new AmadeusApiException("Respuesta inválida de Amadeus", 502, 0);
+    }
+  }
+
+  private Map<String, String> readHotelBeds(byte[] body, Fields fields) {
+    try {
+      return read(body, fields);
+    } catch (IOException e) {
+      log.error("Respuesta de HotelBeds con JSON inválido: {}", e.getMessage());
+      throw new HotelBedsApiException("Respuesta inválida de HotelBeds", 502);
+    }
+  }
+
+  private Map<String, String> read(byte[] body, Fields fields) throws IOException {
+    Map<String, String> values = new HashMap<>();
+    if (body == null || body.length == 0) {
+      return values;
+    }
+    try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+      if (parser.nextToken() == JsonToken.START_OBJECT) {
+        readObject(parser, "", fields, values);
+      }
+    }
+    return values;
+  }
+
+  private void readObject(JsonParser parser, String path, Fields fields,
+                          Map<String, String> values) throws IOException {
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String child = path.isEmpty()
+              ? parser.currentName()
+              : path + "." + parser.currentName();
+      readValue(parser, parser.nextToken(), child, fields, values);
+      if (values.size() == fields.paths().size()) {
+        return;
+      }
+    }
+  }
+
+  private void readArray(JsonParser parser, String path, Fields fields,
+                         Map<String, String> values) throws IOException {
+    int index = 0;
+    JsonToken token;
+    while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+      readValue(parser, token, path + "." + index++, fields, values);
+      if (values.size() == fields.paths().size()) {
+        return;
+      }
+    }
+  }
+
+  private void readValue(JsonParser parser, JsonToken token, String path, Fields fields,
+                         Map<String, String> values) throws IOException {
+    if (token == JsonToken.START_OBJECT) {
+      if (fields.prefixes().contains(path)) {
+        readObject(parser, path, fields, values);
+      } else {
+        parser.skipChildren();
+      }
+    } else if (token == JsonToken.START_ARRAY) {
+      if (fields.prefixes().contains(path)) {
+        readArray(parser, path, fields, values);
+      } else {
+        parser.skipChildren();
+      }
+    } else if (token != JsonToken.VALUE_NULL && fields.paths().contains(path)) {
+      values.put(path, parser.getText());
+    }
+  }
+
+  private static BigDecimal decimal(String value) {
+    if (value == null || value.isBlank()) {
+      return null;
+    }
+    try {
+      return new BigDecimal(value);
+    } catch (NumberFormatException e) {
+      log.warn("Importe inválido en la respuesta del proveedor: {}", value);
+      return null;
+    }
+  }
+
+  /**
+   * Campos pedidos y los objetos intermedios que hay que recorrer para llegar a ellos.
+   */
+  private record Fields(Set<String> paths, Set<String> prefixes) {
+
+    private Fields(String... paths) {
+      this(Set.of(paths), prefixesOf(paths));
+    }
+
+    private static Set<String> prefixesOf(String... paths) {
+      Set<String> prefixes = new HashSet<>();
+      for (String path : paths) {
+        int dot = path.indexOf('.');
+        while (dot > 0) {
+          prefixes.add(path.substring(0, dot));
+          dot = path.indexOf('.', dot + 1);
+        }
+      }
+      return Set.copyOf(prefixes);
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package masera.deviajebookingsandpayments.utils;
+
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.WriterProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.OutputStream;
+import java.util.EnumMap;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuración de salida de los PDF de vouchers y control de su tamaño.
+ * Todos los renderers escriben con el mismo PdfWriter: compresión máxima de los
+ * streams, modo smart (los recursos repetidos, como imágenes, fuentes o estilos de
+ * borde, se escriben una sola vez) y, opcionalmente, object streams y tabla xref
+ * comprimida. Las fuentes embebidas ya se escriben como subconjunto con los glifos
+ * usados. El tamaño de cada voucher se registra por tipo de reserva y se cuenta
+ * cuántos superan el presupuesto configurado.
+ */
+@Component
+@Slf4j
+public class VoucherPdfOutput {
+
+  private final WriterProperties writerProperties;
+
+  private final boolean smartMode;
+
+  private final long sizeBudgetBytes;
+
+  private final Map<BookingEntity.BookingType, DistributionSummary> sizes =
+          new EnumMap<>(BookingEntity.BookingType.class);
+
+  private final Counter overBudget;
+
+  /**
+   * Constructor de la configuración de salida.
+   *
+   * @param meterRegistry registro de métricas
+   * @param compressionLevel nivel de compresión de los streams (0 a 9)
+   * @param objectStreams si se agrupan los objetos en object streams comprimidos
+   * @param smartMode si se reutilizan los recursos repetidos
+   * @param sizeBudgetKb tamaño esperado máximo de un voucher (0 = sin presupuesto)
+   */
+  public VoucherPdfOutput(
+          MeterRegistry meterRegistry,
+          @Value("${deviaje.voucher.pdf.compression-level:9}") int compressionLevel,
+          @Value("${deviaje.voucher.pdf.object-streams:true}") boolean objectStreams,
+          @Value("${deviaje.voucher.pdf.smart-mode:true}") boolean smartMode,
+          @Value("${deviaje.voucher.pdf.size-budget-kb:150}") long sizeBudgetKb) {
+    this.writerProperties = new WriterProperties()
+            .setCompressionLevel(compressionLevel)
+            .setFullCompressionMode(objectStreams);
+    this.smartMode = smartMode;
+    this.sizeBudgetBytes = sizeBudgetKb * 1024;
+
+    for (BookingEntity.BookingType type : BookingEntity.BookingType.values()) {
+      sizes.put(type, DistributionSummary.builder("deviaje.voucher.pdf.size")
+              .description("Tamaño de los vouchers generados")
+              .baseUnit("bytes")
+              .tag("type", type.name())
+              .publishPercentiles(0.5, 0.95)
+              .register(meterRegistry));
+    }
+    this.overBudget = Counter.builder("deviaje.voucher.pdf.over-budget")
+            .description("Vouchers que superaron el tamaño presupuestado")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Crea el PdfWriter de un voucher con la configuración de salida.
+   *
+   * @param outputStream destino del PDF
+   * @return el writer configurado
+   */
+  public PdfWriter newWriter(OutputStream outputStream) {
+    return new PdfWriter(outputStream, writerProperties).setSmartMode(smartMode);
+  }
+
+  /**
+   * Registra el tamaño de un voucher generado y avisa si supera el presupuesto.
+   * El voucher se entrega igual: el presupuesto sirve para detectar regresiones.
+   *
+   * @param type tipo de reserva del voucher
+   * @param bookingReference referencia de la reserva, para el aviso
+   * @param size bytes escritos del PDF
+   */
+  public void record(BookingEntity.BookingType type, String bookingReference, long size) {
+    sizes.get(type).record(size);
+    if (sizeBudgetBytes > 0 && size > sizeBudgetBytes) {
+      overBudget.increment();
+      log.warn("El voucher de {} pesa {} KB y supera el presupuesto de {} KB",
+              bookingReference, size / 1024, sizeBudgetBytes / 1024);
+    }
+  }
+}
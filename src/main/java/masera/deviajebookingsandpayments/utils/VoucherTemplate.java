@@ -0,0 +1,132 @@
+package masera.deviajebookingsandpayments.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * Plantilla HTML precompilada de un voucher.
+ * Al compilarse se separan los fragmentos fijos de los marcadores {{campo}}, y los
+ * marcadores que corresponden a partes comunes (estilos, pie) se reemplazan una
+ * sola vez; las partes comunes pueden tener a su vez marcadores de campos. Cada
+ * render solo concatena los fragmentos con los datos de la reserva, en un buffer del
+ * tamaño justo.
+ */
+public final class VoucherTemplate {
+
+  private static final String OPEN = "{{";
+
+  private static final String CLOSE = "}}";
+
+  private final String name;
+
+  private final String[] fragments;
+
+  private final String[] fields;
+
+  private final int fixedLength;
+
+  private VoucherTemplate(String name, String[] fragments, String[] fields) {
+    this.name = name;
+    this.fragments = fragments;
+    this.fields = fields;
+    int length = 0;
+    for (String fragment : fragments) {
+      length += fragment.length();
+    }
+    this.fixedLength = length;
+  }
+
+  /**
+   * Carga y compila una plantilla del classpath. Se quita la indentación y los saltos
+   * de línea del archivo, de modo que el HTML resultante no depende del formato.
+   *
+   * @param location ubicación de la plantilla en el classpath
+   * @param shared partes comunes que se reemplazan al compilar
+   * @return la plantilla compilada
+   */
+  public static VoucherTemplate load(String location, Map<String, String> shared) {
+    return compile(location, read(location), shared);
+  }
+
+  /**
+   * Lee un recurso del classpath quitando la indentación y los saltos de línea.
+   *
+   * @param location ubicación del recurso
+   * @return el contenido en una sola línea
+   */
+  public static String read(String location) {
+    try {
+      String content = new ClassPathResource(location)
+              .getContentAsString(StandardCharsets.UTF_8);
+      StringBuilder joined = new StringBuilder(content.length());
+      content.lines().map(String::strip).forEach(joined::append);
+      return joined.toString();
+    } catch (IOException e) {
+      throw new UncheckedIOException("No se pudo leer la plantilla " + location, e);
+    }
+  }
+
+  /**
+   * Compila el texto de una plantilla.
+   *
+   * @param name nombre de la plantilla, usado en los errores
+   * @param source texto de la plantilla
+   * @param shared partes comunes que se reemplazan al compilar
+   * @return la plantilla compilada
+   */
+  public static VoucherTemplate compile(String name, String source, Map<String, String> shared) {
+    String expanded = source;
+    for (Map.Entry<String, String> part : shared.entrySet()) {
+      expanded = expanded.replace(OPEN + part.getKey() + CLOSE, part.getValue());
+    }
+
+    List<String> fragments = new ArrayList<>();
+    List<String> fields = new ArrayList<>();
+    int position = 0;
+    int start;
+    while ((start = expanded.indexOf(OPEN, position)) >= 0) {
+      int end = expanded.indexOf(CLOSE, start);
+      if (end < 0) {
+        throw new IllegalArgumentException("Marcador sin cerrar en la plantilla " + name);
+      }
+      fragments.add(expanded.substring(position, start));
+      fields.add(expanded.substring(start + OPEN.length(), end).strip());
+      position = end + CLOSE.length();
+    }
+    fragments.add(expanded.substring(position));
+
+    return new VoucherTemplate(name, fragments.toArray(String[]::new),
+            fields.toArray(String[]::new));
+  }
+
+  /**
+   * Arma el HTML con los datos de una reserva.
+   *
+   * @param values valor de cada campo de la plantilla
+   * @return el HTML del voucher
+   */
+  public String render(Map<String, String> values) {
+    String[] resolved = new String[fields.length];
+    int length = fixedLength;
+    for (int i = 0; i < fields.length; i++) {
+      String value = values.get(fields[i]);
+      if (value == null && !values.containsKey(fields[i])) {
+        throw new IllegalArgumentException(
+                "Falta el campo " + fields[i] + " de la plantilla " + name);
+      }
+      resolved[i] = value == null ? "null" : value;
+      length += resolved[i].length();
+    }
+
+    StringBuilder html = new StringBuilder(length);
+    for (int i = 0; i < fields.length; i++) {
+      html.append(fragments[i]).append(resolved[i]);
+    }
+    return html.append(fragments[fields.length]).toString();
+  }
+}
@@ -0,0 +1,136 @@
+package masera.deviajebookingsandpayments;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import masera.deviajebookingsandpayments.dtos.responses.BookingReferenceResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.client.RestClient;
+
+/**
+ * Recorre las reservas con pago sobre hilos virtuales (perfil virtual-threads, con los
+ * proveedores simulados y H2) y falla si JFR registra hilos virtuales fijados al carrier.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "deviaje.simulator.port=19063",
+        "deviaje.simulator.mercadopago.rejection-rate=0"})
+@ActiveProfiles({"simulator", "h2", "virtual-threads"})
+class VirtualThreadPinningTest {
+
+    private static final int BOOKINGS_PER_TYPE = 8;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void bookingPathsDoNotPinCarrierThreads() throws Exception {
+        List<RecordedEvent> pinned = new CopyOnWriteArrayList<>();
+        List<String> references;
+
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO)
+                    .withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", pinned::add);
+            recording.startAsync();
+
+            references = bookConcurrently();
+            RestClient client = client();
+            for (String reference : references) {
+                client.get().uri("/api/bookings/" + reference + "/details")
+                        .retrieve().toBodilessEntity();
+            }
+            client.get().uri("/api/dashboard/summary").retrieve().toBodilessEntity();
+
+            recording.stop();
+        }
+
+        assertEquals(2 * BOOKINGS_PER_TYPE, references.size());
+        assertTrue(pinned.isEmpty(), () -> pinned.size() + " eventos de hilo fijado:\n"
+                + pinned.stream().map(VirtualThreadPinningTest::describe)
+                        .collect(Collectors.joining("\n")));
+    }
+
+    /**
+     * Reserva vuelos y hoteles en paralelo. Las primeras reservas de vuelo compiten
+     * por el token de Amadeus, que se pide una sola vez.
+     */
+    private List<String> bookConcurrently() throws Exception {
+        String flight = template("loadtest/flight-book-and-pay.json");
+        String hotel = template("loadtest/hotel-book-and-pay.json");
+        RestClient client = client();
+
+        List<Future<BookingReferenceResponse>> bookings = new ArrayList<>();
+        try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < BOOKINGS_PER_TYPE; i++) {
+                bookings.add(users.submit(() ->
+                        book(client, "/api/flights/book-and-pay", flight)));
+                bookings.add(users.submit(() ->
+                        book(client, "/api/hotels/book-and-pay", hotel)));
+            }
+        }
+        List<String> references = new ArrayList<>();
+        for (Future<BookingReferenceResponse> booking : bookings) {
+            references.add(booking.get().bookingReference());
+        }
+        return references;
+    }
+
+    private BookingReferenceResponse book(RestClient client, String uri, String template) {
+        LocalDate departure = LocalDate.now().plusDays(30);
+        String body = template
+                .replace("{{clientId}}", String.valueOf(
+                        ThreadLocalRandom.current().nextInt(1, 10_000)))
+                .replace("{{uuid}}", UUID.randomUUID().toString())
+                .replace("{{departureDate}}", departure.toString())
+                .replace("{{arrivalDate}}", departure.plusDays(1).toString());
+        return client.post()
+                .uri(uri)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Idempotency-Key", UUID.randomUUID().toString())
+                .body(body)
+                .retrieve()
+                .body(BookingReferenceResponse.class);
+    }
+
+    private RestClient client() {
+        return RestClient.create("http://localhost:" + port);
+    }
+
+    private static String template(String path) throws IOException {
+        return new ClassPathResource(path).getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    private static String describe(RecordedEvent event) {
+        StringBuilder description = new StringBuilder("fijado ")
+                .append(event.getDuration().toNanos() / 1_000).append(" us");
+        if (event.getStackTrace() != null) {
+            for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+                description.append("\n    at ").append(frame.getMethod().getType().getName())
+                        .append('.').append(frame.getMethod().getName())
+                        .append(':').append(frame.getLineNumber());
+            }
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,129 @@
+package masera.deviajebookingsandpayments.configs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.lang.annotation.Annotation;
+import java.util.HashMap;
+import java.util.Map;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.generator.GeneratorCreationContext;
+import org.hibernate.service.ServiceRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class BlockIdGeneratorTest {
+
+    private final Map<String, Object> settings = new HashMap<>();
+
+    private HikariDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private IdBlockSource blockSource;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:ids;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(2);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE id_generators ("
+                + "sequence_name VARCHAR(255) NOT NULL PRIMARY KEY, next_val BIGINT)");
+        blockSource = new IdBlockSource(dataSource);
+        settings.put(IdBlockSource.SETTING, blockSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE id_generators");
+        blockSource.close();
+    }
+
+    private BlockIdGenerator generator(String name, int allocationSize) {
+        ConfigurationService configuration = mock(ConfigurationService.class);
+        when(configuration.getSettings()).thenReturn(settings);
+        ServiceRegistry registry = mock(ServiceRegistry.class);
+        when(registry.requireService(ConfigurationService.class)).thenReturn(configuration);
+        GeneratorCreationContext context = mock(GeneratorCreationContext.class);
+        when(context.getServiceRegistry()).thenReturn(registry);
+        return new BlockIdGenerator(blockId(name, allocationSize), null, context);
+    }
+
+    private static BlockId blockId(String name, int allocationSize) {
+        return new BlockId() {
+            @Override
+            public String value() {
+                return name;
+            }
+
+            @Override
+            public int allocationSize() {
+                return allocationSize;
+            }
+
+            @Override
+            public Class<? extends Annotation> annotationType() {
+                return BlockId.class;
+            }
+        };
+    }
+
+    private long nextVal(String name) {
+        return jdbcTemplate.queryForObject(
+                "SELECT next_val FROM id_generators WHERE sequence_name = ?", Long.class, name);
+    }
+
+    @Test
+    void missingGeneratorStartsAtOne() {
+        assertEquals(1L, blockSource.reserve("bookings", 50));
+        assertEquals(51L, nextVal("bookings"));
+        assertEquals(51L, blockSource.reserve("bookings", 50));
+        assertEquals(101L, nextVal("bookings"));
+    }
+
+    @Test
+    void blockContinuesFromTheAlignedValue() {
+        jdbcTemplate.update(
+                "INSERT INTO id_generators (sequence_name, next_val) VALUES ('payments', 1075)");
+
+        assertEquals(1075L, blockSource.reserve("payments", 50));
+        assertEquals(1125L, nextVal("payments"));
+    }
+
+    @Test
+    void generatorHandsOutTheBlockBeforeReservingAnother() {
+        BlockIdGenerator generator = generator("refunds", 3);
+
+        assertEquals(1L, generator.generate(null, null));
+        assertEquals(2L, generator.generate(null, null));
+        assertEquals(3L, generator.generate(null, null));
+        assertEquals(4L, nextVal("refunds"));
+
+        assertEquals(4L, generator.generate(null, null));
+        assertEquals(7L, nextVal("refunds"));
+    }
+
+    @Test
+    void generatorsWithTheSameNameShareTheCounter() {
+        BlockIdGenerator first = generator("bookings", 2);
+        BlockIdGenerator second = generator("bookings", 2);
+
+        assertEquals(1L, first.generate(null, null));
+        assertEquals(3L, second.generate(null, null));
+        assertEquals(2L, first.generate(null, null));
+        assertEquals(5L, first.generate(null, null));
+    }
+
+    @Test
+    void missingBlockSourceFailsAtStartup() {
+        settings.clear();
+
+        assertThrows(IllegalStateException.class, () -> generator("bookings", 50));
+    }
+}
@@ -0,0 +1,28 @@
+package masera.deviajebookingsandpayments.loadtest;
+
+import masera.deviajebookingsandpayments.DeviajeBookingsAndPaymentsApplication;
+import org.springframework.boot.SpringApplication;
+
+/**
+ * Inicia la aplicación con el classpath de test, donde están el simulador de
+ * proveedores y el generador de carga, con los perfiles simulator, h2 y loadtest.
+ * Ejecutar con: mvn spring-boot:test-run
+ * Se pueden sumar perfiles con -Dspring-boot.run.profiles=... y ajustar la carga con
+ * argumentos (-Dspring-boot.run.arguments=--deviaje.loadtest.concurrency=64).
+ */
+public final class LoadTestApplication {
+
+  private LoadTestApplication() {
+  }
+
+  /**
+   * Punto de entrada de la prueba de carga.
+   *
+   * @param args argumentos de la aplicación
+   */
+  public static void main(String[] args) {
+    SpringApplication.from(DeviajeBookingsAndPaymentsApplication::main)
+            .withAdditionalProfiles("simulator", "h2", "loadtest")
+            .run(args);
+  }
+}
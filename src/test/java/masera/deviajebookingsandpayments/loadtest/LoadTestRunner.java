@@ -0,0 +1,345 @@
+package masera.deviajebookingsandpayments.loadtest;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import masera.deviajebookingsandpayments.dtos.responses.BookingReferenceResponse;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+/**
+ * Generador de carga para medir la capacidad de checkout antes de un release.
+ * Envía una mezcla configurable de reservas con pago (vuelo y hotel), consultas de
+ * detalle, listados de reservas de clientes (MVC o reactivo), dashboard y webhooks de
+ * MercadoPago contra deviaje.loadtest.target-url, y al terminar informa el throughput
+ * y los percentiles de latencia de cada operación.
+ * Vive en el classpath de test y se inicia con LoadTestApplication, junto con el perfil
+ * simulator (y h2 para no depender de MySQL).
+ */
+@Component
+@Profile("loadtest")
+@RequiredArgsConstructor
+@Slf4j
+public class LoadTestRunner implements ApplicationRunner {
+
+  private static final int RECENT_REFERENCES = 1024;
+
+  private final Environment environment;
+
+  private final ConfigurableApplicationContext applicationContext;
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  private final AtomicReferenceArray<String> recentReferences =
+          new AtomicReferenceArray<>(RECENT_REFERENCES);
+
+  private final AtomicLong referenceCount = new AtomicLong();
+
+  @Override
+  public void run(ApplicationArguments args) {
+    Thread driver = new Thread(this::runLoadTest, "loadtest-driver");
+    driver.setDaemon(true);
+    driver.start();
+  }
+
+  private void runLoadTest() {
+    String targetUrl = environment.getProperty("deviaje.loadtest.target-url",
+            "http://localhost:" + environment.getProperty("server.port", "8080"));
+    int concurrency = environment.getProperty("deviaje.loadtest.concurrency", Integer.class, 32);
+    Duration warmup = Duration.ofSeconds(
+            environment.getProperty("deviaje.loadtest.warmup-seconds", Long.class, 10L));
+    Duration duration = Duration.ofSeconds(
+            environment.getProperty("deviaje.loadtest.duration-seconds", Long.class, 60L));
+
+    Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    for (Operation operation : Operation.values()) {
+      stats.put(operation, new OperationStats(operation, warmup.plus(duration)));
+    }
+    List<Operation> mix = mix();
+    int clients = environment.getProperty("deviaje.loadtest.clients", Integer.class, 10_000);
+    Templates templates = new Templates(clients);
+    RestClient client = RestClient.builder()
+            .baseUrl(targetUrl)
+            .requestFactory(new JdkClientHttpRequestFactory(HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build()))
+            .build();
+
+    log.info("Prueba de carga contra {}: {} usuarios concurrentes, {} s de calentamiento, "
+                    + "{} s de medición", targetUrl, concurrency,
+            warmup.toSeconds(), duration.toSeconds());
+
+    long measureFrom = System.nanoTime() + warmup.toNanos();
+    long endAt = measureFrom + duration.toNanos();
+    try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < concurrency; i++) {
+        users.submit(() -> {
+          while (System.nanoTime() < endAt) {
+            Operation operation = mix.get(ThreadLocalRandom.current().nextInt(mix.size()));
+            long start = System.nanoTime();
+            boolean ok = execute(client, templates, operation);
+            long end = System.nanoTime();
+            if (start >= measureFrom) {
+              stats.get(operation).record(end - start, ok);
+            }
+          }
+        });
+      }
+    }
+
+    report(stats, duration);
+    if (environment.getProperty("deviaje.loadtest.exit-on-finish", Boolean.class, true)) {
+      System.exit(SpringApplication.exit(applicationContext, () -> 0));
+    }
+  }
+
+  private boolean execute(RestClient client, Templates templates, Operation operation) {
+    try {
+      return switch (operation) {
+        case FLIGHT_BOOK_AND_PAY -> book(client, "/api/flights/book-and-pay",
+                templates.flight());
+        case HOTEL_BOOK_AND_PAY -> book(client, "/api/hotels/book-and-pay",
+                templates.hotel());
+        case BOOKING_DETAILS -> {
+          String reference = recentReference();
+          yield reference == null
+                  || get(client, "/api/bookings/" + reference + "/details");
+        }
+        case CLIENT_BOOKINGS -> get(client, "/api/bookings/client/" + templates.clientId());
+        case REACTIVE_CLIENT_BOOKINGS -> get(client,
+                "/api/reactive/bookings/client/" + templates.clientId());
+        case DASHBOARD -> get(client, "/api/dashboard/summary");
+        case WEBHOOK -> client.post()
+                .uri("/api/payments/webhook")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(templates.webhook())
+                .exchange((request, response) -> response.getStatusCode().is2xxSuccessful());
+      };
+    } catch (RuntimeException e) {
+      log.debug("Error en {}: {}", operation, e.getMessage());
+      return false;
+    }
+  }
+
+  private boolean book(RestClient client, String uri, String body) {
+    BookingReferenceResponse booking = client.post()
+            .uri(uri)
+            .contentType(MediaType.APPLICATION_JSON)
+            .header("Idempotency-Key", UUID.randomUUID().toString())
+            .body(body)
+            .exchange((request, response) -> response.getStatusCode().is2xxSuccessful()
+                    ? response.bodyTo(BookingReferenceResponse.class)
+                    : null);
+    if (booking == null || booking.bookingReference() == null) {
+      return false;
+    }
+    long index = referenceCount.getAndIncrement() % RECENT_REFERENCES;
+    recentReferences.set((int) index, booking.bookingReference());
+    return true;
+  }
+
+  private boolean get(RestClient client, String uri) {
+    // El cuerpo se lee completo: en los listados NDJSON la respuesta termina con el último
+    // elemento, así que se mide el listado completo
+    return client.get()
+            .uri(uri)
+            .exchange((request, response) -> {
+              response.getBody().readAllBytes();
+              return response.getStatusCode().is2xxSuccessful();
+            });
+  }
+
+  private String recentReference() {
+    long count = referenceCount.get();
+    if (count == 0) {
+      return null;
+    }
+    int bound = (int) Math.min(count, RECENT_REFERENCES);
+    return recentReferences.get(ThreadLocalRandom.current().nextInt(bound));
+  }
+
+  /**
+   * Arma la mezcla de operaciones según el peso de cada una.
+   */
+  private List<Operation> mix() {
+    List<Operation> mix = new ArrayList<>();
+    for (Operation operation : Operation.values()) {
+      int weight = environment.getProperty(
+              "deviaje.loadtest.weight." + operation.property, Integer.class,
+              operation.defaultWeight);
+      for (int i = 0; i < weight; i++) {
+        mix.add(operation);
+      }
+    }
+    if (mix.isEmpty()) {
+      throw new IllegalStateException(
+              "La mezcla de operaciones de la prueba de carga está vacía");
+    }
+    return mix;
+  }
+
+  private void report(Map<Operation, OperationStats> stats, Duration duration) {
+    double seconds = duration.toMillis() / 1000.0;
+    StringBuilder report = new StringBuilder("\nResultado de la prueba de carga\n");
+    report.append(String.format("%-26s %9s %8s %9s %9s %9s %9s %9s%n",
+            "operacion", "total", "errores", "ops/s", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+    long total = 0;
+    for (OperationStats operation : stats.values()) {
+      HistogramSnapshot snapshot = operation.timer.takeSnapshot();
+      long count = snapshot.count();
+      total += count;
+      report.append(String.format("%-26s %9d %8d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+              operation.operation, count, operation.errors.sum(), count / seconds,
+              percentile(snapshot, 0.5), percentile(snapshot, 0.95),
+              percentile(snapshot, 0.99), snapshot.max(TimeUnit.MILLISECONDS)));
+    }
+    report.append(String.format("%-26s %9d %8s %9.1f%n", "TOTAL", total, "", total / seconds));
+    log.info(report.toString());
+  }
+
+  private static double percentile(HistogramSnapshot snapshot, double percentile) {
+    for (ValueAtPercentile value : snapshot.percentileValues()) {
+      if (value.percentile() == percentile) {
+        return value.value(TimeUnit.MILLISECONDS);
+      }
+    }
+    return Double.NaN;
+  }
+
+  /**
+   * Operaciones de la prueba de carga y su peso por defecto en la mezcla.
+   */
+  private enum Operation {
+    FLIGHT_BOOK_AND_PAY("flight-book-and-pay", 3),
+    HOTEL_BOOK_AND_PAY("hotel-book-and-pay", 3),
+    BOOKING_DETAILS("booking-details", 10),
+    CLIENT_BOOKINGS("client-bookings", 0),
+    REACTIVE_CLIENT_BOOKINGS("reactive-client-bookings", 0),
+    DASHBOARD("dashboard", 2),
+    WEBHOOK("webhook", 2);
+
+    private final String property;
+
+    private final int defaultWeight;
+
+    Operation(String property, int defaultWeight) {
+      this.property = property;
+      this.defaultWeight = defaultWeight;
+    }
+  }
+
+  /**
+   * Latencias y errores de una operación. Solo se registran las solicitudes que
+   * empiezan después del calentamiento.
+   */
+  private final class OperationStats {
+
+    private final Operation operation;
+
+    private final Timer timer;
+
+    private final LongAdder errors = new LongAdder();
+
+    private OperationStats(Operation operation, Duration window) {
+      this.operation = operation;
+      this.timer = Timer.builder("deviaje.loadtest.latency")
+              .tag("operation", operation.property)
+              .publishPercentiles(0.5, 0.95, 0.99)
+              .distributionStatisticExpiry(window)
+              .distributionStatisticBufferLength(1)
+              .register(registry);
+    }
+
+    private void record(long nanos, boolean ok) {
+      timer.record(nanos, TimeUnit.NANOSECONDS);
+      if (!ok) {
+        errors.increment();
+      }
+    }
+  }
+
+  /**
+   * Cuerpos de las solicitudes, leídos de loadtest/*.json con valores distintos en
+   * cada uso para no repetir claves de idempotencia ni tokens de pago.
+   */
+  private static final class Templates {
+
+    private final String flight = read("loadtest/flight-book-and-pay.json");
+
+    private final String hotel = read("loadtest/hotel-book-and-pay.json");
+
+    private final String webhook = read("loadtest/webhook-payment.json");
+
+    private final int clients;
+
+    private Templates(int clients) {
+      this.clients = clients;
+    }
+
+    private int clientId() {
+      return ThreadLocalRandom.current().nextInt(1, clients + 1);
+    }
+
+    private String flight() {
+      LocalDate departure = LocalDate.now().plusDays(
+              ThreadLocalRandom.current().nextInt(15, 120));
+      return fill(flight)
+              .replace("{{departureDate}}", departure.toString())
+              .replace("{{arrivalDate}}", departure.plusDays(1).toString());
+    }
+
+    private String hotel() {
+      return fill(hotel);
+    }
+
+    private String webhook() {
+      return webhook.replace("{{paymentId}}", String.valueOf(
+              ThreadLocalRandom.current().nextLong(10_000_000_000L, 100_000_000_000L)));
+    }
+
+    private String fill(String template) {
+      return template
+              .replace("{{clientId}}", String.valueOf(clientId()))
+              .replace("{{uuid}}", UUID.randomUUID().toString());
+    }
+
+    private static String read(String path) {
+      try {
+        return new ClassPathResource(path).getContentAsString(StandardCharsets.UTF_8);
+      } catch (IOException e) {
+        throw new UncheckedIOException("No se pudo leer la plantilla " + path, e);
+      }
+    }
+  }
+}
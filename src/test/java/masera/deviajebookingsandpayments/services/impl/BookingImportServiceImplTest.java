@@ -0,0 +1,142 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import masera.deviajebookingsandpayments.dtos.imports.BookingImportResultDto;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.repositories.BookingRepository;
+import masera.deviajebookingsandpayments.services.interfaces.BookingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+class BookingImportServiceImplTest {
+
+    private BookingRepository bookingRepository;
+
+    private BookingImportServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        when(bookingRepository.findExistingReferences(anyCollection())).thenReturn(List.of());
+        service = newService(10, "secreto");
+    }
+
+    private BookingImportServiceImpl newService(int batchSize, String token) {
+        return new BookingImportServiceImpl(
+                bookingRepository,
+                mock(BookingService.class),
+                new ObjectMapper().findAndRegisterModules(),
+                mock(EntityManager.class),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                batchSize,
+                token);
+    }
+
+    private static InputStream rows(String... rows) {
+        return new ByteArrayInputStream(String.join("\n", rows).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String row(String reference, String totalAmount) {
+        return "{\"bookingReference\":\"" + reference + "\",\"type\":\"FLIGHT\","
+                + "\"status\":\"COMPLETED\",\"totalAmount\":" + totalAmount + "}";
+    }
+
+    @Test
+    void malformedRowIsReportedAndTheImportContinues() throws Exception {
+        BookingImportResultDto result = service.importBookings(rows(
+                row("F-1", "100"),
+                row("F-2", "\"no-es-un-numero\""),
+                row("F-3", "300")));
+
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(1, result.getErrors().size());
+    }
+
+    @Test
+    void existingReferencesAreSkipped() throws Exception {
+        when(bookingRepository.findExistingReferences(anyCollection())).thenReturn(List.of("F-1"));
+
+        BookingImportResultDto result = service.importBookings(rows(
+                row("F-1", "100"),
+                row("F-2", "200"),
+                row("F-2", "200")));
+
+        assertEquals(1, result.getImported());
+        assertEquals(2, result.getSkipped());
+        assertEquals(0, result.getFailed());
+    }
+
+    @Test
+    void failedBatchIsRetriedRowByRow() throws Exception {
+        when(bookingRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<BookingEntity> entities = invocation.getArgument(0);
+            boolean duplicate = entities.stream()
+                    .anyMatch(b -> "F-2".equals(b.getBookingReference()));
+            if (duplicate) {
+                throw new IllegalStateException("Duplicate entry 'F-2'");
+            }
+            return entities;
+        });
+
+        BookingImportResultDto result = service.importBookings(rows(
+                row("F-1", "100"),
+                row("F-2", "200"),
+                row("F-3", "300")));
+
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getFailed());
+        // El lote completo y luego cada una de sus filas
+        verify(bookingRepository, times(4)).saveAll(anyList());
+    }
+
+    @Test
+    void syntaxErrorStopsTheImportKeepingPreviousRows() throws Exception {
+        BookingImportResultDto result = service.importBookings(rows(
+                row("F-1", "100"),
+                "{\"bookingReference\": \"F-2\",,}",
+                row("F-3", "300")));
+
+        assertEquals(1, result.getImported());
+        assertEquals(1, result.getErrors().size());
+    }
+
+    @Test
+    void importRequiresTheConfiguredToken() {
+        assertDoesNotThrow(() -> service.checkAuthorization("secreto"));
+
+        ResponseStatusException wrong = assertThrows(ResponseStatusException.class,
+                () -> service.checkAuthorization("otro"));
+        assertEquals(HttpStatus.FORBIDDEN, wrong.getStatusCode());
+
+        assertThrows(ResponseStatusException.class, () -> service.checkAuthorization(null));
+    }
+
+    @Test
+    void importIsDisabledWithoutAConfiguredToken() {
+        BookingImportServiceImpl disabled = newService(10, "");
+
+        ResponseStatusException error = assertThrows(ResponseStatusException.class,
+                () -> disabled.checkAuthorization(""));
+        assertEquals(HttpStatus.FORBIDDEN, error.getStatusCode());
+    }
+}
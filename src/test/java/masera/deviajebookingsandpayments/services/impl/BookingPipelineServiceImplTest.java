@@ -0,0 +1,237 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import masera.deviajebookingsandpayments.dtos.payments.PaymentRequestDto;
+import masera.deviajebookingsandpayments.dtos.responses.BookingReferenceResponse;
+import masera.deviajebookingsandpayments.dtos.responses.PaymentResponseDto;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.entities.FlightBookingEntity;
+import masera.deviajebookingsandpayments.exceptions.MercadoPagoException;
+import masera.deviajebookingsandpayments.exceptions.UpstreamUnavailableException;
+import masera.deviajebookingsandpayments.repositories.BookingRepository;
+import masera.deviajebookingsandpayments.repositories.FlightBookingRepository;
+import masera.deviajebookingsandpayments.repositories.HotelBookingRepository;
+import masera.deviajebookingsandpayments.repositories.PaymentRepository;
+import masera.deviajebookingsandpayments.services.interfaces.BookingService;
+import masera.deviajebookingsandpayments.services.interfaces.CompensationService;
+import masera.deviajebookingsandpayments.services.interfaces.OutboxService;
+import masera.deviajebookingsandpayments.services.interfaces.PaymentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+class BookingPipelineServiceImplTest {
+
+    private static final Long BOOKING_ID = 7L;
+
+    private static final BookingEntity.BookingStage RESERVED = BookingEntity.BookingStage.RESERVED;
+
+    private static final BookingEntity.BookingStage PAYING =
+            BookingEntity.BookingStage.PAYMENT_IN_PROGRESS;
+
+    private BookingRepository bookingRepository;
+
+    private PaymentRepository paymentRepository;
+
+    private PaymentService paymentService;
+
+    private BookingService bookingService;
+
+    private CompensationService compensationService;
+
+    private OutboxService outboxService;
+
+    private BookingEntity booking;
+
+    private BookingPipelineServiceImpl pipeline;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        paymentRepository = mock(PaymentRepository.class);
+        paymentService = mock(PaymentService.class);
+        bookingService = mock(BookingService.class);
+        compensationService = mock(CompensationService.class);
+        outboxService = mock(OutboxService.class);
+        FlightBookingRepository flightBookingRepository = mock(FlightBookingRepository.class);
+        HotelBookingRepository hotelBookingRepository = mock(HotelBookingRepository.class);
+
+        booking = BookingEntity.builder()
+                .id(BOOKING_ID)
+                .bookingReference("FL-20251125-00007")
+                .type(BookingEntity.BookingType.FLIGHT)
+                .status(BookingEntity.BookingStatus.PENDING)
+                .stage(RESERVED)
+                .build();
+        when(bookingRepository.findById(BOOKING_ID)).thenReturn(Optional.of(booking));
+        when(bookingRepository.updateStage(eq(BOOKING_ID), any(), any(), any())).thenReturn(1);
+        when(flightBookingRepository.findByBookingEntityId(BOOKING_ID)).thenReturn(List.of(
+                FlightBookingEntity.builder().externalId("ORDEN-1").build()));
+        when(paymentService.processPayment(any()))
+                .thenReturn(PaymentResponseDto.builder().id(30L).build());
+
+        pipeline = new BookingPipelineServiceImpl(bookingRepository, paymentRepository,
+                flightBookingRepository, hotelBookingRepository, paymentService, bookingService,
+                compensationService, outboxService,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    }
+
+    private BookingReferenceResponse pay() {
+        return pipeline.payAndFinalize(booking, new PaymentRequestDto());
+    }
+
+    private void verifyFinalized(Long paymentId) {
+        verify(bookingService).updatePaymentWithBookingId(paymentId, BOOKING_ID);
+        verify(bookingRepository).updateStageAndStatus(eq(BOOKING_ID), eq(PAYING),
+                eq(BookingEntity.BookingStage.FINALIZED),
+                eq(BookingEntity.BookingStatus.CONFIRMED), any());
+        verify(outboxService).enqueueVoucher(BOOKING_ID);
+    }
+
+    private void verifyCompensated() {
+        verify(bookingRepository).updateStage(eq(BOOKING_ID), eq(PAYING),
+                eq(BookingEntity.BookingStage.FAILED), any());
+        verify(compensationService).compensateFlight(eq("ORDEN-1"),
+                eq(BookingEntity.BookingType.FLIGHT), anyString());
+        assertEquals(BookingEntity.BookingStatus.CANCELLED, booking.getStatus());
+    }
+
+    private void verifyNotCompensated() {
+        verify(bookingRepository, never()).updateStage(any(), any(),
+                eq(BookingEntity.BookingStage.FAILED), any());
+        verify(compensationService, never()).compensateFlight(any(), any(), any());
+    }
+
+    @Test
+    void approvedPaymentConfirmsTheBooking() {
+        assertEquals("FL-20251125-00007", pay().bookingReference());
+
+        verify(bookingRepository).updateStage(eq(BOOKING_ID), eq(RESERVED), eq(PAYING), any());
+        verifyFinalized(30L);
+        verifyNotCompensated();
+    }
+
+    @Test
+    void lostStageRaceIsRejectedWithoutCharging() {
+        when(bookingRepository.updateStage(eq(BOOKING_ID), eq(RESERVED), eq(PAYING), any()))
+                .thenReturn(0);
+
+        ResponseStatusException error = assertThrows(ResponseStatusException.class, this::pay);
+
+        assertEquals(HttpStatus.CONFLICT, error.getStatusCode());
+        verify(paymentService, never()).processPayment(any());
+        verifyNotCompensated();
+    }
+
+    @Test
+    void mercadoPagoServerErrorIsLeftForRecovery() {
+        MercadoPagoException error = new MercadoPagoException("Error interno", 502);
+        when(paymentService.processPayment(any())).thenThrow(error);
+
+        assertSame(error, assertThrows(MercadoPagoException.class, this::pay));
+
+        verifyNotCompensated();
+        verify(bookingRepository, never()).updateStageAndStatus(any(), any(), any(), any(), any());
+        assertEquals(BookingEntity.BookingStatus.PENDING, booking.getStatus());
+    }
+
+    @Test
+    void rejectedPaymentCompensatesRightAway() {
+        MercadoPagoException error = new MercadoPagoException("Fondos insuficientes", 402);
+        when(paymentService.processPayment(any())).thenThrow(error);
+
+        assertSame(error, assertThrows(MercadoPagoException.class, this::pay));
+
+        verifyCompensated();
+    }
+
+    @Test
+    void unavailableMercadoPagoCompensatesRightAway() {
+        UpstreamUnavailableException error =
+                new UpstreamUnavailableException("mercadopago", "Circuito abierto");
+        when(paymentService.processPayment(any())).thenThrow(error);
+
+        assertSame(error, assertThrows(UpstreamUnavailableException.class, this::pay));
+
+        verifyCompensated();
+    }
+
+    @Test
+    void compensationRunsOnlyForTheProcessThatFailsTheBooking() {
+        when(paymentService.processPayment(any()))
+                .thenThrow(new MercadoPagoException("Fondos insuficientes", 402));
+        when(bookingRepository.updateStage(eq(BOOKING_ID), eq(PAYING),
+                eq(BookingEntity.BookingStage.FAILED), any())).thenReturn(0);
+
+        assertThrows(MercadoPagoException.class, this::pay);
+
+        verify(compensationService, never()).compensateFlight(any(), any(), any());
+        assertEquals(BookingEntity.BookingStatus.PENDING, booking.getStatus());
+    }
+
+    @Test
+    void recoverySweepFinalizesAPaymentFoundInMercadoPago() {
+        booking.setStage(PAYING);
+        when(bookingRepository.findByStageInAndStageUpdatedAtBefore(any(), any()))
+                .thenReturn(List.of(booking));
+        when(paymentRepository.findByBookingEntityId(BOOKING_ID)).thenReturn(List.of());
+        when(paymentService.recoverBookingPayment(BOOKING_ID))
+                .thenReturn(Optional.of(PaymentResponseDto.builder().id(31L).build()));
+
+        sweep();
+
+        verifyFinalized(31L);
+        verifyNotCompensated();
+    }
+
+    @Test
+    void recoverySweepCompensatesWhenMercadoPagoHasNoPayment() {
+        booking.setStage(PAYING);
+        when(bookingRepository.findByStageInAndStageUpdatedAtBefore(any(), any()))
+                .thenReturn(List.of(booking));
+        when(paymentRepository.findByBookingEntityId(BOOKING_ID)).thenReturn(List.of());
+        when(paymentService.recoverBookingPayment(BOOKING_ID)).thenReturn(Optional.empty());
+
+        sweep();
+
+        verifyCompensated();
+        verify(bookingRepository, never()).updateStageAndStatus(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void recoverySweepLooksOnlyForStaleBookings() {
+        LocalDateTime before = LocalDateTime.now().minusMinutes(15);
+
+        sweep();
+
+        verify(bookingRepository).findByStageInAndStageUpdatedAtBefore(
+                eq(List.of(RESERVED, PAYING)),
+                argThat(limit -> !limit.isBefore(before)));
+        verify(paymentService, never()).recoverBookingPayment(any());
+    }
+
+    private void sweep() {
+        BookingRecoveryScheduledService recovery =
+                new BookingRecoveryScheduledService(bookingRepository, pipeline);
+        ReflectionTestUtils.setField(recovery, "staleAfterMs", 900_000L);
+        recovery.recoverStuckBookings();
+    }
+}
@@ -0,0 +1,108 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.entities.BookingReferenceSequenceEntity;
+import masera.deviajebookingsandpayments.repositories.BookingReferenceSequenceRepository;
+import masera.deviajebookingsandpayments.repositories.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class BookingReferenceAllocatorTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 11, 25);
+
+    private final Map<LocalDate, BookingReferenceSequenceEntity> sequences = new HashMap<>();
+
+    private BookingReferenceSequenceRepository sequenceRepository;
+
+    private BookingRepository bookingRepository;
+
+    private BookingReferenceAllocator allocator;
+
+    @BeforeEach
+    void setUp() {
+        sequenceRepository = mock(BookingReferenceSequenceRepository.class);
+        bookingRepository = mock(BookingRepository.class);
+        when(sequenceRepository.findBySequenceDate(any()))
+                .thenAnswer(call -> Optional.ofNullable(sequences.get(call.getArgument(0))));
+        when(sequenceRepository.save(any())).thenAnswer(call -> {
+            BookingReferenceSequenceEntity sequence = call.getArgument(0);
+            sequences.put(sequence.getSequenceDate(), sequence);
+            return sequence;
+        });
+        when(sequenceRepository.count()).thenAnswer(call -> (long) sequences.size());
+        when(bookingRepository.findMaxId()).thenReturn(24L);
+        allocator = new BookingReferenceAllocator(sequenceRepository, bookingRepository,
+                mock(PlatformTransactionManager.class), 3);
+    }
+
+    private long next(LocalDate day) {
+        return ReflectionTestUtils.<Long>invokeMethod(allocator, "nextValue", day);
+    }
+
+    @Test
+    void firstCounterContinuesFromTheHighestBookingId() {
+        assertEquals(25L, next(DAY));
+        assertEquals(26L, next(DAY));
+        assertEquals(28L, sequences.get(DAY).getNextValue());
+    }
+
+    @Test
+    void exhaustedBlockReservesTheNextOne() {
+        assertEquals(25L, next(DAY));
+        assertEquals(26L, next(DAY));
+        assertEquals(27L, next(DAY));
+        verify(sequenceRepository, times(1)).save(any());
+
+        assertEquals(28L, next(DAY));
+        verify(sequenceRepository, times(2)).save(any());
+        assertEquals(31L, sequences.get(DAY).getNextValue());
+    }
+
+    @Test
+    void dayChangeStartsANewCounterEvenWithValuesLeft() {
+        assertEquals(25L, next(DAY));
+
+        LocalDate tomorrow = DAY.plusDays(1);
+        assertEquals(1L, next(tomorrow));
+        assertEquals(2L, next(tomorrow));
+        assertEquals(4L, sequences.get(tomorrow).getNextValue());
+        assertEquals(28L, sequences.get(DAY).getNextValue());
+    }
+
+    @Test
+    void referenceCarriesThePrefixDateAndPaddedValue() {
+        String reference = allocator.nextReference(BookingEntity.BookingType.PACKAGE);
+
+        assertTrue(reference.matches("PK-\\d{8}-00025"), reference);
+    }
+
+    @Test
+    void refusesToAllocateInsideATransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThrows(IllegalStateException.class,
+                    () -> allocator.nextReference(BookingEntity.BookingType.FLIGHT));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        verify(sequenceRepository, never()).save(any());
+    }
+}
@@ -0,0 +1,225 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import masera.deviajebookingsandpayments.configs.MappersConfig;
+import masera.deviajebookingsandpayments.dtos.responses.BookingReferenceResponse;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.entities.BookingRequestEntity;
+import masera.deviajebookingsandpayments.exceptions.AmadeusApiException;
+import masera.deviajebookingsandpayments.exceptions.HotelBedsApiException;
+import masera.deviajebookingsandpayments.exceptions.MercadoPagoException;
+import masera.deviajebookingsandpayments.exceptions.UpstreamResponseTooLargeException;
+import masera.deviajebookingsandpayments.exceptions.UpstreamUnavailableException;
+import masera.deviajebookingsandpayments.repositories.BookingRequestRepository;
+import masera.deviajebookingsandpayments.services.interfaces.FlightBookingService;
+import masera.deviajebookingsandpayments.services.interfaces.HotelBookingService;
+import masera.deviajebookingsandpayments.services.interfaces.PackageBookingService;
+import masera.deviajebookingsandpayments.utils.JsonCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+class BookingRequestWorkerTest {
+
+    private static final int WORKERS = 2;
+
+    private static final String FLIGHT_PAYLOAD =
+            "{\"bookingRequest\": {}, \"paymentRequest\": {}, \"prices\": {}}";
+
+    private BookingRequestRepository repository;
+
+    private FlightBookingService flightBookingService;
+
+    private BookingRequestWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(BookingRequestRepository.class);
+        flightBookingService = mock(FlightBookingService.class);
+        worker = new BookingRequestWorker(repository, flightBookingService,
+                mock(HotelBookingService.class), mock(PackageBookingService.class),
+                new JsonCodec(new MappersConfig().objectMapper()),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                WORKERS, 600_000L, 72L);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        worker.shutdown();
+    }
+
+    private static BookingRequestEntity queuedRequest() {
+        return BookingRequestEntity.builder()
+                .id("solicitud-1")
+                .type(BookingEntity.BookingType.FLIGHT)
+                .status(BookingRequestEntity.RequestStatus.QUEUED)
+                .payload(FLIGHT_PAYLOAD)
+                .build();
+    }
+
+    private void process(BookingRequestEntity request) {
+        ReflectionTestUtils.invokeMethod(worker, "process", request, FLIGHT_PAYLOAD);
+    }
+
+    @Test
+    void claimedRequestIsProcessedAndSaved() {
+        BookingRequestEntity request = queuedRequest();
+        when(repository.lockQueued(1)).thenReturn(List.of(request), List.of());
+        when(flightBookingService.bookAndPay(any(), any(), any()))
+                .thenReturn(new BookingReferenceResponse("FL-20251125-00001"));
+
+        worker.wakeUp();
+
+        ArgumentCaptor<BookingRequestEntity> saved =
+                ArgumentCaptor.forClass(BookingRequestEntity.class);
+        verify(repository, timeout(2_000)).save(saved.capture());
+        assertEquals(BookingRequestEntity.RequestStatus.COMPLETED, saved.getValue().getStatus());
+        assertEquals("FL-20251125-00001", saved.getValue().getBookingReference());
+        assertNull(saved.getValue().getPayload());
+        assertNotNull(saved.getValue().getStartedAt());
+        assertNotNull(saved.getValue().getFinishedAt());
+        assertNull(saved.getValue().getLeaseExpiresAt());
+        verify(flightBookingService).bookAndPay(any(), any(), any());
+    }
+
+    @Test
+    void claimMarksTheRequestInProgressAndDropsThePayload() {
+        BookingRequestEntity request = queuedRequest();
+        when(repository.lockQueued(1)).thenReturn(List.of(request));
+
+        LocalDateTime before = LocalDateTime.now();
+        Object claimed = ReflectionTestUtils.invokeMethod(worker, "claimNext");
+
+        assertEquals(FLIGHT_PAYLOAD, ReflectionTestUtils.getField(claimed, "payload"));
+        assertNull(request.getPayload());
+        assertEquals(BookingRequestEntity.RequestStatus.PROCESSING, request.getStatus());
+        assertTrue(!request.getLeaseExpiresAt().isBefore(before.plusMinutes(10)));
+    }
+
+    @Test
+    void failedBookingIsSavedWithTheEndpointStatus() {
+        BookingRequestEntity request = queuedRequest();
+        when(flightBookingService.bookAndPay(any(), any(), any())).thenThrow(
+                new ResponseStatusException(HttpStatus.CONFLICT, "Oferta vencida"));
+
+        process(request);
+
+        assertEquals(BookingRequestEntity.RequestStatus.FAILED, request.getStatus());
+        assertEquals(409, request.getErrorStatus());
+        assertEquals("Oferta vencida", request.getErrorMessage());
+        verify(repository).save(request);
+    }
+
+    static Stream<Arguments> errors() {
+        return Stream.of(
+                Arguments.of(new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT), 504),
+                Arguments.of(new AmadeusApiException("Tarifa no disponible", 400, 0), 400),
+                Arguments.of(new HotelBedsApiException("Sin disponibilidad", 409), 409),
+                Arguments.of(new MercadoPagoException("Fondos insuficientes", 402), 402),
+                Arguments.of(new UpstreamUnavailableException("amadeus", "Circuito abierto"), 503),
+                Arguments.of(new UpstreamResponseTooLargeException("hotelbeds", 1024), 502),
+                Arguments.of(new IllegalStateException("Inesperado"), 500));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("errors")
+    void statusOfMapsEachErrorToTheEndpointStatus(Exception error, int status) {
+        assertEquals(status, (int) ReflectionTestUtils.<Integer>invokeMethod(
+                worker, "statusOf", error));
+    }
+
+    @Test
+    void unsavedResultIsRetriedBeforeFailingExpiredRequests() {
+        BookingRequestEntity request = queuedRequest();
+        when(flightBookingService.bookAndPay(any(), any(), any()))
+                .thenReturn(new BookingReferenceResponse("FL-20251125-00001"));
+        doThrow(new DataAccessResourceFailureException("Base no disponible"))
+                .doAnswer(call -> call.getArgument(0))
+                .when(repository).save(request);
+
+        process(request);
+        worker.cleanup();
+
+        verify(repository, times(2)).save(request);
+        assertEquals(BookingRequestEntity.RequestStatus.COMPLETED, request.getStatus());
+        verify(repository).failExpired(any(), anyString());
+    }
+
+    @Test
+    void expiredRequestsAreNotFailedWhileResultsRemainUnsaved() {
+        BookingRequestEntity request = queuedRequest();
+        when(flightBookingService.bookAndPay(any(), any(), any()))
+                .thenReturn(new BookingReferenceResponse("FL-20251125-00001"));
+        doThrow(new DataAccessResourceFailureException("Base no disponible"))
+                .when(repository).save(request);
+
+        process(request);
+        worker.cleanup();
+
+        verify(repository, times(2)).save(request);
+        verify(repository, never()).failExpired(any(), anyString());
+        verify(repository, never()).deleteFinishedBefore(any());
+    }
+
+    @Test
+    void wakeUpNeverStartsMoreWorkersThanConfigured() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger claiming = new AtomicInteger();
+        AtomicInteger maxClaiming = new AtomicInteger();
+        doAnswer(call -> {
+            maxClaiming.accumulateAndGet(claiming.incrementAndGet(), Math::max);
+            release.await(5, TimeUnit.SECONDS);
+            claiming.decrementAndGet();
+            return List.of();
+        }).when(repository).lockQueued(anyInt());
+
+        for (int i = 0; i < 10; i++) {
+            worker.wakeUp();
+        }
+        verify(repository, timeout(2_000).times(WORKERS)).lockQueued(anyInt());
+        Thread.sleep(200);
+
+        AtomicInteger activeWorkers =
+                (AtomicInteger) ReflectionTestUtils.getField(worker, "activeWorkers");
+        assertEquals(WORKERS, maxClaiming.get());
+        assertEquals(WORKERS, activeWorkers.get());
+
+        release.countDown();
+        for (int i = 0; i < 100 && activeWorkers.get() > 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, activeWorkers.get());
+        assertEquals(WORKERS, maxClaiming.get());
+    }
+}
@@ -0,0 +1,140 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityExistsException;
+import jakarta.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import masera.deviajebookingsandpayments.entities.IdempotencyKeyEntity;
+import masera.deviajebookingsandpayments.exceptions.AmadeusApiException;
+import masera.deviajebookingsandpayments.repositories.IdempotencyKeyRepository;
+import masera.deviajebookingsandpayments.utils.JsonCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+class IdempotencyServiceImplTest {
+
+    private static final Map<String, String> REQUEST = Map.of("oferta", "1");
+
+    private IdempotencyKeyRepository repository;
+
+    private EntityManager entityManager;
+
+    private IdempotencyServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(IdempotencyKeyRepository.class);
+        entityManager = mock(EntityManager.class);
+        service = new IdempotencyServiceImpl(
+                repository,
+                entityManager,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new JsonCodec(new ObjectMapper()));
+        ReflectionTestUtils.setField(service, "ttlHours", 24L);
+        ReflectionTestUtils.setField(service, "inProgressTimeoutMs", 180_000L);
+        ReflectionTestUtils.setField(service, "waitTimeoutMs", 1_000L);
+        ReflectionTestUtils.setField(service, "pollIntervalMs", 10L);
+    }
+
+    @Test
+    void failureBeforeContactingTheProviderReleasesTheKey() {
+        assertThrows(IllegalArgumentException.class, () -> service.execute(
+                "clave", "flights", REQUEST, String.class, () -> {
+                    throw new IllegalArgumentException("Oferta inválida");
+                }));
+
+        verify(repository).deleteById("flights:clave");
+    }
+
+    @Test
+    void failureAfterContactingTheProviderIsStoredAsFinalResponse() {
+        IdempotencyKeyEntity key = IdempotencyKeyEntity.builder()
+                .id("flights:clave")
+                .status(IdempotencyKeyEntity.IdempotencyStatus.IN_PROGRESS)
+                .build();
+        when(repository.findById("flights:clave")).thenReturn(Optional.of(key));
+
+        assertThrows(AmadeusApiException.class, () -> service.execute(
+                "clave", "flights", REQUEST, String.class, () -> {
+                    service.markSideEffect();
+                    throw new AmadeusApiException("Timeout al crear la orden", 504, 0);
+                }));
+
+        verify(repository, never()).deleteById(any());
+        assertEquals(IdempotencyKeyEntity.IdempotencyStatus.FAILED, key.getStatus());
+        assertEquals(504, key.getErrorStatus());
+        assertEquals("Timeout al crear la orden", key.getErrorMessage());
+    }
+
+    @Test
+    void storedFailureIsReplayedWithoutRunningTheOperation() throws Exception {
+        String requestHash = hashOf();
+        doThrow(new EntityExistsException()).when(entityManager).persist(any());
+        when(repository.findById("flights:clave")).thenReturn(Optional.of(
+                IdempotencyKeyEntity.builder()
+                        .id("flights:clave")
+                        .requestHash(requestHash)
+                        .status(IdempotencyKeyEntity.IdempotencyStatus.FAILED)
+                        .errorStatus(HttpStatus.PAYMENT_REQUIRED.value())
+                        .errorMessage("Pago rechazado")
+                        .expiresAt(LocalDateTime.now().plusHours(1))
+                        .build()));
+
+        ResponseStatusException error = assertThrows(ResponseStatusException.class,
+                () -> service.execute("clave", "flights", REQUEST, String.class, () -> {
+                    throw new AssertionError("La operación no debe ejecutarse");
+                }));
+
+        assertEquals(HttpStatus.PAYMENT_REQUIRED, error.getStatusCode());
+        assertEquals("Pago rechazado", error.getReason());
+    }
+
+    @Test
+    void markOutsideAnIdempotentOperationIsIgnored() {
+        service.markSideEffect();
+
+        assertEquals("ok", service.execute(null, "flights", REQUEST, String.class, () -> "ok"));
+    }
+
+    @Test
+    void leasesAreRefreshedOnlyWhileTheOperationRuns() {
+        service.refreshLeases();
+        verify(repository, never()).extendLease(anyCollection(), any(), any());
+
+        when(repository.findById("flights:clave")).thenReturn(Optional.empty());
+        service.execute("clave", "flights", REQUEST, String.class, () -> {
+            service.refreshLeases();
+            return "ok";
+        });
+
+        verify(repository).extendLease(anyCollection(),
+                eq(IdempotencyKeyEntity.IdempotencyStatus.IN_PROGRESS), any());
+    }
+
+    private static String hashOf() throws Exception {
+        byte[] body = new JsonCodec(new ObjectMapper()).write(REQUEST)
+                .getBytes(StandardCharsets.UTF_8);
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+    }
+}
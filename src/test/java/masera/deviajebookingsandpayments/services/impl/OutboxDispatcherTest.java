@@ -0,0 +1,250 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import masera.deviajebookingsandpayments.entities.OutboxEventEntity;
+import masera.deviajebookingsandpayments.repositories.BookingRepository;
+import masera.deviajebookingsandpayments.repositories.OutboxEventRepository;
+import masera.deviajebookingsandpayments.services.interfaces.EmailService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListenerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class OutboxDispatcherTest {
+
+    private static final long LEASE_MS = 300_000L;
+
+    private static final long BASE_BACKOFF_MS = 5_000L;
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private OutboxEventRepository repository;
+
+    private VoucherScheduledService voucherScheduledService;
+
+    private OutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(OutboxEventRepository.class);
+        voucherScheduledService = mock(VoucherScheduledService.class);
+        dispatcher = new OutboxDispatcher(repository, mock(BookingRepository.class),
+                voucherScheduledService, mock(EmailService.class),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                20, 2, LEASE_MS, BASE_BACKOFF_MS, MAX_ATTEMPTS);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.shutdown();
+    }
+
+    private OutboxEventEntity voucherEvent(int attempts) {
+        OutboxEventEntity event = OutboxEventEntity.builder()
+                .id(1L)
+                .eventType(OutboxEventEntity.EventType.BOOKING_VOUCHER)
+                .bookingId(10L)
+                .status(OutboxEventEntity.EventStatus.PROCESSING)
+                .attempts(attempts)
+                .build();
+        when(repository.findById(1L)).thenReturn(Optional.of(event));
+        return event;
+    }
+
+    private void process() {
+        ReflectionTestUtils.invokeMethod(dispatcher, "process", 1L);
+    }
+
+    private static void assertAvailableIn(OutboxEventEntity event, Duration delay,
+                                          LocalDateTime before) {
+        assertTrue(!event.getAvailableAt().isBefore(before.plus(delay))
+                && !event.getAvailableAt().isAfter(LocalDateTime.now().plus(delay)),
+                () -> "Disponible en " + event.getAvailableAt() + ", se esperaba " + delay);
+    }
+
+    @Test
+    void processedEventIsMarkedDone() throws Exception {
+        OutboxEventEntity event = voucherEvent(0);
+
+        process();
+
+        verify(voucherScheduledService).processVoucher(10L);
+        assertEquals(OutboxEventEntity.EventStatus.DONE, event.getStatus());
+        assertEquals(1, event.getAttempts());
+        assertTrue(event.getProcessedAt() != null);
+    }
+
+    @Test
+    void failedEventIsRetriedWithExponentialBackoff() throws Exception {
+        OutboxEventEntity event = voucherEvent(0);
+        doThrow(new IllegalStateException("SMTP caído"))
+                .when(voucherScheduledService).processVoucher(10L);
+
+        LocalDateTime before = LocalDateTime.now();
+        process();
+
+        assertEquals(OutboxEventEntity.EventStatus.PENDING, event.getStatus());
+        assertEquals(1, event.getAttempts());
+        assertEquals("SMTP caído", event.getLastError());
+        assertAvailableIn(event, Duration.ofMillis(BASE_BACKOFF_MS), before);
+
+        event.setStatus(OutboxEventEntity.EventStatus.PROCESSING);
+        before = LocalDateTime.now();
+        process();
+
+        assertEquals(2, event.getAttempts());
+        assertAvailableIn(event, Duration.ofMillis(2 * BASE_BACKOFF_MS), before);
+        verify(repository, times(2)).save(event);
+    }
+
+    @Test
+    void eventIsMarkedFailedAfterMaxAttempts() throws Exception {
+        OutboxEventEntity event = voucherEvent(MAX_ATTEMPTS - 1);
+        doThrow(new IllegalStateException("Reserva sin detalles"))
+                .when(voucherScheduledService).processVoucher(10L);
+
+        process();
+
+        assertEquals(OutboxEventEntity.EventStatus.FAILED, event.getStatus());
+        assertEquals(MAX_ATTEMPTS, event.getAttempts());
+        assertEquals("Reserva sin detalles", event.getLastError());
+        assertNull(event.getProcessedAt());
+    }
+
+    @Test
+    void eventWithExpiredLeaseIsClaimedAgain() {
+        LocalDateTime expired = LocalDateTime.now().minusMinutes(1);
+        OutboxEventEntity event = voucherEvent(0);
+        event.setAvailableAt(expired);
+        when(repository.lockAvailable(any(), anyInt())).thenReturn(List.of(event));
+
+        LocalDateTime before = LocalDateTime.now();
+        List<Long> claimed = ReflectionTestUtils.invokeMethod(dispatcher, "claimBatch");
+
+        assertEquals(List.of(1L), claimed);
+        assertEquals(OutboxEventEntity.EventStatus.PROCESSING, event.getStatus());
+        assertAvailableIn(event, Duration.ofMillis(LEASE_MS), before);
+    }
+
+    @Test
+    void enqueuedEventWakesTheWorkersWithoutATransaction() {
+        try (AnnotationConfigApplicationContext context = listenerContext()) {
+            new OutboxServiceImpl(repository, context).enqueueVoucher(10L);
+
+            verify(repository, timeout(1_000)).lockAvailable(any(), anyInt());
+        }
+    }
+
+    @Test
+    void enqueuedEventWakesTheWorkersOnlyAfterCommit() {
+        try (AnnotationConfigApplicationContext context = listenerContext()) {
+            TransactionSynchronizationManager.initSynchronization();
+            TransactionSynchronizationManager.setActualTransactionActive(true);
+            try {
+                new OutboxServiceImpl(repository, context).enqueueVoucher(10L);
+                verify(repository, after(200).never()).lockAvailable(any(), anyInt());
+
+                List<TransactionSynchronization> synchronizations =
+                        TransactionSynchronizationManager.getSynchronizations();
+                TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+                TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations,
+                        TransactionSynchronization.STATUS_COMMITTED);
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+                TransactionSynchronizationManager.setActualTransactionActive(false);
+            }
+
+            verify(repository, timeout(1_000)).lockAvailable(any(), anyInt());
+        }
+    }
+
+    private AnnotationConfigApplicationContext listenerContext() {
+        when(repository.save(any())).thenAnswer(call -> call.getArgument(0));
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.registerBean(TransactionalEventListenerFactory.class);
+        context.registerBean(OutboxDispatcher.class, () -> dispatcher);
+        context.refresh();
+        return context;
+    }
+
+    @Test
+    void lockAvailableSkipsLockedRowsAndReclaimsExpiredLeases() throws Exception {
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setJdbcUrl("jdbc:h2:mem:outbox;MODE=MySQL;DB_CLOSE_DELAY=-1");
+            dataSource.setMaximumPoolSize(2);
+            NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(dataSource);
+            jdbc.getJdbcTemplate().execute("CREATE TABLE outbox_events (id BIGINT PRIMARY KEY, "
+                    + "event_type VARCHAR(30), booking_id BIGINT, amount DECIMAL(10, 2), "
+                    + "status VARCHAR(20), attempts INT, available_at TIMESTAMP, "
+                    + "created_at TIMESTAMP, processed_at TIMESTAMP, last_error VARCHAR(500))");
+            LocalDateTime now = LocalDateTime.now();
+            insert(jdbc, 1, "PENDING", now.minusSeconds(1));
+            insert(jdbc, 2, "PROCESSING", now.minusSeconds(1));
+            insert(jdbc, 3, "PROCESSING", now.plusMinutes(5));
+            insert(jdbc, 4, "PENDING", now.plusMinutes(5));
+            insert(jdbc, 5, "DONE", now.minusSeconds(1));
+            insert(jdbc, 6, "FAILED", now.minusSeconds(1));
+            insert(jdbc, 7, "PENDING", now.minusSeconds(1));
+
+            String lockAvailable = OutboxEventRepository.class
+                    .getMethod("lockAvailable", LocalDateTime.class, int.class)
+                    .getAnnotation(Query.class).value();
+            Map<String, Object> params = Map.of("now", now, "limit", 10);
+
+            try (Connection other = dataSource.getConnection()) {
+                other.setAutoCommit(false);
+                try (Statement statement = other.createStatement()) {
+                    statement.executeQuery("SELECT * FROM outbox_events WHERE id = 7 FOR UPDATE");
+                }
+
+                List<Long> claimed = new TransactionTemplate(
+                        new DataSourceTransactionManager(dataSource))
+                        .execute(status -> jdbc.query(lockAvailable, params,
+                                (row, rowNumber) -> row.getLong("id")));
+
+                assertEquals(List.of(1L, 2L), claimed);
+                other.rollback();
+            } finally {
+                jdbc.getJdbcTemplate().execute("DROP TABLE outbox_events");
+            }
+        }
+    }
+
+    private static void insert(NamedParameterJdbcTemplate jdbc, long id, String status,
+                               LocalDateTime availableAt) {
+        jdbc.update("INSERT INTO outbox_events (id, event_type, booking_id, status, attempts, "
+                        + "available_at, created_at) VALUES (:id, 'BOOKING_VOUCHER', 10, "
+                        + ":status, 0, :availableAt, :availableAt)",
+                Map.of("id", id, "status", status, "availableAt", availableAt));
+    }
+}
@@ -0,0 +1,189 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import masera.deviajebookingsandpayments.clients.FlightClient;
+import masera.deviajebookingsandpayments.clients.HotelClient;
+import masera.deviajebookingsandpayments.dtos.bookings.CreatePackageBookingRequestDto;
+import masera.deviajebookingsandpayments.dtos.bookings.hotels.HotelBookingApi;
+import masera.deviajebookingsandpayments.dtos.bookings.hotels.HotelBookingResponse;
+import masera.deviajebookingsandpayments.dtos.upstream.AmadeusFlightOrderResponse;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.entities.CompensationEntity;
+import masera.deviajebookingsandpayments.exceptions.AmadeusApiException;
+import masera.deviajebookingsandpayments.exceptions.HotelBedsApiException;
+import masera.deviajebookingsandpayments.exceptions.UnconfirmedFlightOrderException;
+import masera.deviajebookingsandpayments.repositories.BookingRepository;
+import masera.deviajebookingsandpayments.services.interfaces.BookingPipelineService;
+import masera.deviajebookingsandpayments.services.interfaces.BookingService;
+import masera.deviajebookingsandpayments.services.interfaces.CompensationService;
+import masera.deviajebookingsandpayments.services.interfaces.FlightBookingService;
+import masera.deviajebookingsandpayments.services.interfaces.HotelBookingService;
+import masera.deviajebookingsandpayments.services.interfaces.IdempotencyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+class PackageBookingServiceImplTest {
+
+    private static final Object FLIGHT_REQUEST = Map.of("vuelo", "1");
+
+    private static final Map<String, Object> HOTEL_REQUEST = Map.of("hotel", "1");
+
+    private static final BookingEntity.BookingType PACKAGE = BookingEntity.BookingType.PACKAGE;
+
+    private FlightClient flightClient;
+
+    private HotelClient hotelClient;
+
+    private CompensationService compensationService;
+
+    private PackageBookingServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        flightClient = mock(FlightClient.class);
+        hotelClient = mock(HotelClient.class);
+        compensationService = mock(CompensationService.class);
+        FlightBookingService flightBookingService = mock(FlightBookingService.class);
+        HotelBookingService hotelBookingService = mock(HotelBookingService.class);
+        when(flightBookingService.prepareAmadeusBookingData(any())).thenReturn(FLIGHT_REQUEST);
+        when(flightBookingService.extractExternalId(any()))
+                .thenAnswer(call -> call.<AmadeusFlightOrderResponse>getArgument(0).getId());
+        when(hotelBookingService.prepareHotelBedsBookingRequest(any())).thenReturn(HOTEL_REQUEST);
+
+        service = new PackageBookingServiceImpl(
+                mock(BookingRepository.class),
+                mock(BookingService.class),
+                mock(BookingPipelineService.class),
+                flightBookingService,
+                hotelBookingService,
+                compensationService,
+                flightClient,
+                hotelClient,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                mock(IdempotencyService.class));
+        ReflectionTestUtils.setField(service, "reservationTimeoutMs", 200L);
+    }
+
+    private Object reserve() {
+        return ReflectionTestUtils.invokeMethod(service, "createProviderReservations",
+                new CreatePackageBookingRequestDto());
+    }
+
+    private static Mono<AmadeusFlightOrderResponse> flightOrder(String id) {
+        return Mono.just(AmadeusFlightOrderResponse.builder().id(id).build());
+    }
+
+    private static Mono<HotelBookingResponse> hotelBooking(String reference) {
+        HotelBookingApi booking = new HotelBookingApi();
+        booking.setReference(reference);
+        HotelBookingResponse response = new HotelBookingResponse();
+        response.setBooking(booking);
+        return Mono.just(response);
+    }
+
+    @Test
+    void bothReservationsAreReturnedWithoutCompensating() {
+        when(flightClient.createFlightOrder(FLIGHT_REQUEST)).thenReturn(flightOrder("ORDEN-1"));
+        when(hotelClient.createBooking(HOTEL_REQUEST)).thenReturn(hotelBooking("102-1"));
+
+        Object reservations = reserve();
+
+        assertEquals("ORDEN-1", ReflectionTestUtils.getField(reservations, "flightExternalId"));
+        verify(compensationService, never()).compensateFlight(any(), any(), any());
+        verify(compensationService, never()).compensateHotel(any(), any(), any());
+    }
+
+    @Test
+    void failedHotelCancelsTheFlight() {
+        HotelBedsApiException error = new HotelBedsApiException("Sin disponibilidad", 409);
+        when(flightClient.createFlightOrder(FLIGHT_REQUEST)).thenReturn(flightOrder("ORDEN-1"));
+        when(hotelClient.createBooking(HOTEL_REQUEST)).thenReturn(Mono.error(error));
+
+        assertSame(error, assertThrows(HotelBedsApiException.class, this::reserve));
+
+        verify(compensationService).compensateFlight(eq("ORDEN-1"), eq(PACKAGE), anyString());
+        verify(compensationService, never()).compensateHotel(any(), any(), any());
+        verify(compensationService, never()).recordTimedOutReservation(any(), any(), any(), any());
+    }
+
+    @Test
+    void failedFlightCancelsTheHotel() {
+        AmadeusApiException error = new AmadeusApiException("Tarifa no disponible", 400, 0);
+        when(flightClient.createFlightOrder(FLIGHT_REQUEST)).thenReturn(Mono.error(error));
+        when(hotelClient.createBooking(HOTEL_REQUEST)).thenReturn(hotelBooking("102-1"));
+
+        assertSame(error, assertThrows(AmadeusApiException.class, this::reserve));
+
+        verify(compensationService).compensateHotel(eq("102-1"), eq(PACKAGE), anyString());
+        verify(compensationService, never()).compensateFlight(any(), any(), any());
+        verify(compensationService, never()).recordUnconfirmedFlight(any(), any(), any());
+    }
+
+    @Test
+    void unreadableFlightOrderIsRecordedAndTheHotelCancelled() {
+        when(flightClient.createFlightOrder(FLIGHT_REQUEST)).thenReturn(Mono.error(
+                new UnconfirmedFlightOrderException("Respuesta ilegible", "{\"data\":")));
+        when(hotelClient.createBooking(HOTEL_REQUEST)).thenReturn(hotelBooking("102-1"));
+
+        assertThrows(UnconfirmedFlightOrderException.class, this::reserve);
+
+        verify(compensationService).recordUnconfirmedFlight(
+                eq("{\"data\":"), eq(PACKAGE), eq("Respuesta ilegible"));
+        verify(compensationService).compensateHotel(eq("102-1"), eq(PACKAGE), anyString());
+    }
+
+    @Test
+    void timedOutFlightIsRecordedForManualReviewWithTheRequest() {
+        when(flightClient.createFlightOrder(FLIGHT_REQUEST)).thenReturn(Mono.never());
+        when(hotelClient.createBooking(HOTEL_REQUEST)).thenReturn(hotelBooking("102-1"));
+
+        ResponseStatusException error = assertThrows(ResponseStatusException.class,
+                this::reserve);
+
+        assertEquals(HttpStatus.GATEWAY_TIMEOUT, error.getStatusCode());
+        verify(compensationService).recordTimedOutReservation(
+                eq(CompensationEntity.Provider.AMADEUS), eq(FLIGHT_REQUEST), eq(PACKAGE),
+                anyString());
+        verify(compensationService).compensateHotel(eq("102-1"), eq(PACKAGE), anyString());
+    }
+
+    @Test
+    void timedOutHotelIsRecordedForManualReviewAndTheFlightCancelled() {
+        when(flightClient.createFlightOrder(FLIGHT_REQUEST)).thenReturn(flightOrder("ORDEN-1"));
+        when(hotelClient.createBooking(HOTEL_REQUEST)).thenReturn(Mono.never());
+
+        ResponseStatusException error = assertThrows(ResponseStatusException.class,
+                this::reserve);
+
+        assertEquals(HttpStatus.GATEWAY_TIMEOUT, error.getStatusCode());
+        verify(compensationService).recordTimedOutReservation(
+                eq(CompensationEntity.Provider.HOTELBEDS), eq(HOTEL_REQUEST), eq(PACKAGE),
+                anyString());
+        verify(compensationService).compensateFlight(eq("ORDEN-1"), eq(PACKAGE), anyString());
+    }
+
+    @Test
+    void reservationTimeoutBelowTheClientReadTimeoutIsRejected() {
+        assertThrows(IllegalStateException.class, service::validateReservationTimeout);
+
+        ReflectionTestUtils.setField(service, "reservationTimeoutMs", 65_000L);
+        service.validateReservationTimeout();
+    }
+}
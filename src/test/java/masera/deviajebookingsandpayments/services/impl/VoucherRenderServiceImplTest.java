@@ -0,0 +1,201 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import masera.deviajebookingsandpayments.dtos.vouchers.VoucherContentDto;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.repositories.BookingRepository;
+import masera.deviajebookingsandpayments.services.interfaces.VoucherService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+class VoucherRenderServiceImplTest {
+
+    private static final Long BOOKING_ID = 5L;
+
+    private static final byte[] FIRST_PART = filled(20_000, 'a');
+
+    private static final byte[] SECOND_PART = filled(20_000, 'b');
+
+    private static final byte[] PDF = concat(FIRST_PART, SECOND_PART);
+
+    private final CountDownLatch firstPartWritten = new CountDownLatch(1);
+
+    private final CountDownLatch finishRender = new CountDownLatch(1);
+
+    private VoucherService voucherService;
+
+    private BookingRepository bookingRepository;
+
+    private VoucherRenderServiceImpl service;
+
+    private BookingEntity booking;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        voucherService = mock(VoucherService.class);
+        bookingRepository = mock(BookingRepository.class);
+        when(voucherService.buildVoucherContent(any()))
+                .thenReturn(VoucherContentDto.builder().bookingReference("FL-1").build());
+        doAnswer(call -> {
+            OutputStream outputStream = call.getArgument(1);
+            outputStream.write(FIRST_PART);
+            firstPartWritten.countDown();
+            assertTrue(finishRender.await(5, TimeUnit.SECONDS));
+            outputStream.write(SECOND_PART);
+            return null;
+        }).when(voucherService).renderPdf(any(), any(OutputStream.class));
+        when(bookingRepository.storeVoucherIfAbsent(eq(BOOKING_ID), any())).thenReturn(1);
+
+        service = new VoucherRenderServiceImpl(voucherService, bookingRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new SimpleMeterRegistry(), 1, 5);
+        booking = BookingEntity.builder().id(BOOKING_ID).build();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        finishRender.countDown();
+        service.shutdown();
+    }
+
+    private static byte[] filled(int length, char value) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) value);
+        return bytes;
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] bytes = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, bytes, first.length, second.length);
+        return bytes;
+    }
+
+    private static CompletableFuture<Void> download(StreamingResponseBody body,
+                                                    OutputStream outputStream) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                body.writeTo(outputStream);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Test
+    void partsReachTheClientWhileThePdfIsRendering() throws Exception {
+        ByteArrayOutputStream client = new ByteArrayOutputStream();
+        CompletableFuture<Void> download = download(service.streamVoucher(booking), client);
+
+        assertTrue(firstPartWritten.await(2, TimeUnit.SECONDS));
+        for (int i = 0; i < 100 && client.size() < FIRST_PART.length; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(FIRST_PART.length, client.size());
+
+        finishRender.countDown();
+        download.get(2, TimeUnit.SECONDS);
+
+        assertArrayEquals(PDF, client.toByteArray());
+        verify(bookingRepository, timeout(2_000)).storeVoucherIfAbsent(BOOKING_ID, PDF);
+    }
+
+    @Test
+    void slowClientDoesNotHoldTheRenderThread() throws Exception {
+        CountDownLatch releaseClient = new CountDownLatch(1);
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        OutputStream slowClient = new OutputStream() {
+            @Override
+            public void write(int b) {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                try {
+                    releaseClient.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                received.write(b, off, len);
+            }
+        };
+        finishRender.countDown();
+
+        CompletableFuture<Void> download = download(service.streamVoucher(booking), slowClient);
+
+        verify(bookingRepository, timeout(2_000)).storeVoucherIfAbsent(BOOKING_ID, PDF);
+        assertEquals(0, received.size());
+
+        releaseClient.countDown();
+        download.get(2, TimeUnit.SECONDS);
+        assertArrayEquals(PDF, received.toByteArray());
+    }
+
+    @Test
+    void failedRenderFailsTheDownloadWithoutStoring() throws Exception {
+        doThrow(new Exception("Fuente faltante"))
+                .when(voucherService).renderPdf(any(), any(OutputStream.class));
+
+        StreamingResponseBody body = service.streamVoucher(booking);
+
+        IOException error = assertThrows(IOException.class,
+                () -> body.writeTo(new ByteArrayOutputStream()));
+        assertEquals("Fuente faltante", error.getCause().getMessage());
+        verify(bookingRepository, never()).storeVoucherIfAbsent(any(), any());
+    }
+
+    @Test
+    void storedVoucherIsWrittenWithoutRendering() throws Exception {
+        booking.setVoucher(PDF);
+        ByteArrayOutputStream client = new ByteArrayOutputStream();
+
+        service.streamVoucher(booking).writeTo(client);
+
+        assertArrayEquals(PDF, client.toByteArray());
+        verify(voucherService, never()).renderPdf(any(), any(OutputStream.class));
+    }
+
+    @Test
+    void secondDownloadSharesTheRenderInProgress() throws Exception {
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        CompletableFuture<Void> firstDownload =
+                download(service.streamVoucher(booking), first);
+        assertTrue(firstPartWritten.await(2, TimeUnit.SECONDS));
+        CompletableFuture<Void> secondDownload =
+                download(service.streamVoucher(booking), second);
+
+        finishRender.countDown();
+        firstDownload.get(2, TimeUnit.SECONDS);
+        secondDownload.get(2, TimeUnit.SECONDS);
+
+        assertArrayEquals(PDF, first.toByteArray());
+        assertArrayEquals(PDF, second.toByteArray());
+        verify(voucherService).renderPdf(any(), any(OutputStream.class));
+    }
+}
@@ -0,0 +1,211 @@
+package masera.deviajebookingsandpayments.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import masera.deviajebookingsandpayments.configs.MappersConfig;
+import masera.deviajebookingsandpayments.dtos.vouchers.VoucherContentDto;
+import masera.deviajebookingsandpayments.entities.BookingEntity;
+import masera.deviajebookingsandpayments.entities.FlightBookingEntity;
+import masera.deviajebookingsandpayments.entities.HotelBookingEntity;
+import masera.deviajebookingsandpayments.repositories.BookingRepository;
+import masera.deviajebookingsandpayments.utils.HtmlPdfConverter;
+import masera.deviajebookingsandpayments.utils.JsonCodec;
+import masera.deviajebookingsandpayments.utils.VoucherPdfOutput;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * Compara los vouchers de los dos renderers: la cantidad de páginas tiene que coincidir
+ * y cada palabra del voucher HTML tiene que aparecer en el de layout y viceversa, sin
+ * importar el orden ni los cortes de línea.
+ */
+class VoucherRendererComparisonTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2025, 7, 1, 14, 23);
+
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+
+    private VoucherServiceImpl voucherService;
+
+    private HtmlVoucherPdfRenderer htmlRenderer;
+
+    private LayoutVoucherPdfRenderer layoutRenderer;
+
+    @BeforeEach
+    void setUp() {
+        VoucherPdfOutput voucherPdfOutput =
+                new VoucherPdfOutput(new SimpleMeterRegistry(), 9, true, true, 150);
+        htmlRenderer = new HtmlVoucherPdfRenderer(new HtmlPdfConverter(voucherPdfOutput, 0));
+        layoutRenderer = new LayoutVoucherPdfRenderer(voucherPdfOutput);
+        voucherService = new VoucherServiceImpl(bookingRepository,
+                new JsonCodec(new MappersConfig().objectMapper()), htmlRenderer,
+                voucherPdfOutput);
+    }
+
+    static Stream<Arguments> bookings() throws IOException {
+        return Stream.of(
+                Arguments.of("vuelo de ida", booking(BookingEntity.BookingType.FLIGHT, false)),
+                Arguments.of("vuelo de ida y vuelta",
+                        booking(BookingEntity.BookingType.FLIGHT, true)),
+                Arguments.of("hotel", booking(BookingEntity.BookingType.HOTEL, false)),
+                Arguments.of("paquete con vuelo de ida",
+                        booking(BookingEntity.BookingType.PACKAGE, false)),
+                Arguments.of("paquete con vuelo de ida y vuelta",
+                        booking(BookingEntity.BookingType.PACKAGE, true)));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("bookings")
+    void bothRenderersProduceTheSamePagesAndText(String name, BookingEntity booking)
+            throws Exception {
+        when(bookingRepository.findById(booking.getId())).thenReturn(Optional.of(booking));
+        VoucherContentDto content = voucherService.buildVoucherContent(booking);
+
+        List<String> htmlPages = pages(htmlRenderer.render(content));
+        List<String> layoutPages = pages(layoutRenderer.render(content));
+
+        assertEquals(htmlPages.size(), layoutPages.size(), "páginas");
+        assertEquals(words(htmlPages), words(layoutPages));
+    }
+
+    private static List<String> pages(byte[] pdf) throws IOException {
+        List<String> pages = new ArrayList<>();
+        try (PdfDocument document = new PdfDocument(
+                new PdfReader(new ByteArrayInputStream(pdf)))) {
+            for (int i = 1; i <= document.getNumberOfPages(); i++) {
+                pages.add(PdfTextExtractor.getTextFromPage(document.getPage(i)));
+            }
+        }
+        return pages;
+    }
+
+    /**
+     * Palabras del texto, sin importar el orden en que el layout las coloca. La flecha
+     * de la barra de confirmación se dibuja como guion con las fuentes estándar.
+     */
+    private static TreeSet<String> words(List<String> pages) {
+        TreeSet<String> words = new TreeSet<>();
+        for (String word : String.join(" ", pages).replace('→', '–').split("\\s+")) {
+            if (!word.isBlank()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static BookingEntity booking(BookingEntity.BookingType type, boolean roundTrip)
+            throws IOException {
+        BigDecimal total = new BigDecimal("1250.40");
+        BookingEntity booking = BookingEntity.builder()
+                .id(412L)
+                .bookingReference("DV-00000412")
+                .clientId(7)
+                .agentId(1)
+                .status(BookingEntity.BookingStatus.CONFIRMED)
+                .type(type)
+                .totalAmount(total)
+                .commission(new BigDecimal("125.04"))
+                .discount(BigDecimal.ZERO)
+                .taxes(new BigDecimal("262.58"))
+                .currency("ARS")
+                .holderName("Lucía Fernández")
+                .countryCallingCode("54")
+                .phone("3511234567")
+                .email("lucia.fernandez@example.com")
+                .createdDatetime(CREATED)
+                .stage(BookingEntity.BookingStage.FINALIZED)
+                .flightBookingEntities(new ArrayList<>())
+                .hotelBookingEntities(new ArrayList<>())
+                .paymentEntities(new ArrayList<>())
+                .build();
+        if (type != BookingEntity.BookingType.HOTEL) {
+            booking.getFlightBookingEntities().add(flight(booking, roundTrip));
+        }
+        if (type != BookingEntity.BookingType.FLIGHT) {
+            booking.getHotelBookingEntities().add(hotel(booking));
+        }
+        return booking;
+    }
+
+    /**
+     * Vuelo con los itinerarios y pasajeros de la plantilla de la prueba de carga, tal
+     * como los guarda FlightBookingServiceImpl.
+     */
+    private static FlightBookingEntity flight(BookingEntity booking, boolean roundTrip)
+            throws IOException {
+        String departure = "2025-09-15";
+        JsonNode request = new ObjectMapper().readTree(
+                new ClassPathResource("loadtest/flight-book-and-pay.json")
+                        .getContentAsString(StandardCharsets.UTF_8)
+                        .replace("{{clientId}}", "7")
+                        .replace("{{departureDate}}", departure)
+                        .replace("{{arrivalDate}}", "2025-09-16")
+                        .replace("{{uuid}}", "00000000-0000-0000-0000-000000000000"))
+                .path("bookingRequest");
+        return FlightBookingEntity.builder()
+                .id(booking.getId())
+                .bookingEntity(booking)
+                .externalId("eJzTd9f3NQ412")
+                .origin("EZE")
+                .destination("MAD")
+                .departureDate(departure + "T23:35")
+                .returnDate(roundTrip ? "2025-09-25T12:50" : null)
+                .carrier("AR")
+                .adults(1)
+                .children(0)
+                .infants(0)
+                .itineraries(request.path("flightOffer").path("itineraries").toString())
+                .travelers(request.path("travelers").toString())
+                .totalPrice(booking.getTotalAmount())
+                .taxes(booking.getTaxes())
+                .currency("USD")
+                .createdDatetime(CREATED)
+                .build();
+    }
+
+    private static HotelBookingEntity hotel(BookingEntity booking) {
+        LocalDate checkIn = LocalDate.of(2025, 9, 16);
+        return HotelBookingEntity.builder()
+                .id(booking.getId())
+                .bookingEntity(booking)
+                .externalId("102-4211931")
+                .hotelName("Hotel Catalonia Gran Vía")
+                .destinationName("Madrid")
+                .countryName("España")
+                .roomName("DOUBLE STANDARD")
+                .boardName("BED AND BREAKFAST")
+                .checkInDate(checkIn)
+                .checkOutDate(checkIn.plusDays(4))
+                .numberOfNights(4)
+                .numberOfRooms(1)
+                .adults(2)
+                .children(0)
+                .totalPrice(booking.getTotalAmount())
+                .taxes(booking.getTaxes())
+                .currency("EUR")
+                .createdDatetime(CREATED)
+                .build();
+    }
+}
@@ -0,0 +1,107 @@
+package masera.deviajebookingsandpayments.simulator;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Simulador de la API de Amadeus: token OAuth, verificación de precio y órdenes de vuelo.
+ * Las respuestas repiten la oferta recibida con el formato de Amadeus.
+ */
+@RestController
+@Profile("simulator")
+@RequiredArgsConstructor
+@RequestMapping("/simulator/amadeus")
+public class AmadeusSimulatorController {
+
+  private static final String PROVIDER = "amadeus";
+
+  private final ProviderSimulator providerSimulator;
+
+  /**
+   * Emite un token de acceso.
+   *
+   * @return token OAuth simulado
+   */
+  @PostMapping(value = "/v1/security/oauth2/token",
+          consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+  public Mono<ResponseEntity<Object>> token() {
+    return providerSimulator.respond("amadeus-auth", () -> Map.of(
+            "type", "amadeusOAuth2Token",
+            "access_token", "SIM-" + UUID.randomUUID(),
+            "token_type", "Bearer",
+            "expires_in", 1799), this::error);
+  }
+
+  /**
+   * Verifica el precio de las ofertas recibidas.
+   *
+   * @param request solicitud de flight-offers-pricing
+   * @return las mismas ofertas con el precio confirmado
+   */
+  @PostMapping("/v1/shopping/flight-offers/pricing")
+  public Mono<ResponseEntity<Object>> pricing(@RequestBody Map<String, Object> request) {
+    Object offers = data(request).getOrDefault("flightOffers", List.of());
+    return providerSimulator.respond(PROVIDER, () -> Map.of(
+            "data", Map.of(
+                    "type", "flight-offers-pricing",
+                    "flightOffers", offers)), this::error);
+  }
+
+  /**
+   * Crea una orden de vuelo.
+   *
+   * @param request solicitud de flight-order
+   * @return la orden creada
+   */
+  @PostMapping("/v1/booking/flight-orders")
+  public Mono<ResponseEntity<Object>> createOrder(@RequestBody Map<String, Object> request) {
+    Map<String, Object> data = data(request);
+    return providerSimulator.respond(PROVIDER, () -> Map.of(
+            "data", Map.of(
+                    "type", "flight-order",
+                    "id", "SIM" + UUID.randomUUID().toString().replace("-", ""),
+                    "associatedRecords", List.of(Map.of(
+                            "reference", SimulatorIds.recordLocator(),
+                            "originSystemCode", "GDS")),
+                    "flightOffers", data.getOrDefault("flightOffers", List.of()),
+                    "travelers", data.getOrDefault("travelers", List.of()))), this::error);
+  }
+
+  /**
+   * Cancela una orden de vuelo.
+   *
+   * @param orderId ID de la orden
+   * @return respuesta vacía
+   */
+  @DeleteMapping("/v1/booking/flight-orders/{orderId}")
+  public Mono<ResponseEntity<Object>> cancelOrder(@PathVariable String orderId) {
+    return providerSimulator.respond(PROVIDER, Map::of, this::error);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> data(Map<String, Object> request) {
+    return request.get("data") instanceof Map<?, ?> data
+            ? (Map<String, Object>) data
+            : Map.of();
+  }
+
+  private Object error(int status) {
+    return Map.of("errors", List.of(Map.of(
+            "status", status,
+            "code", 38189,
+            "title", "Internal error",
+            "detail", "Error simulado")));
+  }
+}
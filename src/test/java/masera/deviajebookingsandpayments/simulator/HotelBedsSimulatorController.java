@@ -0,0 +1,156 @@
+package masera.deviajebookingsandpayments.simulator;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Simulador de la API de HotelBeds: checkrates, creación, detalle y cancelación de
+ * reservas. Las reservas no se guardan; el detalle se arma a partir de la referencia.
+ */
+@RestController
+@Profile("simulator")
+@RequiredArgsConstructor
+@RequestMapping("/simulator/hotelbeds/hotel-api/1.0")
+public class HotelBedsSimulatorController {
+
+  private static final String PROVIDER = "hotelbeds";
+
+  private static final String CURRENCY = "EUR";
+
+  private final ProviderSimulator providerSimulator;
+
+  /**
+   * Verifica las tarifas recibidas.
+   *
+   * @param request solicitud de checkrates
+   * @return el hotel con las tarifas confirmadas
+   */
+  @PostMapping("/checkrates")
+  public Mono<ResponseEntity<Object>> checkRates(@RequestBody Map<String, Object> request) {
+    return providerSimulator.respond(PROVIDER,
+            () -> Map.of("hotel", hotel(rooms(request), randomNet())), this::error);
+  }
+
+  /**
+   * Crea una reserva.
+   *
+   * @param request solicitud de reserva
+   * @return la reserva confirmada
+   */
+  @PostMapping("/bookings")
+  public Mono<ResponseEntity<Object>> createBooking(@RequestBody Map<String, Object> request) {
+    return providerSimulator.respond(PROVIDER, () -> Map.of("booking", booking(
+            SimulatorIds.hotelReference(), "CONFIRMED", request)), this::error);
+  }
+
+  /**
+   * Obtiene el detalle de una reserva.
+   *
+   * @param reference referencia de la reserva
+   * @return la reserva
+   */
+  @GetMapping("/bookings/{reference}")
+  public Mono<ResponseEntity<Object>> getBooking(@PathVariable String reference) {
+    return providerSimulator.respond(PROVIDER,
+            () -> Map.of("booking", booking(reference, "CONFIRMED", Map.of())), this::error);
+  }
+
+  /**
+   * Cancela una reserva.
+   *
+   * @param reference referencia de la reserva
+   * @return la reserva cancelada
+   */
+  @DeleteMapping("/bookings/{reference}")
+  public Mono<ResponseEntity<Object>> cancelBooking(@PathVariable String reference) {
+    return providerSimulator.respond(PROVIDER,
+            () -> Map.of("booking", booking(reference, "CANCELLED", Map.of())), this::error);
+  }
+
+  private Map<String, Object> booking(String reference, String status,
+                                      Map<String, Object> request) {
+    BigDecimal net = randomNet();
+    Map<String, Object> booking = new LinkedHashMap<>();
+    booking.put("reference", reference);
+    booking.put("clientReference", request.getOrDefault("clientReference", "DEVIAJE"));
+    booking.put("creationDate", LocalDate.now().toString());
+    booking.put("status", status);
+    booking.put("modificationPolicies", Map.of("cancellation", true, "modification", true));
+    booking.put("holder", request.getOrDefault("holder",
+            Map.of("name", "SIMULADO", "surname", "TITULAR")));
+    booking.put("hotel", hotel(rooms(request), net));
+    booking.put("totalNet", net);
+    booking.put("pendingAmount", net);
+    booking.put("currency", CURRENCY);
+    return booking;
+  }
+
+  private Map<String, Object> hotel(List<Map<String, Object>> rooms, BigDecimal net) {
+    LocalDate checkIn = LocalDate.now().plusDays(30);
+    List<Map<String, Object>> hotelRooms = rooms.stream()
+            .map(room -> Map.<String, Object>of(
+                    "status", "CONFIRMED",
+                    "id", 1,
+                    "code", "DBL.ST",
+                    "name", "DOUBLE STANDARD",
+                    "paxes", room.getOrDefault("paxes", List.of()),
+                    "rates", List.of(Map.of(
+                            "rateKey", room.getOrDefault("rateKey", ""),
+                            "rateClass", "NOR",
+                            "net", net,
+                            "paymentType", "AT_WEB",
+                            "boardCode", "BB",
+                            "boardName", "BED AND BREAKFAST",
+                            "rooms", 1,
+                            "adults", 2,
+                            "children", 0))))
+            .toList();
+
+    Map<String, Object> hotel = new LinkedHashMap<>();
+    hotel.put("checkIn", checkIn.toString());
+    hotel.put("checkOut", checkIn.plusDays(3).toString());
+    hotel.put("code", 1533);
+    hotel.put("name", "Hotel Simulado");
+    hotel.put("categoryCode", "4EST");
+    hotel.put("destinationCode", "BUE");
+    hotel.put("destinationName", "Buenos Aires");
+    hotel.put("rooms", hotelRooms);
+    hotel.put("totalNet", net);
+    hotel.put("currency", CURRENCY);
+    return hotel;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Map<String, Object>> rooms(Map<String, Object> request) {
+    return request.get("rooms") instanceof List<?> rooms && !rooms.isEmpty()
+            ? (List<Map<String, Object>>) rooms
+            : List.of(Map.of());
+  }
+
+  private static BigDecimal randomNet() {
+    return BigDecimal.valueOf(ThreadLocalRandom.current().nextDouble(100, 500))
+            .setScale(2, RoundingMode.HALF_UP);
+  }
+
+  private Object error(int status) {
+    return Map.of("error", Map.of(
+            "code", "SYSTEM_ERROR",
+            "message", "Error simulado"));
+  }
+}
@@ -0,0 +1,123 @@
+package masera.deviajebookingsandpayments.simulator;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Latencia y errores simulados de los proveedores externos.
+ * La latencia de cada proveedor sigue una distribución log-normal definida por su
+ * mediana y su p99, y una fracción de las respuestas falla con el estado configurado.
+ * Se configura con deviaje.simulator.{proveedor}.* y los valores por defecto de
+ * deviaje.simulator.default.*.
+ */
+@Component
+@Profile("simulator")
+@RequiredArgsConstructor
+@Slf4j
+public class ProviderSimulator {
+
+  // Cuantil 0,99 de la normal estándar
+  private static final double Z_99 = 2.326;
+
+  private final Environment environment;
+
+  private final Map<String, Settings> settings = new ConcurrentHashMap<>();
+
+  /**
+   * Responde después de la latencia simulada, o con un error según la tasa configurada.
+   * La espera no bloquea hilos.
+   *
+   * @param provider nombre del proveedor
+   * @param body cuerpo de la respuesta exitosa
+   * @param errorBody cuerpo de la respuesta de error según el estado HTTP
+   * @return la respuesta simulada
+   */
+  public Mono<ResponseEntity<Object>> respond(String provider, Supplier<Object> body,
+                                              Function<Integer, Object> errorBody) {
+    Settings current = settings(provider);
+    return Mono.delay(current.sampleLatency())
+            .map(tick -> current.sampleFailure()
+                    ? ResponseEntity.status(current.errorStatus())
+                            .body(errorBody.apply(current.errorStatus()))
+                    : ResponseEntity.ok(body.get()));
+  }
+
+  /**
+   * Espera la latencia simulada en el hilo actual. Para clientes bloqueantes.
+   *
+   * @param provider nombre del proveedor
+   * @return el estado HTTP simulado, o null si la respuesta es exitosa
+   */
+  public Integer awaitBlocking(String provider) {
+    Settings current = settings(provider);
+    try {
+      Thread.sleep(current.sampleLatency());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return current.sampleFailure() ? current.errorStatus() : null;
+  }
+
+  /**
+   * Indica si ocurre un evento con la probabilidad configurada para el proveedor.
+   *
+   * @param provider nombre del proveedor
+   * @param key propiedad con la probabilidad, entre 0 y 1
+   * @return true si ocurre el evento
+   */
+  public boolean chance(String provider, String key) {
+    return ThreadLocalRandom.current().nextDouble() < property(provider, key, Double.class, 0.0);
+  }
+
+  private Settings settings(String provider) {
+    return settings.computeIfAbsent(provider, name -> {
+      Settings loaded = new Settings(
+              property(name, "latency-ms", Long.class, 100L),
+              property(name, "latency-p99-ms", Long.class, 400L),
+              property(name, "error-rate", Double.class, 0.0),
+              property(name, "error-status", Integer.class, 503));
+      log.info("Simulador de {}: {}", name, loaded);
+      return loaded;
+    });
+  }
+
+  private <T> T property(String provider, String key, Class<T> type, T defaultValue) {
+    T fallback = environment.getProperty("deviaje.simulator.default." + key, type, defaultValue);
+    return environment.getProperty("deviaje.simulator." + provider + "." + key, type, fallback);
+  }
+
+  /**
+   * Configuración de un proveedor simulado.
+   *
+   * @param medianMs latencia mediana
+   * @param p99Ms latencia p99
+   * @param errorRate fracción de respuestas con error, entre 0 y 1
+   * @param errorStatus estado HTTP de las respuestas con error
+   */
+  private record Settings(long medianMs, long p99Ms, double errorRate, int errorStatus) {
+
+    private Duration sampleLatency() {
+      if (medianMs <= 0) {
+        return Duration.ZERO;
+      }
+      double sigma = p99Ms > medianMs ? Math.log((double) p99Ms / medianMs) / Z_99 : 0;
+      double sample = medianMs * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian());
+      return Duration.ofMillis(Math.round(sample));
+    }
+
+    private boolean sampleFailure() {
+      return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package masera.deviajebookingsandpayments.simulator;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mercadopago.MercadoPagoConfig;
+import com.mercadopago.exceptions.MPApiException;
+import com.mercadopago.exceptions.MPException;
+import com.mercadopago.net.HttpMethod;
+import com.mercadopago.net.MPHttpClient;
+import com.mercadopago.net.MPRequest;
+import com.mercadopago.net.MPResponse;
+import jakarta.annotation.PostConstruct;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cliente HTTP del SDK de MercadoPago que responde localmente en lugar de llamar a la API.
+ * Simula la creación, consulta y búsqueda de pagos y los reembolsos. Una fracción de
+ * los pagos se rechaza según deviaje.simulator.mercadopago.rejection-rate.
+ */
+@Component
+@Profile("simulator")
+@RequiredArgsConstructor
+@Slf4j
+public class SimulatedMercadoPagoHttpClient implements MPHttpClient {
+
+  private static final String PROVIDER = "mercadopago";
+
+  private static final Pattern PAYMENT_PATH = Pattern.compile("/v1/payments/(\\d+)");
+
+  private static final Pattern REFUND_PATH = Pattern.compile("/v1/payments/(\\d+)/refunds");
+
+  private static final Map<String, List<String>> HEADERS =
+          Map.of("Content-Type", List.of("application/json"));
+
+  private final ProviderSimulator providerSimulator;
+
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Reemplaza el cliente HTTP del SDK por el simulado.
+   */
+  @PostConstruct
+  public void register() {
+    MercadoPagoConfig.setHttpClient(this);
+    log.info("SDK de MercadoPago conectado al simulador");
+  }
+
+  @Override
+  public MPResponse send(MPRequest request) throws MPException, MPApiException {
+    Integer errorStatus = providerSimulator.awaitBlocking(PROVIDER);
+    if (errorStatus != null) {
+      throw new MPApiException("Error simulado de MercadoPago", response(errorStatus,
+              Map.of("message", "Error simulado", "error", "internal_error",
+                      "status", errorStatus)));
+    }
+
+    String path = URI.create(request.getUri()).getPath();
+    HttpMethod method = request.getMethod();
+    JsonNode payload = payload(request);
+
+    Matcher refund = REFUND_PATH.matcher(path);
+    if (method == HttpMethod.POST && refund.matches()) {
+      return response(201, refund(Long.parseLong(refund.group(1)), payload));
+    }
+    if (method == HttpMethod.POST && path.equals("/v1/payments")) {
+      return response(201, createPayment(payload));
+    }
+    if (method == HttpMethod.GET && path.equals("/v1/payments/search")) {
+      return response(200, Map.of(
+              "paging", Map.of("total", 0, "limit", 30, "offset", 0),
+              "results", List.of()));
+    }
+    Matcher payment = PAYMENT_PATH.matcher(path);
+    if (method == HttpMethod.GET && payment.matches()) {
+      return response(200, payment(Long.parseLong(payment.group(1)), "approved",
+              "accredited", null));
+    }
+
+    log.warn("Ruta de MercadoPago no simulada: {} {}", method, path);
+    throw new MPApiException("Ruta no simulada", response(404,
+            Map.of("message", "resource not found", "error", "not_found", "status", 404)));
+  }
+
+  private Map<String, Object> createPayment(JsonNode payload) {
+    boolean rejected = providerSimulator.chance(PROVIDER, "rejection-rate");
+    Map<String, Object> payment = payment(SimulatorIds.paymentId(),
+            rejected ? "rejected" : "approved",
+            rejected ? "cc_rejected_insufficient_amount" : "accredited",
+            payload.path("transaction_amount").decimalValue());
+    payment.put("external_reference", payload.path("external_reference").asText(null));
+    payment.put("payment_method_id", payload.path("payment_method_id").asText(null));
+    payment.put("installments", payload.path("installments").asInt(1));
+    return payment;
+  }
+
+  private Map<String, Object> payment(long id, String status, String statusDetail,
+                                      Object amount) {
+    Map<String, Object> payment = new LinkedHashMap<>();
+    payment.put("id", id);
+    payment.put("status", status);
+    payment.put("status_detail", statusDetail);
+    payment.put("transaction_amount", amount);
+    payment.put("currency_id", "ARS");
+    return payment;
+  }
+
+  private Map<String, Object> refund(long paymentId, JsonNode payload) {
+    Map<String, Object> refund = new LinkedHashMap<>();
+    refund.put("id", SimulatorIds.paymentId());
+    refund.put("payment_id", paymentId);
+    refund.put("amount", payload.path("amount").decimalValue());
+    refund.put("status", "approved");
+    return refund;
+  }
+
+  private JsonNode payload(MPRequest request) {
+    if (request.getPayload() == null) {
+      return objectMapper.createObjectNode();
+    }
+    try {
+      return objectMapper.readTree(request.getPayload().toString());
+    } catch (JsonProcessingException e) {
+      return objectMapper.createObjectNode();
+    }
+  }
+
+  private MPResponse response(int status, Object body) throws MPException {
+    try {
+      return new MPResponse(status, HEADERS, objectMapper.writeValueAsString(body));
+    } catch (JsonProcessingException e) {
+      throw new MPException("Error al serializar la respuesta simulada", e);
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package masera.deviajebookingsandpayments.simulator;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generación de identificadores con el formato de los proveedores simulados.
+ */
+final class SimulatorIds {
+
+  private static final String LETTERS = "ABCDEFGHJKLMNPQRSTUVWXYZ";
+
+  private SimulatorIds() {
+  }
+
+  /**
+   * Localizador de seis letras, como los de las aerolíneas.
+   */
+  static String recordLocator() {
+    StringBuilder locator = new StringBuilder(6);
+    for (int i = 0; i < 6; i++) {
+      locator.append(LETTERS.charAt(ThreadLocalRandom.current().nextInt(LETTERS.length())));
+    }
+    return locator.toString();
+  }
+
+  /**
+   * Referencia de reserva de HotelBeds (número de agencia y número de reserva).
+   */
+  static String hotelReference() {
+    return "102-" + ThreadLocalRandom.current().nextInt(1_000_000, 10_000_000);
+  }
+
+  /**
+   * ID numérico de un pago de MercadoPago.
+   */
+  static long paymentId() {
+    return ThreadLocalRandom.current().nextLong(10_000_000_000L, 100_000_000_000L);
+  }
+}
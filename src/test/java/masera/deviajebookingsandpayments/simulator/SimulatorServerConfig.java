@@ -0,0 +1,44 @@
+package masera.deviajebookingsandpayments.simulator;
+
+import org.apache.catalina.connector.Connector;
+import org.apache.coyote.AbstractProtocol;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.tomcat.servlet.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Conector de Tomcat propio para los proveedores simulados.
+ * Las llamadas a los simuladores se atienden con sus propios hilos: así
+ * server.tomcat.threads.max limita solo a la aplicación medida, y un handler que
+ * bloquea esperando a un proveedor no le quita hilos al simulador que debe responderle.
+ */
+@Configuration
+@Profile("simulator")
+public class SimulatorServerConfig {
+
+  @Value("${deviaje.simulator.port:9063}")
+  private int port;
+
+  @Value("${deviaje.simulator.threads:200}")
+  private int threads;
+
+  /**
+   * Agrega el conector del simulador al Tomcat embebido.
+   *
+   * @return el customizer del servidor
+   */
+  @Bean
+  public WebServerFactoryCustomizer<TomcatServletWebServerFactory> simulatorConnector() {
+    return factory -> {
+      Connector connector = new Connector(TomcatServletWebServerFactory.DEFAULT_PROTOCOL);
+      connector.setPort(port);
+      if (connector.getProtocolHandler() instanceof AbstractProtocol<?> protocol) {
+        protocol.setMaxThreads(threads);
+      }
+      factory.addAdditionalConnectors(connector);
+    };
+  }
+}
@@ -0,0 +1,40 @@
+package masera.deviajebookingsandpayments.simulator;
+
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Simulador del servicio de usuarios.
+ */
+@RestController
+@Profile("simulator")
+@RequiredArgsConstructor
+@RequestMapping("/simulator/users")
+public class UsersSimulatorController {
+
+  private final ProviderSimulator providerSimulator;
+
+  /**
+   * Obtiene los datos básicos de un usuario.
+   *
+   * @param userId ID del usuario
+   * @return datos básicos simulados
+   */
+  @GetMapping("/api/users/{userId}")
+  public Mono<ResponseEntity<Object>> getUser(@PathVariable Integer userId) {
+    return providerSimulator.respond("users", () -> Map.of(
+            "id", userId,
+            "username", "usuario" + userId,
+            "firstName", "Usuario",
+            "lastName", "Simulado " + userId,
+            "email", "usuario" + userId + "@deviaje.test"), status -> Map.of(
+            "message", "Error simulado"));
+  }
+}
@@ -0,0 +1,123 @@
+package masera.deviajebookingsandpayments.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import masera.deviajebookingsandpayments.exceptions.UpstreamUnavailableException;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ExchangeFilterFunction limiter = limiter(1).forUpstream("amadeus");
+
+    private final ClientRequest request = ClientRequest.create(HttpMethod.GET,
+            URI.create("https://api.example.com/v1/offers")).build();
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit) {
+        return new AdaptiveConcurrencyLimiter(meterRegistry, true, initialLimit, 1, 10, 20,
+                1.5, 0.2);
+    }
+
+    private double inflight() {
+        return meterRegistry.get("deviaje.upstream.concurrency.inflight").gauge().value();
+    }
+
+    private double limit() {
+        return meterRegistry.get("deviaje.upstream.concurrency.limit").gauge().value();
+    }
+
+    private static DataBuffer buffer(String text) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ExchangeFunction responding(HttpStatus status, Flux<DataBuffer> body) {
+        return clientRequest -> Mono.just(ClientResponse.create(status).body(body).build());
+    }
+
+    @Test
+    void permitIsHeldUntilTheBodyCompletes() {
+        Sinks.Many<DataBuffer> body = Sinks.many().unicast().onBackpressureBuffer();
+        ClientResponse response = limiter.filter(request,
+                responding(HttpStatus.OK, body.asFlux())).block();
+
+        assertEquals(1.0, inflight());
+        assertThrows(UpstreamUnavailableException.class,
+                () -> limiter.filter(request, responding(HttpStatus.OK, Flux.empty())).block());
+
+        Mono<String> read = response.bodyToMono(String.class);
+        body.tryEmitNext(buffer("{\"data\":[]}"));
+        body.tryEmitComplete();
+
+        assertEquals("{\"data\":[]}", read.block());
+        assertEquals(0.0, inflight());
+    }
+
+    @Test
+    void releasedBodyFreesThePermit() {
+        ClientResponse response = limiter.filter(request,
+                responding(HttpStatus.OK, Flux.just(buffer("ignorado")))).block();
+
+        response.releaseBody().block();
+
+        assertEquals(0.0, inflight());
+    }
+
+    @Test
+    void failedExchangeFreesThePermitAndLowersTheLimit() {
+        ExchangeFilterFunction wide = limiter(10).forUpstream("amadeus");
+
+        assertThrows(IllegalStateException.class, () -> wide.filter(request,
+                clientRequest -> Mono.error(new IllegalStateException("conexión rechazada")))
+                .block());
+
+        assertEquals(0.0, inflight());
+        assertEquals(9.0, limit());
+    }
+
+    @Test
+    void serverErrorLowersTheLimitWhenHeadersArrive() {
+        ExchangeFilterFunction wide = limiter(10).forUpstream("amadeus");
+
+        ClientResponse response = wide.filter(request,
+                responding(HttpStatus.SERVICE_UNAVAILABLE, Flux.just(buffer("error")))).block();
+
+        assertEquals(9.0, limit());
+        assertEquals(1.0, inflight());
+
+        response.releaseBody().block();
+
+        assertEquals(0.0, inflight());
+    }
+
+    @Test
+    void upstreamsOnTheSameHostHaveSeparateLimits() {
+        AdaptiveConcurrencyLimiter shared = limiter(1);
+        shared.forUpstream("amadeus").filter(request,
+                responding(HttpStatus.OK, Flux.never())).block();
+
+        ClientResponse token = shared.forUpstream("amadeus-auth").filter(request,
+                responding(HttpStatus.OK, Flux.just(buffer("token")))).block();
+
+        assertEquals("token", token.bodyToMono(String.class).block());
+        assertEquals(1.0, meterRegistry.get("deviaje.upstream.concurrency.inflight")
+                .tag("upstream", "amadeus").gauge().value());
+        assertEquals(0.0, meterRegistry.get("deviaje.upstream.concurrency.inflight")
+                .tag("upstream", "amadeus-auth").gauge().value());
+    }
+}
@@ -0,0 +1,106 @@
+package masera.deviajebookingsandpayments.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+class RequestHedgerTest {
+
+    private static final String ENDPOINT = "amadeus.test";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    private RequestHedger hedger(boolean enabled, double budgetPercent, int maxBurst) {
+        return new RequestHedger(meterRegistry, enabled, budgetPercent, maxBurst, 1, 10);
+    }
+
+    private Supplier<Mono<Integer>> attempt(Duration delay) {
+        return () -> {
+            int number = attempts.incrementAndGet();
+            return Mono.delay(delay).thenReturn(number);
+        };
+    }
+
+    private double hedges(String result) {
+        return meterRegistry.get("deviaje.upstream.hedge")
+                .tag("endpoint", ENDPOINT).tag("result", result).counter().count();
+    }
+
+    /**
+     * Registra una respuesta rápida y espera a que el umbral del endpoint se recalcule.
+     */
+    private void warmUp(RequestHedger hedger) throws InterruptedException {
+        hedger.hedge(ENDPOINT, attempt(Duration.ofMillis(1))).block();
+        Thread.sleep(1100);
+        attempts.set(0);
+    }
+
+    @Test
+    void disabledHedgerSendsASingleAttempt() throws Exception {
+        RequestHedger hedger = hedger(false, 100, 10);
+        warmUp(hedger);
+
+        hedger.hedge(ENDPOINT, attempt(Duration.ofMillis(100))).block();
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void noHedgeUntilTheEndpointHasSamples() {
+        RequestHedger hedger = hedger(true, 100, 10);
+
+        hedger.hedge(ENDPOINT, attempt(Duration.ofMillis(100))).block();
+
+        assertEquals(1, attempts.get());
+        assertEquals(0.0, hedges("sent"));
+    }
+
+    @Test
+    void fasterSecondAttemptWins() throws Exception {
+        RequestHedger hedger = hedger(true, 100, 10);
+        warmUp(hedger);
+
+        Integer result = hedger.hedge(ENDPOINT, () -> attempts.incrementAndGet() == 1
+                ? Mono.delay(Duration.ofSeconds(2)).thenReturn(1)
+                : Mono.just(2)).block();
+
+        assertEquals(2, result);
+        assertEquals(1.0, hedges("sent"));
+        assertEquals(1.0, hedges("won"));
+    }
+
+    @Test
+    void failedSecondAttemptIsIgnored() throws Exception {
+        RequestHedger hedger = hedger(true, 100, 10);
+        warmUp(hedger);
+
+        Integer result = hedger.hedge(ENDPOINT, () -> attempts.incrementAndGet() == 1
+                ? Mono.delay(Duration.ofMillis(200)).thenReturn(1)
+                : Mono.<Integer>error(new IllegalStateException("timeout"))).block();
+
+        assertEquals(1, result);
+        assertEquals(0.0, hedges("won"));
+    }
+
+    @Test
+    void secondAttemptsStayWithinTheBudget() throws Exception {
+        // Cada solicitud suma media ficha y el balde guarda como máximo una
+        RequestHedger hedger = hedger(true, 50, 1);
+        warmUp(hedger);
+
+        for (int i = 0; i < 4; i++) {
+            hedger.hedge(ENDPOINT, attempt(Duration.ofMillis(60))).block();
+        }
+
+        // Fichas: warm-up 0.5, luego 1 (envía), 0.5, 1 (envía), 0.5
+        assertEquals(2.0, hedges("sent"));
+        assertEquals(6, attempts.get());
+    }
+}
@@ -0,0 +1,157 @@
+package masera.deviajebookingsandpayments.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import masera.deviajebookingsandpayments.exceptions.UpstreamUnavailableException;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private SingleFlightCache<String> cache(Duration ttl, Duration waitTimeout, int maxEntries) {
+        return new SingleFlightCache<>("test", ttl, waitTimeout, maxEntries, meterRegistry);
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("deviaje.upstream.cache.requests")
+                .tag("result", result).counter().count();
+    }
+
+    @Test
+    void concurrentLookupsShareOneLoad() throws Exception {
+        SingleFlightCache<String> cache = cache(Duration.ofMinutes(1), Duration.ofSeconds(5), 10);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        CompletableFuture<String> owner = CompletableFuture.supplyAsync(() ->
+                cache.get("oferta", () -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    await(release);
+                    return "precio";
+                }));
+        loading.await(5, TimeUnit.SECONDS);
+        CompletableFuture<String> waiter = CompletableFuture.supplyAsync(() ->
+                cache.get("oferta", () -> "otro"));
+
+        waitForCoalesced();
+        release.countDown();
+
+        assertEquals("precio", owner.get(5, TimeUnit.SECONDS));
+        assertEquals("precio", waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals(1.0, requests("coalesced"));
+    }
+
+    @Test
+    void storedValueIsReusedUntilItExpires() throws Exception {
+        SingleFlightCache<String> cache = cache(Duration.ofMillis(50), Duration.ofSeconds(1), 10);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", cache.get("k", () -> "v" + loads.incrementAndGet()));
+        assertEquals("v1", cache.get("k", () -> "v" + loads.incrementAndGet()));
+        Thread.sleep(100);
+        assertEquals("v2", cache.get("k", () -> "v" + loads.incrementAndGet()));
+
+        assertEquals(1.0, requests("hit"));
+        assertEquals(2.0, requests("miss"));
+    }
+
+    @Test
+    void errorsAreNotCached() {
+        SingleFlightCache<String> cache = cache(Duration.ofMinutes(1), Duration.ofSeconds(1), 10);
+
+        assertThrows(IllegalStateException.class, () -> cache.get("k", () -> {
+            throw new IllegalStateException("proveedor caído");
+        }));
+
+        assertEquals("ok", cache.get("k", () -> "ok"));
+    }
+
+    @Test
+    void errorInTheLoaderReleasesWaiters() throws Exception {
+        SingleFlightCache<String> cache = cache(Duration.ofMinutes(1), Duration.ofSeconds(5), 10);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> owner = CompletableFuture.supplyAsync(() ->
+                cache.get("k", () -> {
+                    loading.countDown();
+                    await(release);
+                    throw new StackOverflowError("simulado");
+                }));
+        loading.await(5, TimeUnit.SECONDS);
+        CompletableFuture<String> waiter = CompletableFuture.supplyAsync(() ->
+                cache.get("k", () -> "otro"));
+
+        waitForCoalesced();
+        release.countDown();
+
+        ExecutionException ownerError = assertThrows(ExecutionException.class,
+                () -> owner.get(5, TimeUnit.SECONDS));
+        ExecutionException waiterError = assertThrows(ExecutionException.class,
+                () -> waiter.get(5, TimeUnit.SECONDS));
+        assertSame(StackOverflowError.class, ownerError.getCause().getClass());
+        assertSame(StackOverflowError.class, waiterError.getCause().getClass());
+        assertEquals("ok", cache.get("k", () -> "ok"));
+    }
+
+    @Test
+    void waiterGivesUpAndDiscardsAStuckLoad() throws Exception {
+        SingleFlightCache<String> cache = cache(Duration.ofMinutes(1), Duration.ofMillis(100), 10);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> owner = CompletableFuture.supplyAsync(() ->
+                cache.get("k", () -> {
+                    loading.countDown();
+                    await(release);
+                    return "tarde";
+                }));
+        loading.await(5, TimeUnit.SECONDS);
+
+        assertThrows(UpstreamUnavailableException.class, () -> cache.get("k", () -> "otro"));
+        assertEquals("nuevo", cache.get("k", () -> "nuevo"));
+
+        release.countDown();
+        assertEquals("tarde", owner.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void fullCacheIsCleared() {
+        SingleFlightCache<String> cache = cache(Duration.ofMinutes(1), Duration.ofSeconds(1), 2);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("a", () -> "a" + loads.incrementAndGet());
+        cache.get("b", () -> "b" + loads.incrementAndGet());
+        cache.get("c", () -> "c" + loads.incrementAndGet());
+
+        assertEquals("a4", cache.get("a", () -> "a" + loads.incrementAndGet()));
+    }
+
+    private void waitForCoalesced() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (requests("coalesced") < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
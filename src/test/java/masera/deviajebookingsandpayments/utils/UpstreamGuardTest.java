@@ -0,0 +1,128 @@
+package masera.deviajebookingsandpayments.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import masera.deviajebookingsandpayments.exceptions.AmadeusApiException;
+import masera.deviajebookingsandpayments.exceptions.UpstreamUnavailableException;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+class UpstreamGuardTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofMillis(200);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final UpstreamGuard guard = new UpstreamGuard("test",
+            new UpstreamGuard.Settings(1, 0, Duration.ofMillis(50), 4, 4, 50,
+                    OPEN_DURATION, 1),
+            meterRegistry);
+
+    private double state() {
+        return meterRegistry.get("deviaje.upstream.circuit.state").gauge().value();
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.get("deviaje.upstream.rejected")
+                .tag("reason", reason).counter().count();
+    }
+
+    private String succeed() {
+        return guard.call(() -> "ok");
+    }
+
+    private void fail(RuntimeException error) {
+        assertThrows(error.getClass(), () -> guard.call(() -> {
+            throw error;
+        }));
+    }
+
+    private void open() {
+        succeed();
+        succeed();
+        fail(new IllegalStateException("caído"));
+        fail(new IllegalStateException("caído"));
+        assertEquals(1.0, state());
+    }
+
+    @Test
+    void opensWhenFailureRateReachesThreshold() {
+        succeed();
+        succeed();
+        fail(new IllegalStateException("caído"));
+        assertEquals(0.0, state());
+
+        fail(new IllegalStateException("caído"));
+
+        assertEquals(1.0, state());
+        assertThrows(UpstreamUnavailableException.class, this::succeed);
+        assertEquals(1.0, rejected("circuit_open"));
+    }
+
+    @Test
+    void clientErrorsDoNotCountAsFailures() {
+        for (int i = 0; i < 4; i++) {
+            fail(new AmadeusApiException("Solicitud inválida", 400, 477));
+        }
+
+        assertEquals(0.0, state());
+        assertEquals("ok", succeed());
+    }
+
+    @Test
+    void successfulTrialClosesTheCircuit() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+
+        assertEquals("ok", succeed());
+
+        assertEquals(0.0, state());
+        fail(new IllegalStateException("caído"));
+        assertEquals(0.0, state());
+    }
+
+    @Test
+    void failedTrialReopensTheCircuit() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+
+        fail(new IllegalStateException("caído"));
+
+        assertEquals(1.0, state());
+        assertThrows(UpstreamUnavailableException.class, this::succeed);
+    }
+
+    @Test
+    void halfOpenAdmitsOnlyTheTrialCalls() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+
+        Disposable trial = guard.protect(Mono.never()).subscribe();
+        assertEquals(2.0, state());
+        assertThrows(UpstreamUnavailableException.class, this::succeed);
+
+        trial.dispose();
+
+        assertEquals("ok", succeed());
+        assertEquals(0.0, state());
+    }
+
+    @Test
+    void fullBulkheadRejectsWithoutCallingUpstream() {
+        Disposable inFlight = guard.protect(Mono.never()).subscribe();
+
+        assertThrows(UpstreamUnavailableException.class,
+                () -> guard.protect(Mono.just("ok")).block());
+        assertThrows(UpstreamUnavailableException.class, this::succeed);
+        assertEquals(2.0, rejected("bulkhead_full"));
+        assertEquals(0.0, state());
+
+        inFlight.dispose();
+
+        assertEquals("ok", guard.protect(Mono.just("ok")).block());
+    }
+}
@@ -0,0 +1,124 @@
+package masera.deviajebookingsandpayments.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import masera.deviajebookingsandpayments.configs.MappersConfig;
+import masera.deviajebookingsandpayments.dtos.upstream.AmadeusFlightOrderResponse;
+import masera.deviajebookingsandpayments.dtos.upstream.AmadeusFlightPriceResponse;
+import masera.deviajebookingsandpayments.dtos.upstream.HotelBedsBookingDetailsResponse;
+import masera.deviajebookingsandpayments.dtos.upstream.HotelBedsCheckRateResponse;
+import masera.deviajebookingsandpayments.exceptions.AmadeusApiException;
+import masera.deviajebookingsandpayments.exceptions.HotelBedsApiException;
+import org.junit.jupiter.api.Test;
+
+class UpstreamResponseDecoderTest {
+
+    private final UpstreamResponseDecoder decoder =
+            new UpstreamResponseDecoder(new MappersConfig().objectMapper());
+
+    static byte[] fixture(String name) {
+        try (InputStream in = UpstreamResponseDecoderTest.class
+                .getResourceAsStream("/fixtures/" + name)) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo leer el fixture " + name, e);
+        }
+    }
+
+    private static byte[] json(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void decodesAmadeusFlightOrder() {
+        AmadeusFlightOrderResponse order =
+                decoder.decodeFlightOrder(fixture("amadeus/flight-order.json"));
+
+        assertEquals("eJzTd9f3NjIJdzUGAAp%2fAiY=", order.getId());
+        assertEquals("SZ7Q5E", order.getReference());
+        assertEquals(new BigDecimal("1436.55"), order.getGrandTotal());
+        assertEquals("USD", order.getCurrency());
+    }
+
+    @Test
+    void decodesAmadeusPricingAndKeepsTheBody() {
+        byte[] body = fixture("amadeus/flight-offers-pricing.json");
+
+        AmadeusFlightPriceResponse price = decoder.decodeFlightPrice(body);
+
+        assertEquals(new BigDecimal("1436.55"), price.getGrandTotal());
+        assertEquals("USD", price.getCurrency());
+        assertArrayEquals(body, price.getBody());
+    }
+
+    @Test
+    void decodesHotelBedsCheckRateWithNumericTotal() {
+        HotelBedsCheckRateResponse rate =
+                decoder.decodeCheckRate(fixture("hotelbeds/checkrates.json"));
+
+        assertEquals(new BigDecimal("612.48"), rate.getTotalNet());
+        assertEquals("EUR", rate.getCurrency());
+    }
+
+    @Test
+    void decodesHotelBedsBookingFromTheBookingLevel() {
+        HotelBedsBookingDetailsResponse booking =
+                decoder.decodeBookingDetails(fixture("hotelbeds/booking-details.json"));
+
+        assertEquals("102-4211931", booking.getReference());
+        assertEquals("CONFIRMED", booking.getStatus());
+        assertEquals(new BigDecimal("612.48"), booking.getTotalNet());
+        assertEquals("EUR", booking.getCurrency());
+    }
+
+    @Test
+    void onlyTheFirstOfferAndRecordAreRead() {
+        AmadeusFlightOrderResponse order = decoder.decodeFlightOrder(json("""
+                {"data": {
+                  "flightOffers": [
+                    {"price": {"grandTotal": "10.00", "currency": "EUR"}},
+                    {"price": {"grandTotal": "99.00", "currency": "USD"}}
+                  ],
+                  "associatedRecords": [{"reference": "AAA111"}, {"reference": "BBB222"}],
+                  "id": "orden-1"
+                }}
+                """));
+
+        assertEquals("orden-1", order.getId());
+        assertEquals("AAA111", order.getReference());
+        assertEquals(new BigDecimal("10.00"), order.getGrandTotal());
+        assertEquals("EUR", order.getCurrency());
+    }
+
+    @Test
+    void missingAndInvalidValuesAreNull() {
+        AmadeusFlightOrderResponse order = decoder.decodeFlightOrder(json("""
+                {"data": {"id": null, "flightOffers": [{"price": {"grandTotal": "N/A"}}]}}
+                """));
+
+        assertNull(order.getId());
+        assertNull(order.getReference());
+        assertNull(order.getGrandTotal());
+        assertNull(decoder.decodeCheckRate(new byte[0]).getTotalNet());
+    }
+
+    @Test
+    void malformedJsonIsReportedAsBadGateway() {
+        byte[] truncated = json("{\"data\": {\"id\": \"orden-1\", \"flightOffers\": [");
+
+        AmadeusApiException amadeus = assertThrows(AmadeusApiException.class,
+                () -> decoder.decodeFlightOrder(truncated));
+        HotelBedsApiException hotelBeds = assertThrows(HotelBedsApiException.class,
+                () -> decoder.decodeCheckRate(json("{\"hotel\": {\"totalNet\": }")));
+
+        assertEquals(502, amadeus.getStatusCode());
+        assertEquals(502, hotelBeds.getStatusCode());
+    }
+}
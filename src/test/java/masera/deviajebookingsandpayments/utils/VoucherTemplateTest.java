@@ -0,0 +1,94 @@
+package masera.deviajebookingsandpayments.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class VoucherTemplateTest {
+
+    @Test
+    void rendersFieldsBetweenFixedFragments() {
+        VoucherTemplate template = VoucherTemplate.compile("prueba",
+                "<p>{{holderName}} - {{bookingReference}}</p>", Map.of());
+
+        String html = template.render(Map.of(
+                "holderName", "Lucía Fernández",
+                "bookingReference", "HT-20250701-00412"));
+
+        assertEquals("<p>Lucía Fernández - HT-20250701-00412</p>", html);
+    }
+
+    @Test
+    void fieldNamesAreTrimmedAndCanRepeat() {
+        VoucherTemplate template = VoucherTemplate.compile("prueba",
+                "{{ code }}/{{code}}", Map.of());
+
+        assertEquals("MAD/MAD", template.render(Map.of("code", "MAD")));
+    }
+
+    @Test
+    void sharedPartsAreExpandedOnceAndMayHaveFields() {
+        VoucherTemplate template = VoucherTemplate.compile("prueba",
+                "<style>{{styles}}</style>{{footer}}",
+                Map.of("styles", "p{margin:0}", "footer", "<p>© {{year}} DeViaje</p>"));
+
+        String html = template.render(Map.of("year", "2025"));
+
+        assertEquals("<style>p{margin:0}</style><p>© 2025 DeViaje</p>", html);
+    }
+
+    @Test
+    void templateWithoutFieldsRendersAsIs() {
+        VoucherTemplate template = VoucherTemplate.compile("prueba", "<hr/>", Map.of());
+
+        assertEquals("<hr/>", template.render(Map.of()));
+    }
+
+    @Test
+    void nullValueRendersAsNullLikeConcatenation() {
+        Map<String, String> values = new HashMap<>();
+        values.put("remark", null);
+
+        String html = VoucherTemplate.compile("prueba", "<p>{{remark}}</p>", Map.of())
+                .render(values);
+
+        assertEquals("<p>null</p>", html);
+    }
+
+    @Test
+    void missingFieldIsReportedWithTheTemplateName() {
+        VoucherTemplate template = VoucherTemplate.compile("vouchers/hotel.html",
+                "{{holderName}} {{nights}}", Map.of());
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> template.render(Map.of("holderName", "Lucía")));
+
+        assertTrue(error.getMessage().contains("nights"), error.getMessage());
+        assertTrue(error.getMessage().contains("vouchers/hotel.html"), error.getMessage());
+    }
+
+    @Test
+    void unclosedMarkerIsRejectedAtCompileTime() {
+        assertThrows(IllegalArgumentException.class,
+                () -> VoucherTemplate.compile("prueba", "<p>{{holderName</p>", Map.of()));
+    }
+
+    @Test
+    void loadStripsIndentationAndLineBreaks() {
+        VoucherTemplate template = VoucherTemplate.load("vouchers/template-test.html", Map.of());
+
+        assertEquals("<html><body><p>Lucía</p></body></html>",
+                template.render(Map.of("name", "Lucía")));
+    }
+
+    @Test
+    void missingResourceIsReported() {
+        assertThrows(UncheckedIOException.class,
+                () -> VoucherTemplate.read("vouchers/no-existe.html"));
+    }
+}